@@ -1,8 +1,10 @@
 package org.task.jetbrainstask.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.task.jetbrainstask.models.ExecutionMode;
 
 import java.util.concurrent.Executor;
 
@@ -10,13 +12,46 @@ import java.util.concurrent.Executor;
 public class AsyncConfig {
 
     @Bean(name = "asyncExecutor")
-    public Executor asyncExecutor() {
+    public ThreadPoolTaskExecutor asyncExecutor(@Value("${query.async-executor.core-pool-size:4}") int corePoolSize,
+                                  @Value("${query.async-executor.max-pool-size:8}") int maxPoolSize,
+                                  @Value("${query.async-executor.queue-capacity:50}") int queueCapacity) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(4);
-        executor.setMaxPoolSize(8);
-        executor.setQueueCapacity(50);
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
         executor.setThreadNamePrefix("AsyncQuery-");
         executor.initialize();
         return executor;
     }
+
+    // Only sync workers take SyncPool connections, one per running query; streams and EXPLAIN lookups use their own
+    // pools. One worker per connection keeps excess queries waiting in the queue instead of timing out on the pool's
+    // short checkout.
+    @Bean(name = "syncQueryExecutor")
+    public Executor syncQueryExecutor(@Value("${query.sync-executor.queue-capacity:1000}") int queueCapacity,
+                                      @Value("${query.execution.mode:PLATFORM}") ExecutionMode mode,
+                                      @Value("${query.datasource.sync.maximum-pool-size:5}") int connections) {
+        if (mode == ExecutionMode.VIRTUAL) {
+            return ConnectionBoundedExecutor.virtual("SyncQuery-", connections);
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(connections);
+        executor.setMaxPoolSize(connections);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("SyncQuery-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "statusDeliveryExecutor")
+    public ThreadPoolTaskExecutor statusDeliveryExecutor(@Value("${query.events.delivery-threads:4}") int threads,
+                                                         @Value("${query.events.delivery-queue-capacity:10000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("StatusEvents-");
+        executor.initialize();
+        return executor;
+    }
 }
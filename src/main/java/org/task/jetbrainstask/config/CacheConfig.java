@@ -1,17 +1,72 @@
 package org.task.jetbrainstask.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.task.jetbrainstask.models.CachedQueryResult;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager("queryResults");
+    public CacheTableIndex cacheTableIndex() {
+        return new CacheTableIndex();
+    }
+
+    // A replaced entry keeps its key, and the same SQL reads the same tables, so only other removals prune the
+    // index. Stale entries the index misses are still never served, because every hit checks table versions.
+    // Pruning is a cheap map update, so it runs on the thread that evicts instead of the common pool.
+    @Bean
+    public CacheManager cacheManager(@Value("${query.cache.max-bytes:67108864}") long maxBytes, CacheTableIndex tableIndex) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager("queryResults");
+        cacheManager.setAllowNullValues(false);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher(CacheConfig::weigh)
+                .expireAfter(new PerEntryExpiry())
+                .executor(Runnable::run)
+                .removalListener((Object key, Object value, RemovalCause cause) -> {
+                    if (cause != RemovalCause.REPLACED && key instanceof String hash
+                            && value instanceof CachedQueryResult cached) {
+                        tableIndex.remove(hash, cached.getTableVersions().keySet());
+                    }
+                })
+                .recordStats());
+        return cacheManager;
+    }
+
+    private static int weigh(Object key, Object value) {
+        if (value instanceof CachedQueryResult cached) {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(1, cached.getWeightBytes()));
+        }
+        return 1;
+    }
+
+    private static class PerEntryExpiry implements Expiry<Object, Object> {
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            if (value instanceof CachedQueryResult cached && cached.getTtl() != null) {
+                return cached.getTtl().toNanos();
+            }
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
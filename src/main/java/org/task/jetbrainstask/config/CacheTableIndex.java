@@ -0,0 +1,41 @@
+package org.task.jetbrainstask.config;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Cache keys by the tables their results read. Keys are added on put and dropped by the cache's removal
+// listener, so the index never outlives the entries it points to.
+public class CacheTableIndex {
+
+    private final Map<String, Set<String>> keysByTable = new ConcurrentHashMap<>();
+
+    public void add(String key, Collection<String> tables) {
+        for (String table : tables) {
+            keysByTable.compute(table, (name, keys) -> {
+                Set<String> updated = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                updated.add(key);
+                return updated;
+            });
+        }
+    }
+
+    public void remove(String key, Collection<String> tables) {
+        for (String table : tables) {
+            keysByTable.computeIfPresent(table, (name, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    public Set<String> removeTable(String table) {
+        Set<String> keys = keysByTable.remove(table);
+        return keys != null ? keys : Set.of();
+    }
+
+    public int getKeyCount() {
+        return keysByTable.values().stream().mapToInt(Set::size).sum();
+    }
+}
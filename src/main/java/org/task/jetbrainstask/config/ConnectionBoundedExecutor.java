@@ -0,0 +1,53 @@
+package org.task.jetbrainstask.config;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+public class ConnectionBoundedExecutor implements Executor {
+
+    private final Executor threads;
+    private final Semaphore permits;
+    private final int limit;
+
+    public ConnectionBoundedExecutor(Executor threads, int limit) {
+        this.threads = threads;
+        this.limit = Math.max(1, limit);
+        this.permits = new Semaphore(this.limit, true);
+    }
+
+    public static ConnectionBoundedExecutor virtual(String threadNamePrefix, int limit) {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("query.execution.mode=VIRTUAL needs Java 21 or newer, running on "
+                    + Runtime.version());
+        }
+        return new ConnectionBoundedExecutor(new VirtualThreadTaskExecutor(threadNamePrefix), limit);
+    }
+
+    // Every task gets its own thread; the permit is taken on that thread, so waiting for a connection slot
+    // parks a cheap virtual thread instead of blocking the caller.
+    @Override
+    public void execute(Runnable task) {
+        threads.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getActiveCount() {
+        return limit - permits.availablePermits();
+    }
+
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+}
@@ -0,0 +1,101 @@
+package org.task.jetbrainstask.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.task.jetbrainstask.service.implementations.QueryExecutorImpl;
+import org.task.jetbrainstask.service.interfaces.QueryExecutor;
+
+import java.time.Duration;
+
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean(name = "syncDataSource")
+    @Primary
+    public HikariDataSource syncDataSource(DataSourceProperties properties,
+                                           @Value("${query.datasource.sync.maximum-pool-size:5}") int maximumPoolSize,
+                                           @Value("${query.datasource.sync.connection-timeout:2s}") Duration connectionTimeout) {
+        return pool(properties, "SyncPool", maximumPoolSize, connectionTimeout);
+    }
+
+    @Bean(name = "asyncDataSource")
+    public HikariDataSource asyncDataSource(DataSourceProperties properties,
+                                            @Value("${query.datasource.async.maximum-pool-size:8}") int maximumPoolSize,
+                                            @Value("${query.datasource.async.connection-timeout:30s}") Duration connectionTimeout) {
+        return pool(properties, "AsyncPool", maximumPoolSize, connectionTimeout);
+    }
+
+    // Streams hold their connection for as long as the client reads, so they get a pool of their own instead of
+    // taking SyncPool connections from the sync workers.
+    @Bean(name = "streamDataSource")
+    public HikariDataSource streamDataSource(DataSourceProperties properties,
+                                             @Value("${query.datasource.stream.maximum-pool-size:4}") int maximumPoolSize,
+                                             @Value("${query.datasource.stream.connection-timeout:30s}") Duration connectionTimeout) {
+        return pool(properties, "StreamPool", maximumPoolSize, connectionTimeout);
+    }
+
+    @Bean(name = "planDataSource")
+    public HikariDataSource planDataSource(DataSourceProperties properties,
+                                           @Value("${query.datasource.plan.maximum-pool-size:2}") int maximumPoolSize,
+                                           @Value("${query.datasource.plan.connection-timeout:2s}") Duration connectionTimeout) {
+        return pool(properties, "PlanPool", maximumPoolSize, connectionTimeout);
+    }
+
+    @Bean
+    @Primary
+    public JdbcTemplate jdbcTemplate(@Qualifier("syncDataSource") HikariDataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean(name = "asyncJdbcTemplate")
+    public JdbcTemplate asyncJdbcTemplate(@Qualifier("asyncDataSource") HikariDataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean(name = "streamJdbcTemplate")
+    public JdbcTemplate streamJdbcTemplate(@Qualifier("streamDataSource") HikariDataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean(name = "planJdbcTemplate")
+    public JdbcTemplate planJdbcTemplate(@Qualifier("planDataSource") HikariDataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean(name = "asyncQueryExecutor")
+    public QueryExecutor asyncQueryExecutor(@Qualifier("asyncJdbcTemplate") JdbcTemplate jdbcTemplate,
+                                            @Value("${query.executor.fetch-size:500}") int fetchSize,
+                                            @Value("${query.executor.default-timeout:5m}") Duration defaultTimeout) {
+        return new QueryExecutorImpl(jdbcTemplate, fetchSize, defaultTimeout);
+    }
+
+    @Bean(name = "streamQueryExecutor")
+    public QueryExecutor streamQueryExecutor(@Qualifier("streamJdbcTemplate") JdbcTemplate jdbcTemplate,
+                                             @Value("${query.executor.fetch-size:500}") int fetchSize,
+                                             @Value("${query.executor.default-timeout:5m}") Duration defaultTimeout) {
+        return new QueryExecutorImpl(jdbcTemplate, fetchSize, defaultTimeout);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, String name,
+                                         int maximumPoolSize, Duration connectionTimeout) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(name);
+        dataSource.setMaximumPoolSize(maximumPoolSize);
+        dataSource.setConnectionTimeout(connectionTimeout.toMillis());
+        return dataSource;
+    }
+}
@@ -1,50 +1,185 @@
 package org.task.jetbrainstask.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.task.jetbrainstask.models.QueryPriority;
 import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.QueryStatus;
 import org.task.jetbrainstask.service.implementations.QueryServiceImpl;
 import org.task.jetbrainstask.service.interfaces.QueryService;
+import org.task.jetbrainstask.service.interfaces.QueryStatusBroadcaster;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
 
 @RestController
 @RequestMapping("/execute")
 public class ExecuteController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final long MAX_WAIT_SECONDS = 300;
+    private static final QueryResult END_OF_BATCH = new QueryResult();
+
     private QueryService queryService;
+    private final ObjectMapper objectMapper;
+    private final QueryStatusBroadcaster statusBroadcaster;
+    private final Duration retryAfter;
+    private final int batchParallelism;
+    private final int batchMaxParallelism;
 
     private Logger log = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
-    public ExecuteController(QueryServiceImpl queryService) {
+    public ExecuteController(QueryServiceImpl queryService, ObjectMapper objectMapper,
+                             QueryStatusBroadcaster statusBroadcaster,
+                             @Value("${query.admission.retry-after:5s}") Duration retryAfter,
+                             @Value("${query.batch.parallelism:4}") int batchParallelism,
+                             @Value("${query.batch.max-parallelism:8}") int batchMaxParallelism) {
         this.queryService = queryService;
+        this.objectMapper = objectMapper;
+        this.statusBroadcaster = statusBroadcaster;
+        this.retryAfter = retryAfter;
+        this.batchParallelism = batchParallelism;
+        this.batchMaxParallelism = batchMaxParallelism;
     }
 
     @GetMapping()
-    public QueryResult executeQueryById(@RequestParam("query") long queryId) {
-        log.info("Executing query with ID={}", queryId);
+    public CompletableFuture<ResponseEntity<QueryResult>> executeQueryById(@RequestParam("query") long queryId,
+                                                                           @RequestParam(value = "timeout", required = false) Long timeoutSeconds,
+                                                                           @RequestParam(value = "priority", defaultValue = "NORMAL") QueryPriority priority,
+                                                                           @RequestHeader(value = "X-Client-Id", required = false) String clientId) {
+        log.info("Executing query with ID={} (priority={}, client={})", queryId, priority, clientId);
+        Duration timeout = timeoutSeconds == null ? null : Duration.ofSeconds(Math.max(1, timeoutSeconds));
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        return queryService.executeQueryByIdAsync(queryId, timeout, priority, clientId).thenApply(result -> {
+            if (result == null) {
+                log.warn("Query execution returned null result for ID={}", queryId);
+                return ResponseEntity.ok(QueryResult.error("Query execution returned null result "));
+            }
 
-        if (result == null) {
-            log.warn("Query execution returned null result for ID={}", queryId);
-            return QueryResult.error("Query execution returned null result ");
-        }
+            if (result.getStatus() == QueryStatus.REJECTED) {
+                log.warn("Query ID={} rejected, client asked to retry after {} s", queryId, retryAfter.toSeconds());
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter.toSeconds()))
+                        .body(result);
+            }
 
-        if (result.getData() == null || result.getData().isEmpty()) {
-            log.debug("Query ID={} executed successfully but returned no data", queryId);
-        } else {
-            log.info("Query ID={} executed successfully, rows={}",
-                    queryId, result.getData().size());
-        }
+            if (result.getData() == null || result.getData().isEmpty()) {
+                log.debug("Query ID={} executed successfully but returned no data", queryId);
+            } else {
+                log.info("Query ID={} executed successfully, rows={}",
+                        queryId, result.getData().size());
+            }
+
+            return ResponseEntity.ok(result);
+        });
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamQueryById(@RequestParam("query") long queryId,
+                                                                 @RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        QueryResultStreamWriter.Format streamFormat = QueryResultStreamWriter.Format.parse(format);
+        log.info("Streaming query with ID={} as {}", queryId, streamFormat);
+
+        StreamingResponseBody body = out -> {
+            QueryResultStreamWriter writer = new QueryResultStreamWriter(objectMapper, out, streamFormat, queryId);
+            QueryResult summary = queryService.streamQueryById(queryId, writer);
+            writer.finish(summary);
+            log.info("Query ID={} streamed, rows={}", queryId, writer.getRowCount());
+        };
+
+        return ResponseEntity.ok()
+                .contentType(streamFormat == QueryResultStreamWriter.Format.JSON ? MediaType.APPLICATION_JSON : NDJSON)
+                .body(body);
+    }
 
-        return result;
+    @PostMapping("/batch")
+    public ResponseEntity<StreamingResponseBody> executeBatch(@RequestBody List<Long> ids,
+                                                              @RequestParam(value = "parallelism", required = false) Integer parallelism,
+                                                              @RequestParam(value = "priority", defaultValue = "NORMAL") QueryPriority priority,
+                                                              @RequestHeader(value = "X-Client-Id", required = false) String clientId) {
+        int lanes = Math.max(1, Math.min(batchMaxParallelism, parallelism == null ? batchParallelism : parallelism));
+        log.info("Executing batch of {} queries on up to {} connections (priority={}, client={})",
+                ids.size(), lanes, priority, clientId);
+
+        BlockingQueue<QueryResult> ready = new LinkedBlockingQueue<>();
+        CompletableFuture<Void> done = queryService.executeBatch(ids, lanes, priority, clientId, ready::add);
+        done.whenComplete((ignored, ex) -> ready.add(END_OF_BATCH));
+
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            int written = 0;
+            try {
+                QueryResult result;
+                while ((result = ready.take()) != END_OF_BATCH) {
+                    writer.writeValue(out, result);
+                    out.write('\n');
+                    out.flush();
+                    written++;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            log.info("Batch of {} queries streamed, {} results written", ids.size(), written);
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToStatus(@RequestParam("ids") List<Long> ids) {
+        log.info("Subscribing to status events for IDs={}", ids);
+        return statusBroadcaster.subscribe(ids);
     }
 
     @GetMapping("/{id}")
-    public QueryResult getQueryExecution(@PathVariable long id) {
-        return queryService.getQueryExecution(id);
+    public ResponseEntity<StreamingResponseBody> getQueryExecution(@PathVariable long id) {
+        if (!queryService.isQueryExecutionSpooled(id)) {
+            QueryResult result = queryService.getQueryExecution(id);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(out, result));
+        }
+
+        StreamingResponseBody body = out -> {
+            QueryResultStreamWriter writer = new QueryResultStreamWriter(objectMapper, out, QueryResultStreamWriter.Format.JSON, id);
+            QueryResult summary = queryService.streamQueryExecution(id, writer);
+            writer.finish(summary);
+            log.info("Spooled result of query ID={} streamed, rows={}", id, writer.getRowCount());
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<QueryResult> cancelQuery(@PathVariable long id) {
+        QueryResult result = queryService.cancelQuery(id);
+        if (result.getStatus() == QueryStatus.CANCELLED) {
+            return ResponseEntity.accepted().body(result);
+        }
+        return ResponseEntity.status(result.getId() == null ? HttpStatus.NOT_FOUND : HttpStatus.CONFLICT).body(result);
+    }
+
+    @GetMapping("/{id}/wait")
+    public CompletableFuture<QueryResult> awaitQueryExecution(@PathVariable long id,
+                                                              @RequestParam(value = "timeout", defaultValue = "30") long timeoutSeconds) {
+        long seconds = Math.max(0, Math.min(timeoutSeconds, MAX_WAIT_SECONDS));
+        log.debug("Waiting up to {} s for query ID={}", seconds, id);
+        return queryService.awaitQueryExecution(id, Duration.ofSeconds(seconds));
     }
 
 }
@@ -3,11 +3,17 @@ package org.task.jetbrainstask.controllers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.task.jetbrainstask.models.QueryEntry;
 import org.task.jetbrainstask.service.implementations.QueryServiceImpl;
 import org.task.jetbrainstask.service.interfaces.QueryService;
 
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -24,11 +30,12 @@ public class QueriesController {
     }
 
     @PostMapping
-    public List<Map<String, Long>> addQueries(@RequestBody String requestBody) {
-        log.info("Received POST /queries with body length={} chars",
-                requestBody != null ? requestBody.length() : 0);
+    public List<Map<String, Long>> addQueries(InputStream requestBody,
+                                              @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) MediaType contentType) {
+        Charset charset = contentType != null && contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        log.info("Received POST /queries, reading the body as a stream of {}", charset);
 
-        List<Map<String, Long>> response = queriesService.addQueries(requestBody);
+        List<Map<String, Long>> response = queriesService.addQueries(new InputStreamReader(requestBody, charset));
 
         log.info("Added {} queries", response.size());
         return response;
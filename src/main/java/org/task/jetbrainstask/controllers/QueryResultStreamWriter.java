@@ -0,0 +1,115 @@
+package org.task.jetbrainstask.controllers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.service.interfaces.QueryRowHandler;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+class QueryResultStreamWriter implements QueryRowHandler {
+
+    enum Format {
+        JSON, NDJSON;
+
+        static Format parse(String value) {
+            return "json".equalsIgnoreCase(value) ? JSON : NDJSON;
+        }
+    }
+
+    private static final int FLUSH_EVERY_ROWS = 256;
+
+    private final JsonGenerator generator;
+    private final Format format;
+    private final long queryId;
+    private boolean headersWritten;
+    private long rowCount;
+
+    QueryResultStreamWriter(ObjectMapper objectMapper, OutputStream out, Format format, long queryId) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(out);
+        this.generator.setRootValueSeparator(null);
+        this.format = format;
+        this.queryId = queryId;
+    }
+
+    @Override
+    public void onHeaders(List<String> headers) {
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("id", queryId);
+            generator.writeArrayFieldStart("headers");
+            for (String header : headers) {
+                generator.writeString(header);
+            }
+            generator.writeEndArray();
+
+            if (format == Format.JSON) {
+                generator.writeArrayFieldStart("data");
+            } else {
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+            headersWritten = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onRow(Object[] values) {
+        try {
+            generator.writeStartArray();
+            for (Object value : values) {
+                generator.writeObject(value);
+            }
+            generator.writeEndArray();
+            if (format == Format.NDJSON) {
+                generator.writeRaw('\n');
+            }
+
+            if (++rowCount % FLUSH_EVERY_ROWS == 0) {
+                generator.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void finish(QueryResult summary) throws IOException {
+        if (format == Format.JSON && headersWritten) {
+            generator.writeEndArray();
+        } else {
+            generator.writeStartObject();
+            generator.writeNumberField("id", queryId);
+        }
+
+        if (format == Format.NDJSON) {
+            generator.writeNumberField("rows", rowCount);
+        }
+        if (summary.getStatus() != null) {
+            generator.writeStringField("status", summary.getStatus().name());
+        }
+        if (summary.getErrorMessage() != null) {
+            generator.writeStringField("errorMessage", summary.getErrorMessage());
+        }
+        if (summary.getExecutionTimeMs() != null) {
+            generator.writeNumberField("executionTimeMs", summary.getExecutionTimeMs());
+        }
+        if (summary.getEstimatedCost() != null) {
+            generator.writeNumberField("estimatedCost", summary.getEstimatedCost());
+        }
+        generator.writeEndObject();
+        if (format == Format.NDJSON) {
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+}
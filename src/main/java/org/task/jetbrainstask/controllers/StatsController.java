@@ -0,0 +1,137 @@
+package org.task.jetbrainstask.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.task.jetbrainstask.models.AdmissionStatistics;
+import org.task.jetbrainstask.models.AsyncPoolStatistics;
+import org.task.jetbrainstask.models.CacheStatistics;
+import org.task.jetbrainstask.models.ConnectionPoolStatistics;
+import org.task.jetbrainstask.models.ExecutionStatistics;
+import org.task.jetbrainstask.models.JournalStatistics;
+import org.task.jetbrainstask.models.LatencyStatistics;
+import org.task.jetbrainstask.models.RetentionStatistics;
+import org.task.jetbrainstask.models.SchedulerStatistics;
+import org.task.jetbrainstask.models.SharedScanStatistics;
+import org.task.jetbrainstask.models.SpoolStatistics;
+import org.task.jetbrainstask.service.interfaces.AsyncPoolTuner;
+import org.task.jetbrainstask.service.interfaces.AsyncQueryManager;
+import org.task.jetbrainstask.service.interfaces.ConnectionPoolMonitor;
+import org.task.jetbrainstask.service.interfaces.QueryAnalyzer;
+import org.task.jetbrainstask.service.interfaces.QueryCacheManager;
+import org.task.jetbrainstask.service.interfaces.QueryJournal;
+import org.task.jetbrainstask.service.interfaces.QueryManager;
+import org.task.jetbrainstask.service.interfaces.QueryRetention;
+import org.task.jetbrainstask.service.interfaces.QueryScheduler;
+import org.task.jetbrainstask.service.interfaces.ResultSpool;
+import org.task.jetbrainstask.service.interfaces.SharedScanExecutor;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+
+    private static final Logger log = LoggerFactory.getLogger(StatsController.class);
+    private final QueryCacheManager queryCacheManager;
+    private final QueryManager queryManager;
+    private final QueryAnalyzer queryAnalyzer;
+    private final AsyncQueryManager asyncQueryManager;
+    private final AsyncPoolTuner asyncPoolTuner;
+    private final ConnectionPoolMonitor connectionPoolMonitor;
+    private final QueryRetention queryRetention;
+    private final ResultSpool resultSpool;
+    private final QueryJournal queryJournal;
+    private final QueryScheduler queryScheduler;
+    private final SharedScanExecutor sharedScanExecutor;
+
+    @Autowired
+    public StatsController(QueryCacheManager queryCacheManager, QueryManager queryManager, QueryAnalyzer queryAnalyzer,
+                           AsyncQueryManager asyncQueryManager, AsyncPoolTuner asyncPoolTuner,
+                           ConnectionPoolMonitor connectionPoolMonitor, QueryRetention queryRetention,
+                           ResultSpool resultSpool, QueryJournal queryJournal, QueryScheduler queryScheduler,
+                           SharedScanExecutor sharedScanExecutor) {
+        this.queryCacheManager = queryCacheManager;
+        this.queryManager = queryManager;
+        this.queryAnalyzer = queryAnalyzer;
+        this.asyncQueryManager = asyncQueryManager;
+        this.asyncPoolTuner = asyncPoolTuner;
+        this.connectionPoolMonitor = connectionPoolMonitor;
+        this.queryRetention = queryRetention;
+        this.resultSpool = resultSpool;
+        this.queryJournal = queryJournal;
+        this.queryScheduler = queryScheduler;
+        this.sharedScanExecutor = sharedScanExecutor;
+    }
+
+    @GetMapping("/cache")
+    public CacheStatistics getCacheStatistics() {
+        log.debug("GET /stats/cache called");
+        return queryCacheManager.getStatistics();
+    }
+
+    @GetMapping("/executions")
+    public ExecutionStatistics getExecutionStatistics() {
+        log.debug("GET /stats/executions called");
+        return queryManager.getExecutionStatistics();
+    }
+
+    @GetMapping("/admission")
+    public AdmissionStatistics getAdmissionStatistics() {
+        log.debug("GET /stats/admission called");
+        return asyncQueryManager.getAdmissionStatistics();
+    }
+
+    @GetMapping("/async-pool")
+    public AsyncPoolStatistics getAsyncPoolStatistics() {
+        log.debug("GET /stats/async-pool called");
+        return asyncPoolTuner.getStatistics();
+    }
+
+    @GetMapping("/pools")
+    public List<ConnectionPoolStatistics> getConnectionPoolStatistics() {
+        log.debug("GET /stats/pools called");
+        return connectionPoolMonitor.getStatistics();
+    }
+
+    @GetMapping("/retention")
+    public RetentionStatistics getRetentionStatistics() {
+        log.debug("GET /stats/retention called");
+        return queryRetention.getStatistics();
+    }
+
+    @GetMapping("/spool")
+    public SpoolStatistics getSpoolStatistics() {
+        log.debug("GET /stats/spool called");
+        return resultSpool.getStatistics();
+    }
+
+    @GetMapping("/journal")
+    public JournalStatistics getJournalStatistics() {
+        log.debug("GET /stats/journal called");
+        return queryJournal.getStatistics();
+    }
+
+    @GetMapping("/scheduler")
+    public SchedulerStatistics getSchedulerStatistics() {
+        log.debug("GET /stats/scheduler called");
+        return queryScheduler.getStatistics();
+    }
+
+    @GetMapping("/shared-scans")
+    public SharedScanStatistics getSharedScanStatistics() {
+        log.debug("GET /stats/shared-scans called");
+        return sharedScanExecutor.getStatistics();
+    }
+
+    @GetMapping("/latency")
+    public List<LatencyStatistics> getLatencyStatistics(@RequestParam(value = "limit", defaultValue = "100") int limit) {
+        log.debug("GET /stats/latency called with limit={}", limit);
+        List<LatencyStatistics> statistics = queryAnalyzer.getLatencyStatistics();
+        return statistics.subList(0, Math.min(Math.max(limit, 0), statistics.size()));
+    }
+}
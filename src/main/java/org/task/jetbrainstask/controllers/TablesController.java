@@ -0,0 +1,30 @@
+package org.task.jetbrainstask.controllers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.task.jetbrainstask.models.TableInvalidation;
+import org.task.jetbrainstask.service.interfaces.QueryCacheManager;
+
+@RestController
+@RequestMapping("/tables")
+public class TablesController {
+
+    private static final Logger log = LoggerFactory.getLogger(TablesController.class);
+    private final QueryCacheManager queryCacheManager;
+
+    @Autowired
+    public TablesController(QueryCacheManager queryCacheManager) {
+        this.queryCacheManager = queryCacheManager;
+    }
+
+    @PostMapping("/{name}/changed")
+    public TableInvalidation tableChanged(@PathVariable String name) {
+        log.info("POST /tables/{}/changed called", name);
+        return queryCacheManager.invalidateTable(name);
+    }
+}
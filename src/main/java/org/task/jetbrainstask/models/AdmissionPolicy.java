@@ -0,0 +1,5 @@
+package org.task.jetbrainstask.models;
+
+public enum AdmissionPolicy {
+    REJECT, DEGRADE
+}
@@ -0,0 +1,59 @@
+package org.task.jetbrainstask.models;
+
+public class AdmissionStatistics {
+
+    private int maxPending;
+    private int pending;
+    private long admitted;
+    private long rejected;
+    private long queueWaitTotalMs;
+    private LatencyStatistics queueWait;
+
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    public void setMaxPending(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    public int getPending() {
+        return pending;
+    }
+
+    public void setPending(int pending) {
+        this.pending = pending;
+    }
+
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    public void setAdmitted(long admitted) {
+        this.admitted = admitted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getQueueWaitTotalMs() {
+        return queueWaitTotalMs;
+    }
+
+    public void setQueueWaitTotalMs(long queueWaitTotalMs) {
+        this.queueWaitTotalMs = queueWaitTotalMs;
+    }
+
+    public LatencyStatistics getQueueWait() {
+        return queueWait;
+    }
+
+    public void setQueueWait(LatencyStatistics queueWait) {
+        this.queueWait = queueWait;
+    }
+}
@@ -0,0 +1,115 @@
+package org.task.jetbrainstask.models;
+
+import java.util.List;
+
+public class AsyncPoolStatistics {
+
+    private int corePoolSize;
+    private int maxPoolSize;
+    private int minSize;
+    private int maxSize;
+    private int activeThreads;
+    private int queuedTasks;
+    private int activeConnections;
+    private int maxConnections;
+    private int connectionWaiters;
+    private long increases;
+    private long decreases;
+    private List<PoolResizeDecision> recentDecisions;
+
+    public int getCorePoolSize() {
+        return corePoolSize;
+    }
+
+    public void setCorePoolSize(int corePoolSize) {
+        this.corePoolSize = corePoolSize;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public void setMinSize(int minSize) {
+        this.minSize = minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public int getActiveThreads() {
+        return activeThreads;
+    }
+
+    public void setActiveThreads(int activeThreads) {
+        this.activeThreads = activeThreads;
+    }
+
+    public int getQueuedTasks() {
+        return queuedTasks;
+    }
+
+    public void setQueuedTasks(int queuedTasks) {
+        this.queuedTasks = queuedTasks;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public void setActiveConnections(int activeConnections) {
+        this.activeConnections = activeConnections;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getConnectionWaiters() {
+        return connectionWaiters;
+    }
+
+    public void setConnectionWaiters(int connectionWaiters) {
+        this.connectionWaiters = connectionWaiters;
+    }
+
+    public long getIncreases() {
+        return increases;
+    }
+
+    public void setIncreases(long increases) {
+        this.increases = increases;
+    }
+
+    public long getDecreases() {
+        return decreases;
+    }
+
+    public void setDecreases(long decreases) {
+        this.decreases = decreases;
+    }
+
+    public List<PoolResizeDecision> getRecentDecisions() {
+        return recentDecisions;
+    }
+
+    public void setRecentDecisions(List<PoolResizeDecision> recentDecisions) {
+        this.recentDecisions = recentDecisions;
+    }
+}
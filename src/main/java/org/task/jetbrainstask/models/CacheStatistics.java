@@ -0,0 +1,86 @@
+package org.task.jetbrainstask.models;
+
+public class CacheStatistics {
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long evictedBytes;
+    private long entryCount;
+    private long sizeBytes;
+    private long maxBytes;
+    private long collisionCount;
+    private long invalidationCount;
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public void setHitCount(long hitCount) {
+        this.hitCount = hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public void setMissCount(long missCount) {
+        this.missCount = missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public void setEvictionCount(long evictionCount) {
+        this.evictionCount = evictionCount;
+    }
+
+    public long getEvictedBytes() {
+        return evictedBytes;
+    }
+
+    public void setEvictedBytes(long evictedBytes) {
+        this.evictedBytes = evictedBytes;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(long entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public void setSizeBytes(long sizeBytes) {
+        this.sizeBytes = sizeBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getCollisionCount() {
+        return collisionCount;
+    }
+
+    public void setCollisionCount(long collisionCount) {
+        this.collisionCount = collisionCount;
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    public void setInvalidationCount(long invalidationCount) {
+        this.invalidationCount = invalidationCount;
+    }
+}
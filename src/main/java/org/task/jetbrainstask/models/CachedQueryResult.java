@@ -0,0 +1,46 @@
+package org.task.jetbrainstask.models;
+
+import java.time.Duration;
+import java.util.Map;
+
+public class CachedQueryResult {
+
+    private final String canonicalSql;
+    private final QueryResult result;
+    private final long weightBytes;
+    private final Duration ttl;
+    private final Map<String, Long> tableVersions;
+
+    public CachedQueryResult(String canonicalSql, QueryResult result, long weightBytes, Duration ttl) {
+        this(canonicalSql, result, weightBytes, ttl, Map.of());
+    }
+
+    public CachedQueryResult(String canonicalSql, QueryResult result, long weightBytes, Duration ttl,
+                             Map<String, Long> tableVersions) {
+        this.canonicalSql = canonicalSql;
+        this.tableVersions = tableVersions;
+        this.result = result;
+        this.weightBytes = weightBytes;
+        this.ttl = ttl;
+    }
+
+    public String getCanonicalSql() {
+        return canonicalSql;
+    }
+
+    public QueryResult getResult() {
+        return result;
+    }
+
+    public long getWeightBytes() {
+        return weightBytes;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public Map<String, Long> getTableVersions() {
+        return tableVersions;
+    }
+}
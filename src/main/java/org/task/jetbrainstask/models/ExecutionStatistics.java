@@ -0,0 +1,50 @@
+package org.task.jetbrainstask.models;
+
+public class ExecutionStatistics {
+
+    private long executionsStarted;
+    private long executionsSaved;
+    private long executionsDegraded;
+    private long executionsPromoted;
+    private long inFlight;
+
+    public long getExecutionsStarted() {
+        return executionsStarted;
+    }
+
+    public void setExecutionsStarted(long executionsStarted) {
+        this.executionsStarted = executionsStarted;
+    }
+
+    public long getExecutionsSaved() {
+        return executionsSaved;
+    }
+
+    public void setExecutionsSaved(long executionsSaved) {
+        this.executionsSaved = executionsSaved;
+    }
+
+    public long getExecutionsDegraded() {
+        return executionsDegraded;
+    }
+
+    public void setExecutionsDegraded(long executionsDegraded) {
+        this.executionsDegraded = executionsDegraded;
+    }
+
+    public long getExecutionsPromoted() {
+        return executionsPromoted;
+    }
+
+    public void setExecutionsPromoted(long executionsPromoted) {
+        this.executionsPromoted = executionsPromoted;
+    }
+
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    public void setInFlight(long inFlight) {
+        this.inFlight = inFlight;
+    }
+}
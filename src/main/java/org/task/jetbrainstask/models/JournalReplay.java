@@ -0,0 +1,22 @@
+package org.task.jetbrainstask.models;
+
+import java.util.List;
+
+public class JournalReplay {
+
+    private final List<QueryEntry> entries;
+    private final long nextId;
+
+    public JournalReplay(List<QueryEntry> entries, long nextId) {
+        this.entries = entries;
+        this.nextId = nextId;
+    }
+
+    public List<QueryEntry> getEntries() {
+        return entries;
+    }
+
+    public long getNextId() {
+        return nextId;
+    }
+}
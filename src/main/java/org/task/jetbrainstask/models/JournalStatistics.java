@@ -0,0 +1,59 @@
+package org.task.jetbrainstask.models;
+
+public class JournalStatistics {
+
+    private boolean enabled;
+    private long records;
+    private long syncs;
+    private long bytes;
+    private long compactions;
+    private long liveEntries;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public void setRecords(long records) {
+        this.records = records;
+    }
+
+    public long getSyncs() {
+        return syncs;
+    }
+
+    public void setSyncs(long syncs) {
+        this.syncs = syncs;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public long getCompactions() {
+        return compactions;
+    }
+
+    public void setCompactions(long compactions) {
+        this.compactions = compactions;
+    }
+
+    public long getLiveEntries() {
+        return liveEntries;
+    }
+
+    public void setLiveEntries(long liveEntries) {
+        this.liveEntries = liveEntries;
+    }
+}
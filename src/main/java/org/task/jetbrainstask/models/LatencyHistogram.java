@@ -0,0 +1,75 @@
+package org.task.jetbrainstask.models;
+
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 26 * SUB_BUCKETS;
+    private static final double EWMA_ALPHA = 0.2;
+
+    // Bucket i >= 1 covers [2^((i-1)/4), 2^(i/4)) ms, about 19% relative error up to ~18 hours.
+    private final int[] counts = new int[BUCKETS];
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max;
+    private double ewma;
+
+    public synchronized void record(long durationMs) {
+        long value = Math.max(0, durationMs);
+        counts[bucketOf(value)]++;
+        ewma = count == 0 ? value : ewma + EWMA_ALPHA * (value - ewma);
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public synchronized long percentile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, Math.max(min, upperBound(i)));
+            }
+        }
+        return max;
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getEwma() {
+        return ewma;
+    }
+
+    public synchronized LatencyStatistics toStatistics(String query) {
+        LatencyStatistics statistics = new LatencyStatistics();
+        statistics.setQuery(query);
+        statistics.setCount(count);
+        statistics.setP50Ms(percentile(0.50));
+        statistics.setP95Ms(percentile(0.95));
+        statistics.setP99Ms(percentile(0.99));
+        statistics.setEwmaMs(Math.round(ewma * 10) / 10.0);
+        statistics.setMaxMs(max);
+        return statistics;
+    }
+
+    static int bucketOf(long value) {
+        if (value < 1) {
+            return 0;
+        }
+        int bucket = (int) (Math.log(value) / Math.log(2) * SUB_BUCKETS) + 1;
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket) {
+        return bucket == 0 ? 0 : (long) Math.ceil(Math.pow(2, (double) bucket / SUB_BUCKETS));
+    }
+}
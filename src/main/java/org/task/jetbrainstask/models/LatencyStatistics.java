@@ -0,0 +1,68 @@
+package org.task.jetbrainstask.models;
+
+public class LatencyStatistics {
+
+    private String query;
+    private long count;
+    private long p50Ms;
+    private long p95Ms;
+    private long p99Ms;
+    private double ewmaMs;
+    private long maxMs;
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getP50Ms() {
+        return p50Ms;
+    }
+
+    public void setP50Ms(long p50Ms) {
+        this.p50Ms = p50Ms;
+    }
+
+    public long getP95Ms() {
+        return p95Ms;
+    }
+
+    public void setP95Ms(long p95Ms) {
+        this.p95Ms = p95Ms;
+    }
+
+    public long getP99Ms() {
+        return p99Ms;
+    }
+
+    public void setP99Ms(long p99Ms) {
+        this.p99Ms = p99Ms;
+    }
+
+    public double getEwmaMs() {
+        return ewmaMs;
+    }
+
+    public void setEwmaMs(double ewmaMs) {
+        this.ewmaMs = ewmaMs;
+    }
+
+    public long getMaxMs() {
+        return maxMs;
+    }
+
+    public void setMaxMs(long maxMs) {
+        this.maxMs = maxMs;
+    }
+}
@@ -0,0 +1,79 @@
+package org.task.jetbrainstask.models;
+
+import java.time.Instant;
+
+public class PoolResizeDecision {
+
+    private Instant timestamp;
+    private int fromSize;
+    private int toSize;
+    private String reason;
+    private double averageQueueWaitMs;
+    private double utilization;
+    private int queuedTasks;
+    private int connectionWaiters;
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public int getFromSize() {
+        return fromSize;
+    }
+
+    public void setFromSize(int fromSize) {
+        this.fromSize = fromSize;
+    }
+
+    public int getToSize() {
+        return toSize;
+    }
+
+    public void setToSize(int toSize) {
+        this.toSize = toSize;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public double getAverageQueueWaitMs() {
+        return averageQueueWaitMs;
+    }
+
+    public void setAverageQueueWaitMs(double averageQueueWaitMs) {
+        this.averageQueueWaitMs = averageQueueWaitMs;
+    }
+
+    public double getUtilization() {
+        return utilization;
+    }
+
+    public void setUtilization(double utilization) {
+        this.utilization = utilization;
+    }
+
+    public int getQueuedTasks() {
+        return queuedTasks;
+    }
+
+    public void setQueuedTasks(int queuedTasks) {
+        this.queuedTasks = queuedTasks;
+    }
+
+    public int getConnectionWaiters() {
+        return connectionWaiters;
+    }
+
+    public void setConnectionWaiters(int connectionWaiters) {
+        this.connectionWaiters = connectionWaiters;
+    }
+}
@@ -0,0 +1,87 @@
+package org.task.jetbrainstask.models;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+public class QueryControl {
+
+    private final QueryPriority priority;
+    private final String clientId;
+    private Duration timeout;
+    private Statement statement;
+    private boolean cancelled;
+    private boolean interrupted;
+
+    public QueryControl(Duration timeout) {
+        this(timeout, QueryPriority.NORMAL, null);
+    }
+
+    public QueryControl(Duration timeout, QueryPriority priority, String clientId) {
+        this.timeout = timeout;
+        this.priority = priority == null ? QueryPriority.NORMAL : priority;
+        this.clientId = clientId;
+    }
+
+    public QueryPriority getPriority() {
+        return priority;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    public synchronized Duration getTimeout() {
+        return timeout;
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    public synchronized boolean isInterrupted() {
+        return interrupted;
+    }
+
+    public synchronized void attach(Statement statement) throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Query was cancelled before it started");
+        }
+        if (interrupted) {
+            throw new SQLException("Query was interrupted before it started");
+        }
+        this.statement = statement;
+    }
+
+    public synchronized void detach() {
+        statement = null;
+    }
+
+    public synchronized void cancel() throws SQLException {
+        cancelled = true;
+        if (statement != null) {
+            statement.cancel();
+        }
+    }
+
+    // Stops the current statement without cancelling the query, so the caller can run it again elsewhere.
+    public synchronized void interrupt() throws SQLException {
+        interrupted = true;
+        if (statement != null) {
+            statement.cancel();
+        }
+    }
+
+    // Clears an interrupt and reports whether there was one the query can still be resumed from.
+    public synchronized boolean resume() {
+        boolean resumable = interrupted && !cancelled;
+        interrupted = false;
+        return resumable;
+    }
+
+    public synchronized void limitTimeout(Duration limit) {
+        if (timeout == null || timeout.compareTo(limit) > 0) {
+            timeout = limit;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.task.jetbrainstask.models;
+
+public class QueryCostEstimate {
+
+    private long estimatedRows;
+    private int fullScans;
+    private int indexLookups;
+
+    public QueryCostEstimate() {
+    }
+
+    public QueryCostEstimate(long estimatedRows, int fullScans, int indexLookups) {
+        this.estimatedRows = estimatedRows;
+        this.fullScans = fullScans;
+        this.indexLookups = indexLookups;
+    }
+
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    public void setEstimatedRows(long estimatedRows) {
+        this.estimatedRows = estimatedRows;
+    }
+
+    public int getFullScans() {
+        return fullScans;
+    }
+
+    public void setFullScans(int fullScans) {
+        this.fullScans = fullScans;
+    }
+
+    public int getIndexLookups() {
+        return indexLookups;
+    }
+
+    public void setIndexLookups(int indexLookups) {
+        this.indexLookups = indexLookups;
+    }
+}
@@ -1,7 +1,9 @@
 package org.task.jetbrainstask.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotNull;
+import org.task.jetbrainstask.sql.QueryFingerprint;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class QueryEntry {
@@ -11,6 +13,8 @@ public class QueryEntry {
     private String query;
     private QueryStatus status;
     private String errorMessage;
+    @JsonIgnore
+    private QueryFingerprint fingerprint;
 
     public String getQuery() {
         return query;
@@ -43,4 +47,12 @@ public class QueryEntry {
     public void setErrorMessage(String errorMessage) {
         this.errorMessage = errorMessage;
     }
+
+    public QueryFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    public void setFingerprint(QueryFingerprint fingerprint) {
+        this.fingerprint = fingerprint;
+    }
 }
@@ -1,6 +1,10 @@
 package org.task.jetbrainstask.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.task.jetbrainstask.models.columnar.ColumnarData;
+import org.task.jetbrainstask.models.columnar.QueryDataSerializer;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -8,12 +12,20 @@ import java.util.List;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class QueryResult {
 
+    private static final long BASE_BYTES = 64;
+    private static final long ROW_BYTES = 48;
+    private static final long CELL_BYTES = 40;
+
     private Long id;
     private List<String> headers;
     private List<List<Object>> data = new ArrayList<>();;
     private String errorMessage;
     private QueryStatus status;
     private Long executionTimeMs = null;
+    private Long estimatedCost;
+    private String resultUrl;
+    @JsonIgnore
+    private ColumnarData columnar;
 
     public QueryResult() {
     }
@@ -40,12 +52,59 @@ public class QueryResult {
         this.headers = headers;
     }
 
+    @JsonSerialize(using = QueryDataSerializer.class)
     public List<List<Object>> getData() {
-        return data;
+        return columnar != null ? columnar.rows() : data;
     }
 
     public void setData(List<List<Object>> data) {
         this.data = data;
+        this.columnar = null;
+    }
+
+    @JsonIgnore
+    public ColumnarData getColumnar() {
+        return columnar;
+    }
+
+    public void setColumnar(ColumnarData columnar) {
+        this.columnar = columnar;
+        this.data = null;
+    }
+
+    public long estimateSizeBytes() {
+        long bytes = BASE_BYTES;
+        if (headers != null) {
+            for (String header : headers) {
+                bytes += CELL_BYTES + header.length();
+            }
+        }
+
+        if (columnar != null) {
+            return bytes + columnar.estimatedBytes();
+        }
+        if (data != null) {
+            for (List<Object> row : data) {
+                bytes += ROW_BYTES + CELL_BYTES * row.size();
+            }
+        }
+        return bytes;
+    }
+
+    public static QueryResult copyOf(QueryResult source, Long id) {
+        QueryResult copy = new QueryResult();
+        copy.setId(id);
+        copy.setHeaders(source.getHeaders());
+        if (source.getColumnar() != null) {
+            copy.setColumnar(source.getColumnar());
+        } else {
+            copy.setData(source.getData());
+        }
+        copy.setErrorMessage(source.getErrorMessage());
+        copy.setStatus(source.getStatus());
+        copy.setExecutionTimeMs(source.getExecutionTimeMs());
+        copy.setEstimatedCost(source.getEstimatedCost());
+        return copy;
     }
 
     public static QueryResult error(String message) {
@@ -80,4 +139,21 @@ public class QueryResult {
     public void setExecutionTimeMs(Long executionTimeMs) {
         this.executionTimeMs = executionTimeMs;
     }
+
+    public Long getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    public void setEstimatedCost(Long estimatedCost) {
+        this.estimatedCost = estimatedCost;
+    }
+
+    // Set instead of data when the rows were spooled to disk and have to be fetched from this URL.
+    public String getResultUrl() {
+        return resultUrl;
+    }
+
+    public void setResultUrl(String resultUrl) {
+        this.resultUrl = resultUrl;
+    }
 }
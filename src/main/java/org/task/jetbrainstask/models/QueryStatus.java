@@ -1,5 +1,9 @@
 package org.task.jetbrainstask.models;
 
 public enum QueryStatus {
-    RUNNING, FAILED, COMPLETED, READY, TO_BE_SEEN
+    RUNNING, FAILED, COMPLETED, READY, TO_BE_SEEN, REJECTED, CANCELLED, TIMED_OUT;
+
+    public boolean isTerminal() {
+        return this != RUNNING && this != READY;
+    }
 }
@@ -0,0 +1,51 @@
+package org.task.jetbrainstask.models;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QueryStatusEvent {
+
+    private final Long id;
+    private final QueryStatus status;
+    private final String errorMessage;
+    private final QueryResult result;
+    private final String resultUrl;
+
+    public QueryStatusEvent(Long id, QueryStatus status, String errorMessage, QueryResult result) {
+        this(id, status, errorMessage, result, null);
+    }
+
+    public QueryStatusEvent(Long id, QueryStatus status, String errorMessage, QueryResult result, String resultUrl) {
+        this.id = id;
+        this.status = status;
+        this.errorMessage = errorMessage;
+        this.result = result;
+        this.resultUrl = resultUrl;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public QueryStatus getStatus() {
+        return status;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public QueryResult getResult() {
+        return result;
+    }
+
+    public String getResultUrl() {
+        return resultUrl;
+    }
+
+    @JsonIgnore
+    public boolean isTerminal() {
+        return status != null && status.isTerminal();
+    }
+}
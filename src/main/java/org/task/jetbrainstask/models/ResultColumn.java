@@ -0,0 +1,26 @@
+package org.task.jetbrainstask.models;
+
+public class ResultColumn {
+
+    private final String label;
+    private final String className;
+    private final int scale;
+
+    public ResultColumn(String label, String className, int scale) {
+        this.label = label;
+        this.className = className;
+        this.scale = scale;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+}
@@ -0,0 +1,50 @@
+package org.task.jetbrainstask.models;
+
+public class RetentionStatistics {
+
+    private long retained;
+    private long retainedBytes;
+    private long maxBytes;
+    private long expired;
+    private long evicted;
+
+    public long getRetained() {
+        return retained;
+    }
+
+    public void setRetained(long retained) {
+        this.retained = retained;
+    }
+
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    public void setRetainedBytes(long retainedBytes) {
+        this.retainedBytes = retainedBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public long getExpired() {
+        return expired;
+    }
+
+    public void setExpired(long expired) {
+        this.expired = expired;
+    }
+
+    public long getEvicted() {
+        return evicted;
+    }
+
+    public void setEvicted(long evicted) {
+        this.evicted = evicted;
+    }
+}
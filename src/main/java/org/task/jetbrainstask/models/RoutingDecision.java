@@ -0,0 +1,26 @@
+package org.task.jetbrainstask.models;
+
+public class RoutingDecision {
+
+    private final boolean async;
+    private final Long estimatedCost;
+    private final String reason;
+
+    public RoutingDecision(boolean async, Long estimatedCost, String reason) {
+        this.async = async;
+        this.estimatedCost = estimatedCost;
+        this.reason = reason;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public Long getEstimatedCost() {
+        return estimatedCost;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
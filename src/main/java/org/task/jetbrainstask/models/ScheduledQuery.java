@@ -0,0 +1,41 @@
+package org.task.jetbrainstask.models;
+
+import org.task.jetbrainstask.sql.QueryFingerprint;
+
+public class ScheduledQuery implements Runnable {
+
+    private final long id;
+    private final QueryFingerprint fingerprint;
+    private final QueryPriority priority;
+    private final String clientId;
+    private final Runnable task;
+
+    public ScheduledQuery(long id, QueryFingerprint fingerprint, QueryPriority priority, String clientId, Runnable task) {
+        this.id = id;
+        this.fingerprint = fingerprint;
+        this.priority = priority == null ? QueryPriority.NORMAL : priority;
+        this.clientId = clientId;
+        this.task = task;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public QueryFingerprint getFingerprint() {
+        return fingerprint;
+    }
+
+    public QueryPriority getPriority() {
+        return priority;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    @Override
+    public void run() {
+        task.run();
+    }
+}
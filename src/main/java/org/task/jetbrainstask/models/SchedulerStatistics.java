@@ -0,0 +1,88 @@
+package org.task.jetbrainstask.models;
+
+import java.util.Map;
+
+public class SchedulerStatistics {
+
+    private ExecutionMode executionMode;
+    private int slots;
+    private int running;
+    private int queued;
+    private int clientLimit;
+    private long dispatched;
+    private long fairShareDeferrals;
+    private Map<QueryPriority, Integer> queuedByPriority;
+    private Map<String, Integer> runningByClient;
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    public void setSlots(int slots) {
+        this.slots = slots;
+    }
+
+    public int getRunning() {
+        return running;
+    }
+
+    public void setRunning(int running) {
+        this.running = running;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public void setQueued(int queued) {
+        this.queued = queued;
+    }
+
+    public int getClientLimit() {
+        return clientLimit;
+    }
+
+    public void setClientLimit(int clientLimit) {
+        this.clientLimit = clientLimit;
+    }
+
+    public long getDispatched() {
+        return dispatched;
+    }
+
+    public void setDispatched(long dispatched) {
+        this.dispatched = dispatched;
+    }
+
+    public long getFairShareDeferrals() {
+        return fairShareDeferrals;
+    }
+
+    public void setFairShareDeferrals(long fairShareDeferrals) {
+        this.fairShareDeferrals = fairShareDeferrals;
+    }
+
+    public Map<QueryPriority, Integer> getQueuedByPriority() {
+        return queuedByPriority;
+    }
+
+    public void setQueuedByPriority(Map<QueryPriority, Integer> queuedByPriority) {
+        this.queuedByPriority = queuedByPriority;
+    }
+
+    public Map<String, Integer> getRunningByClient() {
+        return runningByClient;
+    }
+
+    public void setRunningByClient(Map<String, Integer> runningByClient) {
+        this.runningByClient = runningByClient;
+    }
+}
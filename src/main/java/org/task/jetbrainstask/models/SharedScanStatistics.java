@@ -0,0 +1,50 @@
+package org.task.jetbrainstask.models;
+
+public class SharedScanStatistics {
+
+    private boolean enabled;
+    private long sharedScans;
+    private long fusedQueries;
+    private long scansSaved;
+    private long fallbacks;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getSharedScans() {
+        return sharedScans;
+    }
+
+    public void setSharedScans(long sharedScans) {
+        this.sharedScans = sharedScans;
+    }
+
+    public long getFusedQueries() {
+        return fusedQueries;
+    }
+
+    public void setFusedQueries(long fusedQueries) {
+        this.fusedQueries = fusedQueries;
+    }
+
+    public long getScansSaved() {
+        return scansSaved;
+    }
+
+    public void setScansSaved(long scansSaved) {
+        this.scansSaved = scansSaved;
+    }
+
+    public long getFallbacks() {
+        return fallbacks;
+    }
+
+    public void setFallbacks(long fallbacks) {
+        this.fallbacks = fallbacks;
+    }
+}
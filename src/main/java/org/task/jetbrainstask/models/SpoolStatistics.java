@@ -0,0 +1,50 @@
+package org.task.jetbrainstask.models;
+
+public class SpoolStatistics {
+
+    private long spooledResults;
+    private long spooledBytes;
+    private long segments;
+    private long spilled;
+    private long released;
+
+    public long getSpooledResults() {
+        return spooledResults;
+    }
+
+    public void setSpooledResults(long spooledResults) {
+        this.spooledResults = spooledResults;
+    }
+
+    public long getSpooledBytes() {
+        return spooledBytes;
+    }
+
+    public void setSpooledBytes(long spooledBytes) {
+        this.spooledBytes = spooledBytes;
+    }
+
+    public long getSegments() {
+        return segments;
+    }
+
+    public void setSegments(long segments) {
+        this.segments = segments;
+    }
+
+    public long getSpilled() {
+        return spilled;
+    }
+
+    public void setSpilled(long spilled) {
+        this.spilled = spilled;
+    }
+
+    public long getReleased() {
+        return released;
+    }
+
+    public void setReleased(long released) {
+        this.released = released;
+    }
+}
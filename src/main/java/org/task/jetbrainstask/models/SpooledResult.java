@@ -0,0 +1,32 @@
+package org.task.jetbrainstask.models;
+
+public class SpooledResult {
+
+    private final long segment;
+    private final long offset;
+    private final long length;
+    private final long rowCount;
+
+    public SpooledResult(long segment, long offset, long length, long rowCount) {
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+        this.rowCount = rowCount;
+    }
+
+    public long getSegment() {
+        return segment;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+}
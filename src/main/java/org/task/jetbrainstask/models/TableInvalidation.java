@@ -0,0 +1,41 @@
+package org.task.jetbrainstask.models;
+
+public class TableInvalidation {
+
+    private String table;
+    private long version;
+    private int evictedEntries;
+
+    public TableInvalidation() {
+    }
+
+    public TableInvalidation(String table, long version, int evictedEntries) {
+        this.table = table;
+        this.version = version;
+        this.evictedEntries = evictedEntries;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public void setTable(String table) {
+        this.table = table;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public int getEvictedEntries() {
+        return evictedEntries;
+    }
+
+    public void setEvictedEntries(int evictedEntries) {
+        this.evictedEntries = evictedEntries;
+    }
+}
@@ -0,0 +1,58 @@
+package org.task.jetbrainstask.models.columnar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.BitSet;
+
+public class BooleanColumnVector extends ColumnVector {
+
+    private final BitSet values;
+
+    private BooleanColumnVector(int size, BitSet nulls, BitSet values) {
+        super(size, nulls);
+        this.values = values;
+    }
+
+    public boolean getBoolean(int row) {
+        return values.get(row);
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return values.get(row);
+    }
+
+    @Override
+    protected void writeValue(JsonGenerator generator, int row) throws IOException {
+        generator.writeBoolean(values.get(row));
+    }
+
+    @Override
+    protected long estimatedValueBytes() {
+        return ARRAY_HEADER_BYTES + values.size() / 8;
+    }
+
+    public static class Builder extends ColumnVector.Builder {
+
+        private final BitSet values = new BitSet();
+
+        @Override
+        public void append(ResultSet rs, int columnIndex) throws SQLException {
+            if (rs.getBoolean(columnIndex)) {
+                values.set(size);
+            }
+            if (rs.wasNull()) {
+                nulls.set(size);
+            }
+            size++;
+        }
+
+        @Override
+        public ColumnVector build() {
+            return new BooleanColumnVector(size, nulls, values);
+        }
+    }
+}
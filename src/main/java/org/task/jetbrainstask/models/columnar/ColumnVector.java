@@ -0,0 +1,65 @@
+package org.task.jetbrainstask.models.columnar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.BitSet;
+
+public abstract class ColumnVector {
+
+    protected static final long ARRAY_HEADER_BYTES = 16;
+
+    protected final int size;
+    protected final BitSet nulls;
+
+    protected ColumnVector(int size, BitSet nulls) {
+        this.size = size;
+        this.nulls = nulls;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    public Object get(int row) {
+        return isNull(row) ? null : getValue(row);
+    }
+
+    public void write(JsonGenerator generator, int row) throws IOException {
+        if (isNull(row)) {
+            generator.writeNull();
+        } else {
+            writeValue(generator, row);
+        }
+    }
+
+    public long estimatedBytes() {
+        return ARRAY_HEADER_BYTES + nulls.size() / 8 + estimatedValueBytes();
+    }
+
+    protected abstract Object getValue(int row);
+
+    protected abstract void writeValue(JsonGenerator generator, int row) throws IOException;
+
+    protected abstract long estimatedValueBytes();
+
+    public abstract static class Builder {
+
+        protected final BitSet nulls = new BitSet();
+        protected int size;
+
+        public abstract void append(ResultSet rs, int columnIndex) throws SQLException;
+
+        public abstract ColumnVector build();
+
+        protected static int grow(int length) {
+            return Math.max(16, length + (length >> 1));
+        }
+    }
+}
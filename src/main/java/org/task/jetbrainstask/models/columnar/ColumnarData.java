@@ -0,0 +1,161 @@
+package org.task.jetbrainstask.models.columnar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+public class ColumnarData {
+
+    private final int rowCount;
+    private final ColumnVector[] columns;
+
+    private ColumnarData(int rowCount, ColumnVector[] columns) {
+        this.rowCount = rowCount;
+        this.columns = columns;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public ColumnVector getColumn(int index) {
+        return columns[index];
+    }
+
+    public Object get(int row, int column) {
+        return columns[column].get(row);
+    }
+
+    public List<List<Object>> rows() {
+        return new RowsView(this);
+    }
+
+    public void writeRows(JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        for (int row = 0; row < rowCount; row++) {
+            generator.writeStartArray();
+            for (ColumnVector column : columns) {
+                column.write(generator, row);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+    }
+
+    public long estimatedBytes() {
+        long bytes = 32;
+        for (ColumnVector column : columns) {
+            bytes += column.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    public static Builder builder(ResultSetMetaData metaData) throws SQLException {
+        return new Builder(metaData);
+    }
+
+    public static class Builder {
+
+        private final ColumnVector.Builder[] columns;
+        private int rowCount;
+
+        private Builder(ResultSetMetaData metaData) throws SQLException {
+            int columnCount = metaData.getColumnCount();
+            this.columns = new ColumnVector.Builder[columnCount];
+            for (int i = 0; i < columnCount; i++) {
+                columns[i] = builderFor(metaData.getColumnClassName(i + 1));
+            }
+        }
+
+        public void appendRow(ResultSet rs) throws SQLException {
+            for (int i = 0; i < columns.length; i++) {
+                columns[i].append(rs, i + 1);
+            }
+            rowCount++;
+        }
+
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        public ColumnarData build() {
+            ColumnVector[] vectors = new ColumnVector[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                vectors[i] = columns[i].build();
+            }
+            return new ColumnarData(rowCount, vectors);
+        }
+
+        private static ColumnVector.Builder builderFor(String className) {
+            if (className == null) {
+                return new ObjectColumnVector.Builder();
+            }
+            return switch (className) {
+                case "java.lang.Integer" -> new IntColumnVector.Builder();
+                case "java.lang.Long" -> new LongColumnVector.Builder();
+                case "java.lang.Double" -> new DoubleColumnVector.Builder();
+                case "java.lang.Boolean" -> new BooleanColumnVector.Builder();
+                case "java.math.BigDecimal" -> new DecimalColumnVector.Builder();
+                case "java.lang.String" -> new DictionaryStringColumnVector.Builder();
+                default -> new ObjectColumnVector.Builder();
+            };
+        }
+    }
+
+    public static final class RowsView extends AbstractList<List<Object>> implements RandomAccess {
+
+        private final ColumnarData data;
+
+        private RowsView(ColumnarData data) {
+            this.data = data;
+        }
+
+        public ColumnarData getColumnarData() {
+            return data;
+        }
+
+        @Override
+        public List<Object> get(int row) {
+            if (row < 0 || row >= data.rowCount) {
+                throw new IndexOutOfBoundsException("Row " + row + " out of " + data.rowCount);
+            }
+            return new RowView(data, row);
+        }
+
+        @Override
+        public int size() {
+            return data.rowCount;
+        }
+    }
+
+    private static final class RowView extends AbstractList<Object> implements RandomAccess {
+
+        private final ColumnarData data;
+        private final int row;
+
+        private RowView(ColumnarData data, int row) {
+            this.data = data;
+            this.row = row;
+        }
+
+        @Override
+        public Object get(int column) {
+            return data.columns[column].get(row);
+        }
+
+        @Override
+        public int size() {
+            return data.columns.length;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.task.jetbrainstask.models.columnar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Decimals sharing one scale are kept as unscaled longs; anything wider falls back to an object column.
+public class DecimalColumnVector extends ColumnVector {
+
+    private final long[] unscaled;
+    private final int scale;
+
+    private DecimalColumnVector(int size, BitSet nulls, long[] unscaled, int scale) {
+        super(size, nulls);
+        this.unscaled = unscaled;
+        this.scale = scale;
+    }
+
+    public BigDecimal getDecimal(int row) {
+        return BigDecimal.valueOf(unscaled[row], scale);
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return getDecimal(row);
+    }
+
+    @Override
+    protected void writeValue(JsonGenerator generator, int row) throws IOException {
+        generator.writeNumber(getDecimal(row));
+    }
+
+    @Override
+    protected long estimatedValueBytes() {
+        return ARRAY_HEADER_BYTES + 8L * unscaled.length;
+    }
+
+    public static class Builder extends ColumnVector.Builder {
+
+        private long[] unscaled = new long[16];
+        private int scale = Integer.MIN_VALUE;
+        private ObjectColumnVector.Builder fallback;
+
+        @Override
+        public void append(ResultSet rs, int columnIndex) throws SQLException {
+            BigDecimal value = rs.getBigDecimal(columnIndex);
+            if (fallback != null) {
+                fallback.append(value);
+                return;
+            }
+
+            if (value != null) {
+                if (scale == Integer.MIN_VALUE) {
+                    scale = value.scale();
+                }
+                if (value.scale() != scale || value.unscaledValue().bitLength() > 63) {
+                    switchToFallback();
+                    fallback.append(value);
+                    return;
+                }
+            }
+
+            if (size == unscaled.length) {
+                unscaled = Arrays.copyOf(unscaled, grow(unscaled.length));
+            }
+            if (value == null) {
+                nulls.set(size);
+            } else {
+                unscaled[size] = value.unscaledValue().longValue();
+            }
+            size++;
+        }
+
+        private void switchToFallback() {
+            fallback = new ObjectColumnVector.Builder();
+            for (int row = 0; row < size; row++) {
+                fallback.append(nulls.get(row) ? null : BigDecimal.valueOf(unscaled[row], scale));
+            }
+            unscaled = null;
+        }
+
+        @Override
+        public ColumnVector build() {
+            if (fallback != null) {
+                return fallback.build();
+            }
+            return new DecimalColumnVector(size, nulls, Arrays.copyOf(unscaled, size), scale == Integer.MIN_VALUE ? 0 : scale);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.task.jetbrainstask.models.columnar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DictionaryStringColumnVector extends ColumnVector {
+
+    private static final long STRING_HEADER_BYTES = 40;
+
+    private final int[] codes;
+    private final String[] dictionary;
+
+    private DictionaryStringColumnVector(int size, BitSet nulls, int[] codes, String[] dictionary) {
+        super(size, nulls);
+        this.codes = codes;
+        this.dictionary = dictionary;
+    }
+
+    public String getString(int row) {
+        return isNull(row) ? null : dictionary[codes[row]];
+    }
+
+    public int dictionarySize() {
+        return dictionary.length;
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return dictionary[codes[row]];
+    }
+
+    @Override
+    protected void writeValue(JsonGenerator generator, int row) throws IOException {
+        generator.writeString(dictionary[codes[row]]);
+    }
+
+    @Override
+    protected long estimatedValueBytes() {
+        long bytes = 2 * ARRAY_HEADER_BYTES + 4L * codes.length + 4L * dictionary.length;
+        for (String value : dictionary) {
+            bytes += STRING_HEADER_BYTES + value.length();
+        }
+        return bytes;
+    }
+
+    public static class Builder extends ColumnVector.Builder {
+
+        private int[] codes = new int[16];
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+
+        @Override
+        public void append(ResultSet rs, int columnIndex) throws SQLException {
+            String value = rs.getString(columnIndex);
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, grow(codes.length));
+            }
+            if (value == null) {
+                nulls.set(size);
+            } else {
+                Integer code = index.get(value);
+                if (code == null) {
+                    code = dictionary.size();
+                    index.put(value, code);
+                    dictionary.add(value);
+                }
+                codes[size] = code;
+            }
+            size++;
+        }
+
+        @Override
+        public ColumnVector build() {
+            return new DictionaryStringColumnVector(size, nulls, Arrays.copyOf(codes, size),
+                    dictionary.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.task.jetbrainstask.models.columnar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class DoubleColumnVector extends ColumnVector {
+
+    private final double[] values;
+
+    private DoubleColumnVector(int size, BitSet nulls, double[] values) {
+        super(size, nulls);
+        this.values = values;
+    }
+
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return values[row];
+    }
+
+    @Override
+    protected void writeValue(JsonGenerator generator, int row) throws IOException {
+        generator.writeNumber(values[row]);
+    }
+
+    @Override
+    protected long estimatedValueBytes() {
+        return ARRAY_HEADER_BYTES + 8L * values.length;
+    }
+
+    public static class Builder extends ColumnVector.Builder {
+
+        private double[] values = new double[16];
+
+        @Override
+        public void append(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[size] = rs.getDouble(columnIndex);
+            if (rs.wasNull()) {
+                nulls.set(size);
+            }
+            size++;
+        }
+
+        @Override
+        public ColumnVector build() {
+            return new DoubleColumnVector(size, nulls, Arrays.copyOf(values, size));
+        }
+    }
+}
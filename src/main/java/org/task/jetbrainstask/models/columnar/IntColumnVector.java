@@ -0,0 +1,60 @@
+package org.task.jetbrainstask.models.columnar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class IntColumnVector extends ColumnVector {
+
+    private final int[] values;
+
+    private IntColumnVector(int size, BitSet nulls, int[] values) {
+        super(size, nulls);
+        this.values = values;
+    }
+
+    public int getInt(int row) {
+        return values[row];
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return values[row];
+    }
+
+    @Override
+    protected void writeValue(JsonGenerator generator, int row) throws IOException {
+        generator.writeNumber(values[row]);
+    }
+
+    @Override
+    protected long estimatedValueBytes() {
+        return ARRAY_HEADER_BYTES + 4L * values.length;
+    }
+
+    public static class Builder extends ColumnVector.Builder {
+
+        private int[] values = new int[16];
+
+        @Override
+        public void append(ResultSet rs, int columnIndex) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[size] = rs.getInt(columnIndex);
+            if (rs.wasNull()) {
+                nulls.set(size);
+            }
+            size++;
+        }
+
+        @Override
+        public ColumnVector build() {
+            return new IntColumnVector(size, nulls, Arrays.copyOf(values, size));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.task.jetbrainstask.models.columnar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+public class ObjectColumnVector extends ColumnVector {
+
+    private static final long OBJECT_BYTES = 32;
+
+    private final Object[] values;
+
+    private ObjectColumnVector(int size, BitSet nulls, Object[] values) {
+        super(size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    protected Object getValue(int row) {
+        return values[row];
+    }
+
+    @Override
+    protected void writeValue(JsonGenerator generator, int row) throws IOException {
+        generator.writeObject(values[row]);
+    }
+
+    @Override
+    protected long estimatedValueBytes() {
+        return ARRAY_HEADER_BYTES + (4L + OBJECT_BYTES) * values.length;
+    }
+
+    public static class Builder extends ColumnVector.Builder {
+
+        private Object[] values = new Object[16];
+
+        @Override
+        public void append(ResultSet rs, int columnIndex) throws SQLException {
+            append(JdbcUtils.getResultSetValue(rs, columnIndex));
+        }
+
+        void append(Object value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow(values.length));
+            }
+            values[size] = value;
+            if (value == null) {
+                nulls.set(size);
+            }
+            size++;
+        }
+
+        @Override
+        public ColumnVector build() {
+            return new ObjectColumnVector(size, nulls, Arrays.copyOf(values, size));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.task.jetbrainstask.models.columnar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.util.List;
+
+public class QueryDataSerializer extends JsonSerializer<List<List<Object>>> {
+
+    @Override
+    public void serialize(List<List<Object>> rows, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        if (rows instanceof ColumnarData.RowsView view) {
+            view.getColumnarData().writeRows(generator);
+            return;
+        }
+
+        generator.writeStartArray();
+        for (List<Object> row : rows) {
+            generator.writeStartArray();
+            for (Object value : row) {
+                serializers.defaultSerializeValue(value, generator);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+    }
+}
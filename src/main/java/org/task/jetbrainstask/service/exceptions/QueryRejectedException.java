@@ -0,0 +1,12 @@
+package org.task.jetbrainstask.service.exceptions;
+
+public class QueryRejectedException extends RuntimeException {
+
+    public QueryRejectedException(String message) {
+        super(message);
+    }
+
+    public QueryRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
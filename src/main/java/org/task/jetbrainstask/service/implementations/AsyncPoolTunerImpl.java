@@ -0,0 +1,245 @@
+package org.task.jetbrainstask.service.implementations;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.models.AdmissionStatistics;
+import org.task.jetbrainstask.models.AsyncPoolStatistics;
+import org.task.jetbrainstask.models.ExecutionMode;
+import org.task.jetbrainstask.models.PoolResizeDecision;
+import org.task.jetbrainstask.service.interfaces.AsyncPoolTuner;
+import org.task.jetbrainstask.service.interfaces.AsyncQueryManager;
+import org.task.jetbrainstask.service.interfaces.QueryScheduler;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class AsyncPoolTunerImpl implements AsyncPoolTuner {
+
+    private static final int RECENT_DECISIONS = 20;
+    private static final double BUSY_UTILIZATION = 0.9;
+    private static final double IDLE_UTILIZATION = 0.5;
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncPoolTunerImpl.class);
+
+    private final ThreadPoolTaskExecutor asyncExecutor;
+    private final AsyncQueryManager asyncQueryManager;
+    private final QueryScheduler queryScheduler;
+    private final DataSource dataSource;
+    private final int minSize;
+    private final int maxSize;
+    private final double targetQueueWaitMs;
+    private final double decreaseFactor;
+    private final int headroom;
+
+    private final Deque<PoolResizeDecision> recentDecisions = new ArrayDeque<>();
+    private long increases;
+    private long decreases;
+    private long lastQueueWaitTotalMs;
+    private long lastQueueWaitCount;
+
+    private final boolean enabled;
+    private final Duration interval;
+    private final ExecutionMode mode;
+    private ScheduledExecutorService scheduler;
+
+    @Autowired
+    public AsyncPoolTunerImpl(@Qualifier("asyncExecutor") ThreadPoolTaskExecutor asyncExecutor,
+                              AsyncQueryManager asyncQueryManager,
+                              QueryScheduler queryScheduler,
+                              @Qualifier("asyncDataSource") DataSource dataSource,
+                              @Value("${query.async-pool.min-size:2}") int minSize,
+                              @Value("${query.async-pool.max-size:8}") int maxSize,
+                              @Value("${query.async-pool.target-queue-wait:100ms}") Duration targetQueueWait,
+                              @Value("${query.async-pool.decrease-factor:0.75}") double decreaseFactor,
+                              @Value("${query.async-pool.tuning.enabled:true}") boolean enabled,
+                              @Value("${query.async-pool.tuning.interval:5s}") Duration interval,
+                              @Value("${query.execution.mode:PLATFORM}") ExecutionMode mode,
+                              @Value("${query.datasource.async.maximum-pool-size:8}") int connections) {
+        this.asyncExecutor = asyncExecutor;
+        this.asyncQueryManager = asyncQueryManager;
+        this.queryScheduler = queryScheduler;
+        this.dataSource = dataSource;
+        this.minSize = minSize;
+        // A thread beyond the last AsyncPool connection would only wait inside Hikari; the connection
+        // waiter count then backs the pool off below this ceiling.
+        this.maxSize = Math.max(minSize, Math.min(maxSize, connections));
+        this.targetQueueWaitMs = targetQueueWait.toMillis();
+        this.decreaseFactor = decreaseFactor;
+        this.headroom = Math.max(0, asyncExecutor.getMaxPoolSize() - asyncExecutor.getCorePoolSize());
+        this.enabled = enabled;
+        this.interval = interval;
+        this.mode = mode;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Async pool tuning is disabled");
+            return;
+        }
+        if (mode == ExecutionMode.VIRTUAL) {
+            log.info("Async queries run on virtual threads bounded by the connection pool, pool tuning is not needed");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AsyncPoolTuner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::tuneSafely, millis, millis, TimeUnit.MILLISECONDS);
+        log.info("Async pool tuning every {} between {} and {} threads", interval, minSize, maxSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Override
+    public synchronized Optional<PoolResizeDecision> tune() {
+        int size = asyncExecutor.getCorePoolSize();
+        int active = asyncExecutor.getActiveCount();
+        int queued = queued();
+        double utilization = size == 0 ? 1.0 : (double) active / size;
+
+        AdmissionStatistics admission = asyncQueryManager.getAdmissionStatistics();
+        long waitTotal = admission.getQueueWaitTotalMs();
+        long waitCount = admission.getQueueWait() == null ? 0 : admission.getQueueWait().getCount();
+        long startedInWindow = waitCount - lastQueueWaitCount;
+        double averageQueueWaitMs = startedInWindow <= 0 ? 0 : (double) (waitTotal - lastQueueWaitTotalMs) / startedInWindow;
+        lastQueueWaitTotalMs = waitTotal;
+        lastQueueWaitCount = waitCount;
+
+        HikariPoolMXBean connections = connectionPoolMetrics();
+        int connectionWaiters = connections == null ? 0 : connections.getThreadsAwaitingConnection();
+
+        int target = size;
+        String reason = null;
+        if (connectionWaiters > 0) {
+            // More threads cannot help while queries are already waiting for a JDBC connection.
+            target = Math.max(minSize, (int) Math.floor(size * decreaseFactor));
+            reason = "connection pool saturated";
+        } else if (utilization >= BUSY_UTILIZATION && (queued > 0 || averageQueueWaitMs > targetQueueWaitMs)) {
+            target = Math.min(maxSize, size + 1);
+            reason = "queue wait above target";
+        } else if (utilization < IDLE_UTILIZATION && queued == 0 && averageQueueWaitMs <= targetQueueWaitMs) {
+            target = Math.max(minSize, size - 1);
+            reason = "pool underused";
+        }
+
+        target = Math.max(minSize, Math.min(maxSize, target));
+        if (target == size) {
+            return Optional.empty();
+        }
+
+        resize(target);
+        PoolResizeDecision decision = new PoolResizeDecision();
+        decision.setTimestamp(Instant.now());
+        decision.setFromSize(size);
+        decision.setToSize(target);
+        decision.setReason(reason);
+        decision.setAverageQueueWaitMs(Math.round(averageQueueWaitMs * 10) / 10.0);
+        decision.setUtilization(Math.round(utilization * 100) / 100.0);
+        decision.setQueuedTasks(queued);
+        decision.setConnectionWaiters(connectionWaiters);
+
+        if (target > size) {
+            increases++;
+        } else {
+            decreases++;
+        }
+        recentDecisions.addFirst(decision);
+        if (recentDecisions.size() > RECENT_DECISIONS) {
+            recentDecisions.removeLast();
+        }
+        log.info("Resized async pool {} -> {} ({}, utilization={}, avgQueueWait={} ms, queued={}, connectionWaiters={})",
+                size, target, reason, decision.getUtilization(), decision.getAverageQueueWaitMs(), queued, connectionWaiters);
+        return Optional.of(decision);
+    }
+
+    @Override
+    public synchronized AsyncPoolStatistics getStatistics() {
+        AsyncPoolStatistics statistics = new AsyncPoolStatistics();
+        statistics.setCorePoolSize(asyncExecutor.getCorePoolSize());
+        statistics.setMaxPoolSize(asyncExecutor.getMaxPoolSize());
+        statistics.setMinSize(minSize);
+        statistics.setMaxSize(maxSize);
+        statistics.setActiveThreads(asyncExecutor.getActiveCount());
+        statistics.setQueuedTasks(queued());
+
+        HikariDataSource connectionPool = connectionPool();
+        HikariPoolMXBean connections = connectionPool == null ? null : connectionPool.getHikariPoolMXBean();
+        if (connections != null) {
+            statistics.setActiveConnections(connections.getActiveConnections());
+            statistics.setMaxConnections(connectionPool.getMaximumPoolSize());
+            statistics.setConnectionWaiters(connections.getThreadsAwaitingConnection());
+        }
+        statistics.setIncreases(increases);
+        statistics.setDecreases(decreases);
+        statistics.setRecentDecisions(new ArrayList<>(recentDecisions));
+        return statistics;
+    }
+
+    private void resize(int size) {
+        int max = Math.max(size, Math.min(maxSize, size + headroom));
+        if (size > asyncExecutor.getMaxPoolSize()) {
+            asyncExecutor.setMaxPoolSize(max);
+            asyncExecutor.setCorePoolSize(size);
+        } else {
+            asyncExecutor.setCorePoolSize(size);
+            asyncExecutor.setMaxPoolSize(max);
+        }
+    }
+
+    // The scheduler holds back queries beyond its slots, so most of the backlog waits there rather than
+    // in the executor queue.
+    private int queued() {
+        return asyncExecutor.getQueueSize() + queryScheduler.getQueuedCount();
+    }
+
+    private void tuneSafely() {
+        try {
+            tune();
+        } catch (RuntimeException e) {
+            log.warn("Async pool tuning failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private HikariPoolMXBean connectionPoolMetrics() {
+        HikariDataSource connectionPool = connectionPool();
+        return connectionPool == null ? null : connectionPool.getHikariPoolMXBean();
+    }
+
+    private HikariDataSource connectionPool() {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class);
+            }
+        } catch (SQLException e) {
+            log.debug("Could not inspect the JDBC connection pool: {}", e.getMessage());
+        }
+        return null;
+    }
+}
@@ -2,47 +2,157 @@ package org.task.jetbrainstask.service.implementations;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.models.AdmissionStatistics;
+import org.task.jetbrainstask.models.LatencyHistogram;
+import org.task.jetbrainstask.models.QueryControl;
 import org.task.jetbrainstask.models.QueryEntry;
 import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.QueryStatus;
+import org.task.jetbrainstask.models.ScheduledQuery;
+import org.task.jetbrainstask.service.exceptions.QueryRejectedException;
 import org.task.jetbrainstask.service.interfaces.AsyncQueryManager;
 import org.task.jetbrainstask.service.interfaces.QueryExecutor;
-import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Component
 public class AsyncQueryManagerImpl implements AsyncQueryManager {
 
     private final QueryExecutor queryExecutor;
     private final Executor executor;
+    private final int maxPending;
+    private final Semaphore admission;
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong queueWaitTotalMs = new AtomicLong();
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
-    public AsyncQueryManagerImpl(QueryExecutor queryExecutor, Executor asyncExecutor) {
+    public AsyncQueryManagerImpl(@Qualifier("asyncQueryExecutor") QueryExecutor queryExecutor,
+                                 @Qualifier("queryScheduler") Executor queryScheduler,
+                                 @Value("${query.admission.max-pending:58}") int maxPending) {
         this.queryExecutor = queryExecutor;
-        this.executor = asyncExecutor;
+        this.executor = queryScheduler;
+        this.maxPending = maxPending;
+        this.admission = new Semaphore(maxPending);
     }
 
     @Override
     public CompletableFuture<QueryResult> executeAsync(QueryEntry entry) {
+        return executeAsync(entry, new QueryControl(null));
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> executeAsync(QueryEntry entry, QueryControl control) {
+        if (!admission.tryAcquire()) {
+            rejected.incrementAndGet();
+            log.warn("Async query ID={} rejected, {} queries already admitted", entry.getId(), maxPending);
+            throw new QueryRejectedException("Too many pending async queries (limit " + maxPending + ")");
+        }
+
         log.info("Starting async execution for query ID={} -> {}", entry.getId(), entry.getQuery());
+        long enqueued = System.nanoTime();
 
-        return CompletableFuture.supplyAsync(() -> {
-            long start = System.currentTimeMillis();
-            try {
-                QueryResult result = queryExecutor.executeQuery(entry.getQuery());
-                result.setId(entry.getId());
-                long time = System.currentTimeMillis() - start;
-                log.info("Async query ID={} completed in {} ms", entry.getId(), time);
-                return result;
-            } catch (Exception e) {
-                log.error("Error during async execution for ID={}: {}", entry.getId(), e.getMessage());
-                QueryResult errorResult = new QueryResult();
-                errorResult.setId(entry.getId());
-                errorResult.setHeaders(List.of("error"));
-                errorResult.setData(List.of(List.of("Async query failed: " + e.getMessage())));
-                return errorResult;
-            }
-        }, executor);
+        try {
+            CompletableFuture<QueryResult> future = CompletableFuture.supplyAsync(() -> {
+                long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueued);
+                queueWait.record(waitedMs);
+                queueWaitTotalMs.addAndGet(waitedMs);
+                log.debug("Async query ID={} waited {} ms in the queue", entry.getId(), waitedMs);
+
+                long start = System.currentTimeMillis();
+                try {
+                    if (control.isCancelled()) {
+                        return cancelledBeforeStart(entry);
+                    }
+                    QueryResult result = queryExecutor.executeQuery(entry.getQuery(), control);
+                    result.setId(entry.getId());
+                    long time = System.currentTimeMillis() - start;
+                    log.info("Async query ID={} completed in {} ms", entry.getId(), time);
+                    return result;
+                } catch (Exception e) {
+                    log.error("Error during async execution for ID={}: {}", entry.getId(), e.getMessage());
+                    QueryResult errorResult = QueryResult.error("Async query failed: " + e.getMessage());
+                    errorResult.setId(entry.getId());
+                    errorResult.setExecutionTimeMs(System.currentTimeMillis() - start);
+                    return errorResult;
+                } finally {
+                    admission.release();
+                }
+            }, task -> executor.execute(new ScheduledQuery(entry.getId(), entry.getFingerprint(),
+                    control.getPriority(), control.getClientId(), task)));
+            admitted.incrementAndGet();
+            return future;
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            rejected.incrementAndGet();
+            log.warn("Async executor rejected query ID={}: {}", entry.getId(), e.getMessage());
+            throw new QueryRejectedException("Async executor is saturated", e);
+        }
+    }
+
+    // Runs work on one pooled connection, admitted and scheduled as a single async query.
+    @Override
+    public CompletableFuture<Void> executeOnConnection(QueryEntry first, QueryControl control, Consumer<QueryExecutor> work) {
+        if (!admission.tryAcquire()) {
+            rejected.incrementAndGet();
+            log.warn("Connection work for query ID={} rejected, {} queries already admitted", first.getId(), maxPending);
+            throw new QueryRejectedException("Too many pending async queries (limit " + maxPending + ")");
+        }
+
+        log.info("Starting async work on one connection, first query ID={}", first.getId());
+        long enqueued = System.nanoTime();
+
+        try {
+            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
+                long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - enqueued);
+                queueWait.record(waitedMs);
+                queueWaitTotalMs.addAndGet(waitedMs);
+                try {
+                    queryExecutor.executeOnSingleConnection(connection -> {
+                        work.accept(connection);
+                        return null;
+                    });
+                } finally {
+                    admission.release();
+                }
+            }, task -> executor.execute(new ScheduledQuery(first.getId(), first.getFingerprint(),
+                    control.getPriority(), control.getClientId(), task)));
+            admitted.incrementAndGet();
+            return future;
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            rejected.incrementAndGet();
+            log.warn("Async executor rejected connection work for query ID={}: {}", first.getId(), e.getMessage());
+            throw new QueryRejectedException("Async executor is saturated", e);
+        }
+    }
+
+    private QueryResult cancelledBeforeStart(QueryEntry entry) {
+        log.info("Async query ID={} cancelled before it started", entry.getId());
+        QueryResult cancelled = QueryResult.error("CANCELLED: query was cancelled");
+        cancelled.setId(entry.getId());
+        cancelled.setStatus(QueryStatus.CANCELLED);
+        return cancelled;
+    }
+
+    @Override
+    public AdmissionStatistics getAdmissionStatistics() {
+        AdmissionStatistics statistics = new AdmissionStatistics();
+        statistics.setMaxPending(maxPending);
+        statistics.setPending(maxPending - admission.availablePermits());
+        statistics.setAdmitted(admitted.get());
+        statistics.setRejected(rejected.get());
+        statistics.setQueueWaitTotalMs(queueWaitTotalMs.get());
+        statistics.setQueueWait(queueWait.toStatistics("async-queue-wait"));
+        return statistics;
     }
 }
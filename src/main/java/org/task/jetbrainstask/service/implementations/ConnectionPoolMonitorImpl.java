@@ -0,0 +1,46 @@
+package org.task.jetbrainstask.service.implementations;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.models.ConnectionPoolStatistics;
+import org.task.jetbrainstask.service.interfaces.ConnectionPoolMonitor;
+
+import java.util.List;
+
+@Component
+public class ConnectionPoolMonitorImpl implements ConnectionPoolMonitor {
+
+    private final List<HikariDataSource> pools;
+
+    @Autowired
+    public ConnectionPoolMonitorImpl(@Qualifier("syncDataSource") HikariDataSource syncDataSource,
+                                     @Qualifier("asyncDataSource") HikariDataSource asyncDataSource,
+                                     @Qualifier("streamDataSource") HikariDataSource streamDataSource,
+                                     @Qualifier("planDataSource") HikariDataSource planDataSource) {
+        this.pools = List.of(syncDataSource, asyncDataSource, streamDataSource, planDataSource);
+    }
+
+    @Override
+    public List<ConnectionPoolStatistics> getStatistics() {
+        return pools.stream().map(ConnectionPoolMonitorImpl::toStatistics).toList();
+    }
+
+    private static ConnectionPoolStatistics toStatistics(HikariDataSource pool) {
+        ConnectionPoolStatistics statistics = new ConnectionPoolStatistics();
+        statistics.setName(pool.getPoolName());
+        statistics.setMaximumPoolSize(pool.getMaximumPoolSize());
+        statistics.setConnectionTimeoutMs(pool.getConnectionTimeout());
+
+        HikariPoolMXBean metrics = pool.getHikariPoolMXBean();
+        if (metrics != null) {
+            statistics.setActiveConnections(metrics.getActiveConnections());
+            statistics.setIdleConnections(metrics.getIdleConnections());
+            statistics.setTotalConnections(metrics.getTotalConnections());
+            statistics.setThreadsAwaitingConnection(metrics.getThreadsAwaitingConnection());
+        }
+        return statistics;
+    }
+}
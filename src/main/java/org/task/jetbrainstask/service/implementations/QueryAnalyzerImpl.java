@@ -2,12 +2,26 @@ package org.task.jetbrainstask.service.implementations;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.models.LatencyHistogram;
+import org.task.jetbrainstask.models.LatencyStatistics;
+import org.task.jetbrainstask.models.QueryCostEstimate;
+import org.task.jetbrainstask.models.RoutingDecision;
 import org.task.jetbrainstask.service.interfaces.QueryAnalyzer;
+import org.task.jetbrainstask.service.interfaces.QueryCostEstimator;
+import org.task.jetbrainstask.service.interfaces.QueryFingerprinter;
+import org.task.jetbrainstask.sql.QueryFingerprint;
+import org.task.jetbrainstask.sql.SelectStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Optional;
+import java.util.OptionalLong;
 
 @Component
 public class QueryAnalyzerImpl implements QueryAnalyzer {
@@ -15,11 +29,25 @@ public class QueryAnalyzerImpl implements QueryAnalyzer {
     private static final Logger log = LoggerFactory.getLogger(QueryAnalyzerImpl.class);
     private static final long ASYNC_THRESHOLD_MS = 5000;
 
-    private final Map<String, Long> executionHistory = new ConcurrentHashMap<>();
-
-    private static final Pattern SELECT_PATTERN = Pattern.compile("\\bSELECT\\b", Pattern.CASE_INSENSITIVE);
-    private static final Pattern JOIN_PATTERN = Pattern.compile("\\bJOIN\\b", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CROSS_JOIN_PATTERN = Pattern.compile("\\bCROSS\\s+JOIN\\b", Pattern.CASE_INSENSITIVE);
+    private final Map<String, LatencyHistogram> executionHistory;
+    private final QueryFingerprinter fingerprinter;
+    private final QueryCostEstimator costEstimator;
+    private final long asyncCostThreshold;
+
+    @Autowired
+    public QueryAnalyzerImpl(QueryFingerprinter fingerprinter, QueryCostEstimator costEstimator,
+                             @Value("${query.analyzer.async-cost-threshold:100000}") long asyncCostThreshold,
+                             @Value("${query.analyzer.history-size:1000}") int historySize) {
+        this.fingerprinter = fingerprinter;
+        this.costEstimator = costEstimator;
+        this.asyncCostThreshold = asyncCostThreshold;
+        this.executionHistory = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LatencyHistogram> eldest) {
+                return size() > historySize;
+            }
+        });
+    }
 
     @Override
     public boolean shouldRunAsync(String sql) {
@@ -27,38 +55,63 @@ public class QueryAnalyzerImpl implements QueryAnalyzer {
             log.warn("Received empty or null SQL query — cannot analyze, running synchronously.");
             return false;
         }
+        return shouldRunAsync(fingerprinter.fingerprint(sql));
+    }
 
-        String withoutStrings = removeStringLiterals(sql);
+    @Override
+    public boolean shouldRunAsync(QueryFingerprint fingerprint) {
+        return analyze(fingerprint).isAsync();
+    }
 
-        String normalized = normalizeSQL(withoutStrings);
-        log.debug("Analyzing query for async execution: {}", normalized);
+    @Override
+    public RoutingDecision analyze(QueryFingerprint fingerprint) {
+        if (fingerprint == null || fingerprint.isEmpty()) {
+            log.warn("Received empty or null SQL query — cannot analyze, running synchronously.");
+            return new RoutingDecision(false, null, "empty query");
+        }
 
-        Long lastTime = executionHistory.get(normalized);
-        if (lastTime != null && lastTime > ASYNC_THRESHOLD_MS) {
-            log.info("Query previously took {} ms (> {} ms) → running asynchronously.", lastTime, ASYNC_THRESHOLD_MS);
-            return true;
+        String shape = fingerprint.getShape();
+        log.debug("Analyzing query for async execution: {}", shape);
+
+        Optional<QueryCostEstimate> estimate = costEstimator.estimate(fingerprint);
+        Long estimatedCost = estimate.map(QueryCostEstimate::getEstimatedRows).orElse(null);
+
+        // Observed latency outranks the plan estimate: it already includes caching, selectivity and contention
+        // the row estimate cannot see. The price is that history is kept per shape, so a literal that makes one
+        // run of a shape far more expensive than its earlier runs is still routed by the cheaper runs until
+        // enough slow runs move the p95. The estimate is still reported as estimatedCost.
+        LatencyHistogram history = executionHistory.get(shape);
+        if (history != null) {
+            long p95 = history.percentile(0.95);
+            boolean slow = p95 > ASYNC_THRESHOLD_MS;
+            log.info("Query p95 is {} ms over {} runs ({} {} ms) → running {}.", p95, history.getCount(),
+                    slow ? ">" : "<=", ASYNC_THRESHOLD_MS, slow ? "asynchronously" : "synchronously");
+            return new RoutingDecision(slow, estimatedCost, "history");
         }
 
-        int joinCount = countPatternOccurrences(normalized, JOIN_PATTERN);
-        int selectCount = countPatternOccurrences(normalized, SELECT_PATTERN);
+        if (estimatedCost != null) {
+            boolean expensive = estimatedCost > asyncCostThreshold;
+            log.info("Query estimated at {} rows (threshold {}) → running {}.", estimatedCost, asyncCostThreshold,
+                    expensive ? "asynchronously" : "synchronously");
+            return new RoutingDecision(expensive, estimatedCost, "plan");
+        }
+
+        SelectStatement statement = fingerprint.getStatement();
+        int joinCount = statement != null ? statement.countJoins() : fingerprint.countWords("JOIN");
+        int selectCount = statement != null ? statement.countSelects() : fingerprint.countWords("SELECT");
 
         if (joinCount >= 1) {
             log.info("Query has {} JOINs → running asynchronously.", joinCount);
-            return true;
-        }
-
-        if (CROSS_JOIN_PATTERN.matcher(normalized).find()) {
-            log.info("Query contains CROSS JOIN → running asynchronously.");
-            return true;
+            return new RoutingDecision(true, null, "heuristic");
         }
 
         if (selectCount > 1) {
             log.info("Query has {} SELECT statements → running asynchronously.", selectCount);
-            return true;
+            return new RoutingDecision(true, null, "heuristic");
         }
 
         log.debug("Query is simple enough — will run synchronously.");
-        return false;
+        return new RoutingDecision(false, null, "heuristic");
     }
 
     @Override
@@ -67,34 +120,38 @@ public class QueryAnalyzerImpl implements QueryAnalyzer {
             log.warn("Cannot record execution time for empty or null SQL query.");
             return;
         }
-
-        String normalized = normalizeSQL(removeStringLiterals(sql));
-        executionHistory.put(normalized, durationMs);
-        log.debug("Recorded execution time for query [{}]: {} ms", normalized, durationMs);
+        recordExecution(fingerprinter.fingerprint(sql), durationMs);
     }
 
-    private String removeStringLiterals(String sql) {
-        if (sql == null) return null;
-        return sql.replaceAll("(?s)'(?:''|[^'])*'", " ");
-    }
+    @Override
+    public void recordExecution(QueryFingerprint fingerprint, long durationMs) {
+        if (fingerprint == null || fingerprint.isEmpty()) {
+            log.warn("Cannot record execution time for empty or null SQL query.");
+            return;
+        }
 
-    private String normalizeSQL(String sql) {
-        if (sql == null) return "";
-        String withSpaces = sql
-                .replaceAll("([()\\[\\];,])", " $1 ")
-                .replaceAll("\\s+", " ")
-                .trim()
-                .toUpperCase();
+        executionHistory.computeIfAbsent(fingerprint.getShape(), shape -> new LatencyHistogram()).record(durationMs);
+        log.debug("Recorded execution time for query [{}]: {} ms", fingerprint.getShape(), durationMs);
+    }
 
-        return withSpaces;
+    @Override
+    public OptionalLong expectedDurationMs(QueryFingerprint fingerprint) {
+        if (fingerprint == null || fingerprint.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        LatencyHistogram history = executionHistory.get(fingerprint.getShape());
+        return history == null || history.getCount() == 0 ? OptionalLong.empty() : OptionalLong.of(history.percentile(0.50));
     }
 
-    private int countPatternOccurrences(String text, Pattern pattern) {
-        Matcher m = pattern.matcher(text);
-        int count = 0;
-        while (m.find()) {
-            count++;
+    @Override
+    public List<LatencyStatistics> getLatencyStatistics() {
+        List<LatencyStatistics> statistics = new ArrayList<>();
+        synchronized (executionHistory) {
+            for (Map.Entry<String, LatencyHistogram> entry : executionHistory.entrySet()) {
+                statistics.add(entry.getValue().toStatistics(entry.getKey()));
+            }
         }
-        return count;
+        statistics.sort(Comparator.comparingLong(LatencyStatistics::getCount).reversed());
+        return statistics;
     }
 }
@@ -1,29 +1,63 @@
 package org.task.jetbrainstask.service.implementations;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.config.CacheTableIndex;
+import org.task.jetbrainstask.models.CacheStatistics;
+import org.task.jetbrainstask.models.CachedQueryResult;
 import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.TableInvalidation;
 import org.task.jetbrainstask.service.interfaces.QueryCacheManager;
+import org.task.jetbrainstask.service.interfaces.QueryFingerprinter;
+import org.task.jetbrainstask.sql.QueryFingerprint;
+import org.task.jetbrainstask.sql.SqlTables;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class QueryCacheManagerImpl implements QueryCacheManager {
 
     private final CacheManager springCacheManager;
+    private final Duration defaultTtl;
+    private final QueryFingerprinter fingerprinter;
+    private final AtomicLong collisions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+    private final CacheTableIndex tableIndex;
     private static final Logger log = LoggerFactory.getLogger(QueryCacheManagerImpl.class);
 
     @Autowired
-    public QueryCacheManagerImpl(CacheManager springCacheManager) {
+    public QueryCacheManagerImpl(CacheManager springCacheManager,
+                                 CacheTableIndex tableIndex,
+                                 QueryFingerprinter fingerprinter,
+                                 @Value("${query.cache.ttl:10m}") Duration defaultTtl) {
         this.springCacheManager = springCacheManager;
+        this.tableIndex = tableIndex;
+        this.fingerprinter = fingerprinter;
+        this.defaultTtl = defaultTtl;
     }
 
     @Override
     public Optional<QueryResult> getCachedResult(String sql) {
-        String key = generateHash(sql);
+        return getCachedResult(fingerprinter.fingerprint(sql));
+    }
+
+    @Override
+    public Optional<QueryResult> getCachedResult(QueryFingerprint fingerprint) {
         Cache cache = springCacheManager.getCache("queryResults");
 
         if (cache == null) {
@@ -31,12 +65,23 @@ public class QueryCacheManagerImpl implements QueryCacheManager {
             return Optional.empty();
         }
 
-        Cache.ValueWrapper wrapper = cache.get(key);
-        if (wrapper != null) {
-            log.debug("Cache hit for SQL: {}", sql);
-            return Optional.ofNullable((QueryResult) wrapper.get());
+        Cache.ValueWrapper wrapper = cache.get(fingerprint.getHash());
+        if (wrapper != null && wrapper.get() instanceof CachedQueryResult cached) {
+            if (!fingerprint.getCanonicalSql().equals(cached.getCanonicalSql())) {
+                collisions.incrementAndGet();
+                log.warn("Cache key collision on {} — cached [{}] does not match [{}], treating as miss",
+                        fingerprint.getHash(), cached.getCanonicalSql(), fingerprint.getCanonicalSql());
+                return Optional.empty();
+            }
+            if (isStale(cached.getTableVersions())) {
+                cache.evict(fingerprint.getHash());
+                log.debug("Cached result for SQL: {} depends on a changed table, evicting", fingerprint.getCanonicalSql());
+                return Optional.empty();
+            }
+            log.debug("Cache hit for SQL: {}", fingerprint.getCanonicalSql());
+            return Optional.ofNullable(cached.getResult());
         } else {
-            log.debug("Cache miss for SQL: {}", sql);
+            log.debug("Cache miss for SQL: {}", fingerprint.getCanonicalSql());
         }
 
         return Optional.empty();
@@ -44,25 +89,112 @@ public class QueryCacheManagerImpl implements QueryCacheManager {
 
     @Override
     public void putResultInCache(String sql, QueryResult result) {
-        String key = generateHash(sql);
-        Cache cache = springCacheManager.getCache("queryResults");
+        putResultInCache(fingerprinter.fingerprint(sql), result, defaultTtl);
+    }
+
+    @Override
+    public void putResultInCache(QueryFingerprint fingerprint, QueryResult result) {
+        putResultInCache(fingerprint, result, defaultTtl);
+    }
+
+    @Override
+    public void putResultInCache(String sql, QueryResult result, Duration ttl) {
+        putResultInCache(fingerprinter.fingerprint(sql), result, ttl);
+    }
+
+    @Override
+    public void putResultInCache(QueryFingerprint fingerprint, QueryResult result, Duration ttl) {
+        store(fingerprint, result, ttl, snapshotTableVersions(fingerprint.getTables()));
+    }
+
+    @Override
+    public void putResultInCache(QueryFingerprint fingerprint, QueryResult result, Map<String, Long> tableVersions) {
+        store(fingerprint, result, defaultTtl, tableVersions);
+    }
+
+    @Override
+    public Map<String, Long> snapshotTableVersions(Collection<String> tables) {
+        Map<String, Long> snapshot = new HashMap<>();
+        for (String table : tables) {
+            snapshot.put(table, currentVersion(table));
+        }
+        return snapshot;
+    }
+
+    @Override
+    public TableInvalidation invalidateTable(String table) {
+        String name = SqlTables.normalize(table);
+        long version = tableVersions.computeIfAbsent(name, t -> new AtomicLong()).incrementAndGet();
 
+        int evicted = 0;
+        Set<String> keys = tableIndex.removeTable(name);
+        Cache cache = springCacheManager.getCache("queryResults");
         if (cache != null) {
-            cache.put(key, result);
-            log.debug("Stored result in cache for SQL: {}", sql);
-        } else {
+            for (String key : keys) {
+                if (cache.evictIfPresent(key)) {
+                    evicted++;
+                }
+            }
+        }
+        invalidations.addAndGet(evicted);
+
+        log.info("Table {} changed (version={}), evicted {} dependent cache entries", name, version, evicted);
+        return new TableInvalidation(name, version, evicted);
+    }
+
+    private void store(QueryFingerprint fingerprint, QueryResult result, Duration ttl, Map<String, Long> versions) {
+        Cache cache = springCacheManager.getCache("queryResults");
+
+        if (cache == null) {
             log.warn("Failed to store result — cache 'queryResults' not found.");
+            return;
+        }
+        if (isStale(versions)) {
+            log.debug("Not caching result for SQL: {} — a table it reads changed during execution", fingerprint.getCanonicalSql());
+            return;
+        }
+
+        long weight = result.estimateSizeBytes();
+        tableIndex.add(fingerprint.getHash(), versions.keySet());
+        cache.put(fingerprint.getHash(), new CachedQueryResult(fingerprint.getCanonicalSql(), result, weight, ttl, Map.copyOf(versions)));
+        log.debug("Stored result in cache for SQL: {} ({} bytes, ttl={}, tables={})",
+                fingerprint.getCanonicalSql(), weight, ttl, versions.keySet());
+    }
+
+    private boolean isStale(Map<String, Long> versions) {
+        for (Map.Entry<String, Long> entry : versions.entrySet()) {
+            if (currentVersion(entry.getKey()) != entry.getValue()) {
+                return true;
+            }
         }
+        return false;
     }
 
-    private String generateHash(String sql) {
-        String normalized = normalizeSQL(sql);
-        return String.valueOf(normalized.hashCode());
+    private long currentVersion(String table) {
+        AtomicLong version = tableVersions.get(table);
+        return version == null ? 0 : version.get();
     }
 
-    private String normalizeSQL(String sql) {
-        return sql.trim()
-                .replaceAll("\\s+", " ")
-                .toUpperCase();
+    @Override
+    public CacheStatistics getStatistics() {
+        CacheStatistics statistics = new CacheStatistics();
+        Cache cache = springCacheManager.getCache("queryResults");
+
+        if (cache instanceof CaffeineCache caffeineCache) {
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = caffeineCache.getNativeCache();
+            CacheStats stats = nativeCache.stats();
+            statistics.setHitCount(stats.hitCount());
+            statistics.setMissCount(stats.missCount());
+            statistics.setEvictionCount(stats.evictionCount());
+            statistics.setEvictedBytes(stats.evictionWeight());
+            statistics.setEntryCount(nativeCache.estimatedSize());
+            statistics.setCollisionCount(collisions.get());
+            statistics.setInvalidationCount(invalidations.get());
+            nativeCache.policy().eviction().ifPresent(eviction -> {
+                statistics.setSizeBytes(eviction.weightedSize().orElse(0));
+                statistics.setMaxBytes(eviction.getMaximum());
+            });
+        }
+        return statistics;
     }
 }
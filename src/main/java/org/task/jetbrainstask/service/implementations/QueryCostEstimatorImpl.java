@@ -0,0 +1,164 @@
+package org.task.jetbrainstask.service.implementations;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.models.QueryCostEstimate;
+import org.task.jetbrainstask.service.interfaces.QueryCostEstimator;
+import org.task.jetbrainstask.sql.QueryFingerprint;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+public class QueryCostEstimatorImpl implements QueryCostEstimator {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryCostEstimatorImpl.class);
+
+    // H2 does not report row estimates for index conditions, so a non-unique lookup is assumed to touch a tenth of the table.
+    private static final long INDEX_SELECTIVITY = 10;
+    private static final Pattern TABLE_REFERENCE = Pattern.compile("(?:FROM|JOIN)\\s+\"([^\"]+)\"\\.\"([^\"]+)\"");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<String, Optional<QueryCostEstimate>> plans;
+
+    @Autowired
+    public QueryCostEstimatorImpl(@Qualifier("planJdbcTemplate") JdbcTemplate jdbcTemplate,
+                                  @Value("${query.analyzer.plan-cache-size:1000}") long planCacheSize,
+                                  @Value("${query.analyzer.plan-ttl:10m}") Duration planTtl) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.plans = Caffeine.newBuilder()
+                .maximumSize(planCacheSize)
+                .expireAfterWrite(planTtl)
+                .build();
+    }
+
+    // Queries with the same fingerprint share one plan, but the plan is taken for the submitted text of the
+    // first of them rather than the canonical text.
+    @Override
+    public Optional<QueryCostEstimate> estimate(QueryFingerprint fingerprint) {
+        if (fingerprint == null || fingerprint.isEmpty()) {
+            return Optional.empty();
+        }
+        return plans.get(fingerprint.getHash(), key -> explain(fingerprint));
+    }
+
+    private Optional<QueryCostEstimate> explain(QueryFingerprint fingerprint) {
+        try {
+            List<String> plan = jdbcTemplate.queryForList("EXPLAIN " + fingerprint.getSql(), String.class);
+            Map<String, Long> rowCounts = new HashMap<>();
+            QueryCostEstimate estimate = fromPlan(String.join("\n", plan),
+                    table -> rowCounts.computeIfAbsent(table, this::rowCountEstimate));
+            log.debug("Estimated cost for [{}]: rows={}, fullScans={}, indexLookups={}", fingerprint.getSql(),
+                    estimate.getEstimatedRows(), estimate.getFullScans(), estimate.getIndexLookups());
+            return Optional.of(estimate);
+        } catch (DataAccessException e) {
+            log.debug("Could not estimate cost for [{}]: {}", fingerprint.getSql(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private long rowCountEstimate(String qualifiedTable) {
+        int dot = qualifiedTable.indexOf('.');
+        List<Long> counts = jdbcTemplate.queryForList(
+                "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?",
+                Long.class, qualifiedTable.substring(0, dot), qualifiedTable.substring(dot + 1));
+        return counts.isEmpty() || counts.get(0) == null ? 1 : Math.max(1, counts.get(0));
+    }
+
+    // Scans inside the same SELECT are nested loops, so their row counts multiply; subqueries and
+    // UNION branches are separate loops and add up.
+    static QueryCostEstimate fromPlan(String plan, ToLongFunction<String> rowCounts) {
+        Map<Integer, Long> loops = new HashMap<>();
+        long total = 0;
+        int fullScans = 0;
+        int indexLookups = 0;
+        int depth = 0;
+
+        int i = 0;
+        while (i < plan.length()) {
+            char c = plan.charAt(i);
+            if (c == '/' && plan.startsWith("/*", i)) {
+                int end = plan.indexOf("*/", i + 2);
+                end = end < 0 ? plan.length() : end;
+                String comment = plan.substring(i + 2, end).trim();
+
+                long rows = -1;
+                if (comment.endsWith(".tableScan")) {
+                    rows = rowCounts.applyAsLong(comment.substring(0, comment.length() - ".tableScan".length()));
+                    fullScans++;
+                } else if (comment.contains(":")) {
+                    String table = lastTableReference(plan.substring(0, i));
+                    long tableRows = table == null ? 1 : rowCounts.applyAsLong(table);
+                    boolean uniqueLookup = comment.contains(".PRIMARY_KEY") && !comment.contains("<") && !comment.contains(">");
+                    rows = uniqueLookup ? 1 : Math.max(1, tableRows / INDEX_SELECTIVITY);
+                    indexLookups++;
+                }
+                if (rows >= 0) {
+                    loops.merge(depth, rows, QueryCostEstimatorImpl::saturatedMultiply);
+                }
+                i = end + 2;
+            } else if (c == '\'' || c == '"') {
+                int end = plan.indexOf(c, i + 1);
+                i = end < 0 ? plan.length() : end + 1;
+            } else if (c == '(') {
+                depth++;
+                i++;
+            } else if (c == ')') {
+                total = saturatedAdd(total, loops.getOrDefault(depth, 0L));
+                loops.remove(depth);
+                depth = Math.max(0, depth - 1);
+                i++;
+            } else if (Character.isLetter(c) && (i == 0 || !Character.isLetterOrDigit(plan.charAt(i - 1)))) {
+                int end = i;
+                while (end < plan.length() && Character.isLetter(plan.charAt(end))) {
+                    end++;
+                }
+                String word = plan.substring(i, end);
+                if (word.equals("UNION") || word.equals("EXCEPT") || word.equals("INTERSECT") || word.equals("MINUS")) {
+                    total = saturatedAdd(total, loops.getOrDefault(depth, 0L));
+                    loops.remove(depth);
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        for (long rows : loops.values()) {
+            total = saturatedAdd(total, rows);
+        }
+        return new QueryCostEstimate(total, fullScans, indexLookups);
+    }
+
+    private static String lastTableReference(String planPrefix) {
+        Matcher matcher = TABLE_REFERENCE.matcher(planPrefix);
+        String table = null;
+        while (matcher.find()) {
+            table = matcher.group(1) + "." + matcher.group(2);
+        }
+        return table;
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        long result = a * b;
+        return (a != 0 && (result / a != b || result < 0)) ? Long.MAX_VALUE : result;
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long result = a + b;
+        return result < 0 ? Long.MAX_VALUE : result;
+    }
+}
@@ -3,94 +3,252 @@ package org.task.jetbrainstask.service.implementations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.task.jetbrainstask.models.QueryControl;
 import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.QueryStatus;
+import org.task.jetbrainstask.models.ResultColumn;
+import org.task.jetbrainstask.models.columnar.ColumnarData;
 import org.task.jetbrainstask.service.interfaces.QueryExecutor;
+import org.task.jetbrainstask.service.interfaces.QueryRowHandler;
+
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
 
 @Component
+@Primary
 public class QueryExecutorImpl implements QueryExecutor {
     private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+    private final Duration defaultTimeout;
     private static final Logger log = LoggerFactory.getLogger(QueryExecutorImpl.class);
+    private static final String CANCELLED_SQL_STATE = "57014";
 
     @Autowired
-    public QueryExecutorImpl(JdbcTemplate jdbcTemplate) {
+    public QueryExecutorImpl(JdbcTemplate jdbcTemplate,
+                             @Value("${query.executor.fetch-size:500}") int fetchSize,
+                             @Value("${query.executor.default-timeout:5m}") Duration defaultTimeout) {
         this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+        this.defaultTimeout = defaultTimeout;
+        this.readOnlyTransaction = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
-    @Transactional(readOnly = true)
     @Override
     public QueryResult executeQuery(String sql) {
+        return executeQuery(sql, null);
+    }
+
+    @Override
+    public QueryResult executeQuery(String sql, QueryControl control) {
         long start = System.currentTimeMillis();
         log.info("Executing SQL query: {}", sql);
 
         try {
-            List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql);
-            log.debug("Query returned {} rows", rows.size());
+            QueryResult queryResult = readOnlyTransaction.execute(status -> jdbcTemplate.query(forwardOnly(sql, control), collectRows()));
+            log.debug("Query returned {} rows", queryResult.getData().size());
 
-            List<String> headers = rows.isEmpty()
-                    ? List.of()
-                    : new ArrayList<>(rows.get(0).keySet());
+            long executionTime = System.currentTimeMillis() - start;
+            queryResult.setExecutionTimeMs(executionTime);
 
-            List<List<Object>> data = rows.stream()
-                    .map(row -> headers.stream()
-                            .map(row::get)
-                            .toList())
-                    .toList();
+            log.info("Query executed successfully in {} ms with {} columns", executionTime, queryResult.getHeaders().size());
+            return queryResult;
+
+        } catch (Exception e) {
+            return errorResult(sql, e, start, control);
+        } finally {
+            if (control != null) {
+                control.detach();
+            }
+        }
+    }
+
+    @Override
+    public QueryResult streamQuery(String sql, QueryRowHandler handler) {
+        long start = System.currentTimeMillis();
+        log.info("Streaming SQL query with fetchSize={}: {}", fetchSize, sql);
+
+        try {
+            Long rowCount = readOnlyTransaction.execute(status -> jdbcTemplate.query(forwardOnly(sql, null), (ResultSetExtractor<Long>) rs -> {
+                ResultSetMetaData metaData = rs.getMetaData();
+                int columnCount = metaData.getColumnCount();
+                handler.onHeaders(readHeaders(metaData));
+
+                Object[] values = new Object[columnCount];
+                long rows = 0;
+                while (rs.next()) {
+                    for (int i = 0; i < columnCount; i++) {
+                        values[i] = JdbcUtils.getResultSetValue(rs, i + 1);
+                    }
+                    handler.onRow(values);
+                    rows++;
+                }
+                return rows;
+            }));
 
             long executionTime = System.currentTimeMillis() - start;
+            log.info("Streamed {} rows in {} ms", rowCount, executionTime);
 
-            QueryResult queryResult = new QueryResult();
-            queryResult.setHeaders(headers);
-            queryResult.setData(data);
-            queryResult.setExecutionTimeMs(executionTime);
+            QueryResult summary = new QueryResult();
+            summary.setStatus(QueryStatus.COMPLETED);
+            summary.setExecutionTimeMs(executionTime);
+            return summary;
+
+        } catch (UncheckedIOException e) {
+            log.warn("Client stopped reading streamed result after {} ms: {}",
+                    System.currentTimeMillis() - start, e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            return errorResult(sql, e, start, null);
+        }
+    }
+
+    // Prepares the statement without running it and reports the columns it would return.
+    @Override
+    public List<ResultColumn> describe(String sql) {
+        return jdbcTemplate.execute((Connection con) -> con.prepareStatement(sql), (PreparedStatement ps) -> {
+            ResultSetMetaData metaData = ps.getMetaData();
+            if (metaData == null) {
+                return List.<ResultColumn>of();
+            }
+            List<String> headers = readHeaders(metaData);
+            List<ResultColumn> columns = new ArrayList<>(headers.size());
+            for (int i = 1; i <= headers.size(); i++) {
+                columns.add(new ResultColumn(headers.get(i - 1), metaData.getColumnClassName(i), metaData.getScale(i)));
+            }
+            return columns;
+        });
+    }
+
+    // Runs work against an executor bound to one pooled connection, so a sequence of queries pays for a single
+    // checkout. Each query still gets its own read-only transaction on that connection.
+    @Override
+    public <T> T executeOnSingleConnection(Function<QueryExecutor, T> work) {
+        return jdbcTemplate.execute((ConnectionCallback<T>) con -> {
+            JdbcTemplate bound = new JdbcTemplate(new SingleConnectionDataSource(con, true));
+            return work.apply(new QueryExecutorImpl(bound, fetchSize, defaultTimeout));
+        });
+    }
+
+    private PreparedStatementCreator forwardOnly(String sql, QueryControl control) {
+        return con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            Duration timeout = timeoutOf(control);
+            if (timeout != null && !timeout.isZero()) {
+                ps.setQueryTimeout((int) Math.max(1, (timeout.toMillis() + 999) / 1000));
+            }
+            if (control != null) {
+                control.attach(ps);
+            }
+            return ps;
+        };
+    }
+
+    private ResultSetExtractor<QueryResult> collectRows() {
+        return rs -> {
+            ColumnarData.Builder columns = ColumnarData.builder(rs.getMetaData());
+            while (rs.next()) {
+                columns.appendRow(rs);
+            }
 
-            log.info("Query executed successfully in {} ms with {} columns", executionTime, headers.size());
+            QueryResult queryResult = new QueryResult();
+            queryResult.setHeaders(columns.getRowCount() == 0 ? List.of() : readHeaders(rs.getMetaData()));
+            queryResult.setColumnar(columns.build());
             return queryResult;
+        };
+    }
 
-        } catch (BadSqlGrammarException e) {
-            long executionTime = System.currentTimeMillis() - start;
-            String sqlMessage = e.getSQLException().getMessage();
+    private List<String> readHeaders(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        List<String> headers = new ArrayList<>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            headers.add(JdbcUtils.lookupColumnName(metaData, i));
+        }
+        return headers;
+    }
+
+    private Duration timeoutOf(QueryControl control) {
+        Duration timeout = control == null ? null : control.getTimeout();
+        return timeout != null ? timeout : defaultTimeout;
+    }
+
+    private static boolean isCancellation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryTimeoutException || cause instanceof SQLTimeoutException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException && CANCELLED_SQL_STATE.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private QueryResult errorResult(String sql, Exception e, long start, QueryControl control) {
+        long executionTime = System.currentTimeMillis() - start;
+        String message;
+        QueryStatus status = QueryStatus.FAILED;
+
+        if (control != null && control.isCancelled()) {
+            log.warn("Query cancelled after {} ms: {}", executionTime, sql);
+            message = "CANCELLED: query was cancelled";
+            status = QueryStatus.CANCELLED;
+        } else if (control != null && control.isInterrupted()) {
+            log.info("Query interrupted after {} ms to continue elsewhere: {}", executionTime, sql);
+            message = "INTERRUPTED: query was stopped to continue elsewhere";
+            status = QueryStatus.CANCELLED;
+        } else if (isCancellation(e)) {
+            log.warn("Query timed out after {} ms: {}", executionTime, sql);
+            message = "TIMED_OUT: query exceeded its " + timeoutOf(control).toSeconds() + " s deadline";
+            status = QueryStatus.TIMED_OUT;
+        } else if (e instanceof BadSqlGrammarException grammarException) {
+            String sqlMessage = grammarException.getSQLException().getMessage();
             log.warn("SQL syntax or table error in {} ms: {}", executionTime, sqlMessage);
 
-            String message;
             if (sqlMessage != null && sqlMessage.toLowerCase().contains("not found")) {
                 message = "TABLE_NOT_FOUND";
             } else {
                 message = "SQL_ERROR: " + sqlMessage;
             }
-
-            QueryResult errorResult = new QueryResult();
-            errorResult.setExecutionTimeMs(executionTime);
-            errorResult.setHeaders(List.of("error"));
-            errorResult.setData(List.of(List.of(message)));
-            return errorResult;
-
-        } catch (DataAccessException e) {
-            long executionTime = System.currentTimeMillis() - start;
+        } else if (e instanceof DataAccessException) {
             log.error("Database access error in {} ms: {}", executionTime, e.getMessage());
-
-            QueryResult errorResult = new QueryResult();
-            errorResult.setExecutionTimeMs(executionTime);
-            errorResult.setHeaders(List.of("error"));
-            errorResult.setData(List.of(List.of("DATA_ACCESS_ERROR: " + e.getMessage())));
-            return errorResult;
-
-        } catch (Exception e) {
-            long executionTime = System.currentTimeMillis() - start;
+            message = "DATA_ACCESS_ERROR: " + e.getMessage();
+        } else {
             log.error("Unexpected error executing query in {} ms: {}", executionTime, sql, e);
-
-            QueryResult errorResult = new QueryResult();
-            errorResult.setExecutionTimeMs(executionTime);
-            errorResult.setHeaders(List.of("error"));
-            errorResult.setData(List.of(List.of("UNEXPECTED_ERROR: " + e.getMessage())));
-            return errorResult;
+            message = "UNEXPECTED_ERROR: " + e.getMessage();
         }
+
+        QueryResult errorResult = new QueryResult();
+        errorResult.setExecutionTimeMs(executionTime);
+        errorResult.setHeaders(List.of("error"));
+        errorResult.setData(List.of(List.of(message)));
+        errorResult.setStatus(status);
+        errorResult.setErrorMessage(message);
+        return errorResult;
     }
 }
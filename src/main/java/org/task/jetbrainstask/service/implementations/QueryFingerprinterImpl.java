@@ -0,0 +1,153 @@
+package org.task.jetbrainstask.service.implementations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.service.interfaces.QueryFingerprinter;
+import org.task.jetbrainstask.sql.QueryFingerprint;
+import org.task.jetbrainstask.sql.SelectStatement;
+import org.task.jetbrainstask.sql.SqlLexer;
+import org.task.jetbrainstask.sql.SqlParseException;
+import org.task.jetbrainstask.sql.SqlParser;
+import org.task.jetbrainstask.sql.SqlTables;
+import org.task.jetbrainstask.sql.SqlToken;
+import org.task.jetbrainstask.sql.SqlTokenType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+@Component
+public class QueryFingerprinterImpl implements QueryFingerprinter {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryFingerprinterImpl.class);
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    @Override
+    public QueryFingerprint fingerprint(String sql) {
+        List<String> comments = new ArrayList<>();
+        List<SqlToken> tokens = SqlLexer.tokenize(sql, comments);
+
+        StringBuilder canonical = new StringBuilder(sql == null ? 0 : sql.length());
+        StringBuilder shape = new StringBuilder(sql == null ? 0 : sql.length());
+        for (SqlToken token : tokens) {
+            if (!canonical.isEmpty()) {
+                canonical.append(' ');
+                shape.append(' ');
+            }
+            canonical.append(token.getNormalized());
+            shape.append(token.getType() == SqlTokenType.STRING ? "?" : token.getNormalized());
+        }
+
+        String canonicalSql = canonical.toString();
+        String hash = murmur3Hex(canonicalSql.getBytes(StandardCharsets.UTF_8));
+        SelectStatement statement = null;
+        String parseError = null;
+        try {
+            statement = SqlParser.parse(tokens);
+        } catch (SqlParseException e) {
+            parseError = e.getMessage();
+        }
+
+        Set<String> tables = statement != null ? statement.getTables() : SqlTables.extract(tokens);
+        log.debug("Fingerprinted query into {} tokens, hash={}, parsed={}", tokens.size(), hash, statement != null);
+        return new QueryFingerprint(sql, canonicalSql, shape.toString(), hash, List.copyOf(tokens), Set.copyOf(tables),
+                List.copyOf(comments), statement, parseError);
+    }
+
+    // MurmurHash3 x64 128-bit variant, seed 0. The tail switch falls through on purpose, as in the reference.
+    @SuppressWarnings("fallthrough")
+    static String murmur3Hex(byte[] data) {
+        long h1 = 0;
+        long h2 = 0;
+        int length = data.length;
+        int blocks = length / 16;
+
+        for (int i = 0; i < blocks; i++) {
+            long k1 = getLong(data, i * 16);
+            long k2 = getLong(data, i * 16 + 8);
+
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        int tail = blocks * 16;
+        switch (length & 15) {
+            case 15: k2 ^= (long) (data[tail + 14] & 0xff) << 48; // fall through
+            case 14: k2 ^= (long) (data[tail + 13] & 0xff) << 40; // fall through
+            case 13: k2 ^= (long) (data[tail + 12] & 0xff) << 32; // fall through
+            case 12: k2 ^= (long) (data[tail + 11] & 0xff) << 24; // fall through
+            case 11: k2 ^= (long) (data[tail + 10] & 0xff) << 16; // fall through
+            case 10: k2 ^= (long) (data[tail + 9] & 0xff) << 8; // fall through
+            case 9:
+                k2 ^= data[tail + 8] & 0xff;
+                h2 ^= mixK2(k2);
+                // fall through
+            case 8: k1 ^= (long) (data[tail + 7] & 0xff) << 56; // fall through
+            case 7: k1 ^= (long) (data[tail + 6] & 0xff) << 48; // fall through
+            case 6: k1 ^= (long) (data[tail + 5] & 0xff) << 40; // fall through
+            case 5: k1 ^= (long) (data[tail + 4] & 0xff) << 32; // fall through
+            case 4: k1 ^= (long) (data[tail + 3] & 0xff) << 24; // fall through
+            case 3: k1 ^= (long) (data[tail + 2] & 0xff) << 16; // fall through
+            case 2: k1 ^= (long) (data[tail + 1] & 0xff) << 8; // fall through
+            case 1:
+                k1 ^= data[tail] & 0xff;
+                h1 ^= mixK1(k1);
+                // fall through
+            default:
+                break;
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+
+        return String.format("%016x%016x", h1, h2);
+    }
+
+    private static long getLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        return k1 * C2;
+    }
+
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        return k2 * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
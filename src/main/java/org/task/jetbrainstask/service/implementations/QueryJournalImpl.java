@@ -0,0 +1,376 @@
+package org.task.jetbrainstask.service.implementations;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.models.JournalReplay;
+import org.task.jetbrainstask.models.JournalStatistics;
+import org.task.jetbrainstask.models.QueryEntry;
+import org.task.jetbrainstask.models.QueryStatus;
+import org.task.jetbrainstask.service.interfaces.QueryJournal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+@Component
+public class QueryJournalImpl implements QueryJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryJournalImpl.class);
+
+    private static final byte ADD = 1;
+    private static final byte STATUS = 2;
+    private static final byte NEXT_ID = 3;
+    private static final int MAX_BATCH = 4096;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final Duration compactionInterval;
+    private final Path file;
+    private final BlockingQueue<Pending> pending = new LinkedBlockingQueue<>();
+    private final Map<Long, LiveEntry> live = new TreeMap<>();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private long nextId;
+    private long recordsSinceCompaction;
+    private long lastCompaction = System.nanoTime();
+    private FileChannel channel;
+    private OutputStream out;
+    private Thread writer;
+    private volatile boolean running;
+
+    @Autowired
+    public QueryJournalImpl(@Value("${query.journal.enabled:false}") boolean enabled,
+                            @Value("${query.journal.directory:data/journal}") Path directory,
+                            @Value("${query.journal.compaction-interval:5m}") Duration compactionInterval) {
+        this.enabled = enabled;
+        this.directory = directory;
+        this.compactionInterval = compactionInterval;
+        this.file = directory.resolve("queries.wal");
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            log.info("Query journal is disabled, submitted queries are kept in memory only");
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            long valid = readLog();
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (channel.size() > valid) {
+                log.warn("Discarding {} bytes of a torn record at the end of {}", channel.size() - valid, file);
+                channel.truncate(valid);
+                channel.force(true);
+            }
+            channel.position(valid);
+            out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open query journal " + file, e);
+        }
+
+        running = true;
+        writer = new Thread(this::writeLoop, "QueryJournal");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Query journal {} opened: {} queries to restore, next id {}", file, live.size(), nextId);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Could not close query journal {}: {}", file, e.getMessage());
+        }
+        writer = null;
+    }
+
+    @Override
+    public synchronized JournalReplay replay() {
+        List<QueryEntry> entries = new ArrayList<>();
+        for (Map.Entry<Long, LiveEntry> liveEntry : live.entrySet()) {
+            QueryEntry entry = new QueryEntry();
+            entry.setId(liveEntry.getKey());
+            entry.setQuery(liveEntry.getValue().sql);
+            entry.setStatus(QueryStatus.READY);
+            entries.add(entry);
+        }
+        return new JournalReplay(entries, nextId);
+    }
+
+    @Override
+    public CompletableFuture<Void> recordAdded(QueryEntry entry) {
+        return append(ADD, entry.getId(), entry.getQuery());
+    }
+
+    @Override
+    public CompletableFuture<Void> recordStatus(long id, QueryStatus status) {
+        return append(STATUS, id, status.name());
+    }
+
+    public CompletableFuture<Void> compact() {
+        if (!running) {
+            return DONE;
+        }
+        Pending request = new Pending(null);
+        pending.add(request);
+        return request.done;
+    }
+
+    @Override
+    public synchronized JournalStatistics getStatistics() {
+        JournalStatistics statistics = new JournalStatistics();
+        statistics.setEnabled(enabled);
+        statistics.setRecords(records.get());
+        statistics.setSyncs(syncs.get());
+        statistics.setCompactions(compactions.get());
+        statistics.setLiveEntries(live.size());
+        try {
+            statistics.setBytes(enabled && Files.exists(file) ? Files.size(file) : 0);
+        } catch (IOException e) {
+            statistics.setBytes(-1);
+        }
+        return statistics;
+    }
+
+    private CompletableFuture<Void> append(byte type, long id, String text) {
+        if (!running) {
+            return DONE;
+        }
+        Pending record = new Pending(encode(type, id, text));
+        pending.add(record);
+        return record.done;
+    }
+
+    // Group commit: everything queued while the previous fsync ran is written and synced together.
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (running || !pending.isEmpty()) {
+            try {
+                Pending first = pending.poll(1, TimeUnit.SECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    pending.drainTo(batch, MAX_BATCH - 1);
+                    writeBatch(batch);
+                    batch.clear();
+                }
+                if (recordsSinceCompaction > 0 && System.nanoTime() - lastCompaction >= compactionInterval.toNanos()) {
+                    compactLog();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (IOException e) {
+                log.error("Query journal write failed: {}", e.getMessage(), e);
+                for (Pending record : batch) {
+                    record.done.completeExceptionally(e);
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeBatch(List<Pending> batch) throws IOException {
+        boolean compact = false;
+        for (Pending record : batch) {
+            if (record.bytes == null) {
+                compact = true;
+            } else {
+                out.write(record.bytes);
+            }
+        }
+        out.flush();
+        channel.force(false);
+        syncs.incrementAndGet();
+
+        for (Pending record : batch) {
+            if (record.bytes != null) {
+                apply(ByteBuffer.wrap(record.bytes, 8, record.bytes.length - 8));
+                records.incrementAndGet();
+                recordsSinceCompaction++;
+                record.done.complete(null);
+            }
+        }
+        if (compact) {
+            compactLog();
+            for (Pending record : batch) {
+                if (record.bytes == null) {
+                    record.done.complete(null);
+                }
+            }
+        }
+    }
+
+    private void compactLog() throws IOException {
+        Path compacted = directory.resolve("queries.wal.compact");
+        synchronized (this) {
+            try (OutputStream snapshot = new BufferedOutputStream(Files.newOutputStream(compacted,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+                snapshot.write(encode(NEXT_ID, nextId, null));
+                for (Map.Entry<Long, LiveEntry> entry : live.entrySet()) {
+                    snapshot.write(encode(ADD, entry.getKey(), entry.getValue().sql));
+                    if (entry.getValue().status != QueryStatus.READY) {
+                        snapshot.write(encode(STATUS, entry.getKey(), entry.getValue().status.name()));
+                    }
+                }
+            }
+        }
+        try (FileChannel snapshotChannel = FileChannel.open(compacted, StandardOpenOption.WRITE)) {
+            snapshotChannel.force(true);
+        }
+
+        channel.close();
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+
+        compactions.incrementAndGet();
+        recordsSinceCompaction = 0;
+        lastCompaction = System.nanoTime();
+        log.info("Query journal compacted to {} bytes with {} live queries", channel.size(), live.size());
+    }
+
+    private long readLog() throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                try {
+                    int crc = in.readInt();
+                    in.readFully(payload);
+                    if (crc != crc(payload)) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                apply(ByteBuffer.wrap(payload));
+                valid += 8 + length;
+            }
+        }
+        return valid;
+    }
+
+    private synchronized void apply(ByteBuffer payload) {
+        byte type = payload.get();
+        long id = payload.getLong();
+        String text = null;
+        if (payload.hasRemaining()) {
+            byte[] bytes = new byte[payload.getInt()];
+            payload.get(bytes);
+            text = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        if (type == ADD) {
+            live.put(id, new LiveEntry(text));
+            nextId = Math.max(nextId, id + 1);
+        } else if (type == STATUS) {
+            QueryStatus status = QueryStatus.valueOf(text);
+            LiveEntry entry = live.get(id);
+            if (status.isTerminal()) {
+                live.remove(id);
+            } else if (entry != null) {
+                entry.status = status;
+            }
+        } else if (type == NEXT_ID) {
+            nextId = Math.max(nextId, id);
+        }
+    }
+
+    private static byte[] encode(byte type, long id, String text) {
+        byte[] textBytes = text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + Long.BYTES + (textBytes == null ? 0 : Integer.BYTES + textBytes.length);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + length);
+        buffer.putInt(length);
+        buffer.putInt(0);
+        buffer.put(type);
+        buffer.putLong(id);
+        if (textBytes != null) {
+            buffer.putInt(textBytes.length);
+            buffer.put(textBytes);
+        }
+        byte[] bytes = buffer.array();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 8, length);
+        ByteBuffer.wrap(bytes, 4, 4).putInt((int) crc.getValue());
+        return bytes;
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static final class Pending {
+        private final byte[] bytes;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Pending(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    private static final class LiveEntry {
+        private final String sql;
+        private QueryStatus status = QueryStatus.READY;
+
+        private LiveEntry(String sql) {
+            this.sql = sql;
+        }
+    }
+}
@@ -1,56 +1,140 @@
 package org.task.jetbrainstask.service.implementations;
 
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.models.AdmissionPolicy;
+import org.task.jetbrainstask.models.ExecutionStatistics;
+import org.task.jetbrainstask.models.JournalReplay;
+import org.task.jetbrainstask.models.QueryControl;
 import org.task.jetbrainstask.models.QueryEntry;
+import org.task.jetbrainstask.models.QueryPriority;
 import org.task.jetbrainstask.models.QueryResult;
 import org.task.jetbrainstask.models.QueryStatus;
+import org.task.jetbrainstask.models.QueryStatusEvent;
+import org.task.jetbrainstask.models.RoutingDecision;
+import org.task.jetbrainstask.models.SpooledResult;
+import org.task.jetbrainstask.service.exceptions.QueryRejectedException;
 import org.task.jetbrainstask.service.interfaces.*;
+import org.task.jetbrainstask.sql.QueryFingerprint;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
 public class QueryManagerImpl implements QueryManager {
 
     private final Map<Long, QueryEntry> queue = new ConcurrentHashMap<>();
     private final Map<Long, CompletableFuture<QueryResult>> executions = new ConcurrentHashMap<>();
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Map<Long, QueryControl> controls = new ConcurrentHashMap<>();
+    private final Map<Long, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Map<Long, SpooledResult> spooled = new ConcurrentHashMap<>();
     private final AtomicLong idGenerator = new AtomicLong(0);
+    private final AtomicLong executionsStarted = new AtomicLong();
+    private final AtomicLong executionsSaved = new AtomicLong();
+    private final AtomicLong executionsDegraded = new AtomicLong();
+    private final AtomicLong executionsPromoted = new AtomicLong();
 
     private final Logger log = LoggerFactory.getLogger(QueryManagerImpl.class);
 
     private final QueryAnalyzer analyzer;
     private final QueryExecutor executor;
+    private final QueryExecutor streamExecutor;
     private final QueryCacheManager queryCacheManager;
     private final AsyncQueryManager asyncManager;
+    private final QueryFingerprinter fingerprinter;
+    private final QueryRetention retention;
+    private final ResultSpool spool;
+    private final QueryJournal journal;
+    private final SharedScanExecutor sharedScans;
+    private final Executor syncQueryExecutor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AdmissionPolicy admissionPolicy;
+    private final Duration degradeTimeout;
+    private final Duration syncBudget;
 
     @Autowired
-    public QueryManagerImpl(QueryAnalyzer analyzer, QueryExecutor executor, QueryCacheManager queryCacheManager, AsyncQueryManager asyncManager) {
+    public QueryManagerImpl(QueryAnalyzer analyzer, QueryExecutor executor,
+                            @Qualifier("streamQueryExecutor") QueryExecutor streamExecutor, QueryCacheManager queryCacheManager,
+                            AsyncQueryManager asyncManager, QueryFingerprinter fingerprinter, QueryRetention retention,
+                            ResultSpool spool, QueryJournal journal, SharedScanExecutor sharedScans,
+                            @Qualifier("syncQueryExecutor") Executor syncQueryExecutor,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${query.admission.policy:REJECT}") AdmissionPolicy admissionPolicy,
+                            @Value("${query.admission.degrade-timeout:30s}") Duration degradeTimeout,
+                            @Value("${query.hybrid.sync-budget:200ms}") Duration syncBudget) {
         this.analyzer = analyzer;
         this.executor = executor;
+        this.streamExecutor = streamExecutor;
         this.queryCacheManager = queryCacheManager;
         this.asyncManager = asyncManager;
+        this.fingerprinter = fingerprinter;
+        this.retention = retention;
+        this.spool = spool;
+        this.journal = journal;
+        this.sharedScans = sharedScans;
+        this.syncQueryExecutor = syncQueryExecutor;
+        this.eventPublisher = eventPublisher;
+        this.admissionPolicy = admissionPolicy;
+        this.degradeTimeout = degradeTimeout;
+        this.syncBudget = syncBudget;
+    }
+
+    @PostConstruct
+    public void restoreQueue() {
+        JournalReplay replay = journal.replay();
+        for (QueryEntry entry : replay.getEntries()) {
+            entry.setFingerprint(fingerprinter.fingerprint(entry.getQuery()));
+            queue.put(entry.getId(), entry);
+        }
+        idGenerator.accumulateAndGet(replay.getNextId(), Math::max);
+        if (!replay.getEntries().isEmpty()) {
+            log.info("Restored {} queries from the journal, next id={}", replay.getEntries().size(), idGenerator.get());
+        }
     }
 
     @Override
     public List<Long> addQueries(List<QueryEntry> queries) {
         List<Long> ids = new ArrayList<>();
+        CompletableFuture<Void> durable = CompletableFuture.completedFuture(null);
         for (QueryEntry query : queries) {
             Long id = idGenerator.getAndIncrement();
             query.setId(id);
             query.setStatus(QueryStatus.READY);
+            fingerprintOf(query);
             queue.put(id, query);
+            durable = journal.recordAdded(query);
             ids.add(id);
             log.info("Added query ID={} to queue: {}", id, query.getQuery());
         }
 
+        durable.join();
         log.info("Total {} queries added to queue", ids.size());
         return ids;
     }
@@ -64,6 +148,16 @@ public class QueryManagerImpl implements QueryManager {
 
     @Override
     public CompletableFuture<QueryResult> executeQueryById(long id) {
+        return executeQueryById(id, null);
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> executeQueryById(long id, Duration timeout) {
+        return executeQueryById(id, timeout, QueryPriority.NORMAL, null);
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> executeQueryById(long id, Duration timeout, QueryPriority priority, String clientId) {
         QueryEntry queryEntry = queue.get(id);
         if (queryEntry == null) {
             log.warn("Attempt to access non-existent query id={}", id);
@@ -76,66 +170,436 @@ public class QueryManagerImpl implements QueryManager {
         log.info("Executing query id={} (async check pending)", id);
 
         try {
-            Optional<QueryResult> cached = queryCacheManager.getCachedResult(sql);
+            QueryFingerprint fingerprint = fingerprintOf(queryEntry);
+            Optional<QueryResult> cached = cachedExecution(queryEntry, fingerprint);
             if (cached.isPresent()) {
-                log.debug("Cache hit for query id={} sql={}", id, sql);
-                queryEntry.setStatus(QueryStatus.COMPLETED);
+                return CompletableFuture.completedFuture(cached.get());
+            }
+
+            CompletableFuture<QueryResult> previous = executions.get(id);
+            CompletableFuture<Void> started = new CompletableFuture<>();
+            CompletableFuture<Void> promoted = new CompletableFuture<>();
+            QueryControl control = new QueryControl(timeout, priority, clientId);
+            CompletableFuture<QueryResult> execution;
+            try {
+                execution = CompletableFuture
+                        .supplyAsync(() -> {
+                            started.complete(null);
+                            return executeUncached(queryEntry, fingerprint, control, promoted);
+                        }, syncQueryExecutor)
+                        .thenCompose(Function.identity());
+            } catch (RejectedExecutionException e) {
+                throw new QueryRejectedException("Sync executor is saturated", e);
+            }
+            return withSyncBudget(queryEntry, execution, previous, started, promoted);
+
+        } catch (Exception ex) {
+            return CompletableFuture.completedFuture(failedExecution(queryEntry, ex));
+        }
+    }
+
+    private Optional<QueryResult> cachedExecution(QueryEntry queryEntry, QueryFingerprint fingerprint) {
+        Optional<QueryResult> cached = queryCacheManager.getCachedResult(fingerprint);
+        if (cached.isEmpty()) {
+            return Optional.empty();
+        }
+        long id = queryEntry.getId();
+        log.debug("Cache hit for query id={} sql={}", id, queryEntry.getQuery());
+        queryEntry.setStatus(QueryStatus.COMPLETED);
+
+        QueryResult cachedCopy = QueryResult.copyOf(cached.get(), id);
+        cachedCopy.setStatus(QueryStatus.COMPLETED);
+        publishStatus(queryEntry, cachedCopy);
+        return Optional.of(cachedCopy);
+    }
+
+    @Override
+    public CompletableFuture<Void> executeBatch(List<Long> ids, int parallelism, QueryPriority priority, String clientId,
+                                                Consumer<QueryResult> onResult) {
+        Map<String, BatchGroup> groups = new LinkedHashMap<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            QueryEntry queryEntry = queue.get(id);
+            if (queryEntry == null) {
+                log.warn("Batch references non-existent query id={}", id);
+                QueryResult notFound = QueryResult.error("Query not found for id=" + id);
+                notFound.setId(id);
+                onResult.accept(notFound);
+                continue;
+            }
+            try {
+                QueryFingerprint fingerprint = fingerprintOf(queryEntry);
+                Optional<QueryResult> cached = cachedExecution(queryEntry, fingerprint);
+                if (cached.isPresent()) {
+                    onResult.accept(cached.get());
+                    continue;
+                }
+                groups.computeIfAbsent(fingerprint.getCanonicalSql(),
+                        key -> new BatchGroup(queryEntry, fingerprint, new QueryControl(null, priority, clientId),
+                                Math.max(1, analyzer.expectedDurationMs(fingerprint).orElse(1))))
+                        .members.add(queryEntry);
+            } catch (Exception ex) {
+                onResult.accept(failedExecution(queryEntry, ex));
+            }
+        }
+        if (groups.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<BatchUnit> units = batchUnits(groups.values());
+        List<List<BatchUnit>> lanes = planLanes(units, parallelism);
+        log.info("Running a batch of {} queries as {} executions in {} units on {} connections",
+                ids.size(), groups.size(), units.size(), lanes.size());
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (List<BatchUnit> lane : lanes) {
+            running.add(runLane(lane, onResult));
+        }
+        return CompletableFuture.allOf(running.toArray(CompletableFuture[]::new));
+    }
+
+    // Aggregates over the same table that a shared scan can answer together become one unit; every other
+    // distinct SQL is a unit of its own.
+    private List<BatchUnit> batchUnits(Collection<BatchGroup> groups) {
+        Map<Long, BatchGroup> byLeader = new HashMap<>();
+        List<QueryEntry> leaders = new ArrayList<>();
+        for (BatchGroup group : groups) {
+            byLeader.put(group.leader.getId(), group);
+            leaders.add(group.leader);
+        }
+
+        List<BatchUnit> units = new ArrayList<>();
+        for (List<QueryEntry> scan : sharedScans.plan(leaders)) {
+            List<BatchGroup> fused = new ArrayList<>();
+            for (QueryEntry leader : scan) {
+                fused.add(byLeader.remove(leader.getId()));
+            }
+            units.add(new BatchUnit(fused));
+        }
+        for (BatchGroup group : groups) {
+            if (byLeader.containsKey(group.leader.getId())) {
+                units.add(new BatchUnit(List.of(group)));
+            }
+        }
+        return units;
+    }
+
+    // Longest expected executions are spread first over the least loaded lane; each lane then runs its
+    // shortest executions first so results start streaming back early.
+    private static List<List<BatchUnit>> planLanes(Collection<BatchUnit> units, int parallelism) {
+        List<BatchUnit> longestFirst = new ArrayList<>(units);
+        longestFirst.sort(Comparator.comparingLong((BatchUnit unit) -> unit.expectedMs).reversed());
+        int laneCount = Math.max(1, Math.min(parallelism, longestFirst.size()));
+
+        List<List<BatchUnit>> lanes = new ArrayList<>();
+        long[] load = new long[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (BatchUnit unit : longestFirst) {
+            int lightest = 0;
+            for (int i = 1; i < laneCount; i++) {
+                if (load[i] < load[lightest]) {
+                    lightest = i;
+                }
+            }
+            lanes.get(lightest).add(unit);
+            load[lightest] += unit.expectedMs;
+        }
+        for (List<BatchUnit> lane : lanes) {
+            lane.sort(Comparator.comparingLong(unit -> unit.expectedMs));
+        }
+        return lanes;
+    }
+
+    // Every member subscribes to its group's statement and every group to its unit's shared scan, so
+    // cancelling one id only detaches it; a statement is cancelled once nobody waits for it anymore.
+    private CompletableFuture<Void> runLane(List<BatchUnit> lane, Consumer<QueryResult> onResult) {
+        List<BatchGroup> groups = lane.stream().flatMap(unit -> unit.groups.stream()).toList();
+        for (BatchUnit unit : lane) {
+            for (BatchGroup group : unit.groups) {
+                group.tableVersions = queryCacheManager.snapshotTableVersions(group.fingerprint.getTables());
+                group.shared = new InFlight(group.fingerprint.getCanonicalSql(), group.control, group.members.size(), unit.scan);
+                executionsStarted.incrementAndGet();
+                executionsSaved.addAndGet(group.members.size() - 1);
+                for (QueryEntry member : group.members) {
+                    long id = member.getId();
+                    Subscription subscription = new Subscription(group.shared);
+                    group.subscriptions.put(id, subscription);
+                    subscriptions.put(id, subscription);
+                    subscription.result.whenComplete((result, ex) -> subscriptions.remove(id, subscription));
+                    member.setStatus(QueryStatus.RUNNING);
+                    publishStatus(member, null);
+                }
+            }
+        }
+
+        BatchGroup first = groups.get(0);
+        try {
+            return asyncManager.executeOnConnection(first.leader, first.control, connection -> {
+                        for (BatchUnit unit : lane) {
+                            runBatchUnit(unit, connection, onResult);
+                        }
+                    })
+                    .exceptionally(ex -> {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                        groups.stream().filter(group -> !group.reported).forEach(group -> failBatchGroup(group, cause, onResult));
+                        return null;
+                    });
+        } catch (RuntimeException ex) {
+            groups.forEach(group -> failBatchGroup(group, ex, onResult));
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void runBatchUnit(BatchUnit unit, QueryExecutor connection, Consumer<QueryResult> onResult) {
+        Map<Long, QueryResult> shared = Map.of();
+        List<QueryEntry> fusable = unit.groups.stream()
+                .filter(group -> !group.control.isCancelled())
+                .map(group -> group.leader)
+                .toList();
+        if (fusable.size() > 1) {
+            try {
+                shared = sharedScans.execute(fusable, unit.scan.control, connection);
+            } catch (RuntimeException ex) {
+                log.warn("Shared scan over {} queries failed, running them individually: {}", fusable.size(), ex.getMessage());
+            }
+        }
+
+        for (BatchGroup group : unit.groups) {
+            QueryResult result;
+            if (group.control.isCancelled()) {
+                result = cancelledResult(group.leader.getId());
+            } else if (shared.containsKey(group.leader.getId())) {
+                result = shared.get(group.leader.getId());
+            } else {
+                result = connection.executeQuery(group.leader.getQuery(), group.control);
+            }
+            finishBatchGroup(group, result, onResult);
+        }
+    }
+
+    private void finishBatchGroup(BatchGroup group, QueryResult result, Consumer<QueryResult> onResult) {
+        group.reported = true;
+        result.setId(group.leader.getId());
+        recordCompletion(group.fingerprint, group.tableVersions, result);
+        for (QueryEntry member : group.members) {
+            QueryResult memberResult = member == group.leader ? result : QueryResult.copyOf(result, member.getId());
+            if (detached(group, member, memberResult)) {
+                memberResult = cancelledResult(member.getId());
+            }
+            if (isUnsuccessful(memberResult)) {
+                unsuccessfulExecution(member, memberResult);
+            } else {
+                member.setStatus(QueryStatus.COMPLETED);
+                publishStatus(member, memberResult);
+            }
+            onResult.accept(memberResult);
+        }
+    }
+
+    private void failBatchGroup(BatchGroup group, Throwable ex, Consumer<QueryResult> onResult) {
+        group.reported = true;
+        for (QueryEntry member : group.members) {
+            onResult.accept(detached(group, member, null)
+                    ? unsuccessfulExecution(member, cancelledResult(member.getId()))
+                    : failedExecution(member, ex));
+        }
+    }
 
-                QueryResult cachedCopy = new QueryResult();
-                QueryResult original = cached.get();
-                cachedCopy.setId(id);
-                cachedCopy.setHeaders(original.getHeaders());
-                cachedCopy.setData(original.getData());
-                cachedCopy.setStatus(QueryStatus.COMPLETED);
-                cachedCopy.setExecutionTimeMs(original.getExecutionTimeMs());
+    // Ends the member's subscription; returns true when the member had already been cancelled.
+    private static boolean detached(BatchGroup group, QueryEntry member, QueryResult result) {
+        return !group.subscriptions.get(member.getId()).result.complete(result);
+    }
 
-                return CompletableFuture.completedFuture(cachedCopy);
+    // previous is the execution stored for the id before this one started. The async route stores its own
+    // execution, so the timer only promotes an execution when nothing replaced previous in the meantime. The budget
+    // starts once a sync worker picks the query up, so queries still waiting in the executor queue are never promoted.
+    private CompletableFuture<QueryResult> withSyncBudget(QueryEntry queryEntry, CompletableFuture<QueryResult> execution,
+                                                          CompletableFuture<QueryResult> previous,
+                                                          CompletableFuture<Void> started, CompletableFuture<Void> promoted) {
+        if (syncBudget == null || syncBudget.isZero() || syncBudget.isNegative() || execution.isDone()) {
+            return execution;
+        }
+
+        long id = queryEntry.getId();
+        CompletableFuture<QueryResult> response = new CompletableFuture<>();
+        execution.whenComplete((result, ex) -> {
+            if (ex != null) {
+                response.completeExceptionally(ex);
+            } else {
+                response.complete(result);
             }
+        });
+        started.thenRun(() -> CompletableFuture.delayedExecutor(syncBudget.toMillis(), TimeUnit.MILLISECONDS).execute(() -> {
+            if (execution.isDone()) {
+                return;
+            }
+            CompletableFuture<QueryResult> stored = storeExecution(queryEntry, execution, previous);
+            if (stored == null) {
+                return;
+            }
+            executionsPromoted.incrementAndGet();
+            if (response.complete(createRunningPlaceholder(id))) {
+                log.info("Query id={} exceeded the {} ms sync budget, continuing it in the background",
+                        id, syncBudget.toMillis());
+                promoted.complete(null);
+            } else {
+                executionsPromoted.decrementAndGet();
+                executions.remove(id, stored);
+            }
+        }));
+        return response;
+    }
 
+    // promoted completes when the caller stopped waiting for a sync execution; the statement then moves to the async
+    // pool so it does not keep a sync worker and its SyncPool connection.
+    private CompletableFuture<QueryResult> executeUncached(QueryEntry queryEntry, QueryFingerprint fingerprint,
+                                                           QueryControl control, CompletableFuture<Void> promoted) {
+        long id = queryEntry.getId();
+        String sql = queryEntry.getQuery();
 
-            boolean async = analyzer.shouldRunAsync(sql);
-            log.info("Query id={} determined to run {}", id, async ? "asynchronously" : "synchronously");
+        try {
+            RoutingDecision decision = analyzer.analyze(fingerprint);
+            boolean async = decision.isAsync();
+            Long estimatedCost = decision.getEstimatedCost();
+            log.info("Query id={} determined to run {} ({}, estimatedCost={})", id,
+                    async ? "asynchronously" : "synchronously", decision.getReason(), estimatedCost);
 
             queryEntry.setStatus(QueryStatus.RUNNING);
+            publishStatus(queryEntry, null);
+
+            String key = fingerprint.getCanonicalSql();
+            Map<String, Long> tableVersions = queryCacheManager.snapshotTableVersions(fingerprint.getTables());
+            InFlight leader = new InFlight(key, control);
+            InFlight shared;
+            while ((shared = inFlight.putIfAbsent(key, leader)) != null && !shared.subscribe()) {
+                inFlight.remove(key, shared);
+            }
+            if (shared != null) {
+                executionsSaved.incrementAndGet();
+                log.info("Query id={} attached to an in-flight execution of the same SQL", id);
+                return respond(queryEntry, subscribe(queryEntry, shared), async, estimatedCost);
+            }
+            executionsStarted.incrementAndGet();
+            CompletableFuture<QueryResult> own = subscribe(queryEntry, leader);
+
             if (async) {
                 log.info("Submitting async query id={}", id);
 
-                CompletableFuture<QueryResult> future = asyncManager.executeAsync(queryEntry)
-                        .whenComplete((result, ex) -> {
-                            if (ex != null) {
-                                queryEntry.setStatus(QueryStatus.FAILED);
-                                queryEntry.setErrorMessage(ex.getMessage());
-                                log.error("Async query id={} failed: {}", id, ex.getMessage(), ex);
-                            } else {
-                                queryEntry.setStatus(QueryStatus.TO_BE_SEEN);
-                                log.info("Async query id={} run successfully. Result will be available at /execute/{}", id, id);
-                            }
-                        });
-
-                executions.put(id, future);
-                return CompletableFuture.completedFuture(createRunningPlaceholder(id));
-            }
-
-            QueryResult result = executor.executeQuery(sql);
-            result.setId(queryEntry.getId());
-            queryCacheManager.putResultInCache(sql, result);
-            queryEntry.setStatus(QueryStatus.COMPLETED);
-            analyzer.recordExecution(sql, result.getExecutionTimeMs());
-            log.info("Synchronous query id={} completed successfully", id);
+                CompletableFuture<QueryResult> submitted = null;
+                try {
+                    submitted = asyncManager.executeAsync(queryEntry, control);
+                } catch (QueryRejectedException ex) {
+                    if (admissionPolicy != AdmissionPolicy.DEGRADE) {
+                        completeInFlight(leader, null, ex);
+                        return respond(queryEntry, own, false, estimatedCost);
+                    }
+                    executionsDegraded.incrementAndGet();
+                    control.limitTimeout(degradeTimeout);
+                    log.warn("Async admission refused for query id={}, running it synchronously within {}", id, degradeTimeout);
+                } catch (RuntimeException ex) {
+                    completeInFlight(leader, null, ex);
+                    return respond(queryEntry, own, false, estimatedCost);
+                }
 
-            return CompletableFuture.completedFuture(result);
+                if (submitted != null) {
+                    completeFrom(submitted, leader, fingerprint, tableVersions, estimatedCost);
+                    return respond(queryEntry, own, true, estimatedCost);
+                }
+            } else {
+                promoted.thenRun(() -> interrupt(id, control));
+            }
+
+            try {
+                QueryResult result = executor.executeQuery(sql, control);
+                if (control.resume() && isUnsuccessful(result)) {
+                    try {
+                        completeFrom(asyncManager.executeAsync(queryEntry, control), leader, fingerprint, tableVersions, estimatedCost);
+                        log.info("Promoted query id={} moved to the async pool", id);
+                        return respond(queryEntry, own, false, estimatedCost);
+                    } catch (QueryRejectedException ex) {
+                        log.warn("Async pool refused promoted query id={}, finishing it synchronously: {}", id, ex.getMessage());
+                        result = executor.executeQuery(sql, control);
+                    }
+                }
+                result.setId(queryEntry.getId());
+                result.setEstimatedCost(estimatedCost);
+                recordCompletion(fingerprint, tableVersions, result);
+                completeInFlight(leader, result, null);
+            } catch (RuntimeException ex) {
+                completeInFlight(leader, null, ex);
+            }
+            return respond(queryEntry, own, false, estimatedCost);
 
         } catch (Exception ex) {
-            log.error("Error executing query id={} sql={} : {}", id, sql, ex.getMessage(), ex);
-            queryEntry.setStatus(QueryStatus.FAILED);
-            queryEntry.setErrorMessage(ex.getMessage());
+            return CompletableFuture.completedFuture(failedExecution(queryEntry, ex));
+        }
+    }
 
-            QueryResult errorResult = QueryResult.error(
-                    "Error executing query id=" + id + ": " + ex.getMessage()
-            );
-            errorResult.setId(id);
-            return CompletableFuture.completedFuture(errorResult);
+    private void completeFrom(CompletableFuture<QueryResult> submitted, InFlight leader, QueryFingerprint fingerprint,
+                              Map<String, Long> tableVersions, Long estimatedCost) {
+        submitted
+                .thenApply(result -> withEstimatedCost(result, estimatedCost))
+                .thenApply(result -> recordCompletion(fingerprint, tableVersions, result))
+                .whenComplete((result, ex) -> completeInFlight(leader, result, ex));
+    }
+
+    private QueryResult failedExecution(QueryEntry queryEntry, Throwable ex) {
+        long id = queryEntry.getId();
+        if (ex instanceof QueryRejectedException) {
+            return rejectedExecution(queryEntry, ex);
         }
+        log.error("Error executing query id={} sql={} : {}", id, queryEntry.getQuery(), ex.getMessage(), ex);
+        queryEntry.setStatus(QueryStatus.FAILED);
+        queryEntry.setErrorMessage(ex.getMessage());
+
+        QueryResult errorResult = QueryResult.error(
+                "Error executing query id=" + id + ": " + ex.getMessage()
+        );
+        errorResult.setId(id);
+        publishStatus(queryEntry, errorResult);
+        return errorResult;
+    }
+
+    private QueryResult recordCompletion(QueryFingerprint fingerprint, Map<String, Long> tableVersions, QueryResult result) {
+        if (!isCacheable(result)) {
+            return result;
+        }
+        result.setStatus(QueryStatus.COMPLETED);
+        queryCacheManager.putResultInCache(fingerprint, result, tableVersions);
+        if (result.getExecutionTimeMs() != null) {
+            analyzer.recordExecution(fingerprint, result.getExecutionTimeMs());
+        }
+        return result;
+    }
+
+    private static boolean isCacheable(QueryResult result) {
+        return result != null && (result.getStatus() == null || result.getStatus() == QueryStatus.COMPLETED);
+    }
+
+    private QueryResult unsuccessfulExecution(QueryEntry queryEntry, QueryResult result) {
+        log.warn("Query id={} ended {}: {}", queryEntry.getId(), result.getStatus(), result.getErrorMessage());
+        queryEntry.setStatus(result.getStatus());
+        queryEntry.setErrorMessage(result.getErrorMessage());
+        publishStatus(queryEntry, result);
+        return result;
+    }
+
+    private static boolean isUnsuccessful(QueryResult result) {
+        return result != null && (result.getStatus() == QueryStatus.FAILED
+                || result.getStatus() == QueryStatus.CANCELLED || result.getStatus() == QueryStatus.TIMED_OUT);
+    }
+
+    private QueryResult rejectedExecution(QueryEntry queryEntry, Throwable ex) {
+        long id = queryEntry.getId();
+        log.warn("Query id={} rejected: {}", id, ex.getMessage());
+        queryEntry.setStatus(QueryStatus.REJECTED);
+        queryEntry.setErrorMessage(ex.getMessage());
+
+        QueryResult rejectedResult = QueryResult.error("Query id=" + id + " rejected: " + ex.getMessage());
+        rejectedResult.setId(id);
+        rejectedResult.setStatus(QueryStatus.REJECTED);
+        publishStatus(queryEntry, rejectedResult);
+        return rejectedResult;
     }
 
     @Override
@@ -147,19 +611,15 @@ public class QueryManagerImpl implements QueryManager {
         }
 
         if (!future.isDone()) {
-            log.info("Async query ID={} is still running", id);
+            log.debug("Async query ID={} is still running", id);
             return createRunningPlaceholder(id);
         }
 
         try {
-            QueryResult result = future.get();
-            QueryEntry entry = queue.get(id);
-            if (entry != null && entry.getStatus() == QueryStatus.TO_BE_SEEN) {
-                entry.setStatus(QueryStatus.COMPLETED);
-                if (result.getStatus() != QueryStatus.FAILED) {
-                    result.setStatus(QueryStatus.COMPLETED);
-                }
-                log.info("Async query ID={} status changed TO_BE_SEEN -> COMPLETED", id);
+            QueryResult result = markSeen(id, future.get());
+            SpooledResult handle = spooled.get(id);
+            if (handle != null) {
+                result = readSpooled(handle, result);
             }
             log.info("Async query ID={} result retrieved, executionTime={} ms", id, result.getExecutionTimeMs());
             return result;
@@ -172,45 +632,403 @@ public class QueryManagerImpl implements QueryManager {
         }
     }
 
-    @Scheduled(fixedRate = 2 * 60 * 1000)
-    public void cleanCompletedExecutions() {
-        int executionsBefore = executions.size();
+    @Override
+    public boolean isExecutionSpooled(long id) {
+        CompletableFuture<QueryResult> future = executions.get(id);
+        return spooled.containsKey(id) && future != null && future.isDone();
+    }
+
+    @Override
+    public QueryResult streamQueryExecution(long id, QueryRowHandler handler) {
+        SpooledResult handle = spooled.get(id);
+        CompletableFuture<QueryResult> future = executions.get(id);
+        if (handle == null || future == null || !future.isDone()) {
+            QueryResult result = getQueryExecution(id);
+            handler.onHeaders(result.getHeaders() != null ? result.getHeaders() : List.of());
+            for (List<Object> row : result.getData()) {
+                handler.onRow(row.toArray());
+            }
+            return result;
+        }
 
-        executions.entrySet().removeIf(entry -> {
-            CompletableFuture<QueryResult> future = entry.getValue();
-            if (future.isDone()) {
-                try {
-                    QueryResult result = future.get();
-                    boolean remove = result != null && result.getStatus() == QueryStatus.COMPLETED;
-                    if (remove) {
-                        log.info("Removing completed execution id={}", entry.getKey());
-                    }
-                    return remove;
-                } catch (Exception e) {
-                    log.warn("Error retrieving execution id={}, removing it from map", entry.getKey(), e);
-                    return true;
+        QueryResult summary = markSeen(id, future.join());
+        log.info("Streaming spooled result of query ID={} ({} rows)", id, handle.getRowCount());
+        spool.stream(handle, handler);
+        return summary;
+    }
+
+    @Override
+    public QueryResult streamQueryById(long id, QueryRowHandler handler) {
+        QueryEntry queryEntry = queue.get(id);
+        if (queryEntry == null) {
+            log.warn("Attempt to stream non-existent query id={}", id);
+            QueryResult errorResult = QueryResult.error("Query not found for id=" + id);
+            errorResult.setId(id);
+            return errorResult;
+        }
+
+        String sql = queryEntry.getQuery();
+        QueryFingerprint fingerprint = fingerprintOf(queryEntry);
+        Optional<QueryResult> cached = queryCacheManager.getCachedResult(fingerprint);
+        if (cached.isPresent()) {
+            log.debug("Streaming cached result for query id={}", id);
+            QueryResult original = cached.get();
+            handler.onHeaders(original.getHeaders() != null ? original.getHeaders() : List.of());
+            for (List<Object> row : original.getData()) {
+                handler.onRow(row.toArray());
+            }
+            queryEntry.setStatus(QueryStatus.COMPLETED);
+
+            QueryResult summary = new QueryResult();
+            summary.setId(id);
+            summary.setStatus(QueryStatus.COMPLETED);
+            summary.setExecutionTimeMs(original.getExecutionTimeMs());
+            publishStatus(queryEntry, null);
+            return summary;
+        }
+
+        queryEntry.setStatus(QueryStatus.RUNNING);
+        publishStatus(queryEntry, null);
+        QueryResult summary = streamExecutor.streamQuery(sql, handler);
+        summary.setId(id);
+
+        if (summary.getStatus() == QueryStatus.FAILED) {
+            queryEntry.setStatus(QueryStatus.FAILED);
+            queryEntry.setErrorMessage(summary.getErrorMessage());
+            log.warn("Streaming query id={} failed: {}", id, summary.getErrorMessage());
+        } else {
+            queryEntry.setStatus(QueryStatus.COMPLETED);
+            analyzer.recordExecution(fingerprint, summary.getExecutionTimeMs());
+            log.info("Streaming query id={} completed in {} ms", id, summary.getExecutionTimeMs());
+        }
+        publishStatus(queryEntry, null);
+        return summary;
+    }
+
+    @Override
+    public QueryResult cancelQuery(long id) {
+        QueryEntry queryEntry = queue.get(id);
+        if (queryEntry == null) {
+            log.warn("Attempt to cancel non-existent query id={}", id);
+            return QueryResult.error("Query not found for id=" + id);
+        }
+
+        Subscription subscription = subscriptions.get(id);
+        if (subscription != null) {
+            InFlight shared = subscription.shared;
+            if (subscription.result.complete(cancelledResult(id)) && shared.unsubscribe()) {
+                inFlight.remove(shared.key, shared);
+                cancel(id, shared.control);
+                if (shared.parent != null && shared.parent.unsubscribe()) {
+                    cancel(id, shared.parent.control);
                 }
+                log.info("Cancellation requested for query id={}", id);
+            } else {
+                log.info("Query id={} detached from an execution other callers still wait for", id);
+            }
+            return cancelledResult(id);
+        }
+
+        QueryControl control = controls.get(id);
+        if (control == null) {
+            log.info("Query id={} is not running (status={}), nothing to cancel", id, queryEntry.getStatus());
+            QueryResult notRunning = QueryResult.error("Query id=" + id + " is not running (status " + queryEntry.getStatus() + ")");
+            notRunning.setId(id);
+            return notRunning;
+        }
+
+        cancel(id, control);
+        log.info("Cancellation requested for query id={}", id);
+        return cancelledResult(id);
+    }
+
+    private void cancel(long id, QueryControl control) {
+        try {
+            control.cancel();
+        } catch (SQLException e) {
+            log.warn("Could not cancel statement of query id={}: {}", id, e.getMessage());
+        }
+    }
+
+    private void interrupt(long id, QueryControl control) {
+        try {
+            control.interrupt();
+        } catch (SQLException e) {
+            log.warn("Could not interrupt statement of query id={}: {}", id, e.getMessage());
+        }
+    }
+
+    private static QueryResult cancelledResult(long id) {
+        QueryResult cancelled = QueryResult.error("CANCELLED: query was cancelled");
+        cancelled.setId(id);
+        cancelled.setStatus(QueryStatus.CANCELLED);
+        return cancelled;
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> awaitExecution(long id, Duration timeout) {
+        CompletableFuture<QueryResult> future = executions.get(id);
+        if (future == null || future.isDone()) {
+            return CompletableFuture.completedFuture(awaitedExecution(id));
+        }
+        return future.handle((result, ex) -> Boolean.TRUE)
+                .completeOnTimeout(Boolean.FALSE, timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(done -> awaitedExecution(id));
+    }
+
+    // A spooled result is not read back into memory for a waiting caller; it gets the summary and a reference
+    // to GET /execute/{id}, which streams the rows from disk.
+    private QueryResult awaitedExecution(long id) {
+        CompletableFuture<QueryResult> future = executions.get(id);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally() || !spooled.containsKey(id)) {
+            return getQueryExecution(id);
+        }
+        QueryResult summary = QueryResult.copyOf(future.join(), id);
+        summary.setData(null);
+        summary.setResultUrl("/execute/" + id);
+        return summary;
+    }
+
+    @Override
+    public QueryStatusEvent getStatusEvent(long id) {
+        QueryEntry queryEntry = queue.get(id);
+        CompletableFuture<QueryResult> future = executions.get(id);
+        if (queryEntry == null) {
+            return new QueryStatusEvent(id, QueryStatus.FAILED, "Query not found for id=" + id, null);
+        }
+
+        QueryResult result = future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+        return statusEvent(queryEntry, result);
+    }
+
+    @Override
+    public ExecutionStatistics getExecutionStatistics() {
+        ExecutionStatistics statistics = new ExecutionStatistics();
+        statistics.setExecutionsStarted(executionsStarted.get());
+        statistics.setExecutionsSaved(executionsSaved.get());
+        statistics.setExecutionsDegraded(executionsDegraded.get());
+        statistics.setExecutionsPromoted(executionsPromoted.get());
+        statistics.setInFlight(inFlight.size());
+        return statistics;
+    }
+
+    // Every caller of a shared execution, the one that started it included, gets a future of its own, so one
+    // caller can be cancelled without taking the result away from the others.
+    private CompletableFuture<QueryResult> subscribe(QueryEntry queryEntry, InFlight shared) {
+        long id = queryEntry.getId();
+        Subscription subscription = new Subscription(shared);
+        subscriptions.put(id, subscription);
+        shared.future.whenComplete((result, ex) -> {
+            if (ex != null) {
+                subscription.result.completeExceptionally(ex);
+            } else {
+                subscription.result.complete(Long.valueOf(id).equals(result.getId()) ? result : QueryResult.copyOf(result, id));
             }
-            return false;
         });
+        subscription.result.whenComplete((result, ex) -> subscriptions.remove(id, subscription));
+        return subscription.result;
+    }
+
+    private CompletableFuture<QueryResult> respond(QueryEntry queryEntry, CompletableFuture<QueryResult> execution,
+                                                   boolean async, Long estimatedCost) {
+        long id = queryEntry.getId();
+        if (async) {
+            storeExecution(queryEntry, execution.whenComplete((result, ex) -> updateAsyncStatus(queryEntry, result, ex)));
+            return CompletableFuture.completedFuture(withEstimatedCost(createRunningPlaceholder(id), estimatedCost));
+        }
+
+        return execution.handle((result, ex) -> {
+            if (ex != null) {
+                return failedExecution(queryEntry, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            }
+            if (isUnsuccessful(result)) {
+                return unsuccessfulExecution(queryEntry, result);
+            }
+            queryEntry.setStatus(QueryStatus.COMPLETED);
+            publishStatus(queryEntry, result);
+            log.info("Synchronous query id={} completed successfully", id);
+            return result;
+        });
+    }
+
+    private QueryResult withEstimatedCost(QueryResult result, Long estimatedCost) {
+        if (result != null && result.getEstimatedCost() == null) {
+            result.setEstimatedCost(estimatedCost);
+        }
+        return result;
+    }
 
-        log.info("Cleanup finished: executions removed={}",
-                executionsBefore - executions.size());
+    private void completeInFlight(InFlight leader, QueryResult result, Throwable ex) {
+        if (ex != null) {
+            leader.future.completeExceptionally(ex);
+        } else {
+            leader.future.complete(result);
+        }
+        inFlight.remove(leader.key, leader);
     }
 
-    @Scheduled(fixedRate = 1 * 60 * 1000)
-    public void cleanCompletedQueries() {
-        int queueBefore = queue.size();
+    private void storeExecution(QueryEntry queryEntry, CompletableFuture<QueryResult> future) {
+        long id = queryEntry.getId();
+        releaseSpooled(id);
+        CompletableFuture<QueryResult> stored = future.thenApply(result -> spoolIfLarge(id, result));
+        executions.put(id, stored);
+        stored.whenComplete((result, ex) -> publishStatus(queryEntry, result));
+    }
 
-        queue.entrySet().removeIf(entry -> {
-            boolean remove = entry.getValue().getStatus() == QueryStatus.COMPLETED;
-            if (remove) {
-                log.info("Removing completed query id={}", entry.getKey());
+    // Stores the execution only while the id still maps to expected; returns null when another one was stored.
+    private CompletableFuture<QueryResult> storeExecution(QueryEntry queryEntry, CompletableFuture<QueryResult> future,
+                                                          CompletableFuture<QueryResult> expected) {
+        long id = queryEntry.getId();
+        CompletableFuture<QueryResult> stored = new CompletableFuture<>();
+        boolean registered = expected == null
+                ? executions.putIfAbsent(id, stored) == null
+                : executions.replace(id, expected, stored);
+        if (!registered) {
+            return null;
+        }
+        releaseSpooled(id);
+        future.thenApply(result -> spoolIfLarge(id, result)).whenComplete((result, ex) -> {
+            if (ex != null) {
+                stored.completeExceptionally(ex);
+            } else {
+                stored.complete(result);
             }
-            return remove;
         });
+        stored.whenComplete((result, ex) -> publishStatus(queryEntry, result));
+        return stored;
+    }
+
+    private QueryResult spoolIfLarge(long id, QueryResult result) {
+        if (isUnsuccessful(result) || !spool.shouldSpool(result)) {
+            return result;
+        }
+        try {
+            SpooledResult handle = spool.spool(result);
+            spooled.put(id, handle);
+            log.info("Async query ID={} result spooled to disk ({} rows, {} bytes)", id, handle.getRowCount(), handle.getLength());
+
+            QueryResult stub = new QueryResult(id, result.getHeaders(), null);
+            stub.setStatus(result.getStatus());
+            stub.setErrorMessage(result.getErrorMessage());
+            stub.setExecutionTimeMs(result.getExecutionTimeMs());
+            stub.setEstimatedCost(result.getEstimatedCost());
+            return stub;
+        } catch (UncheckedIOException e) {
+            log.warn("Could not spool result of query ID={}, keeping it in memory: {}", id, e.getMessage());
+            return result;
+        }
+    }
 
-        log.info("Cleanup finished, queue removed={}", queueBefore - queue.size());
+    private QueryResult readSpooled(SpooledResult handle, QueryResult stub) {
+        QueryResult result = spool.read(handle);
+        result.setId(stub.getId());
+        result.setStatus(stub.getStatus());
+        result.setErrorMessage(stub.getErrorMessage());
+        result.setExecutionTimeMs(stub.getExecutionTimeMs());
+        result.setEstimatedCost(stub.getEstimatedCost());
+        return result;
+    }
+
+    private void releaseSpooled(long id) {
+        SpooledResult handle = spooled.remove(id);
+        if (handle != null) {
+            spool.release(handle);
+        }
+    }
+
+    private QueryResult markSeen(long id, QueryResult result) {
+        QueryEntry entry = queue.get(id);
+        if (entry != null && entry.getStatus() == QueryStatus.TO_BE_SEEN) {
+            entry.setStatus(QueryStatus.COMPLETED);
+            if (result.getStatus() != QueryStatus.FAILED) {
+                result.setStatus(QueryStatus.COMPLETED);
+            }
+            log.info("Async query ID={} status changed TO_BE_SEEN -> COMPLETED", id);
+            publishStatus(entry, result);
+        }
+        return result;
+    }
+
+    private void publishStatus(QueryEntry queryEntry, QueryResult result) {
+        if (queryEntry.getStatus() != null) {
+            journal.recordStatus(queryEntry.getId(), queryEntry.getStatus());
+        }
+        updateRetention(queryEntry, result);
+        eventPublisher.publishEvent(statusEvent(queryEntry, result));
+    }
+
+    // A spooled result stays on disk; the event points at it instead of carrying a stub without rows.
+    private QueryStatusEvent statusEvent(QueryEntry queryEntry, QueryResult result) {
+        long id = queryEntry.getId();
+        if (result != null && result.getData() == null && spooled.containsKey(id)) {
+            return new QueryStatusEvent(id, queryEntry.getStatus(), queryEntry.getErrorMessage(), null, "/execute/" + id);
+        }
+        return new QueryStatusEvent(id, queryEntry.getStatus(), queryEntry.getErrorMessage(), result);
+    }
+
+    private void updateRetention(QueryEntry queryEntry, QueryResult result) {
+        long id = queryEntry.getId();
+        QueryStatus status = queryEntry.getStatus();
+        if (status == null || !status.isTerminal()) {
+            retention.release(id);
+            return;
+        }
+        long bytes = result != null && executions.containsKey(id) ? result.estimateSizeBytes() : 0;
+        for (Long evictedId : retention.retain(id, status, bytes)) {
+            log.info("Evicting query id={} to stay within the retained result budget", evictedId);
+            evict(evictedId);
+        }
+    }
+
+    private void evict(long id) {
+        QueryEntry removed = queue.computeIfPresent(id, (key, entry) ->
+                entry.getStatus() != null && entry.getStatus().isTerminal() ? null : entry);
+        if (removed == null) {
+            executions.remove(id);
+            releaseSpooled(id);
+        }
+    }
+
+    private void updateAsyncStatus(QueryEntry queryEntry, QueryResult result, Throwable ex) {
+        long id = queryEntry.getId();
+        controls.remove(id);
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof QueryRejectedException) {
+            queryEntry.setStatus(QueryStatus.REJECTED);
+            queryEntry.setErrorMessage(cause.getMessage());
+            log.warn("Async query id={} rejected: {}", id, cause.getMessage());
+        } else if (ex != null) {
+            queryEntry.setStatus(QueryStatus.FAILED);
+            queryEntry.setErrorMessage(ex.getMessage());
+            log.error("Async query id={} failed: {}", id, ex.getMessage(), ex);
+        } else if (isUnsuccessful(result)) {
+            queryEntry.setStatus(result.getStatus());
+            queryEntry.setErrorMessage(result.getErrorMessage());
+            log.warn("Async query id={} ended {}", id, result.getStatus());
+        } else {
+            queryEntry.setStatus(QueryStatus.TO_BE_SEEN);
+            log.info("Async query id={} run successfully. Result will be available at /execute/{}", id, id);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${query.retention.sweep-interval:10s}")
+    public void expireRetainedQueries() {
+        List<Long> expired = retention.expire();
+        for (Long id : expired) {
+            evict(id);
+        }
+        if (!expired.isEmpty()) {
+            log.info("Retention sweep removed {} expired queries", expired.size());
+        }
+    }
+
+    private QueryFingerprint fingerprintOf(QueryEntry queryEntry) {
+        QueryFingerprint fingerprint = queryEntry.getFingerprint();
+        if (fingerprint == null) {
+            fingerprint = fingerprinter.fingerprint(queryEntry.getQuery());
+            queryEntry.setFingerprint(fingerprint);
+        }
+        return fingerprint;
     }
 
     private QueryResult createRunningPlaceholder(long id) {
@@ -228,4 +1046,86 @@ public class QueryManagerImpl implements QueryManager {
         placeholder.setStatus(QueryStatus.RUNNING);
         return placeholder;
     }
+
+    // The future and the control of a running execution are published together, so every caller that finds
+    // the execution can also cancel it.
+    private static final class InFlight {
+        private final String key;
+        private final CompletableFuture<QueryResult> future = new CompletableFuture<>();
+        private final QueryControl control;
+        private final InFlight parent;
+        private int subscribers;
+
+        private InFlight(String key, QueryControl control) {
+            this(key, control, 1, null);
+        }
+
+        // parent is an execution this one in turn subscribes to, such as the shared scan of a batch unit.
+        private InFlight(String key, QueryControl control, int subscribers, InFlight parent) {
+            this.key = key;
+            this.control = control;
+            this.subscribers = subscribers;
+            this.parent = parent;
+        }
+
+        // Fails once every caller has been cancelled, because the statement is being cancelled too.
+        private synchronized boolean subscribe() {
+            if (subscribers == 0) {
+                return false;
+            }
+            subscribers++;
+            return true;
+        }
+
+        // Returns true for the last caller to leave.
+        private synchronized boolean unsubscribe() {
+            return --subscribers == 0;
+        }
+    }
+
+    private static final class Subscription {
+        private final InFlight shared;
+        private final CompletableFuture<QueryResult> result = new CompletableFuture<>();
+
+        private Subscription(InFlight shared) {
+            this.shared = shared;
+        }
+    }
+
+    private static final class BatchUnit {
+        private final List<BatchGroup> groups;
+        private final InFlight scan;
+        private final long expectedMs;
+
+        private BatchUnit(List<BatchGroup> groups) {
+            this.groups = groups;
+            this.scan = groups.size() < 2 ? null : sharedScan(groups);
+            this.expectedMs = groups.stream().mapToLong(group -> group.expectedMs).max().orElse(1);
+        }
+
+        private static InFlight sharedScan(List<BatchGroup> groups) {
+            QueryControl first = groups.get(0).control;
+            String key = groups.stream().map(group -> group.fingerprint.getCanonicalSql()).collect(Collectors.joining("; "));
+            return new InFlight(key, new QueryControl(null, first.getPriority(), first.getClientId()), groups.size(), null);
+        }
+    }
+
+    private static final class BatchGroup {
+        private final QueryEntry leader;
+        private final QueryFingerprint fingerprint;
+        private final QueryControl control;
+        private final long expectedMs;
+        private final List<QueryEntry> members = new ArrayList<>();
+        private final Map<Long, Subscription> subscriptions = new HashMap<>();
+        private InFlight shared;
+        private Map<String, Long> tableVersions;
+        private volatile boolean reported;
+
+        private BatchGroup(QueryEntry leader, QueryFingerprint fingerprint, QueryControl control, long expectedMs) {
+            this.leader = leader;
+            this.fingerprint = fingerprint;
+            this.control = control;
+            this.expectedMs = expectedMs;
+        }
+    }
 }
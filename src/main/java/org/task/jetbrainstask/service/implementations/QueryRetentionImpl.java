@@ -0,0 +1,132 @@
+package org.task.jetbrainstask.service.implementations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.models.QueryStatus;
+import org.task.jetbrainstask.models.RetentionStatistics;
+import org.task.jetbrainstask.service.interfaces.QueryRetention;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+@Component
+public class QueryRetentionImpl implements QueryRetention {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryRetentionImpl.class);
+    private static final Comparator<Expiry> BY_DEADLINE = Comparator.comparingLong((Expiry e) -> e.deadline)
+            .thenComparingLong(e -> e.id);
+
+    private final Map<QueryStatus, Duration> ttls = new EnumMap<>(QueryStatus.class);
+    private final long maxBytes;
+    private final TreeSet<Expiry> byDeadline = new TreeSet<>(BY_DEADLINE);
+    private final TreeSet<Expiry> resultsByDeadline = new TreeSet<>(BY_DEADLINE);
+    private final Map<Long, Expiry> byId = new HashMap<>();
+    private long retainedBytes;
+    private long expired;
+    private long evicted;
+
+    @Autowired
+    public QueryRetentionImpl(@Value("${query.retention.completed-ttl:5m}") Duration completedTtl,
+                              @Value("${query.retention.to-be-seen-ttl:30m}") Duration toBeSeenTtl,
+                              @Value("${query.retention.failed-ttl:10m}") Duration failedTtl,
+                              @Value("${query.retention.interrupted-ttl:10m}") Duration interruptedTtl,
+                              @Value("${query.retention.max-bytes:67108864}") long maxBytes) {
+        ttls.put(QueryStatus.COMPLETED, completedTtl);
+        ttls.put(QueryStatus.TO_BE_SEEN, toBeSeenTtl);
+        ttls.put(QueryStatus.FAILED, failedTtl);
+        ttls.put(QueryStatus.CANCELLED, interruptedTtl);
+        ttls.put(QueryStatus.TIMED_OUT, interruptedTtl);
+        ttls.put(QueryStatus.REJECTED, interruptedTtl);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public synchronized List<Long> retain(long id, QueryStatus status, long bytes) {
+        Duration ttl = ttls.get(status);
+        if (ttl == null) {
+            release(id);
+            return List.of();
+        }
+
+        remove(byId.get(id));
+        Expiry expiry = new Expiry(System.nanoTime() + ttl.toNanos(), id, Math.max(0, bytes));
+        byId.put(id, expiry);
+        byDeadline.add(expiry);
+        if (expiry.bytes > 0) {
+            resultsByDeadline.add(expiry);
+        }
+        retainedBytes += expiry.bytes;
+
+        List<Long> evictedIds = new ArrayList<>();
+        while (retainedBytes > maxBytes && !resultsByDeadline.isEmpty()) {
+            Expiry oldest = resultsByDeadline.first();
+            remove(oldest);
+            evictedIds.add(oldest.id);
+        }
+        if (!evictedIds.isEmpty()) {
+            evicted += evictedIds.size();
+            log.warn("Retained results exceeded {} bytes, evicted {} queries early", maxBytes, evictedIds.size());
+        }
+        return evictedIds;
+    }
+
+    @Override
+    public synchronized void release(long id) {
+        remove(byId.get(id));
+    }
+
+    @Override
+    public synchronized List<Long> expire() {
+        long now = System.nanoTime();
+        List<Long> expiredIds = new ArrayList<>();
+        while (!byDeadline.isEmpty() && byDeadline.first().deadline - now <= 0) {
+            Expiry next = byDeadline.first();
+            remove(next);
+            expiredIds.add(next.id);
+        }
+        expired += expiredIds.size();
+        return expiredIds;
+    }
+
+    @Override
+    public synchronized RetentionStatistics getStatistics() {
+        RetentionStatistics statistics = new RetentionStatistics();
+        statistics.setRetained(byId.size());
+        statistics.setRetainedBytes(retainedBytes);
+        statistics.setMaxBytes(maxBytes);
+        statistics.setExpired(expired);
+        statistics.setEvicted(evicted);
+        return statistics;
+    }
+
+    private void remove(Expiry expiry) {
+        if (expiry == null) {
+            return;
+        }
+        byId.remove(expiry.id, expiry);
+        byDeadline.remove(expiry);
+        resultsByDeadline.remove(expiry);
+        retainedBytes -= expiry.bytes;
+    }
+
+    private static final class Expiry {
+        private final long deadline;
+        private final long id;
+        private final long bytes;
+
+        private Expiry(long deadline, long id, long bytes) {
+            this.deadline = deadline;
+            this.id = id;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package org.task.jetbrainstask.service.implementations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.config.ConnectionBoundedExecutor;
+import org.task.jetbrainstask.models.ExecutionMode;
+import org.task.jetbrainstask.models.QueryPriority;
+import org.task.jetbrainstask.models.ScheduledQuery;
+import org.task.jetbrainstask.models.SchedulerStatistics;
+import org.task.jetbrainstask.service.interfaces.QueryAnalyzer;
+import org.task.jetbrainstask.service.interfaces.QueryScheduler;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Component("queryScheduler")
+public class QuerySchedulerImpl implements QueryScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(QuerySchedulerImpl.class);
+    private static final String ANONYMOUS = "anonymous";
+    private static final Comparator<Waiting> BY_KEY = Comparator.comparingLong((Waiting w) -> w.key)
+            .thenComparingLong(w -> w.sequence);
+
+    private final ThreadPoolTaskExecutor platformExecutor;
+    private final ConnectionBoundedExecutor virtualExecutor;
+    private final ExecutionMode mode;
+    private final QueryAnalyzer analyzer;
+    private final long priorityStepNanos;
+    private final long agingHorizonNanos;
+    private final long defaultExpectedNanos;
+    private final double clientShare;
+    private final int connections;
+
+    private final Map<String, PriorityQueue<Waiting>> queues = new HashMap<>();
+    private final Map<String, Integer> runningByClient = new HashMap<>();
+    private int running;
+    private long sequence;
+    private long dispatched;
+    private long fairShareDeferrals;
+
+    @Autowired
+    public QuerySchedulerImpl(@Qualifier("asyncExecutor") ThreadPoolTaskExecutor asyncExecutor,
+                              QueryAnalyzer analyzer,
+                              @Value("${query.scheduler.priority-step:5s}") Duration priorityStep,
+                              @Value("${query.scheduler.aging-horizon:30s}") Duration agingHorizon,
+                              @Value("${query.scheduler.default-expected:1s}") Duration defaultExpected,
+                              @Value("${query.scheduler.client-share:0.5}") double clientShare,
+                              @Value("${query.execution.mode:PLATFORM}") ExecutionMode mode,
+                              @Value("${query.datasource.async.maximum-pool-size:8}") int connections) {
+        this.platformExecutor = asyncExecutor;
+        this.virtualExecutor = mode == ExecutionMode.VIRTUAL ? ConnectionBoundedExecutor.virtual("AsyncQuery-", connections) : null;
+        this.mode = mode;
+        this.analyzer = analyzer;
+        this.priorityStepNanos = priorityStep.toNanos();
+        this.agingHorizonNanos = agingHorizon.toNanos();
+        this.defaultExpectedNanos = Math.min(defaultExpected.toNanos(), agingHorizonNanos);
+        this.clientShare = clientShare;
+        this.connections = connections;
+    }
+
+    // Queries are ordered by arrival time plus a priority offset plus their expected duration, capped at the
+    // aging horizon. Because the key is fixed at arrival, a waiting query can only be overtaken by queries that
+    // arrive less than (priority offset + horizon) after it, so nothing starves.
+    @Override
+    public void execute(Runnable command) {
+        ScheduledQuery query = command instanceof ScheduledQuery scheduled ? scheduled
+                : new ScheduledQuery(-1, null, QueryPriority.NORMAL, null, command);
+        String client = query.getClientId() == null || query.getClientId().isBlank() ? ANONYMOUS : query.getClientId();
+        long key = System.nanoTime() + query.getPriority().ordinal() * priorityStepNanos + expectedNanos(query);
+
+        synchronized (this) {
+            queues.computeIfAbsent(client, c -> new PriorityQueue<>(BY_KEY))
+                    .add(new Waiting(key, sequence++, client, query));
+        }
+        dispatch();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${query.scheduler.dispatch-interval:1s}")
+    public void dispatch() {
+        List<Waiting> ready = new ArrayList<>();
+        synchronized (this) {
+            int slots = slots();
+            int limit = clientLimit(slots);
+            while (running < slots) {
+                Waiting next = pick(limit);
+                if (next == null) {
+                    break;
+                }
+                PriorityQueue<Waiting> queue = queues.get(next.client);
+                queue.poll();
+                if (queue.isEmpty()) {
+                    queues.remove(next.client);
+                }
+                running++;
+                runningByClient.merge(next.client, 1, Integer::sum);
+                dispatched++;
+                ready.add(next);
+            }
+        }
+
+        for (int i = 0; i < ready.size(); i++) {
+            Waiting waiting = ready.get(i);
+            try {
+                (virtualExecutor != null ? virtualExecutor : platformExecutor).execute(() -> run(waiting));
+            } catch (RejectedExecutionException e) {
+                log.warn("Async executor refused query ID={}, keeping {} queries queued: {}",
+                        waiting.query.getId(), ready.size() - i, e.getMessage());
+                synchronized (this) {
+                    for (Waiting refused : ready.subList(i, ready.size())) {
+                        finished(refused.client);
+                        dispatched--;
+                        queues.computeIfAbsent(refused.client, c -> new PriorityQueue<>(BY_KEY)).add(refused);
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public synchronized int getQueuedCount() {
+        int queued = 0;
+        for (PriorityQueue<Waiting> queue : queues.values()) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    @Override
+    public synchronized SchedulerStatistics getStatistics() {
+        SchedulerStatistics statistics = new SchedulerStatistics();
+        int slots = slots();
+        Map<QueryPriority, Integer> queuedByPriority = new EnumMap<>(QueryPriority.class);
+        int queued = 0;
+        for (PriorityQueue<Waiting> queue : queues.values()) {
+            for (Waiting waiting : queue) {
+                queuedByPriority.merge(waiting.query.getPriority(), 1, Integer::sum);
+                queued++;
+            }
+        }
+        statistics.setExecutionMode(mode);
+        statistics.setSlots(slots);
+        statistics.setClientLimit(clientLimit(slots));
+        statistics.setRunning(running);
+        statistics.setQueued(queued);
+        statistics.setDispatched(dispatched);
+        statistics.setFairShareDeferrals(fairShareDeferrals);
+        statistics.setQueuedByPriority(queuedByPriority);
+        statistics.setRunningByClient(new TreeMap<>(runningByClient));
+        return statistics;
+    }
+
+    private void run(Waiting waiting) {
+        try {
+            waiting.query.run();
+        } finally {
+            synchronized (this) {
+                finished(waiting.client);
+            }
+            dispatch();
+        }
+    }
+
+    // Clients below their share go first; when only clients at their limit are waiting, the best of them
+    // still runs so the pool never idles.
+    private Waiting pick(int limit) {
+        Waiting best = null;
+        Waiting bestOverall = null;
+        for (Map.Entry<String, PriorityQueue<Waiting>> entry : queues.entrySet()) {
+            Waiting head = entry.getValue().peek();
+            if (head == null) {
+                continue;
+            }
+            if (bestOverall == null || BY_KEY.compare(head, bestOverall) < 0) {
+                bestOverall = head;
+            }
+            if (runningByClient.getOrDefault(entry.getKey(), 0) < limit && (best == null || BY_KEY.compare(head, best) < 0)) {
+                best = head;
+            }
+        }
+        if (best == null) {
+            return bestOverall;
+        }
+        if (best != bestOverall) {
+            fairShareDeferrals++;
+        }
+        return best;
+    }
+
+    private void finished(String client) {
+        running--;
+        runningByClient.computeIfPresent(client, (c, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private long expectedNanos(ScheduledQuery query) {
+        if (query.getFingerprint() == null) {
+            return defaultExpectedNanos;
+        }
+        OptionalLong expected = analyzer.expectedDurationMs(query.getFingerprint());
+        return expected.isPresent()
+                ? Math.min(TimeUnit.MILLISECONDS.toNanos(expected.getAsLong()), agingHorizonNanos)
+                : defaultExpectedNanos;
+    }
+
+    // Virtual threads are not pooled, so the async connection pool size is the only concurrency limit.
+    // Platform threads may go up to the max pool size: work beyond the core threads waits in the executor
+    // queue, which is the backlog the pool tuner grows the core size on. More than one query per connection
+    // would only wait inside Hikari, so the connection count caps both.
+    private int slots() {
+        if (virtualExecutor != null) {
+            return virtualExecutor.getLimit();
+        }
+        return Math.max(1, Math.min(platformExecutor.getMaxPoolSize(), connections));
+    }
+
+    private int clientLimit(int slots) {
+        return Math.max(1, Math.min(slots, (int) Math.floor(slots * clientShare)));
+    }
+
+    private static final class Waiting {
+        private final long key;
+        private final long sequence;
+        private final String client;
+        private final ScheduledQuery query;
+
+        private Waiting(long key, long sequence, String client, ScheduledQuery query) {
+            this.key = key;
+            this.sequence = sequence;
+            this.client = client;
+            this.query = query;
+        }
+    }
+}
@@ -5,17 +5,26 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.task.jetbrainstask.models.QueryEntry;
+import org.task.jetbrainstask.models.QueryPriority;
 import org.task.jetbrainstask.models.QueryResult;
 import org.task.jetbrainstask.service.interfaces.QueryManager;
+import org.task.jetbrainstask.service.interfaces.QueryRowHandler;
 import org.task.jetbrainstask.service.interfaces.QueryService;
 import org.task.jetbrainstask.service.interfaces.QueryValidator;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 @Service
 public class QueryServiceImpl implements QueryService {
 
+    private static final int SUBMISSION_CHUNK = 256;
+
     private final QueryManager queryManager;
     private final QueryValidator queryValidator;
 
@@ -46,6 +55,36 @@ public class QueryServiceImpl implements QueryService {
                 .toList();
     }
 
+    // Queries are handed to the manager in chunks while the body is still being read, so a large script is never
+    // held in memory as a whole.
+    @Override
+    public List<Map<String, Long>> addQueries(Reader requestBody) {
+        log.info("Received new streamed query batch request");
+
+        List<Long> ids = new ArrayList<>();
+        List<QueryEntry> chunk = new ArrayList<>(SUBMISSION_CHUNK);
+        queryValidator.parseAndValidate(requestBody, entry -> {
+            chunk.add(entry);
+            if (chunk.size() == SUBMISSION_CHUNK) {
+                ids.addAll(queryManager.addQueries(List.copyOf(chunk)));
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            ids.addAll(queryManager.addQueries(List.copyOf(chunk)));
+        }
+
+        if (ids.isEmpty()) {
+            log.warn("No valid queries found in request");
+            return List.of(Map.of("error", -1L));
+        }
+        log.info("Added {} queries to execution queue", ids.size());
+
+        return ids.stream()
+                .map(id -> Map.of("id", id))
+                .toList();
+    }
+
     @Override
     public List<QueryEntry> getQueries() {
         log.debug("Fetching all queries from QueryManager");
@@ -63,33 +102,97 @@ public class QueryServiceImpl implements QueryService {
 
     @Override
     public QueryResult executeQueryById(long id) {
+        return executeQueryByIdAsync(id).join();
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> executeQueryByIdAsync(long id) {
+        return executeQueryByIdAsync(id, null);
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> executeQueryByIdAsync(long id, Duration timeout) {
+        return executeQueryByIdAsync(id, timeout, QueryPriority.NORMAL, null);
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> executeQueryByIdAsync(long id, Duration timeout, QueryPriority priority,
+                                                                String clientId) {
         log.info("Executing query with ID={}", id);
 
+        CompletableFuture<QueryResult> execution;
         try {
-            QueryResult result = queryManager.executeQueryById(id).join();
+            execution = queryManager.executeQueryById(id, timeout, priority, clientId);
+        } catch (Exception ex) {
+            return CompletableFuture.completedFuture(handleFailure(id, ex));
+        }
 
+        return execution.handle((result, ex) -> {
+            if (ex != null) {
+                return handleFailure(id, ex);
+            }
             if (result == null) {
                 log.warn("Query result is null for ID={}", id);
             } else {
                 log.debug("Query ID={} executed successfully", id);
             }
-
             return result;
+        });
+    }
 
-        } catch (CompletionException ex) {
-            log.error("Asynchronous query execution failed for ID={} with message: {}", id, ex.getMessage());
-            return buildErrorResult("Query execution failed: " + ex.getMessage());
+    @Override
+    public CompletableFuture<Void> executeBatch(List<Long> ids, int parallelism, QueryPriority priority, String clientId,
+                                                Consumer<QueryResult> onResult) {
+        log.info("Executing batch of {} queries with parallelism={}", ids.size(), parallelism);
+        try {
+            return queryManager.executeBatch(ids, parallelism, priority, clientId, onResult);
         } catch (Exception ex) {
-            log.error("Unexpected error while executing query ID={}: {}", id, ex.getMessage());
-            return buildErrorResult("Unexpected error: " + ex.getMessage());
+            log.error("Batch execution failed: {}", ex.getMessage(), ex);
+            return CompletableFuture.failedFuture(ex);
         }
     }
 
+    @Override
+    public QueryResult cancelQuery(long id) {
+        log.info("Cancelling query with ID={}", id);
+        return queryManager.cancelQuery(id);
+    }
+
     @Override
     public QueryResult getQueryExecution(long id) {
         return queryManager.getQueryExecution(id);
     }
 
+    @Override
+    public boolean isQueryExecutionSpooled(long id) {
+        return queryManager.isExecutionSpooled(id);
+    }
+
+    @Override
+    public QueryResult streamQueryExecution(long id, QueryRowHandler handler) {
+        return queryManager.streamQueryExecution(id, handler);
+    }
+
+    @Override
+    public CompletableFuture<QueryResult> awaitQueryExecution(long id, Duration timeout) {
+        return queryManager.awaitExecution(id, timeout);
+    }
+
+    @Override
+    public QueryResult streamQueryById(long id, QueryRowHandler handler) {
+        log.info("Streaming query with ID={}", id);
+        return queryManager.streamQueryById(id, handler);
+    }
+
+    private QueryResult handleFailure(long id, Throwable ex) {
+        if (ex instanceof CompletionException) {
+            log.error("Asynchronous query execution failed for ID={} with message: {}", id, ex.getMessage());
+            return buildErrorResult("Query execution failed: " + ex.getMessage());
+        }
+        log.error("Unexpected error while executing query ID={}: {}", id, ex.getMessage());
+        return buildErrorResult("Unexpected error: " + ex.getMessage());
+    }
+
     private QueryResult buildErrorResult(String message) {
         return QueryResult.error(message);
     }
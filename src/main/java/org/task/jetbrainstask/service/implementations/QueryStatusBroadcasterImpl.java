@@ -0,0 +1,186 @@
+package org.task.jetbrainstask.service.implementations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.task.jetbrainstask.models.QueryStatusEvent;
+import org.task.jetbrainstask.service.interfaces.QueryManager;
+import org.task.jetbrainstask.service.interfaces.QueryStatusBroadcaster;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+@Component
+public class QueryStatusBroadcasterImpl implements QueryStatusBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryStatusBroadcasterImpl.class);
+
+    private final QueryManager queryManager;
+    private final Executor deliveryExecutor;
+    private final long timeoutMs;
+    private final int maxBacklog;
+    private final Map<Long, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public QueryStatusBroadcasterImpl(QueryManager queryManager,
+                                      @Qualifier("statusDeliveryExecutor") Executor deliveryExecutor,
+                                      @Value("${query.events.timeout:30m}") Duration timeout,
+                                      @Value("${query.events.max-backlog:100}") int maxBacklog) {
+        this.queryManager = queryManager;
+        this.deliveryExecutor = deliveryExecutor;
+        this.timeoutMs = timeout.toMillis();
+        this.maxBacklog = maxBacklog;
+    }
+
+    @Override
+    public SseEmitter subscribe(Collection<Long> ids) {
+        Subscription subscription = new Subscription(new SseEmitter(timeoutMs), ids);
+        subscription.emitter.onCompletion(() -> unregister(subscription));
+        subscription.emitter.onTimeout(() -> unregister(subscription));
+        subscription.emitter.onError(ex -> unregister(subscription));
+
+        for (Long id : subscription.pending) {
+            subscriptions.computeIfAbsent(id, key -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+        log.debug("New status subscription for ids={}", subscription.pending);
+
+        for (Long id : Set.copyOf(subscription.pending)) {
+            enqueue(subscription, queryManager.getStatusEvent(id));
+        }
+        return subscription.emitter;
+    }
+
+    // Runs on the query worker that changed the status, so it only queues the event; sending happens on the
+    // delivery executor, where a slow client cannot hold up query execution.
+    @EventListener
+    public void onStatusEvent(QueryStatusEvent event) {
+        Set<Subscription> subscribers = subscriptions.get(event.getId());
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscription subscription : subscribers) {
+            enqueue(subscription, event);
+        }
+    }
+
+    @Override
+    public int getSubscriberCount() {
+        return (int) subscriptions.values().stream().flatMap(Set::stream).distinct().count();
+    }
+
+    // Each subscription drains its own backlog on one delivery thread at a time, so its events keep their order.
+    private void enqueue(Subscription subscription, QueryStatusEvent event) {
+        synchronized (subscription) {
+            if (!subscription.pending.contains(event.getId())) {
+                return;
+            }
+            if (subscription.backlog.size() >= maxBacklog) {
+                log.warn("Status subscriber for ids={} fell {} events behind, dropping it", subscription.pending, maxBacklog);
+                drop(subscription);
+                return;
+            }
+            subscription.backlog.add(event);
+            if (subscription.draining) {
+                return;
+            }
+            subscription.draining = true;
+        }
+
+        try {
+            deliveryExecutor.execute(() -> drain(subscription));
+        } catch (RejectedExecutionException e) {
+            log.warn("Status delivery is saturated, dropping subscriber for ids={}", subscription.pending);
+            synchronized (subscription) {
+                drop(subscription);
+            }
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        while (true) {
+            QueryStatusEvent event;
+            synchronized (subscription) {
+                event = subscription.backlog.poll();
+                if (event == null) {
+                    subscription.draining = false;
+                    return;
+                }
+                if (!subscription.pending.contains(event.getId())) {
+                    continue;
+                }
+            }
+
+            try {
+                subscription.emitter.send(SseEmitter.event()
+                        .name("status")
+                        .id(String.valueOf(event.getId()))
+                        .data(event, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Status subscriber for ids={} is gone: {}", subscription.pending, e.getMessage());
+                synchronized (subscription) {
+                    drop(subscription);
+                }
+                continue;
+            }
+
+            if (event.isTerminal()) {
+                synchronized (subscription) {
+                    subscription.pending.remove(event.getId());
+                    removeFrom(event.getId(), subscription);
+                    if (subscription.pending.isEmpty()) {
+                        subscription.emitter.complete();
+                    }
+                }
+            }
+        }
+    }
+
+    private void drop(Subscription subscription) {
+        unregister(subscription);
+        subscription.backlog.clear();
+        subscription.emitter.complete();
+    }
+
+    private void unregister(Subscription subscription) {
+        synchronized (subscription) {
+            for (Long id : subscription.pending) {
+                removeFrom(id, subscription);
+            }
+            subscription.pending.clear();
+        }
+    }
+
+    private void removeFrom(Long id, Subscription subscription) {
+        subscriptions.computeIfPresent(id, (key, subscribers) -> {
+            subscribers.remove(subscription);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private static final class Subscription {
+        private final SseEmitter emitter;
+        private final Set<Long> pending;
+        private final Queue<QueryStatusEvent> backlog = new ArrayDeque<>();
+        private boolean draining;
+
+        private Subscription(SseEmitter emitter, Collection<Long> ids) {
+            this.emitter = emitter;
+            this.pending = new LinkedHashSet<>(ids);
+        }
+    }
+}
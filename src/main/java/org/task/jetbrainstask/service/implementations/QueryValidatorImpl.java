@@ -2,19 +2,56 @@ package org.task.jetbrainstask.service.implementations;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.task.jetbrainstask.models.QueryEntry;
 import org.task.jetbrainstask.models.QueryStatus;
+import org.task.jetbrainstask.service.interfaces.QueryFingerprinter;
 import org.task.jetbrainstask.service.interfaces.QueryValidator;
+import org.task.jetbrainstask.sql.QueryFingerprint;
+import org.task.jetbrainstask.sql.SqlStatementReader;
+import org.task.jetbrainstask.sql.SqlToken;
+import org.task.jetbrainstask.sql.SqlTokenType;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 
 @Component
 public class QueryValidatorImpl implements QueryValidator {
 
+    private static final int DEFAULT_MAX_STATEMENT_LENGTH = 1 << 20;
+
+    // Statement verbs that never belong in a read-only query, matched as whole keyword tokens.
+    private static final Set<String> FORBIDDEN_KEYWORDS = Set.of(
+            "DROP", "DELETE", "UPDATE", "INSERT", "MERGE", "UPSERT", "CREATE", "ALTER", "TRUNCATE", "GRANT",
+            "REVOKE", "CALL", "EXECUTE", "RUNSCRIPT", "SCRIPT", "SHUTDOWN", "BACKUP", "COMMIT", "ROLLBACK");
+
     private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private final QueryFingerprinter fingerprinter;
+    private final int maxStatementLength;
+
+    public QueryValidatorImpl() {
+        this(DEFAULT_MAX_STATEMENT_LENGTH);
+    }
+
+    public QueryValidatorImpl(int maxStatementLength) {
+        this(new QueryFingerprinterImpl(), maxStatementLength);
+    }
+
+    @Autowired
+    public QueryValidatorImpl(QueryFingerprinter fingerprinter,
+                              @Value("${query.submission.max-statement-length:1048576}") int maxStatementLength) {
+        this.fingerprinter = fingerprinter;
+        this.maxStatementLength = maxStatementLength;
+    }
 
     @Override
     public List<QueryEntry> parseAndValidate(String requestBody) {
@@ -23,43 +60,63 @@ public class QueryValidatorImpl implements QueryValidator {
             return List.of();
         }
 
-        List<String> queries = Arrays.stream(requestBody.split(";"))
-                .map(String::trim)
-                .filter(q -> !q.isEmpty())
-                .toList();
-
-        log.debug("Parsed {} raw queries from request", queries.size());
-
         List<QueryEntry> validated = new ArrayList<>();
+        parseAndValidate(new StringReader(requestBody), validated::add);
+        return validated;
+    }
 
-        for (String query : queries) {
-            if (isValidSelectQuery(query)) {
-                QueryEntry entry = new QueryEntry();
-                entry.setQuery(query);
-                entry.setStatus(QueryStatus.READY);
-                validated.add(entry);
-                log.debug("Accepted query: {}", query);
-            } else {
-                log.warn("Rejected invalid or unsafe query: {}", query);
+    @Override
+    public void parseAndValidate(Reader requestBody, Consumer<QueryEntry> onAccepted) {
+        SqlStatementReader statements = new SqlStatementReader(requestBody, maxStatementLength);
+        long parsed = 0;
+        long accepted = 0;
+        try {
+            for (String query = statements.next(); query != null; query = statements.next()) {
+                parsed++;
+                QueryFingerprint fingerprint = fingerprinter.fingerprint(query);
+                String rejection = rejectionReason(fingerprint);
+                if (rejection == null) {
+                    QueryEntry entry = new QueryEntry();
+                    entry.setQuery(query);
+                    entry.setStatus(QueryStatus.READY);
+                    entry.setFingerprint(fingerprint);
+                    accepted++;
+                    log.debug("Accepted query: {}", query);
+                    onAccepted.accept(entry);
+                } else {
+                    log.warn("Rejected invalid or unsafe query ({}): {}", rejection, query);
+                }
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the query request body", e);
         }
 
-        if (validated.isEmpty()) {
+        if (statements.getOversized() > 0) {
+            log.warn("Rejected {} queries longer than {} characters", statements.getOversized(), maxStatementLength);
+        }
+        if (accepted == 0) {
             log.warn("No valid queries found after validation");
         } else {
-            log.info("Validated {} queries successfully", validated.size());
+            log.info("Validated {} of {} queries successfully", accepted, parsed + statements.getOversized());
         }
-
-        return validated;
     }
 
-    private boolean isValidSelectQuery(String query) {
-        String normalized = query.trim().toUpperCase();
-        return normalized.startsWith("SELECT")
-                && !normalized.contains("DROP")
-                && !normalized.contains("DELETE")
-                && !normalized.contains("UPDATE")
-                && !normalized.contains("INSERT")
-                && !normalized.contains("--");
+    // Works on the lexed and parsed query, so keywords inside literals, quoted identifiers or longer names
+    // (UPDATED_AT) do not count, and block comments cannot hide a keyword.
+    private String rejectionReason(QueryFingerprint fingerprint) {
+        for (SqlToken token : fingerprint.getTokens()) {
+            if (token.getType() == SqlTokenType.WORD && FORBIDDEN_KEYWORDS.contains(token.getNormalized())) {
+                return "contains " + token.getNormalized();
+            }
+        }
+        for (String comment : fingerprint.getComments()) {
+            if (comment.startsWith("--")) {
+                return "contains a line comment";
+            }
+        }
+        if (fingerprint.getStatement() == null) {
+            return fingerprint.getParseError();
+        }
+        return null;
     }
 }
@@ -0,0 +1,420 @@
+package org.task.jetbrainstask.service.implementations;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.SpoolStatistics;
+import org.task.jetbrainstask.models.SpooledResult;
+import org.task.jetbrainstask.service.interfaces.QueryRowHandler;
+import org.task.jetbrainstask.service.interfaces.ResultSpool;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class ResultSpoolImpl implements ResultSpool {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultSpoolImpl.class);
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte STRING = 5;
+    private static final byte DECIMAL = 6;
+    private static final byte TIMESTAMP = 7;
+    private static final byte DATE = 8;
+    private static final byte TIME = 9;
+    private static final byte FLOAT = 10;
+
+    private static final int WINDOW_BYTES = 16 * 1024 * 1024;
+
+    private final boolean enabled;
+    private final Path baseDirectory;
+    private final long thresholdBytes;
+    private final long segmentBytes;
+    private final Map<Long, Segment> segments = new ConcurrentHashMap<>();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private Path directory;
+    private Segment active;
+    private long nextSegment;
+
+    @Autowired
+    public ResultSpoolImpl(@Value("${query.spool.enabled:true}") boolean enabled,
+                           @Value("${query.spool.directory:${java.io.tmpdir}/sqlquerymanager-spool}") Path baseDirectory,
+                           @Value("${query.spool.threshold-bytes:1048576}") long thresholdBytes,
+                           @Value("${query.spool.segment-bytes:67108864}") long segmentBytes) {
+        this.enabled = enabled;
+        this.baseDirectory = baseDirectory;
+        this.thresholdBytes = thresholdBytes;
+        this.segmentBytes = segmentBytes;
+    }
+
+    @Override
+    public boolean shouldSpool(QueryResult result) {
+        return enabled && result != null && result.getData() != null && !result.getData().isEmpty()
+                && result.estimateSizeBytes() >= thresholdBytes;
+    }
+
+    @Override
+    public synchronized SpooledResult spool(QueryResult result) {
+        try {
+            Segment segment = activeSegment();
+            long offset = segment.size;
+            segment.channel.position(offset);
+
+            List<List<Object>> rows = result.getData();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(segment.channel), 64 * 1024));
+            List<String> headers = result.getHeaders() != null ? result.getHeaders() : List.of();
+            out.writeInt(headers.size());
+            for (String header : headers) {
+                writeString(out, header);
+            }
+            out.writeLong(rows.size());
+            for (List<Object> row : rows) {
+                out.writeInt(row.size());
+                for (Object value : row) {
+                    writeValue(out, value);
+                }
+            }
+            out.flush();
+
+            segment.size = segment.channel.position();
+            segment.live++;
+            spilled.incrementAndGet();
+            log.debug("Spooled {} rows ({} bytes) to segment {}", rows.size(), segment.size - offset, segment.id);
+            return new SpooledResult(segment.id, offset, segment.size - offset, rows.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not spool result", e);
+        }
+    }
+
+    @Override
+    public QueryResult read(SpooledResult handle) {
+        List<List<Object>> rows = new ArrayList<>((int) Math.min(handle.getRowCount(), Integer.MAX_VALUE));
+        List<String> headers = new ArrayList<>();
+        stream(handle, new QueryRowHandler() {
+            @Override
+            public void onHeaders(List<String> values) {
+                headers.addAll(values);
+            }
+
+            @Override
+            public void onRow(Object[] values) {
+                rows.add(new ArrayList<>(Arrays.asList(values)));
+            }
+        });
+        return new QueryResult(null, headers, rows);
+    }
+
+    @Override
+    public void stream(SpooledResult handle, QueryRowHandler handler) {
+        Segment segment = pin(handle);
+        try {
+            MappedReader in = new MappedReader(segment.channel, handle.getOffset(), handle.getLength());
+            int headerCount = in.readInt();
+            List<String> headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; i++) {
+                headers.add(in.readString());
+            }
+            handler.onHeaders(headers);
+
+            long rowCount = in.readLong();
+            Object[] values = new Object[0];
+            for (long r = 0; r < rowCount; r++) {
+                int cells = in.readInt();
+                if (values.length != cells) {
+                    values = new Object[cells];
+                }
+                for (int i = 0; i < cells; i++) {
+                    values[i] = readValue(in);
+                }
+                handler.onRow(values);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read spooled result", e);
+        } finally {
+            unpin(segment);
+        }
+    }
+
+    @Override
+    public synchronized void release(SpooledResult handle) {
+        Segment segment = segments.get(handle.getSegment());
+        if (segment == null) {
+            return;
+        }
+        segment.live--;
+        released.incrementAndGet();
+        if (isUnused(segment)) {
+            delete(segment);
+        }
+    }
+
+    @Override
+    public synchronized SpoolStatistics getStatistics() {
+        SpoolStatistics statistics = new SpoolStatistics();
+        long live = 0;
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            live += segment.live;
+            bytes += segment.size;
+        }
+        statistics.setSpooledResults(live);
+        statistics.setSpooledBytes(bytes);
+        statistics.setSegments(segments.size());
+        statistics.setSpilled(spilled.get());
+        statistics.setReleased(released.get());
+        return statistics;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            delete(segment);
+        }
+        active = null;
+        if (directory != null) {
+            try {
+                Files.deleteIfExists(directory);
+            } catch (IOException e) {
+                log.warn("Could not remove spool directory {}: {}", directory, e.getMessage());
+            }
+        }
+    }
+
+    private Segment activeSegment() throws IOException {
+        if (active != null && active.size < segmentBytes) {
+            return active;
+        }
+        Segment previous = active;
+        active = null;
+        if (previous != null && isUnused(previous)) {
+            delete(previous);
+        }
+        if (directory == null) {
+            Files.createDirectories(baseDirectory);
+            directory = Files.createTempDirectory(baseDirectory, "run-");
+            log.info("Spooling large async results to {}", directory);
+        }
+
+        long id = nextSegment++;
+        Path path = directory.resolve("segment-" + id + ".spool");
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = new Segment(id, path, channel);
+        segments.put(id, active);
+        return active;
+    }
+
+    // Keeps the segment's channel open while a reader maps it; release() defers deletion until the last reader leaves.
+    private synchronized Segment pin(SpooledResult handle) {
+        Segment segment = segments.get(handle.getSegment());
+        if (segment == null || segment.live <= 0) {
+            throw new IllegalStateException("Spool segment " + handle.getSegment() + " was already released");
+        }
+        segment.readers++;
+        return segment;
+    }
+
+    private synchronized void unpin(Segment segment) {
+        segment.readers--;
+        if (isUnused(segment) && segments.get(segment.id) == segment) {
+            delete(segment);
+        }
+    }
+
+    private boolean isUnused(Segment segment) {
+        return segment.live <= 0 && segment.readers == 0 && segment != active;
+    }
+
+    private void delete(Segment segment) {
+        segments.remove(segment.id);
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+            log.debug("Deleted spool segment {}", segment.path);
+        } catch (IOException e) {
+            log.warn("Could not delete spool segment {}: {}", segment.path, e.getMessage());
+        }
+    }
+
+    // Only these types are written natively. Anything else a driver returns is spooled as its string form:
+    // the files never hold Java-serialized objects, so reading them back cannot instantiate arbitrary classes.
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(INT);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeLong(l);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(d);
+        } else if (value instanceof Float f) {
+            out.writeByte(FLOAT);
+            out.writeFloat(f);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(b);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            writeString(out, s);
+        } else if (value instanceof BigDecimal || value instanceof BigInteger) {
+            out.writeByte(DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof Timestamp timestamp) {
+            out.writeByte(TIMESTAMP);
+            out.writeLong(timestamp.getTime());
+            out.writeInt(timestamp.getNanos());
+        } else if (value instanceof Date date) {
+            out.writeByte(DATE);
+            out.writeLong(date.getTime());
+        } else if (value instanceof Time time) {
+            out.writeByte(TIME);
+            out.writeLong(time.getTime());
+        } else {
+            out.writeByte(STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Object readValue(MappedReader in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case DOUBLE:
+                return in.readDouble();
+            case FLOAT:
+                return Float.intBitsToFloat(in.readInt());
+            case BOOLEAN:
+                return in.readByte() != 0;
+            case STRING:
+                return in.readString();
+            case DECIMAL:
+                return new BigDecimal(in.readString());
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(in.readLong());
+                timestamp.setNanos(in.readInt());
+                return timestamp;
+            case DATE:
+                return new Date(in.readLong());
+            case TIME:
+                return new Time(in.readLong());
+            default:
+                throw new IOException("Unknown spool value tag " + tag);
+        }
+    }
+
+    private static final class Segment {
+        private final long id;
+        private final Path path;
+        private final FileChannel channel;
+        private long size;
+        private int live;
+        private int readers;
+
+        private Segment(long id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+    }
+
+    // Reads one spooled record through read-only mappings of at most WINDOW_BYTES, remapping as it advances.
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long end;
+        private long windowStart;
+        private ByteBuffer window = ByteBuffer.allocate(0);
+
+        private MappedReader(FileChannel channel, long offset, long length) {
+            this.channel = channel;
+            this.end = offset + length;
+            this.windowStart = offset;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() >= bytes) {
+                return;
+            }
+            long position = windowStart + window.position();
+            long size = Math.min(Math.max(WINDOW_BYTES, bytes), end - position);
+            if (size < bytes) {
+                throw new EOFException("Spooled record is truncated");
+            }
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        }
+
+        private byte readByte() throws IOException {
+            ensure(1);
+            return window.get();
+        }
+
+        private int readInt() throws IOException {
+            ensure(Integer.BYTES);
+            return window.getInt();
+        }
+
+        private long readLong() throws IOException {
+            ensure(Long.BYTES);
+            return window.getLong();
+        }
+
+        private double readDouble() throws IOException {
+            ensure(Double.BYTES);
+            return window.getDouble();
+        }
+
+        private byte[] readBytes(int length) throws IOException {
+            ensure(length);
+            byte[] bytes = new byte[length];
+            window.get(bytes);
+            return bytes;
+        }
+
+        private String readString() throws IOException {
+            return new String(readBytes(readInt()), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package org.task.jetbrainstask.service.implementations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.task.jetbrainstask.models.QueryControl;
+import org.task.jetbrainstask.models.QueryEntry;
+import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.QueryStatus;
+import org.task.jetbrainstask.models.ResultColumn;
+import org.task.jetbrainstask.models.SharedScanStatistics;
+import org.task.jetbrainstask.service.interfaces.QueryExecutor;
+import org.task.jetbrainstask.service.interfaces.SharedScanExecutor;
+import org.task.jetbrainstask.sql.AggregateQuery;
+import org.task.jetbrainstask.sql.QueryFingerprint;
+import org.task.jetbrainstask.sql.SelectStatement;
+import org.task.jetbrainstask.sql.SqlLexer;
+import org.task.jetbrainstask.sql.SqlTables;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Answers several aggregate queries over the same table with one scan: every query's WHERE clause becomes a
+// CASE filter inside conditional aggregates grouped by the union of their GROUP BY columns, and the partial
+// aggregates are then rolled up per query.
+@Component
+public class SharedScanExecutorImpl implements SharedScanExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(SharedScanExecutorImpl.class);
+
+    private static final Set<String> NUMERIC_CLASSES = Set.of(
+            "java.lang.Byte", "java.lang.Short", "java.lang.Integer", "java.lang.Long", "java.lang.Float",
+            "java.lang.Double", "java.math.BigDecimal", "java.math.BigInteger");
+
+    private final boolean enabled;
+    private final int maxGroupColumns;
+    private final AtomicLong sharedScans = new AtomicLong();
+    private final AtomicLong fusedQueries = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    @Autowired
+    public SharedScanExecutorImpl(@Value("${query.shared-scan.enabled:true}") boolean enabled,
+                                  @Value("${query.shared-scan.max-group-columns:3}") int maxGroupColumns) {
+        this.enabled = enabled;
+        this.maxGroupColumns = maxGroupColumns;
+    }
+
+    @Override
+    public List<List<QueryEntry>> plan(List<QueryEntry> entries) {
+        List<List<QueryEntry>> scans = new ArrayList<>();
+        if (!enabled) {
+            return scans;
+        }
+
+        Map<String, List<QueryEntry>> byTable = new LinkedHashMap<>();
+        Map<Long, AggregateQuery> parsed = new HashMap<>();
+        for (QueryEntry entry : entries) {
+            parse(entry).filter(query -> query.getGroupBy().size() <= maxGroupColumns).ifPresent(query -> {
+                parsed.put(entry.getId(), query);
+                byTable.computeIfAbsent(query.getTable(), table -> new ArrayList<>()).add(entry);
+            });
+        }
+
+        for (List<QueryEntry> candidates : byTable.values()) {
+            List<QueryEntry> scan = new ArrayList<>();
+            Set<String> columns = new LinkedHashSet<>();
+            for (QueryEntry entry : candidates) {
+                List<String> grouping = parsed.get(entry.getId()).getGroupBy().stream().map(SqlTables::normalize).toList();
+                Set<String> widened = new LinkedHashSet<>(columns);
+                widened.addAll(grouping);
+                if (widened.size() > maxGroupColumns) {
+                    addScan(scans, scan);
+                    scan = new ArrayList<>();
+                    widened = new LinkedHashSet<>(grouping);
+                }
+                scan.add(entry);
+                columns = widened;
+            }
+            addScan(scans, scan);
+        }
+        return scans;
+    }
+
+    @Override
+    public Map<Long, QueryResult> execute(List<QueryEntry> entries, QueryControl control, QueryExecutor connection) {
+        Map<Long, QueryResult> results = new HashMap<>();
+        List<Member> members = new ArrayList<>();
+        for (QueryEntry entry : entries) {
+            Optional<Member> member = parse(entry).flatMap(query -> describe(entry, query, connection));
+            member.ifPresent(members::add);
+        }
+        if (members.size() < 2) {
+            fallbacks.addAndGet(entries.size());
+            return results;
+        }
+
+        String sql = fusedSql(members);
+        log.info("Answering {} queries on {} with one shared scan: {}", members.size(), members.get(0).query.getTable(), sql);
+        QueryResult scan = connection.executeQuery(sql, control);
+        if (scan.getStatus() != null && scan.getStatus() != QueryStatus.COMPLETED) {
+            log.warn("Shared scan failed, running its {} queries individually: {}", entries.size(), scan.getErrorMessage());
+            fallbacks.addAndGet(entries.size());
+            return results;
+        }
+
+        for (Member member : members) {
+            results.put(member.entry.getId(), rollUp(member, scan));
+        }
+        sharedScans.incrementAndGet();
+        fusedQueries.addAndGet(members.size());
+        fallbacks.addAndGet(entries.size() - members.size());
+        return results;
+    }
+
+    @Override
+    public SharedScanStatistics getStatistics() {
+        SharedScanStatistics statistics = new SharedScanStatistics();
+        statistics.setEnabled(enabled);
+        statistics.setSharedScans(sharedScans.get());
+        statistics.setFusedQueries(fusedQueries.get());
+        statistics.setScansSaved(fusedQueries.get() - sharedScans.get());
+        statistics.setFallbacks(fallbacks.get());
+        return statistics;
+    }
+
+    private static void addScan(List<List<QueryEntry>> scans, List<QueryEntry> scan) {
+        if (scan.size() >= 2) {
+            scans.add(scan);
+        }
+    }
+
+    // Only single-block, single-table statements are worth matching against the aggregate subset.
+    private static Optional<AggregateQuery> parse(QueryEntry entry) {
+        QueryFingerprint fingerprint = entry.getFingerprint();
+        if (fingerprint == null) {
+            return AggregateQuery.parse(SqlLexer.tokenize(entry.getQuery()));
+        }
+        SelectStatement statement = fingerprint.getStatement();
+        if (statement == null || statement.getBlock() == null || statement.getBlock().getFrom().size() != 1) {
+            return Optional.empty();
+        }
+        return AggregateQuery.parse(fingerprint.getTokens());
+    }
+
+    // The statement is prepared but not run, which yields the exact labels and types its own execution would return.
+    private static Optional<Member> describe(QueryEntry entry, AggregateQuery query, QueryExecutor connection) {
+        List<ResultColumn> columns;
+        try {
+            columns = connection.describe(entry.getQuery());
+        } catch (RuntimeException e) {
+            log.debug("Query id={} cannot join a shared scan: {}", entry.getId(), e.getMessage());
+            return Optional.empty();
+        }
+        if (columns.size() != query.getItems().size()) {
+            return Optional.empty();
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            AggregateQuery.Function function = query.getItems().get(i).getFunction();
+            boolean ordered = function == AggregateQuery.Function.MIN || function == AggregateQuery.Function.MAX;
+            if (ordered && !NUMERIC_CLASSES.contains(columns.get(i).getClassName())) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new Member(entry, query, columns));
+    }
+
+    private static String fusedSql(List<Member> members) {
+        Map<String, Integer> groupColumns = new LinkedHashMap<>();
+        List<String> select = new ArrayList<>();
+        for (Member member : members) {
+            for (String column : member.query.getGroupBy()) {
+                groupColumns.computeIfAbsent(SqlTables.normalize(column), name -> {
+                    select.add(column);
+                    return select.size() - 1;
+                });
+            }
+        }
+        String groupBy = String.join(", ", select);
+
+        Map<String, Integer> expressions = new HashMap<>();
+        for (Member member : members) {
+            AggregateQuery query = member.query;
+            member.groupColumns = query.getGroupBy().stream()
+                    .mapToInt(column -> groupColumns.get(SqlTables.normalize(column))).toArray();
+            String predicate = query.getPredicate();
+            member.matchColumn = column(select, expressions,
+                    predicate == null ? "COUNT(*)" : "COUNT(CASE WHEN (" + predicate + ") THEN 1 END)");
+
+            List<AggregateQuery.Item> items = query.getItems();
+            for (int i = 0; i < items.size(); i++) {
+                AggregateQuery.Item item = items.get(i);
+                if (item.getFunction() == null) {
+                    member.valueColumns[i] = member.groupKeyPosition(item.getColumn());
+                    continue;
+                }
+                if (item.getColumn() == null) {
+                    member.valueColumns[i] = member.matchColumn;
+                    continue;
+                }
+                String value = predicate == null
+                        ? item.getColumn()
+                        : "CASE WHEN (" + predicate + ") THEN " + item.getColumn() + " END";
+                switch (item.getFunction()) {
+                    case AVG -> {
+                        member.valueColumns[i] = column(select, expressions, "SUM(" + value + ")");
+                        member.countColumns[i] = column(select, expressions, "COUNT(" + value + ")");
+                    }
+                    default -> member.valueColumns[i] = column(select, expressions, item.getFunction() + "(" + value + ")");
+                }
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", select))
+                .append(" FROM ").append(members.get(0).query.getTableSql());
+        if (!groupBy.isEmpty()) {
+            sql.append(" GROUP BY ").append(groupBy);
+        }
+        return sql.toString();
+    }
+
+    private static int column(List<String> select, Map<String, Integer> expressions, String expression) {
+        return expressions.computeIfAbsent(expression, key -> {
+            select.add(key);
+            return select.size() - 1;
+        });
+    }
+
+    private static QueryResult rollUp(Member member, QueryResult scan) {
+        List<AggregateQuery.Item> items = member.query.getItems();
+        Map<List<Object>, Partial> groups = new LinkedHashMap<>();
+        if (member.groupColumns.length == 0) {
+            groups.put(List.of(), new Partial(items.size()));
+        }
+
+        for (List<Object> row : scan.getData()) {
+            if (((Number) row.get(member.matchColumn)).longValue() == 0) {
+                continue;
+            }
+            List<Object> key = new ArrayList<>(member.groupColumns.length);
+            for (int column : member.groupColumns) {
+                key.add(row.get(column));
+            }
+            Partial partial = groups.computeIfAbsent(key, k -> new Partial(items.size()));
+            for (int i = 0; i < items.size(); i++) {
+                AggregateQuery.Function function = items.get(i).getFunction();
+                if (function != null) {
+                    partial.add(i, function, row.get(member.valueColumns[i]),
+                            function == AggregateQuery.Function.AVG ? row.get(member.countColumns[i]) : null);
+                }
+            }
+        }
+
+        List<List<Object>> rows = new ArrayList<>(groups.size());
+        for (Map.Entry<List<Object>, Partial> group : groups.entrySet()) {
+            List<Object> row = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                AggregateQuery.Function function = items.get(i).getFunction();
+                row.add(function == null
+                        ? group.getKey().get(member.valueColumns[i])
+                        : group.getValue().result(i, function, member.columns.get(i)));
+            }
+            rows.add(row);
+        }
+
+        List<String> headers = rows.isEmpty()
+                ? List.of()
+                : member.columns.stream().map(ResultColumn::getLabel).toList();
+        QueryResult result = new QueryResult(member.entry.getId(), headers, rows);
+        result.setExecutionTimeMs(scan.getExecutionTimeMs());
+        return result;
+    }
+
+    private static Object convert(Object value, ResultColumn column) {
+        if (!(value instanceof Number number)) {
+            return value;
+        }
+        return switch (column.getClassName()) {
+            case "java.lang.Short" -> number.shortValue();
+            case "java.lang.Integer" -> number.intValue();
+            case "java.lang.Long" -> number.longValue();
+            case "java.lang.Float" -> number.floatValue();
+            case "java.lang.Double" -> number.doubleValue();
+            case "java.math.BigDecimal" -> decimal(number);
+            default -> value;
+        };
+    }
+
+    private static BigDecimal decimal(Object value) {
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    private static Object plus(Object left, Object right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left instanceof BigDecimal || right instanceof BigDecimal) {
+            return decimal(left).add(decimal(right));
+        }
+        if (left instanceof Double || left instanceof Float || right instanceof Double || right instanceof Float) {
+            return ((Number) left).doubleValue() + ((Number) right).doubleValue();
+        }
+        return Math.addExact(((Number) left).longValue(), ((Number) right).longValue());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object pick(Object current, Object candidate, boolean max) {
+        if (current == null) {
+            return candidate;
+        }
+        if (candidate == null) {
+            return current;
+        }
+        int comparison = ((Comparable) candidate).compareTo(current);
+        return (max ? comparison > 0 : comparison < 0) ? candidate : current;
+    }
+
+    private static final class Member {
+        private final QueryEntry entry;
+        private final AggregateQuery query;
+        private final List<ResultColumn> columns;
+        private final int[] valueColumns;
+        private final int[] countColumns;
+        private int[] groupColumns;
+        private int matchColumn;
+
+        private Member(QueryEntry entry, AggregateQuery query, List<ResultColumn> columns) {
+            this.entry = entry;
+            this.query = query;
+            this.columns = columns;
+            this.valueColumns = new int[query.getItems().size()];
+            this.countColumns = new int[query.getItems().size()];
+        }
+
+        private int groupKeyPosition(String column) {
+            String name = SqlTables.normalize(column);
+            List<String> groupBy = query.getGroupBy();
+            for (int i = 0; i < groupBy.size(); i++) {
+                if (SqlTables.normalize(groupBy.get(i)).equals(name)) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException("Column " + column + " is not grouped");
+        }
+    }
+
+    private static final class Partial {
+        private final Object[] values;
+        private final long[] counts;
+
+        private Partial(int items) {
+            this.values = new Object[items];
+            this.counts = new long[items];
+        }
+
+        private void add(int item, AggregateQuery.Function function, Object value, Object count) {
+            switch (function) {
+                case COUNT -> counts[item] += ((Number) value).longValue();
+                case SUM -> values[item] = plus(values[item], value);
+                case MIN -> values[item] = pick(values[item], value, false);
+                case MAX -> values[item] = pick(values[item], value, true);
+                case AVG -> {
+                    values[item] = plus(values[item], value);
+                    counts[item] += ((Number) count).longValue();
+                }
+            }
+        }
+
+        private Object result(int item, AggregateQuery.Function function, ResultColumn column) {
+            return switch (function) {
+                case COUNT -> convert(counts[item], column);
+                case SUM, MIN, MAX -> convert(values[item], column);
+                case AVG -> average(values[item], counts[item], column);
+            };
+        }
+
+        private static Object average(Object sum, long count, ResultColumn column) {
+            if (sum == null || count == 0) {
+                return null;
+            }
+            return switch (column.getClassName()) {
+                case "java.lang.Double", "java.lang.Float" ->
+                        convert(((Number) sum).doubleValue() / count, column);
+                case "java.math.BigDecimal" ->
+                        decimal(sum).divide(BigDecimal.valueOf(count), column.getScale(), RoundingMode.HALF_UP);
+                default -> convert(decimal(sum).divide(BigDecimal.valueOf(count), 0, RoundingMode.DOWN), column);
+            };
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.task.jetbrainstask.service.interfaces;
+
+import org.task.jetbrainstask.models.AsyncPoolStatistics;
+import org.task.jetbrainstask.models.PoolResizeDecision;
+
+import java.util.Optional;
+
+public interface AsyncPoolTuner {
+    Optional<PoolResizeDecision> tune();
+    AsyncPoolStatistics getStatistics();
+}
@@ -1,10 +1,16 @@
 package org.task.jetbrainstask.service.interfaces;
 
+import org.task.jetbrainstask.models.AdmissionStatistics;
+import org.task.jetbrainstask.models.QueryControl;
 import org.task.jetbrainstask.models.QueryEntry;
 import org.task.jetbrainstask.models.QueryResult;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface AsyncQueryManager {
     CompletableFuture<QueryResult> executeAsync(QueryEntry entry);
+    CompletableFuture<QueryResult> executeAsync(QueryEntry entry, QueryControl control);
+    CompletableFuture<Void> executeOnConnection(QueryEntry first, QueryControl control, Consumer<QueryExecutor> work);
+    AdmissionStatistics getAdmissionStatistics();
 }
@@ -0,0 +1,9 @@
+package org.task.jetbrainstask.service.interfaces;
+
+import org.task.jetbrainstask.models.ConnectionPoolStatistics;
+
+import java.util.List;
+
+public interface ConnectionPoolMonitor {
+    List<ConnectionPoolStatistics> getStatistics();
+}
@@ -1,6 +1,18 @@
 package org.task.jetbrainstask.service.interfaces;
 
+import org.task.jetbrainstask.models.LatencyStatistics;
+import org.task.jetbrainstask.models.RoutingDecision;
+import org.task.jetbrainstask.sql.QueryFingerprint;
+
+import java.util.List;
+import java.util.OptionalLong;
+
 public interface QueryAnalyzer {
     boolean shouldRunAsync(String sql);
+    boolean shouldRunAsync(QueryFingerprint fingerprint);
+    RoutingDecision analyze(QueryFingerprint fingerprint);
     void recordExecution(String sql, long durationMs);
+    void recordExecution(QueryFingerprint fingerprint, long durationMs);
+    OptionalLong expectedDurationMs(QueryFingerprint fingerprint);
+    List<LatencyStatistics> getLatencyStatistics();
 }
@@ -1,10 +1,24 @@
 package org.task.jetbrainstask.service.interfaces;
 
+import org.task.jetbrainstask.models.CacheStatistics;
 import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.TableInvalidation;
+import org.task.jetbrainstask.sql.QueryFingerprint;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public interface QueryCacheManager {
     Optional<QueryResult> getCachedResult(String sql);
+    Optional<QueryResult> getCachedResult(QueryFingerprint fingerprint);
     void putResultInCache(String sql, QueryResult result);
+    void putResultInCache(QueryFingerprint fingerprint, QueryResult result);
+    void putResultInCache(String sql, QueryResult result, Duration ttl);
+    void putResultInCache(QueryFingerprint fingerprint, QueryResult result, Duration ttl);
+    void putResultInCache(QueryFingerprint fingerprint, QueryResult result, Map<String, Long> tableVersions);
+    Map<String, Long> snapshotTableVersions(Collection<String> tables);
+    TableInvalidation invalidateTable(String table);
+    CacheStatistics getStatistics();
 }
@@ -0,0 +1,10 @@
+package org.task.jetbrainstask.service.interfaces;
+
+import org.task.jetbrainstask.models.QueryCostEstimate;
+import org.task.jetbrainstask.sql.QueryFingerprint;
+
+import java.util.Optional;
+
+public interface QueryCostEstimator {
+    Optional<QueryCostEstimate> estimate(QueryFingerprint fingerprint);
+}
@@ -1,7 +1,16 @@
 package org.task.jetbrainstask.service.interfaces;
 
+import org.task.jetbrainstask.models.QueryControl;
 import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.ResultColumn;
+
+import java.util.List;
+import java.util.function.Function;
 
 public interface QueryExecutor {
     QueryResult executeQuery(String sql);
+    QueryResult executeQuery(String sql, QueryControl control);
+    QueryResult streamQuery(String sql, QueryRowHandler handler);
+    List<ResultColumn> describe(String sql);
+    <T> T executeOnSingleConnection(Function<QueryExecutor, T> work);
 }
@@ -0,0 +1,7 @@
+package org.task.jetbrainstask.service.interfaces;
+
+import org.task.jetbrainstask.sql.QueryFingerprint;
+
+public interface QueryFingerprinter {
+    QueryFingerprint fingerprint(String sql);
+}
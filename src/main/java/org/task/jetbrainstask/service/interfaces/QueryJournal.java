@@ -0,0 +1,15 @@
+package org.task.jetbrainstask.service.interfaces;
+
+import org.task.jetbrainstask.models.JournalReplay;
+import org.task.jetbrainstask.models.JournalStatistics;
+import org.task.jetbrainstask.models.QueryEntry;
+import org.task.jetbrainstask.models.QueryStatus;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface QueryJournal {
+    JournalReplay replay();
+    CompletableFuture<Void> recordAdded(QueryEntry entry);
+    CompletableFuture<Void> recordStatus(long id, QueryStatus status);
+    JournalStatistics getStatistics();
+}
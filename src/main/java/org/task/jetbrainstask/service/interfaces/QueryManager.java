@@ -1,14 +1,30 @@
 package org.task.jetbrainstask.service.interfaces;
 
+import org.task.jetbrainstask.models.ExecutionStatistics;
 import org.task.jetbrainstask.models.QueryEntry;
+import org.task.jetbrainstask.models.QueryPriority;
 import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.QueryStatusEvent;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface QueryManager {
     List<Long> addQueries(List<QueryEntry> queries);
     List<QueryEntry> getQueries();
     CompletableFuture<QueryResult> executeQueryById(long id);
+    CompletableFuture<QueryResult> executeQueryById(long id, Duration timeout);
+    CompletableFuture<QueryResult> executeQueryById(long id, Duration timeout, QueryPriority priority, String clientId);
+    CompletableFuture<Void> executeBatch(List<Long> ids, int parallelism, QueryPriority priority, String clientId,
+                                         Consumer<QueryResult> onResult);
+    QueryResult cancelQuery(long id);
     QueryResult getQueryExecution(long id);
+    QueryResult streamQueryById(long id, QueryRowHandler handler);
+    boolean isExecutionSpooled(long id);
+    QueryResult streamQueryExecution(long id, QueryRowHandler handler);
+    CompletableFuture<QueryResult> awaitExecution(long id, Duration timeout);
+    QueryStatusEvent getStatusEvent(long id);
+    ExecutionStatistics getExecutionStatistics();
 }
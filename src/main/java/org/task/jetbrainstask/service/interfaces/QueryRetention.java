@@ -0,0 +1,13 @@
+package org.task.jetbrainstask.service.interfaces;
+
+import org.task.jetbrainstask.models.QueryStatus;
+import org.task.jetbrainstask.models.RetentionStatistics;
+
+import java.util.List;
+
+public interface QueryRetention {
+    List<Long> retain(long id, QueryStatus status, long bytes);
+    void release(long id);
+    List<Long> expire();
+    RetentionStatistics getStatistics();
+}
@@ -0,0 +1,10 @@
+package org.task.jetbrainstask.service.interfaces;
+
+import java.util.List;
+
+public interface QueryRowHandler {
+    void onHeaders(List<String> headers);
+
+    // The values array is reused between rows, handlers must not keep a reference to it.
+    void onRow(Object[] values);
+}
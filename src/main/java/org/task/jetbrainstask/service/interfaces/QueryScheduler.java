@@ -0,0 +1,11 @@
+package org.task.jetbrainstask.service.interfaces;
+
+import org.task.jetbrainstask.models.SchedulerStatistics;
+
+import java.util.concurrent.Executor;
+
+public interface QueryScheduler extends Executor {
+    void dispatch();
+    int getQueuedCount();
+    SchedulerStatistics getStatistics();
+}
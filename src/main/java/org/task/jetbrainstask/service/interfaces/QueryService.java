@@ -1,14 +1,30 @@
 package org.task.jetbrainstask.service.interfaces;
 
 import org.task.jetbrainstask.models.QueryEntry;
+import org.task.jetbrainstask.models.QueryPriority;
 import org.task.jetbrainstask.models.QueryResult;
 
+import java.io.Reader;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface QueryService {
     List<Map<String, Long>> addQueries(String requestBody);
+    List<Map<String, Long>> addQueries(Reader requestBody);
     List<QueryEntry> getQueries();
     QueryResult executeQueryById(long id);
+    CompletableFuture<QueryResult> executeQueryByIdAsync(long id);
+    CompletableFuture<QueryResult> executeQueryByIdAsync(long id, Duration timeout);
+    CompletableFuture<QueryResult> executeQueryByIdAsync(long id, Duration timeout, QueryPriority priority, String clientId);
+    CompletableFuture<Void> executeBatch(List<Long> ids, int parallelism, QueryPriority priority, String clientId,
+                                         Consumer<QueryResult> onResult);
+    QueryResult cancelQuery(long id);
     QueryResult getQueryExecution(long id);
+    boolean isQueryExecutionSpooled(long id);
+    QueryResult streamQueryExecution(long id, QueryRowHandler handler);
+    CompletableFuture<QueryResult> awaitQueryExecution(long id, Duration timeout);
+    QueryResult streamQueryById(long id, QueryRowHandler handler);
 }
@@ -0,0 +1,10 @@
+package org.task.jetbrainstask.service.interfaces;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Collection;
+
+public interface QueryStatusBroadcaster {
+    SseEmitter subscribe(Collection<Long> ids);
+    int getSubscriberCount();
+}
@@ -4,8 +4,11 @@ package org.task.jetbrainstask.service.interfaces;
 
 import org.task.jetbrainstask.models.QueryEntry;
 
+import java.io.Reader;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface QueryValidator {
     List<QueryEntry> parseAndValidate(String requestBody);
+    void parseAndValidate(Reader requestBody, Consumer<QueryEntry> onAccepted);
 }
@@ -0,0 +1,14 @@
+package org.task.jetbrainstask.service.interfaces;
+
+import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.SpoolStatistics;
+import org.task.jetbrainstask.models.SpooledResult;
+
+public interface ResultSpool {
+    boolean shouldSpool(QueryResult result);
+    SpooledResult spool(QueryResult result);
+    QueryResult read(SpooledResult handle);
+    void stream(SpooledResult handle, QueryRowHandler handler);
+    void release(SpooledResult handle);
+    SpoolStatistics getStatistics();
+}
@@ -0,0 +1,15 @@
+package org.task.jetbrainstask.service.interfaces;
+
+import org.task.jetbrainstask.models.QueryControl;
+import org.task.jetbrainstask.models.QueryEntry;
+import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.SharedScanStatistics;
+
+import java.util.List;
+import java.util.Map;
+
+public interface SharedScanExecutor {
+    List<List<QueryEntry>> plan(List<QueryEntry> entries);
+    Map<Long, QueryResult> execute(List<QueryEntry> entries, QueryControl control, QueryExecutor connection);
+    SharedScanStatistics getStatistics();
+}
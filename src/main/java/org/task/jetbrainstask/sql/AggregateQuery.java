@@ -0,0 +1,269 @@
+package org.task.jetbrainstask.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Single-table "SELECT columns/aggregates FROM t [WHERE ...] [GROUP BY columns]" queries, the shape a shared scan can fuse.
+public final class AggregateQuery {
+
+    public enum Function { COUNT, SUM, AVG, MIN, MAX }
+
+    private static final Set<String> RESERVED = Set.of(
+            "SELECT", "FROM", "WHERE", "GROUP", "BY", "HAVING", "ORDER", "LIMIT", "OFFSET", "FETCH", "UNION",
+            "EXCEPT", "INTERSECT", "MINUS", "WINDOW", "QUALIFY", "FOR", "AS", "ON", "JOIN", "INNER", "LEFT",
+            "RIGHT", "FULL", "CROSS", "NATURAL", "DISTINCT", "ALL", "TOP", "OVER", "FILTER", "INTO", "AND", "OR",
+            "NOT", "NULL", "CASE", "WHEN", "THEN", "ELSE", "END", "TRUE", "FALSE");
+
+    private static final Set<String> END_OF_WHERE = Set.of(
+            "HAVING", "ORDER", "LIMIT", "OFFSET", "FETCH", "UNION", "EXCEPT", "INTERSECT", "MINUS", "WINDOW",
+            "QUALIFY", "FOR", "OVER", "SELECT");
+
+    private final String table;
+    private final String tableSql;
+    private final String predicate;
+    private final List<String> groupBy;
+    private final List<Item> items;
+
+    private AggregateQuery(String tableSql, String predicate, List<String> groupBy, List<Item> items) {
+        this.table = SqlTables.normalize(tableSql);
+        this.tableSql = tableSql;
+        this.predicate = predicate;
+        this.groupBy = List.copyOf(groupBy);
+        this.items = List.copyOf(items);
+    }
+
+    public static Optional<AggregateQuery> parse(List<SqlToken> tokens) {
+        int end = tokens.size();
+        while (end > 0 && tokens.get(end - 1).isOperator(";")) {
+            end--;
+        }
+        Parser parser = new Parser(tokens.subList(0, end));
+        try {
+            return Optional.ofNullable(parser.query());
+        } catch (IndexOutOfBoundsException e) {
+            return Optional.empty();
+        }
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getTableSql() {
+        return tableSql;
+    }
+
+    public String getPredicate() {
+        return predicate;
+    }
+
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    public List<Item> getItems() {
+        return items;
+    }
+
+    public static final class Item {
+        private final Function function;
+        private final String column;
+
+        private Item(Function function, String column) {
+            this.function = function;
+            this.column = column;
+        }
+
+        // Null for a plain grouping column.
+        public Function getFunction() {
+            return function;
+        }
+
+        // Null for COUNT(*).
+        public String getColumn() {
+            return column;
+        }
+    }
+
+    private static final class Parser {
+        private final List<SqlToken> tokens;
+        private int i;
+
+        private Parser(List<SqlToken> tokens) {
+            this.tokens = tokens;
+        }
+
+        private AggregateQuery query() {
+            if (!next().isWord("SELECT") || isReserved(peek())) {
+                return null;
+            }
+
+            List<Item> items = new ArrayList<>();
+            do {
+                Item item = item();
+                if (item == null) {
+                    return null;
+                }
+                items.add(item);
+            } while (accept(","));
+
+            if (!next().isWord("FROM") || !isIdentifier(peek())) {
+                return null;
+            }
+            String table = next().getText();
+
+            String predicate = null;
+            if (!atEnd() && peek().isWord("WHERE")) {
+                i++;
+                predicate = predicate();
+                if (predicate == null) {
+                    return null;
+                }
+            }
+
+            List<String> groupBy = new ArrayList<>();
+            if (!atEnd()) {
+                if (!next().isWord("GROUP") || !next().isWord("BY")) {
+                    return null;
+                }
+                do {
+                    if (!isIdentifier(peek())) {
+                        return null;
+                    }
+                    groupBy.add(next().getText());
+                } while (accept(","));
+                if (!atEnd()) {
+                    return null;
+                }
+            }
+
+            return valid(items, groupBy) ? new AggregateQuery(table, predicate, groupBy, items) : null;
+        }
+
+        private Item item() {
+            SqlToken first = next();
+            Item item;
+            Function function = function(first);
+            if (function != null && accept("(")) {
+                String column = null;
+                if (function != Function.COUNT || !accept("*")) {
+                    if (!isIdentifier(peek())) {
+                        return null;
+                    }
+                    column = next().getText();
+                }
+                if (!accept(")")) {
+                    return null;
+                }
+                item = new Item(function, column);
+            } else if (isIdentifier(first)) {
+                item = new Item(null, first.getText());
+            } else {
+                return null;
+            }
+
+            if (!atEnd() && peek().isWord("AS")) {
+                i++;
+                return isIdentifier(peek()) ? skip(item) : null;
+            }
+            if (!atEnd() && isIdentifier(peek())) {
+                return skip(item);
+            }
+            return item;
+        }
+
+        // Rebuilds the WHERE clause from its tokens; literals keep their original text.
+        private String predicate() {
+            StringBuilder sql = new StringBuilder();
+            int depth = 0;
+            while (!atEnd()) {
+                SqlToken token = peek();
+                if (token.getType() == SqlTokenType.PARAMETER) {
+                    return null;
+                }
+                if (token.getType() == SqlTokenType.WORD && END_OF_WHERE.contains(token.getNormalized())) {
+                    return null;
+                }
+                if (depth == 0 && token.isWord("GROUP")) {
+                    break;
+                }
+                if (token.isOperator("(")) {
+                    depth++;
+                } else if (token.isOperator(")")) {
+                    depth--;
+                } else if (token.isOperator(";")) {
+                    return null;
+                }
+                if (!sql.isEmpty()) {
+                    sql.append(' ');
+                }
+                sql.append(token.getText());
+                i++;
+            }
+            return depth == 0 && !sql.isEmpty() ? sql.toString() : null;
+        }
+
+        private boolean valid(List<Item> items, List<String> groupBy) {
+            List<String> grouped = groupBy.stream().map(SqlTables::normalize).toList();
+            if (grouped.stream().distinct().count() != grouped.size()) {
+                return false;
+            }
+            for (Item item : items) {
+                if (item.function == null && !grouped.contains(SqlTables.normalize(item.column))) {
+                    return false;
+                }
+            }
+            return !groupBy.isEmpty() || items.stream().allMatch(item -> item.function != null);
+        }
+
+        private Item skip(Item item) {
+            i++;
+            return item;
+        }
+
+        private boolean accept(String operator) {
+            if (!atEnd() && peek().isOperator(operator)) {
+                i++;
+                return true;
+            }
+            return false;
+        }
+
+        private SqlToken peek() {
+            return tokens.get(i);
+        }
+
+        private SqlToken next() {
+            return tokens.get(i++);
+        }
+
+        private boolean atEnd() {
+            return i >= tokens.size();
+        }
+    }
+
+    private static Function function(SqlToken token) {
+        if (token.getType() != SqlTokenType.WORD) {
+            return null;
+        }
+        return switch (token.getNormalized()) {
+            case "COUNT" -> Function.COUNT;
+            case "SUM" -> Function.SUM;
+            case "AVG" -> Function.AVG;
+            case "MIN" -> Function.MIN;
+            case "MAX" -> Function.MAX;
+            default -> null;
+        };
+    }
+
+    private static boolean isIdentifier(SqlToken token) {
+        return token.getType() == SqlTokenType.QUOTED_IDENTIFIER
+                || (token.getType() == SqlTokenType.WORD && !isReserved(token));
+    }
+
+    private static boolean isReserved(SqlToken token) {
+        return token.getType() == SqlTokenType.WORD && RESERVED.contains(token.getNormalized());
+    }
+}
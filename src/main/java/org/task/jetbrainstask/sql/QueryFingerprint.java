@@ -0,0 +1,84 @@
+package org.task.jetbrainstask.sql;
+
+import java.util.List;
+import java.util.Set;
+
+public class QueryFingerprint {
+
+    private final String sql;
+    private final String canonicalSql;
+    private final String shape;
+    private final String hash;
+    private final List<SqlToken> tokens;
+    private final Set<String> tables;
+    private final List<String> comments;
+    private final SelectStatement statement;
+    private final String parseError;
+
+    public QueryFingerprint(String sql, String canonicalSql, String shape, String hash, List<SqlToken> tokens, Set<String> tables,
+                            List<String> comments, SelectStatement statement, String parseError) {
+        this.sql = sql;
+        this.canonicalSql = canonicalSql;
+        this.shape = shape;
+        this.hash = hash;
+        this.tokens = tokens;
+        this.tables = tables;
+        this.comments = comments;
+        this.statement = statement;
+        this.parseError = parseError;
+    }
+
+    // The query text as submitted. The canonical text upper-cases words and re-joins tokens, so only this one
+    // is safe to send to the database.
+    public String getSql() {
+        return sql;
+    }
+
+    public String getCanonicalSql() {
+        return canonicalSql;
+    }
+
+    // Canonical text with string literals masked, shared by queries that differ only in literal values.
+    public String getShape() {
+        return shape;
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public List<SqlToken> getTokens() {
+        return tokens;
+    }
+
+    public Set<String> getTables() {
+        return tables;
+    }
+
+    public List<String> getComments() {
+        return comments;
+    }
+
+    // Null when the query is not a statement the parser accepts; getParseError() then says why.
+    public SelectStatement getStatement() {
+        return statement;
+    }
+
+    public String getParseError() {
+        return parseError;
+    }
+
+    public int countWords(String upperCaseWord) {
+        int count = 0;
+        for (SqlToken token : tokens) {
+            if (token.isWord(upperCaseWord)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return tokens.isEmpty();
+    }
+}
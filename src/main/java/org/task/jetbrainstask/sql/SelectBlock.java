@@ -0,0 +1,56 @@
+package org.task.jetbrainstask.sql;
+
+import java.util.List;
+
+// A single SELECT ... FROM ... WHERE ... GROUP BY ... HAVING block. Expressions are kept as token runs;
+// subqueries found inside them are parsed and listed separately.
+public class SelectBlock {
+
+    private final boolean distinct;
+    private final List<List<SqlToken>> items;
+    private final List<TableReference> from;
+    private final List<SqlToken> where;
+    private final List<List<SqlToken>> groupBy;
+    private final List<SqlToken> having;
+    private final List<SelectStatement> subqueries;
+
+    public SelectBlock(boolean distinct, List<List<SqlToken>> items, List<TableReference> from, List<SqlToken> where,
+                       List<List<SqlToken>> groupBy, List<SqlToken> having, List<SelectStatement> subqueries) {
+        this.distinct = distinct;
+        this.items = List.copyOf(items);
+        this.from = List.copyOf(from);
+        this.where = List.copyOf(where);
+        this.groupBy = List.copyOf(groupBy);
+        this.having = List.copyOf(having);
+        this.subqueries = List.copyOf(subqueries);
+    }
+
+    public boolean isDistinct() {
+        return distinct;
+    }
+
+    public List<List<SqlToken>> getItems() {
+        return items;
+    }
+
+    public List<TableReference> getFrom() {
+        return from;
+    }
+
+    public List<SqlToken> getWhere() {
+        return where;
+    }
+
+    public List<List<SqlToken>> getGroupBy() {
+        return groupBy;
+    }
+
+    public List<SqlToken> getHaving() {
+        return having;
+    }
+
+    // Scalar, IN and EXISTS subqueries from the select list, WHERE, HAVING and join conditions.
+    public List<SelectStatement> getSubqueries() {
+        return subqueries;
+    }
+}
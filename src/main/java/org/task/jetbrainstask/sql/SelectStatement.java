@@ -0,0 +1,119 @@
+package org.task.jetbrainstask.sql;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Root of the parsed query: a single SELECT block, or the branches of a set operation or parenthesized query,
+// with the WITH clause and the ORDER BY / LIMIT that apply to the whole statement.
+public class SelectStatement {
+
+    private final Map<String, SelectStatement> commonTables;
+    private final SelectBlock block;
+    private final List<SelectStatement> branches;
+    private final List<List<SqlToken>> orderBy;
+    private final List<SqlToken> limit;
+    private final List<SelectStatement> subqueries;
+
+    public SelectStatement(Map<String, SelectStatement> commonTables, SelectBlock block, List<SelectStatement> branches,
+                           List<List<SqlToken>> orderBy, List<SqlToken> limit, List<SelectStatement> subqueries) {
+        this.commonTables = Collections.unmodifiableMap(new LinkedHashMap<>(commonTables));
+        this.block = block;
+        this.branches = List.copyOf(branches);
+        this.orderBy = List.copyOf(orderBy);
+        this.limit = List.copyOf(limit);
+        this.subqueries = List.copyOf(subqueries);
+    }
+
+    // WITH queries by normalized name, in declaration order.
+    public Map<String, SelectStatement> getCommonTables() {
+        return commonTables;
+    }
+
+    // Null when the statement is a set operation or a parenthesized query.
+    public SelectBlock getBlock() {
+        return block;
+    }
+
+    public List<SelectStatement> getBranches() {
+        return branches;
+    }
+
+    public List<List<SqlToken>> getOrderBy() {
+        return orderBy;
+    }
+
+    // LIMIT, OFFSET and FETCH tokens.
+    public List<SqlToken> getLimit() {
+        return limit;
+    }
+
+    // Base tables read anywhere in the statement; names that resolve to a WITH query are left out.
+    public Set<String> getTables() {
+        Set<String> tables = new LinkedHashSet<>();
+        collectTables(Set.of(), tables);
+        return tables;
+    }
+
+    public int countSelects() {
+        int[] count = {0};
+        forEachBlock(block -> count[0]++);
+        return count[0];
+    }
+
+    // Every FROM item after the first joins it, whether written as JOIN or as a comma.
+    public int countJoins() {
+        int[] count = {0};
+        forEachBlock(block -> count[0] += Math.max(0, block.getFrom().size() - 1));
+        return count[0];
+    }
+
+    public void forEachBlock(Consumer<SelectBlock> action) {
+        commonTables.values().forEach(query -> query.forEachBlock(action));
+        if (block != null) {
+            action.accept(block);
+            for (TableReference table : block.getFrom()) {
+                if (table.getSubquery() != null) {
+                    table.getSubquery().forEachBlock(action);
+                }
+            }
+            block.getSubqueries().forEach(query -> query.forEachBlock(action));
+        }
+        branches.forEach(branch -> branch.forEachBlock(action));
+        subqueries.forEach(query -> query.forEachBlock(action));
+    }
+
+    private void collectTables(Set<String> outerNames, Set<String> tables) {
+        Set<String> names = outerNames;
+        if (!commonTables.isEmpty()) {
+            names = new HashSet<>(outerNames);
+            names.addAll(commonTables.keySet());
+        }
+        for (SelectStatement query : commonTables.values()) {
+            query.collectTables(names, tables);
+        }
+        if (block != null) {
+            for (TableReference table : block.getFrom()) {
+                if (table.getSubquery() != null) {
+                    table.getSubquery().collectTables(names, tables);
+                } else if (table.getName() != null && !names.contains(table.getName())) {
+                    tables.add(table.getName());
+                }
+            }
+            for (SelectStatement query : block.getSubqueries()) {
+                query.collectTables(names, tables);
+            }
+        }
+        for (SelectStatement branch : branches) {
+            branch.collectTables(names, tables);
+        }
+        for (SelectStatement query : subqueries) {
+            query.collectTables(names, tables);
+        }
+    }
+}
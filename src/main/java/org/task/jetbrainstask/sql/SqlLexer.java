@@ -0,0 +1,137 @@
+package org.task.jetbrainstask.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class SqlLexer {
+
+    private SqlLexer() {
+    }
+
+    public static List<SqlToken> tokenize(String sql) {
+        return tokenize(sql, null);
+    }
+
+    // Comments are skipped; when a list is given, the text of each one is added to it.
+    public static List<SqlToken> tokenize(String sql, List<String> comments) {
+        List<SqlToken> tokens = new ArrayList<>();
+        if (sql == null) {
+            return tokens;
+        }
+
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = skipLineComment(sql, i);
+                addComment(comments, sql, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = skipBlockComment(sql, i);
+                addComment(comments, sql, i, end);
+                i = end;
+            } else if (c == '\'') {
+                int end = quotedEnd(sql, i, '\'');
+                tokens.add(new SqlToken(SqlTokenType.STRING, sql.substring(i, end)));
+                i = end;
+            } else if (c == '"') {
+                int end = quotedEnd(sql, i, '"');
+                tokens.add(new SqlToken(SqlTokenType.QUOTED_IDENTIFIER, sql.substring(i, end)));
+                i = end;
+            } else if (Character.isDigit(c) || (c == '.' && i + 1 < length && Character.isDigit(sql.charAt(i + 1)))) {
+                int end = numberEnd(sql, i);
+                tokens.add(new SqlToken(SqlTokenType.NUMBER, sql.substring(i, end)));
+                i = end;
+            } else if (Character.isLetter(c) || c == '_' || c == '$') {
+                int end = i + 1;
+                while (end < length && isWordPart(sql.charAt(end))) {
+                    end++;
+                }
+                tokens.add(new SqlToken(SqlTokenType.WORD, sql.substring(i, end)));
+                i = end;
+            } else if (c == '?') {
+                tokens.add(new SqlToken(SqlTokenType.PARAMETER, "?"));
+                i++;
+            } else {
+                int end = operatorEnd(sql, i);
+                tokens.add(new SqlToken(SqlTokenType.OPERATOR, sql.substring(i, end)));
+                i = end;
+            }
+        }
+        return tokens;
+    }
+
+    private static void addComment(List<String> comments, String sql, int start, int end) {
+        if (comments != null) {
+            comments.add(sql.substring(start, end));
+        }
+    }
+
+    static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    static int skipLineComment(String sql, int start) {
+        int end = sql.indexOf('\n', start);
+        return end < 0 ? sql.length() : end + 1;
+    }
+
+    static int skipBlockComment(String sql, int start) {
+        int end = sql.indexOf("*/", start + 2);
+        return end < 0 ? sql.length() : end + 2;
+    }
+
+    static int quotedEnd(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    private static int numberEnd(String sql, int start) {
+        int i = start;
+        int length = sql.length();
+        while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+            i++;
+        }
+        if (i < length && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+            int exponent = i + 1;
+            if (exponent < length && (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-')) {
+                exponent++;
+            }
+            if (exponent < length && Character.isDigit(sql.charAt(exponent))) {
+                i = exponent;
+                while (i < length && Character.isDigit(sql.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+        return i;
+    }
+
+    private static int operatorEnd(String sql, int start) {
+        if (start + 1 < sql.length()) {
+            String pair = sql.substring(start, start + 2);
+            switch (pair) {
+                case "<=", ">=", "<>", "!=", "||", "::" -> {
+                    return start + 2;
+                }
+                default -> {
+                }
+            }
+        }
+        return start + 1;
+    }
+}
@@ -0,0 +1,8 @@
+package org.task.jetbrainstask.sql;
+
+public class SqlParseException extends RuntimeException {
+
+    public SqlParseException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,405 @@
+package org.task.jetbrainstask.sql;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Recursive-descent parser for the read-only query subset the service accepts: SELECT blocks with WITH, set
+// operations, joins, subqueries, ORDER BY and LIMIT/OFFSET/FETCH. Expressions are not parsed into trees, only
+// delimited, so anything the database understands inside a clause is accepted as long as parentheses balance.
+public final class SqlParser {
+
+    private static final int MAX_NESTING = 64;
+
+    private static final Set<String> SET_OPERATORS = Set.of("UNION", "EXCEPT", "MINUS", "INTERSECT");
+
+    private static final Set<String> JOIN_WORDS = Set.of(
+            "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "CROSS", "NATURAL", "OUTER");
+
+    private static final Set<String> CLAUSE_WORDS = Set.of(
+            "SELECT", "FROM", "WHERE", "GROUP", "HAVING", "WINDOW", "QUALIFY", "ORDER", "LIMIT", "OFFSET", "FETCH",
+            "UNION", "EXCEPT", "MINUS", "INTERSECT", "FOR", "INTO");
+
+    private static final Set<String> JOIN_CONDITION_STOPS = union(CLAUSE_WORDS, JOIN_WORDS);
+
+    private static final Set<String> RESERVED = union(JOIN_CONDITION_STOPS, Set.of("ON", "USING", "AS", "WITH"));
+
+    private SqlParser() {
+    }
+
+    // Parses one statement; a single trailing semicolon is allowed. Throws SqlParseException for anything else.
+    public static SelectStatement parse(List<SqlToken> tokens) {
+        int end = tokens.size();
+        if (end > 0 && tokens.get(end - 1).isOperator(";")) {
+            end--;
+        }
+        if (end == 0) {
+            throw new SqlParseException("Empty query");
+        }
+
+        Parser parser = new Parser(tokens.subList(0, end));
+        SelectStatement statement = parser.statement();
+        if (!parser.atEnd()) {
+            throw parser.unexpected();
+        }
+        return statement;
+    }
+
+    private static final class Parser {
+        private final List<SqlToken> tokens;
+        private int i;
+        private int nesting;
+
+        private Parser(List<SqlToken> tokens) {
+            this.tokens = tokens;
+        }
+
+        private SelectStatement statement() {
+            if (++nesting > MAX_NESTING) {
+                throw new SqlParseException("Query nesting exceeds " + MAX_NESTING + " levels");
+            }
+
+            Map<String, SelectStatement> commonTables = new LinkedHashMap<>();
+            if (acceptWord("WITH")) {
+                acceptWord("RECURSIVE");
+                do {
+                    String name = SqlTables.normalize(identifier("WITH query name").getText());
+                    if (peekOperator("(")) {
+                        skipParenthesized();
+                    }
+                    expectWord("AS");
+                    expectOperator("(");
+                    commonTables.put(name, statement());
+                    expectOperator(")");
+                } while (acceptOperator(","));
+            }
+
+            SelectBlock block = null;
+            List<SelectStatement> branches = new ArrayList<>();
+            if (peekOperator("(")) {
+                branches.add(parenthesized());
+            } else {
+                block = block();
+            }
+            if (peekSetOperator()) {
+                if (block != null) {
+                    branches.add(simple(block));
+                    block = null;
+                }
+                while (peekSetOperator()) {
+                    i++;
+                    if (!acceptWord("ALL")) {
+                        acceptWord("DISTINCT");
+                    }
+                    branches.add(peekOperator("(") ? parenthesized() : simple(block()));
+                }
+            }
+
+            List<SelectStatement> subqueries = new ArrayList<>();
+            List<List<SqlToken>> orderBy = new ArrayList<>();
+            if (acceptWord("ORDER")) {
+                expectWord("BY");
+                do {
+                    orderBy.add(expression(subqueries, CLAUSE_WORDS));
+                } while (acceptOperator(","));
+            }
+
+            List<SqlToken> limit = new ArrayList<>();
+            while (peekWord("LIMIT") || peekWord("OFFSET") || peekWord("FETCH")) {
+                limit.add(next());
+                limit.addAll(expression(subqueries, CLAUSE_WORDS));
+            }
+
+            nesting--;
+            return new SelectStatement(commonTables, block, branches, orderBy, limit, subqueries);
+        }
+
+        private SelectStatement parenthesized() {
+            expectOperator("(");
+            SelectStatement statement = statement();
+            expectOperator(")");
+            return statement;
+        }
+
+        private SelectBlock block() {
+            expectWord("SELECT");
+            boolean distinct = acceptWord("DISTINCT");
+            if (distinct && acceptWord("ON")) {
+                skipParenthesized();
+            } else if (!distinct) {
+                acceptWord("ALL");
+            }
+            if (acceptWord("TOP")) {
+                if (peekOperator("(")) {
+                    skipParenthesized();
+                } else if (atEnd()) {
+                    throw unexpected();
+                } else {
+                    i++;
+                }
+                acceptWord("PERCENT");
+                if (acceptWord("WITH")) {
+                    expectWord("TIES");
+                }
+            }
+
+            List<SelectStatement> subqueries = new ArrayList<>();
+            List<List<SqlToken>> items = new ArrayList<>();
+            do {
+                items.add(expression(subqueries, CLAUSE_WORDS));
+            } while (acceptOperator(","));
+
+            List<TableReference> from = new ArrayList<>();
+            if (acceptWord("FROM")) {
+                from(from, subqueries);
+            }
+
+            List<SqlToken> where = List.of();
+            if (acceptWord("WHERE")) {
+                where = expression(subqueries, CLAUSE_WORDS);
+            }
+
+            List<List<SqlToken>> groupBy = new ArrayList<>();
+            if (acceptWord("GROUP")) {
+                expectWord("BY");
+                do {
+                    groupBy.add(expression(subqueries, CLAUSE_WORDS));
+                } while (acceptOperator(","));
+            }
+
+            List<SqlToken> having = List.of();
+            if (acceptWord("HAVING")) {
+                having = expression(subqueries, CLAUSE_WORDS);
+            }
+
+            if (acceptWord("WINDOW")) {
+                do {
+                    identifier("window name");
+                    expectWord("AS");
+                    skipParenthesized();
+                } while (acceptOperator(","));
+            }
+            if (acceptWord("QUALIFY")) {
+                expression(subqueries, CLAUSE_WORDS);
+            }
+
+            return new SelectBlock(distinct, items, from, where, groupBy, having, subqueries);
+        }
+
+        private void from(List<TableReference> from, List<SelectStatement> subqueries) {
+            from.add(tableReference(null, subqueries));
+            while (true) {
+                if (acceptOperator(",")) {
+                    from.add(tableReference(",", subqueries));
+                } else if (peekJoin()) {
+                    StringBuilder join = new StringBuilder();
+                    while (!peekWord("JOIN")) {
+                        if (!peekJoin() && !peekWord("OUTER")) {
+                            throw unexpected();
+                        }
+                        join.append(next().getNormalized()).append(' ');
+                    }
+                    join.append(next().getNormalized());
+                    from.add(tableReference(join.toString(), subqueries));
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private TableReference tableReference(String join, List<SelectStatement> subqueries) {
+            String name = null;
+            SelectStatement subquery = null;
+            if (peekOperator("(")) {
+                subquery = parenthesized();
+            } else {
+                SqlToken part = identifier("table name");
+                while (acceptOperator(".")) {
+                    part = identifier("table name");
+                }
+                if (peekOperator("(")) {
+                    skipParenthesized();
+                } else {
+                    name = SqlTables.normalize(part.getText());
+                }
+            }
+
+            String alias = null;
+            if (acceptWord("AS")) {
+                alias = identifier("alias").getText();
+            } else if (!atEnd() && isIdentifier(peek())) {
+                alias = next().getText();
+            }
+            if (alias != null && peekOperator("(")) {
+                skipParenthesized();
+            }
+
+            List<SqlToken> condition = List.of();
+            if (join != null && !",".equals(join)) {
+                if (acceptWord("ON")) {
+                    condition = expression(subqueries, JOIN_CONDITION_STOPS);
+                } else if (acceptWord("USING")) {
+                    skipParenthesized();
+                }
+            }
+            return new TableReference(join, name, alias, subquery, condition);
+        }
+
+        // Reads tokens up to the next top-level comma, closing parenthesis or clause keyword. Subqueries inside
+        // the expression are parsed and added to the given list; their tokens stay part of the expression.
+        private List<SqlToken> expression(List<SelectStatement> subqueries, Set<String> stops) {
+            List<SqlToken> expression = new ArrayList<>();
+            int depth = 0;
+            while (!atEnd()) {
+                SqlToken token = peek();
+                if (token.isOperator(";")) {
+                    throw unexpected();
+                }
+                if (depth == 0 && (token.isOperator(",") || token.isOperator(")") || isStop(stops))) {
+                    break;
+                }
+                if (token.isOperator("(") && isQueryStart(i + 1)) {
+                    int start = i;
+                    subqueries.add(parenthesized());
+                    expression.addAll(tokens.subList(start, i));
+                    continue;
+                }
+                if (token.isOperator("(")) {
+                    depth++;
+                } else if (token.isOperator(")")) {
+                    depth--;
+                }
+                expression.add(token);
+                i++;
+            }
+            if (depth != 0) {
+                throw new SqlParseException("Unbalanced parentheses");
+            }
+            if (expression.isEmpty()) {
+                throw atEnd() ? unexpected() : new SqlParseException("Expected an expression but found '" + peek().getText() + "'");
+            }
+            return expression;
+        }
+
+        // LEFT and RIGHT followed by a parenthesis are the string functions, not joins.
+        private boolean isStop(Set<String> stops) {
+            SqlToken token = peek();
+            if (token.getType() != SqlTokenType.WORD || !stops.contains(token.getNormalized())) {
+                return false;
+            }
+            return !((token.isWord("LEFT") || token.isWord("RIGHT")) && i + 1 < tokens.size()
+                    && tokens.get(i + 1).isOperator("("));
+        }
+
+        private void skipParenthesized() {
+            expectOperator("(");
+            int depth = 1;
+            while (depth > 0) {
+                if (atEnd() || peek().isOperator(";")) {
+                    throw new SqlParseException("Unbalanced parentheses");
+                }
+                SqlToken token = next();
+                if (token.isOperator("(")) {
+                    depth++;
+                } else if (token.isOperator(")")) {
+                    depth--;
+                }
+            }
+        }
+
+        private SqlToken identifier(String what) {
+            if (atEnd() || !isIdentifier(peek())) {
+                throw expected(what);
+            }
+            return next();
+        }
+
+        private boolean isQueryStart(int index) {
+            return index < tokens.size() && (tokens.get(index).isWord("SELECT") || tokens.get(index).isWord("WITH"));
+        }
+
+        private boolean peekSetOperator() {
+            return !atEnd() && peek().getType() == SqlTokenType.WORD && SET_OPERATORS.contains(peek().getNormalized());
+        }
+
+        private boolean peekJoin() {
+            return !atEnd() && peek().getType() == SqlTokenType.WORD && JOIN_WORDS.contains(peek().getNormalized())
+                    && !peek().isWord("OUTER");
+        }
+
+        private boolean peekWord(String word) {
+            return !atEnd() && peek().isWord(word);
+        }
+
+        private boolean peekOperator(String operator) {
+            return !atEnd() && peek().isOperator(operator);
+        }
+
+        private boolean acceptWord(String word) {
+            if (peekWord(word)) {
+                i++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean acceptOperator(String operator) {
+            if (peekOperator(operator)) {
+                i++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expectWord(String word) {
+            if (!acceptWord(word)) {
+                throw expected(word);
+            }
+        }
+
+        private void expectOperator(String operator) {
+            if (!acceptOperator(operator)) {
+                throw expected("'" + operator + "'");
+            }
+        }
+
+        private SqlParseException expected(String what) {
+            return new SqlParseException("Expected " + what + " but found "
+                    + (atEnd() ? "the end of the query" : "'" + peek().getText() + "'"));
+        }
+
+        private SqlParseException unexpected() {
+            return new SqlParseException(atEnd() ? "Unexpected end of the query" : "Unexpected '" + peek().getText() + "'");
+        }
+
+        private SqlToken peek() {
+            return tokens.get(i);
+        }
+
+        private SqlToken next() {
+            return tokens.get(i++);
+        }
+
+        private boolean atEnd() {
+            return i >= tokens.size();
+        }
+    }
+
+    private static SelectStatement simple(SelectBlock block) {
+        return new SelectStatement(Map.of(), block, List.of(), List.of(), List.of(), List.of());
+    }
+
+    private static boolean isIdentifier(SqlToken token) {
+        return token.getType() == SqlTokenType.QUOTED_IDENTIFIER
+                || (token.getType() == SqlTokenType.WORD && !RESERVED.contains(token.getNormalized()));
+    }
+
+    private static Set<String> union(Set<String> first, Set<String> second) {
+        Set<String> union = new HashSet<>(first);
+        union.addAll(second);
+        return Set.copyOf(union);
+    }
+}
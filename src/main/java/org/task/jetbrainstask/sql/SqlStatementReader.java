@@ -0,0 +1,119 @@
+package org.task.jetbrainstask.sql;
+
+import java.io.IOException;
+import java.io.Reader;
+
+// Splits a SQL script into statements in one pass over a Reader. Semicolons inside string literals, quoted
+// identifiers and comments do not end a statement, and only the statement being read is held in memory.
+public class SqlStatementReader {
+
+    private enum State { CODE, STRING, QUOTED_IDENTIFIER, LINE_COMMENT, BLOCK_COMMENT }
+
+    private final Reader reader;
+    private final int maxStatementLength;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder statement = new StringBuilder();
+    private int position;
+    private int limit;
+    private long oversized;
+
+    public SqlStatementReader(Reader reader, int maxStatementLength) {
+        this.reader = reader;
+        this.maxStatementLength = maxStatementLength;
+    }
+
+    // Returns the next non-blank statement without its terminating semicolon, or null at the end of the input.
+    // Statements longer than the limit are skipped and counted.
+    public String next() throws IOException {
+        State state = State.CODE;
+        char previous = 0;
+        boolean overflow = false;
+        statement.setLength(0);
+
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    String last = finish(overflow);
+                    statement.setLength(0);
+                    return last;
+                }
+            }
+
+            char c = buffer[position++];
+            if (state == State.CODE && c == ';') {
+                String complete = finish(overflow);
+                if (complete != null) {
+                    return complete;
+                }
+                statement.setLength(0);
+                overflow = false;
+                previous = 0;
+                continue;
+            }
+
+            switch (state) {
+                case CODE -> {
+                    if (c == '\'') {
+                        state = State.STRING;
+                    } else if (c == '"') {
+                        state = State.QUOTED_IDENTIFIER;
+                    } else if (c == '-' && previous == '-') {
+                        state = State.LINE_COMMENT;
+                    } else if (c == '*' && previous == '/') {
+                        state = State.BLOCK_COMMENT;
+                        c = 0;
+                    }
+                }
+                case STRING -> {
+                    if (c == '\'') {
+                        state = State.CODE;
+                        c = 0;
+                    }
+                }
+                case QUOTED_IDENTIFIER -> {
+                    if (c == '"') {
+                        state = State.CODE;
+                        c = 0;
+                    }
+                }
+                case LINE_COMMENT -> {
+                    if (c == '\n') {
+                        state = State.CODE;
+                    }
+                }
+                case BLOCK_COMMENT -> {
+                    if (c == '/' && previous == '*') {
+                        state = State.CODE;
+                        c = 0;
+                    }
+                }
+            }
+
+            if (!overflow) {
+                if (statement.length() < maxStatementLength) {
+                    statement.append(buffer[position - 1]);
+                } else {
+                    overflow = true;
+                    statement.setLength(0);
+                }
+            }
+            previous = c;
+        }
+    }
+
+    public long getOversized() {
+        return oversized;
+    }
+
+    private String finish(boolean overflow) {
+        if (overflow) {
+            oversized++;
+            return null;
+        }
+        String text = statement.toString().trim();
+        return text.isEmpty() ? null : text;
+    }
+}
@@ -0,0 +1,88 @@
+package org.task.jetbrainstask.sql;
+
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public final class SqlTables {
+
+    private static final Set<String> CLAUSE_WORDS = Set.of(
+            "WHERE", "JOIN", "INNER", "LEFT", "RIGHT", "FULL", "CROSS", "NATURAL", "OUTER", "ON", "USING",
+            "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "FETCH", "UNION", "EXCEPT", "INTERSECT", "MINUS",
+            "WINDOW", "FOR", "SET", "VALUES", "SELECT");
+
+    private static final Set<String> END_OF_FROM = Set.of(
+            "WHERE", "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "FETCH", "UNION", "EXCEPT", "INTERSECT",
+            "MINUS", "WINDOW", "FOR", "SET", "VALUES", "SELECT");
+
+    private SqlTables() {
+    }
+
+    public static Set<String> extract(List<SqlToken> tokens) {
+        Set<String> tables = new LinkedHashSet<>();
+        BitSet inFromClause = new BitSet();
+        int depth = 0;
+
+        int i = 0;
+        while (i < tokens.size()) {
+            SqlToken token = tokens.get(i);
+            if (token.isOperator("(")) {
+                inFromClause.clear(++depth);
+                i++;
+            } else if (token.isOperator(")")) {
+                inFromClause.clear(depth);
+                depth = Math.max(0, depth - 1);
+                i++;
+            } else if (token.isWord("FROM") || token.isWord("JOIN") || token.isWord("UPDATE") || token.isWord("INTO")) {
+                if (token.isWord("FROM")) {
+                    inFromClause.set(depth);
+                }
+                i = readTable(tokens, i + 1, tables);
+            } else if (inFromClause.get(depth) && token.isOperator(",")) {
+                i = readTable(tokens, i + 1, tables);
+            } else {
+                if (token.getType() == SqlTokenType.WORD && END_OF_FROM.contains(token.getNormalized())) {
+                    inFromClause.clear(depth);
+                }
+                i++;
+            }
+        }
+        return tables;
+    }
+
+    public static String normalize(String tableName) {
+        String name = tableName.trim();
+        if (name.length() >= 2 && name.startsWith("\"") && name.endsWith("\"")) {
+            return name.substring(1, name.length() - 1).replace("\"\"", "\"");
+        }
+        return name.toUpperCase(Locale.ROOT);
+    }
+
+    private static int readTable(List<SqlToken> tokens, int start, Set<String> tables) {
+        int i = start;
+        if (i >= tokens.size() || !isIdentifier(tokens.get(i))) {
+            return i;
+        }
+
+        SqlToken name = tokens.get(i++);
+        while (i + 1 < tokens.size() && tokens.get(i).isOperator(".") && isIdentifier(tokens.get(i + 1))) {
+            name = tokens.get(i + 1);
+            i += 2;
+        }
+        tables.add(normalize(name.getText()));
+
+        if (i < tokens.size() && tokens.get(i).isWord("AS")) {
+            i++;
+        }
+        if (i < tokens.size() && isIdentifier(tokens.get(i)) && !CLAUSE_WORDS.contains(tokens.get(i).getNormalized())) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isIdentifier(SqlToken token) {
+        return token.getType() == SqlTokenType.WORD || token.getType() == SqlTokenType.QUOTED_IDENTIFIER;
+    }
+}
@@ -0,0 +1,41 @@
+package org.task.jetbrainstask.sql;
+
+import java.util.Locale;
+
+public class SqlToken {
+
+    private final SqlTokenType type;
+    private final String text;
+    private final String normalized;
+
+    public SqlToken(SqlTokenType type, String text) {
+        this.type = type;
+        this.text = text;
+        this.normalized = type == SqlTokenType.WORD ? text.toUpperCase(Locale.ROOT) : text;
+    }
+
+    public SqlTokenType getType() {
+        return type;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public String getNormalized() {
+        return normalized;
+    }
+
+    public boolean isWord(String upperCaseWord) {
+        return type == SqlTokenType.WORD && normalized.equals(upperCaseWord);
+    }
+
+    public boolean isOperator(String operator) {
+        return type == SqlTokenType.OPERATOR && text.equals(operator);
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + text + ")";
+    }
+}
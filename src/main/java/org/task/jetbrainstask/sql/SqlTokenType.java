@@ -0,0 +1,5 @@
+package org.task.jetbrainstask.sql;
+
+public enum SqlTokenType {
+    WORD, QUOTED_IDENTIFIER, STRING, NUMBER, OPERATOR, PARAMETER
+}
@@ -0,0 +1,44 @@
+package org.task.jetbrainstask.sql;
+
+import java.util.List;
+
+// One FROM item: a named table, a table function or a derived table, with the join that attached it.
+public class TableReference {
+
+    private final String join;
+    private final String name;
+    private final String alias;
+    private final SelectStatement subquery;
+    private final List<SqlToken> condition;
+
+    public TableReference(String join, String name, String alias, SelectStatement subquery, List<SqlToken> condition) {
+        this.join = join;
+        this.name = name;
+        this.alias = alias;
+        this.subquery = subquery;
+        this.condition = condition;
+    }
+
+    // Null for the first FROM item, "," for a comma join, otherwise the join keywords, e.g. "LEFT OUTER JOIN".
+    public String getJoin() {
+        return join;
+    }
+
+    // Normalized table name; null for derived tables and table functions.
+    public String getName() {
+        return name;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public SelectStatement getSubquery() {
+        return subquery;
+    }
+
+    // ON condition tokens; empty for comma, cross, natural and USING joins.
+    public List<SqlToken> getCondition() {
+        return condition;
+    }
+}
@@ -4,14 +4,23 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
+import org.task.jetbrainstask.models.ConnectionPoolStatistics;
 import org.task.jetbrainstask.models.QueryEntry;
 import org.task.jetbrainstask.models.QueryResult;
 import org.task.jetbrainstask.models.QueryStatus;
+import org.task.jetbrainstask.service.interfaces.AsyncQueryManager;
+import org.task.jetbrainstask.service.interfaces.ConnectionPoolMonitor;
+import org.task.jetbrainstask.service.interfaces.QueryRowHandler;
 import org.task.jetbrainstask.service.interfaces.QueryService;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -34,6 +43,20 @@ class QueryFlowIntegrationTest {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    @Qualifier("asyncDataSource")
+    private DataSource asyncDataSource;
+
+    @Autowired
+    @Qualifier("syncDataSource")
+    private DataSource syncDataSource;
+
+    @Autowired
+    private AsyncQueryManager asyncQueryManager;
+
+    @Autowired
+    private ConnectionPoolMonitor connectionPoolMonitor;
+
     @BeforeEach
     void setUp() {
         jdbcTemplate.execute("DROP TABLE IF EXISTS test_users");
@@ -95,11 +118,13 @@ class QueryFlowIntegrationTest {
     void shouldListAllAddedQueries() {
         String requestBody = "SELECT * FROM test_users; SELECT name FROM test_users";
 
-        queryService.addQueries(requestBody);
+        List<Long> ids = queryService.addQueries(requestBody).stream().map(m -> m.get("id")).toList();
         List<QueryEntry> queries = queryService.getQueries();
 
         assertThat(queries).hasSizeGreaterThanOrEqualTo(2);
-        assertThat(queries).allMatch(q -> q.getStatus() == QueryStatus.READY || q.getStatus() == QueryStatus.COMPLETED);
+        assertThat(queries).filteredOn(q -> ids.contains(q.getId()))
+                .hasSize(2)
+                .allMatch(q -> q.getStatus() == QueryStatus.READY);
     }
 
     @Test
@@ -110,7 +135,7 @@ class QueryFlowIntegrationTest {
         List<Map<String, Long>> addResponse = queryService.addQueries(requestBody);
         long queryId = addResponse.get(0).get("id");
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        QueryResult result = execute(queryId);
 
         assertThat(result).isNotNull();
         assertThat(result.getHeaders()).containsExactlyInAnyOrder("ID", "NAME", "AGE");
@@ -126,7 +151,7 @@ class QueryFlowIntegrationTest {
         List<Map<String, Long>> addResponse = queryService.addQueries(requestBody);
         long queryId = addResponse.get(0).get("id");
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        QueryResult result = execute(queryId);
 
         assertThat(result).isNotNull();
         assertThat(result.getData()).hasSize(3);
@@ -142,7 +167,7 @@ class QueryFlowIntegrationTest {
         List<Map<String, Long>> addResponse = queryService.addQueries(requestBody);
         long queryId = addResponse.get(0).get("id");
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        QueryResult result = execute(queryId);
 
         assertThat(result).isNotNull();
         assertThat(result.getHeaders()).containsExactly("NAME", "AGE");
@@ -152,22 +177,31 @@ class QueryFlowIntegrationTest {
     @Test
     @DisplayName("should return error for non-existent query ID")
     void shouldReturnErrorForNonExistentQueryId() {
-        QueryResult result = queryService.executeQueryById(99999L);
+        QueryResult result = execute(99999L);
 
         assertThat(result).isNotNull();
         assertThat(result.getStatus()).isEqualTo(QueryStatus.FAILED);
         assertThat(result.getErrorMessage()).contains("Query not found");
     }
 
+    @Test
+    @DisplayName("should reject incomplete SQL at submission")
+    void shouldRejectIncompleteSqlAtSubmission() {
+        List<Map<String, Long>> response = queryService.addQueries("SELECT * FROM");
+
+        assertThat(response).hasSize(1);
+        assertThat(response.get(0).get("error")).isEqualTo(-1L);
+    }
+
     @Test
     @DisplayName("should return error for invalid SQL syntax")
     void shouldReturnErrorForInvalidSqlSyntax() {
-        String requestBody = "SELECT * FROM";
+        String requestBody = "SELECT * FROM test_users WHERE id > > 1";
 
         List<Map<String, Long>> addResponse = queryService.addQueries(requestBody);
         long queryId = addResponse.get(0).get("id");
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        QueryResult result = execute(queryId);
 
         assertThat(result).isNotNull();
         assertThat(result.getHeaders()).contains("error");
@@ -182,7 +216,7 @@ class QueryFlowIntegrationTest {
         List<Map<String, Long>> addResponse = queryService.addQueries(requestBody);
         long queryId = addResponse.get(0).get("id");
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        QueryResult result = execute(queryId);
 
         assertThat(result).isNotNull();
         assertThat(result.getHeaders()).contains("error");
@@ -196,11 +230,11 @@ class QueryFlowIntegrationTest {
 
         List<Map<String, Long>> addResponse1 = queryService.addQueries(requestBody);
         long queryId1 = addResponse1.get(0).get("id");
-        QueryResult result1 = queryService.executeQueryById(queryId1);
+        QueryResult result1 = execute(queryId1);
 
         List<Map<String, Long>> addResponse2 = queryService.addQueries(requestBody);
         long queryId2 = addResponse2.get(0).get("id");
-        QueryResult result2 = queryService.executeQueryById(queryId2);
+        QueryResult result2 = execute(queryId2);
 
         assertThat(result1.getData()).isEqualTo(result2.getData());
         assertThat(result1.getHeaders()).isEqualTo(result2.getHeaders());
@@ -219,7 +253,7 @@ class QueryFlowIntegrationTest {
         List<Map<String, Long>> addResponse = queryService.addQueries(requestBody);
         long queryId = addResponse.get(0).get("id");
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        QueryResult result = execute(queryId);
 
         assertThat(result).isNotNull();
         if (result.getStatus() == QueryStatus.RUNNING) {
@@ -234,6 +268,75 @@ class QueryFlowIntegrationTest {
         }
     }
 
+    @Test
+    @DisplayName("should keep sync queries running while the async connection pool is exhausted")
+    void shouldIsolateSyncQueriesFromAsyncPool() throws Exception {
+        List<ConnectionPoolStatistics> pools = connectionPoolMonitor.getStatistics();
+        assertThat(pools).extracting(ConnectionPoolStatistics::getName).containsExactly("SyncPool", "AsyncPool", "StreamPool", "PlanPool");
+
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < pools.get(1).getMaximumPoolSize(); i++) {
+                held.add(asyncDataSource.getConnection());
+            }
+            assertThat(connectionPoolMonitor.getStatistics().get(1).getActiveConnections())
+                    .isEqualTo(pools.get(1).getMaximumPoolSize());
+
+            long queryId = queryService.addQueries("SELECT name FROM test_users WHERE id = 2 AND age = 25").get(0).get("id");
+            QueryResult result = execute(queryId);
+
+            assertThat(result.getStatus()).isEqualTo(QueryStatus.COMPLETED);
+            assertThat(result.getData()).containsExactly(List.of("Bob"));
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("should stream results while the sync connection pool is exhausted")
+    void shouldStreamOutsideSyncPool() throws Exception {
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < connectionPoolMonitor.getStatistics().get(0).getMaximumPoolSize(); i++) {
+                held.add(syncDataSource.getConnection());
+            }
+
+            long queryId = queryService.addQueries("SELECT name FROM test_users WHERE age > 26").get(0).get("id");
+            List<Object> names = new ArrayList<>();
+            QueryResult summary = queryService.streamQueryById(queryId, new QueryRowHandler() {
+                @Override
+                public void onHeaders(List<String> headers) {
+                }
+
+                @Override
+                public void onRow(Object[] values) {
+                    names.add(values[0]);
+                }
+            });
+
+            assertThat(summary.getStatus()).isEqualTo(QueryStatus.COMPLETED);
+            assertThat(names).containsExactlyInAnyOrder("Alice", "Charlie");
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("should run async queries against the same database through the async pool")
+    void shouldRunAsyncQueriesThroughAsyncPool() {
+        QueryEntry entry = new QueryEntry();
+        entry.setId(-1L);
+        entry.setQuery("SELECT COUNT(*) FROM test_users");
+
+        QueryResult result = asyncQueryManager.executeAsync(entry).join();
+
+        assertThat(result.getData()).containsExactly(List.of(3L));
+    }
+
     @Test
     @DisplayName("should handle multiple SELECT subqueries asynchronously")
     void shouldHandleMultipleSelectSubqueriesAsynchronously() throws Exception {
@@ -242,7 +345,7 @@ class QueryFlowIntegrationTest {
         List<Map<String, Long>> addResponse = queryService.addQueries(requestBody);
         long queryId = addResponse.get(0).get("id");
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        QueryResult result = execute(queryId);
 
         assertThat(result).isNotNull();
         if (result.getStatus() == QueryStatus.RUNNING) {
@@ -270,7 +373,7 @@ class QueryFlowIntegrationTest {
         assertThat(allQueries).isNotEmpty();
         assertThat(allQueries).anyMatch(q -> q.getId().equals(queryId));
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        QueryResult result = execute(queryId);
         assertThat(result).isNotNull();
         assertThat(result.getHeaders()).contains("NAME");
         assertThat(result.getData()).hasSize(1);
@@ -290,7 +393,7 @@ class QueryFlowIntegrationTest {
 
         for (Map<String, Long> queryMap : addResponse) {
             long queryId = queryMap.get("id");
-            QueryResult result = queryService.executeQueryById(queryId);
+            QueryResult result = execute(queryId);
             assertThat(result).isNotNull();
             assertThat(result.getData()).isNotEmpty();
         }
@@ -304,7 +407,7 @@ class QueryFlowIntegrationTest {
         List<Map<String, Long>> addResponse = queryService.addQueries(requestBody);
         long queryId = addResponse.get(0).get("id");
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        QueryResult result = execute(queryId);
 
         assertThat(result).isNotNull();
         assertThat(result.getData()).isEmpty();
@@ -318,7 +421,7 @@ class QueryFlowIntegrationTest {
         List<Map<String, Long>> addResponse = queryService.addQueries(requestBody);
         long queryId = addResponse.get(0).get("id");
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        QueryResult result = execute(queryId);
 
         assertThat(result).isNotNull();
         assertThat(result.getData()).hasSize(3);
@@ -335,7 +438,7 @@ class QueryFlowIntegrationTest {
         List<Map<String, Long>> addResponse = queryService.addQueries(requestBody);
         long queryId = addResponse.get(0).get("id");
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        QueryResult result = execute(queryId);
 
         assertThat(result).isNotNull();
         assertThat(result.getData()).hasSize(2);
@@ -349,10 +452,19 @@ class QueryFlowIntegrationTest {
         List<Map<String, Long>> addResponse = queryService.addQueries(requestBody);
         long queryId = addResponse.get(0).get("id");
 
-        QueryResult result = queryService.executeQueryById(queryId);
+        QueryResult result = execute(queryId);
 
         assertThat(result).isNotNull();
         assertThat(result.getExecutionTimeMs()).isNotNull();
         assertThat(result.getExecutionTimeMs()).isGreaterThanOrEqualTo(0L);
     }
-}
\ No newline at end of file
+
+    // On a cold context a query can outrun the sync budget and be promoted; its result then comes from /execute/{id}.
+    private QueryResult execute(long queryId) {
+        QueryResult result = queryService.executeQueryById(queryId);
+        if (result.getStatus() == QueryStatus.RUNNING) {
+            result = queryService.awaitQueryExecution(queryId, Duration.ofSeconds(10)).join();
+        }
+        return result;
+    }
+}
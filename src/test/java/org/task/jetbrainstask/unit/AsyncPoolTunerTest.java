@@ -0,0 +1,218 @@
+package org.task.jetbrainstask.unit;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.task.jetbrainstask.models.AdmissionStatistics;
+import org.task.jetbrainstask.models.AsyncPoolStatistics;
+import org.task.jetbrainstask.models.ExecutionMode;
+import org.task.jetbrainstask.models.LatencyStatistics;
+import org.task.jetbrainstask.models.PoolResizeDecision;
+import org.task.jetbrainstask.service.implementations.AsyncPoolTunerImpl;
+import org.task.jetbrainstask.service.interfaces.AsyncQueryManager;
+import org.task.jetbrainstask.service.interfaces.QueryScheduler;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("AsyncPoolTuner Tests")
+class AsyncPoolTunerTest {
+
+    private ThreadPoolTaskExecutor pool;
+    private AsyncQueryManager asyncQueryManager;
+    private QueryScheduler queryScheduler;
+    private DataSource dataSource;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(2);
+        pool.setMaxPoolSize(4);
+        pool.setQueueCapacity(10);
+        pool.initialize();
+
+        asyncQueryManager = mock(AsyncQueryManager.class);
+        when(asyncQueryManager.getAdmissionStatistics()).thenReturn(admission(0, 0));
+        queryScheduler = mock(QueryScheduler.class);
+        dataSource = mock(DataSource.class);
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should add a thread when the pool is busy and tasks are queueing")
+    void shouldGrowWhenBusy() throws Exception {
+        AsyncPoolTunerImpl tuner = tuner(2, 8);
+        occupy(2);
+        pool.execute(this::block);
+
+        Optional<PoolResizeDecision> decision = tuner.tune();
+
+        assertTrue(decision.isPresent());
+        assertEquals(3, decision.get().getToSize());
+        assertEquals(3, pool.getCorePoolSize());
+        assertEquals(5, pool.getMaxPoolSize());
+    }
+
+    @Test
+    @DisplayName("Should grow when queries are held back in the scheduler")
+    void shouldGrowOnSchedulerBacklog() throws Exception {
+        AsyncPoolTunerImpl tuner = tuner(2, 8);
+        occupy(2);
+        when(queryScheduler.getQueuedCount()).thenReturn(5);
+
+        PoolResizeDecision decision = tuner.tune().orElseThrow();
+
+        assertEquals(3, decision.getToSize());
+        assertEquals(5, decision.getQueuedTasks());
+        assertEquals(5, tuner.getStatistics().getQueuedTasks());
+    }
+
+    @Test
+    @DisplayName("Should grow on measured queue wait even when the queue is momentarily empty")
+    void shouldGrowOnQueueWait() throws Exception {
+        AsyncPoolTunerImpl tuner = tuner(2, 8);
+        occupy(2);
+        when(asyncQueryManager.getAdmissionStatistics()).thenReturn(admission(4, 2000));
+
+        assertEquals(3, tuner.tune().orElseThrow().getToSize());
+
+        when(asyncQueryManager.getAdmissionStatistics()).thenReturn(admission(8, 2000));
+        assertTrue(tuner.tune().isEmpty(), "No wait was measured since the last tick");
+
+        occupy(1);
+        when(asyncQueryManager.getAdmissionStatistics()).thenReturn(admission(10, 2500));
+        assertEquals(4, tuner.tune().orElseThrow().getToSize());
+    }
+
+    @Test
+    @DisplayName("Should stay within the configured ceiling and floor")
+    void shouldRespectBounds() throws Exception {
+        AsyncPoolTunerImpl tuner = tuner(2, 2);
+        occupy(2);
+        pool.execute(this::block);
+
+        assertTrue(tuner.tune().isEmpty());
+        assertEquals(2, pool.getCorePoolSize());
+
+        AsyncPoolTunerImpl idleTuner = tuner(2, 8);
+        release.countDown();
+        waitForIdle();
+        assertTrue(idleTuner.tune().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not grow past the number of AsyncPool connections")
+    void shouldCapAtConnectionCount() throws Exception {
+        pool.setMaxPoolSize(4);
+        pool.setCorePoolSize(3);
+        AsyncPoolTunerImpl tuner = tuner(2, 32, 3);
+        occupy(3);
+        pool.execute(this::block);
+
+        assertTrue(tuner.tune().isEmpty());
+        assertEquals(3, pool.getCorePoolSize());
+        assertEquals(3, tuner.getStatistics().getMaxSize());
+    }
+
+    @Test
+    @DisplayName("Should shrink an underused pool one thread at a time")
+    void shouldShrinkWhenIdle() {
+        pool.setMaxPoolSize(6);
+        pool.setCorePoolSize(5);
+        AsyncPoolTunerImpl tuner = tuner(2, 8);
+
+        assertEquals(4, tuner.tune().orElseThrow().getToSize());
+        assertEquals(3, tuner.tune().orElseThrow().getToSize());
+        assertEquals(3, pool.getCorePoolSize());
+    }
+
+    @Test
+    @DisplayName("Should back off multiplicatively when queries wait for JDBC connections")
+    void shouldShrinkOnConnectionSaturation() throws Exception {
+        HikariDataSource hikari = mock(HikariDataSource.class);
+        HikariPoolMXBean metrics = mock(HikariPoolMXBean.class);
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        when(dataSource.unwrap(HikariDataSource.class)).thenReturn(hikari);
+        when(hikari.getHikariPoolMXBean()).thenReturn(metrics);
+        when(hikari.getMaximumPoolSize()).thenReturn(10);
+        when(metrics.getThreadsAwaitingConnection()).thenReturn(3);
+        when(metrics.getActiveConnections()).thenReturn(10);
+
+        pool.setMaxPoolSize(10);
+        pool.setCorePoolSize(8);
+        AsyncPoolTunerImpl tuner = tuner(2, 16);
+        occupy(8);
+        pool.execute(this::block);
+
+        PoolResizeDecision decision = tuner.tune().orElseThrow();
+
+        assertEquals(6, decision.getToSize());
+        assertEquals("connection pool saturated", decision.getReason());
+        AsyncPoolStatistics statistics = tuner.getStatistics();
+        assertEquals(1, statistics.getDecreases());
+        assertEquals(10, statistics.getMaxConnections());
+        assertEquals(3, statistics.getConnectionWaiters());
+        assertEquals(1, statistics.getRecentDecisions().size());
+    }
+
+    private AsyncPoolTunerImpl tuner(int minSize, int maxSize) {
+        return tuner(minSize, maxSize, 16);
+    }
+
+    private AsyncPoolTunerImpl tuner(int minSize, int maxSize, int connections) {
+        return new AsyncPoolTunerImpl(pool, asyncQueryManager, queryScheduler, dataSource, minSize, maxSize,
+                Duration.ofMillis(100), 0.75, false, Duration.ofSeconds(5), ExecutionMode.PLATFORM, connections);
+    }
+
+    private void occupy(int threads) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            pool.execute(() -> {
+                started.countDown();
+                block();
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private void block() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void waitForIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((pool.getActiveCount() > 0 || pool.getQueueSize() > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static AdmissionStatistics admission(long started, long totalWaitMs) {
+        LatencyStatistics queueWait = new LatencyStatistics();
+        queueWait.setCount(started);
+        AdmissionStatistics statistics = new AdmissionStatistics();
+        statistics.setQueueWait(queueWait);
+        statistics.setQueueWaitTotalMs(totalWaitMs);
+        return statistics;
+    }
+}
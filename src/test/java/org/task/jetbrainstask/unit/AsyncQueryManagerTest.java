@@ -3,13 +3,18 @@ package org.task.jetbrainstask.unit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.task.jetbrainstask.models.AdmissionStatistics;
 import org.task.jetbrainstask.models.QueryEntry;
 import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.service.exceptions.QueryRejectedException;
 import org.task.jetbrainstask.service.implementations.AsyncQueryManagerImpl;
 import org.task.jetbrainstask.service.interfaces.QueryExecutor;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -25,7 +30,7 @@ class AsyncQueryManagerTest {
     void setUp() {
         queryExecutor = mock(QueryExecutor.class);
         executor = Runnable::run;
-        asyncManager = new AsyncQueryManagerImpl(queryExecutor, executor);
+        asyncManager = new AsyncQueryManagerImpl(queryExecutor, executor, 2);
     }
 
     @Test
@@ -37,7 +42,7 @@ class AsyncQueryManagerTest {
 
         QueryResult expectedResult = new QueryResult();
         expectedResult.setId(1L);
-        when(queryExecutor.executeQuery("SELECT 1")).thenReturn(expectedResult);
+        when(queryExecutor.executeQuery(eq("SELECT 1"), any())).thenReturn(expectedResult);
 
         CompletableFuture<QueryResult> future = asyncManager.executeAsync(entry);
         QueryResult result = future.get();
@@ -54,7 +59,7 @@ class AsyncQueryManagerTest {
         entry.setId(2L);
         entry.setQuery("SELECT FAIL");
 
-        when(queryExecutor.executeQuery("SELECT FAIL")).thenThrow(new RuntimeException("DB error"));
+        when(queryExecutor.executeQuery(eq("SELECT FAIL"), any())).thenThrow(new RuntimeException("DB error"));
 
         CompletableFuture<QueryResult> future = asyncManager.executeAsync(entry);
         QueryResult result = future.get();
@@ -64,4 +69,45 @@ class AsyncQueryManagerTest {
         assertNotNull(result.getData());
         assertTrue(result.getData().get(0).get(0).toString().contains("Async query failed"));
     }
+
+    @Test
+    @DisplayName("executeAsync should reject queries beyond the admission limit and measure queue wait")
+    void executeAsync_shouldRejectBeyondLimit() {
+        List<Runnable> queued = new ArrayList<>();
+        AsyncQueryManagerImpl bounded = new AsyncQueryManagerImpl(queryExecutor, queued::add, 2);
+        when(queryExecutor.executeQuery(anyString(), any())).thenReturn(new QueryResult());
+
+        bounded.executeAsync(entry(1L));
+        bounded.executeAsync(entry(2L));
+
+        assertThrows(QueryRejectedException.class, () -> bounded.executeAsync(entry(3L)));
+        assertEquals(2, bounded.getAdmissionStatistics().getPending());
+        assertEquals(1, bounded.getAdmissionStatistics().getRejected());
+
+        queued.get(0).run();
+
+        bounded.executeAsync(entry(4L));
+        AdmissionStatistics statistics = bounded.getAdmissionStatistics();
+        assertEquals(3, statistics.getAdmitted());
+        assertEquals(1, statistics.getQueueWait().getCount());
+    }
+
+    @Test
+    @DisplayName("executeAsync should release the slot when the executor refuses the task")
+    void executeAsync_shouldTranslateExecutorRejection() {
+        AsyncQueryManagerImpl refusing = new AsyncQueryManagerImpl(queryExecutor, task -> {
+            throw new RejectedExecutionException("queue full");
+        }, 2);
+
+        assertThrows(QueryRejectedException.class, () -> refusing.executeAsync(entry(5L)));
+        assertEquals(0, refusing.getAdmissionStatistics().getPending());
+        assertEquals(1, refusing.getAdmissionStatistics().getRejected());
+    }
+
+    private static QueryEntry entry(long id) {
+        QueryEntry entry = new QueryEntry();
+        entry.setId(id);
+        entry.setQuery("SELECT " + id);
+        return entry;
+    }
 }
@@ -0,0 +1,146 @@
+package org.task.jetbrainstask.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.columnar.BooleanColumnVector;
+import org.task.jetbrainstask.models.columnar.ColumnarData;
+import org.task.jetbrainstask.models.columnar.DecimalColumnVector;
+import org.task.jetbrainstask.models.columnar.DictionaryStringColumnVector;
+import org.task.jetbrainstask.models.columnar.IntColumnVector;
+import org.task.jetbrainstask.models.columnar.LongColumnVector;
+import org.task.jetbrainstask.models.columnar.ObjectColumnVector;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@DisplayName("ColumnarData Tests")
+class ColumnarDataTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS people (
+                Id INT PRIMARY KEY,
+                Survived BOOLEAN,
+                Sex VARCHAR(10),
+                Age DECIMAL(3,1),
+                Big BIGINT,
+                Wide DECIMAL(30,2)
+            )
+        """);
+        jdbcTemplate.execute("""
+            INSERT INTO people VALUES
+            (1, TRUE, 'male', 22.0, 10, 1.00),
+            (2, FALSE, 'female', NULL, NULL, 123456789012345678901234.50),
+            (3, NULL, 'male', 35.5, 30, NULL)
+        """);
+    }
+
+    @Test
+    @DisplayName("Should pick primitive vectors from column metadata")
+    void shouldPickPrimitiveVectors() {
+        ColumnarData data = load("SELECT Id, Survived, Sex, Age, Big, Wide FROM people ORDER BY Id");
+
+        assertEquals(3, data.getRowCount());
+        assertInstanceOf(IntColumnVector.class, data.getColumn(0));
+        assertInstanceOf(BooleanColumnVector.class, data.getColumn(1));
+        assertInstanceOf(DictionaryStringColumnVector.class, data.getColumn(2));
+        assertInstanceOf(DecimalColumnVector.class, data.getColumn(3));
+        assertInstanceOf(LongColumnVector.class, data.getColumn(4));
+        assertInstanceOf(ObjectColumnVector.class, data.getColumn(5));
+    }
+
+    @Test
+    @DisplayName("Should return the same values and nulls as JDBC")
+    void shouldReturnSameValuesAsJdbc() {
+        ColumnarData data = load("SELECT Id, Survived, Sex, Age, Big, Wide FROM people ORDER BY Id");
+
+        assertEquals(List.of(1, 2, 3), List.of(data.get(0, 0), data.get(1, 0), data.get(2, 0)));
+        assertEquals(Boolean.TRUE, data.get(0, 1));
+        assertNull(data.get(2, 1));
+        assertEquals(new BigDecimal("22.0"), data.get(0, 3));
+        assertNull(data.get(1, 3));
+        assertNull(data.get(1, 4));
+        assertEquals(30L, data.get(2, 4));
+        assertEquals(new BigDecimal("123456789012345678901234.50"), data.get(1, 5));
+        assertEquals(jdbcTemplate.queryForList("SELECT Sex FROM people ORDER BY Id", String.class),
+                List.of(data.get(0, 2), data.get(1, 2), data.get(2, 2)));
+    }
+
+    @Test
+    @DisplayName("Should dictionary-encode repeated strings")
+    void shouldDictionaryEncodeStrings() {
+        ColumnarData data = load("SELECT Sex FROM people");
+
+        DictionaryStringColumnVector column = (DictionaryStringColumnVector) data.getColumn(0);
+        assertEquals(2, column.dictionarySize());
+    }
+
+    @Test
+    @DisplayName("Should expose rows as a list view")
+    void shouldExposeRowsView() {
+        ColumnarData data = load("SELECT Id, Sex FROM people ORDER BY Id");
+
+        List<List<Object>> rows = data.rows();
+
+        assertEquals(3, rows.size());
+        assertEquals(List.of(2, "female"), rows.get(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> rows.get(3));
+    }
+
+    @Test
+    @DisplayName("Columnar result should serialize like row lists")
+    void shouldSerializeLikeRowLists() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        ColumnarData data = load("SELECT Id, Survived, Sex, Age, Big, Wide FROM people ORDER BY Id");
+
+        QueryResult columnar = new QueryResult();
+        columnar.setHeaders(List.of("ID", "SURVIVED", "SEX", "AGE", "BIG", "WIDE"));
+        columnar.setColumnar(data);
+
+        QueryResult rows = new QueryResult();
+        rows.setHeaders(columnar.getHeaders());
+        List<List<Object>> copied = new ArrayList<>();
+        for (List<Object> row : data.rows()) {
+            copied.add(new ArrayList<>(row));
+        }
+        rows.setData(copied);
+
+        assertEquals(mapper.writeValueAsString(rows), mapper.writeValueAsString(columnar));
+    }
+
+    @Test
+    @DisplayName("Copy should share the columnar representation")
+    void copyShouldShareColumnarData() {
+        QueryResult original = new QueryResult();
+        original.setColumnar(load("SELECT Id FROM people"));
+
+        QueryResult copy = QueryResult.copyOf(original, 7L);
+
+        assertEquals(7L, copy.getId());
+        assertSame(original.getColumnar(), copy.getColumnar());
+    }
+
+    private ColumnarData load(String sql) {
+        return jdbcTemplate.query(sql, rs -> {
+            ColumnarData.Builder builder = ColumnarData.builder(rs.getMetaData());
+            while (rs.next()) {
+                builder.appendRow(rs);
+            }
+            return builder.build();
+        });
+    }
+}
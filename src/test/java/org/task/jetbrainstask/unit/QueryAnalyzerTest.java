@@ -3,10 +3,22 @@ package org.task.jetbrainstask.unit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.task.jetbrainstask.models.LatencyStatistics;
+import org.task.jetbrainstask.models.QueryCostEstimate;
+import org.task.jetbrainstask.models.RoutingDecision;
 import org.task.jetbrainstask.service.implementations.QueryAnalyzerImpl;
+import org.task.jetbrainstask.service.implementations.QueryFingerprinterImpl;
 import org.task.jetbrainstask.service.interfaces.QueryAnalyzer;
+import org.task.jetbrainstask.service.interfaces.QueryCostEstimator;
+import org.task.jetbrainstask.service.interfaces.QueryFingerprinter;
+import org.task.jetbrainstask.sql.QueryFingerprint;
+
+import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @DisplayName("QueryAnalyzer Tests")
 class QueryAnalyzerTest {
@@ -15,7 +27,7 @@ class QueryAnalyzerTest {
 
     @BeforeEach
     void setUp() {
-        analyzer = new QueryAnalyzerImpl();
+        analyzer = new QueryAnalyzerImpl(new QueryFingerprinterImpl(), mock(QueryCostEstimator.class), 100_000, 1000);
     }
 
     @Test
@@ -218,7 +230,7 @@ class QueryAnalyzerTest {
     @Test
     @DisplayName("Should return false for null SQL")
     void shouldReturnFalseForNull() {
-        boolean result = analyzer.shouldRunAsync(null);
+        boolean result = analyzer.shouldRunAsync((String) null);
 
         assertFalse(result);
     }
@@ -242,7 +254,7 @@ class QueryAnalyzerTest {
     @Test
     @DisplayName("Should not record execution for null SQL")
     void shouldNotRecordExecutionForNull() {
-        assertDoesNotThrow(() -> analyzer.recordExecution(null, 1000));
+        assertDoesNotThrow(() -> analyzer.recordExecution((String) null, 1000));
     }
 
     @Test
@@ -314,16 +326,54 @@ class QueryAnalyzerTest {
 
 
     @Test
-    @DisplayName("Should overwrite execution time on subsequent recordings")
-    void shouldOverwriteExecutionTime() {
+    @DisplayName("Should route by p95 rather than the latest sample")
+    void shouldRouteByP95() {
         String sql = "SELECT * FROM passengers";
 
         analyzer.recordExecution(sql, 6000);
         assertTrue(analyzer.shouldRunAsync(sql));
 
         analyzer.recordExecution(sql, 100);
-        assertFalse(analyzer.shouldRunAsync(sql),
-                "Should use latest execution time");
+        assertTrue(analyzer.shouldRunAsync(sql), "A single fast run should not hide a slow p95");
+
+        for (int i = 0; i < 18; i++) {
+            analyzer.recordExecution(sql, 100);
+        }
+        assertFalse(analyzer.shouldRunAsync(sql), "One outlier in twenty runs is above the p95");
+    }
+
+    @Test
+    @DisplayName("Should expose per-query percentiles")
+    void shouldExposePercentiles() {
+        for (int i = 1; i <= 100; i++) {
+            analyzer.recordExecution("SELECT * FROM passengers WHERE Name = 'p" + i + "'", i * 10);
+        }
+
+        List<LatencyStatistics> statistics = analyzer.getLatencyStatistics();
+
+        assertEquals(1, statistics.size(), "Queries differing only in literals share a histogram");
+        LatencyStatistics stats = statistics.get(0);
+        assertEquals(100, stats.getCount());
+        assertEquals(1000, stats.getMaxMs());
+        assertTrue(stats.getP50Ms() >= 500 && stats.getP50Ms() <= 600, "p50 was " + stats.getP50Ms());
+        assertTrue(stats.getP95Ms() >= 950 && stats.getP95Ms() <= 1000, "p95 was " + stats.getP95Ms());
+        assertTrue(stats.getP99Ms() >= stats.getP95Ms());
+        assertTrue(stats.getEwmaMs() > 500);
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used query once the history is full")
+    void shouldBoundHistory() {
+        QueryAnalyzer bounded = new QueryAnalyzerImpl(new QueryFingerprinterImpl(), mock(QueryCostEstimator.class), 100_000, 2);
+
+        bounded.recordExecution("SELECT * FROM a", 6000);
+        bounded.recordExecution("SELECT * FROM b", 6000);
+        assertTrue(bounded.shouldRunAsync("SELECT * FROM a"));
+        bounded.recordExecution("SELECT * FROM c", 6000);
+
+        assertEquals(2, bounded.getLatencyStatistics().size());
+        assertTrue(bounded.shouldRunAsync("SELECT * FROM a"), "Recently used query should be kept");
+        assertFalse(bounded.shouldRunAsync("SELECT * FROM b"), "Least recently used query should be evicted");
     }
 
     @Test
@@ -465,4 +515,41 @@ class QueryAnalyzerTest {
 
         assertTrue(analyzer.shouldRunAsync(sql));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should route by plan cost when an estimate is available")
+    void shouldRouteByPlanCost() {
+        QueryCostEstimator estimator = mock(QueryCostEstimator.class);
+        QueryFingerprinter fingerprinter = new QueryFingerprinterImpl();
+        QueryAnalyzer costAware = new QueryAnalyzerImpl(fingerprinter, estimator, 100_000, 1000);
+
+        QueryFingerprint lookup = fingerprinter.fingerprint("SELECT * FROM a JOIN b ON a.id = b.id WHERE a.id = 1");
+        QueryFingerprint scan = fingerprinter.fingerprint("SELECT * FROM big");
+        when(estimator.estimate(lookup)).thenReturn(Optional.of(new QueryCostEstimate(2, 0, 2)));
+        when(estimator.estimate(scan)).thenReturn(Optional.of(new QueryCostEstimate(5_000_000, 1, 0)));
+
+        RoutingDecision lookupDecision = costAware.analyze(lookup);
+        RoutingDecision scanDecision = costAware.analyze(scan);
+
+        assertFalse(lookupDecision.isAsync(), "Cheap indexed JOIN should stay synchronous");
+        assertEquals(2L, lookupDecision.getEstimatedCost());
+        assertTrue(scanDecision.isAsync(), "Large full scan should run asynchronously");
+        assertEquals("plan", scanDecision.getReason());
+    }
+
+    @Test
+    @DisplayName("Observed history should take precedence over the plan estimate")
+    void shouldPreferHistoryOverPlan() {
+        QueryCostEstimator estimator = mock(QueryCostEstimator.class);
+        QueryFingerprinter fingerprinter = new QueryFingerprinterImpl();
+        QueryAnalyzer costAware = new QueryAnalyzerImpl(fingerprinter, estimator, 100_000, 1000);
+        QueryFingerprint scan = fingerprinter.fingerprint("SELECT * FROM big");
+        when(estimator.estimate(scan)).thenReturn(Optional.of(new QueryCostEstimate(5_000_000, 1, 0)));
+
+        costAware.recordExecution(scan, 40);
+
+        RoutingDecision decision = costAware.analyze(scan);
+        assertFalse(decision.isAsync());
+        assertEquals(5_000_000L, decision.getEstimatedCost());
+    }
+}
@@ -5,12 +5,24 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.task.jetbrainstask.config.CacheConfig;
+import org.task.jetbrainstask.config.CacheTableIndex;
+import org.task.jetbrainstask.models.CacheStatistics;
+import org.task.jetbrainstask.models.CachedQueryResult;
 import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.TableInvalidation;
 import org.task.jetbrainstask.service.implementations.QueryCacheManagerImpl;
+import org.task.jetbrainstask.service.implementations.QueryFingerprinterImpl;
 import org.task.jetbrainstask.service.interfaces.QueryCacheManager;
+import org.task.jetbrainstask.sql.QueryFingerprint;
 
-
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,13 +33,14 @@ class QueryCacheManagerTest {
     private QueryCacheManager cacheManager;
     private CacheManager springCacheManager;
     private Cache cache;
+    private final CacheTableIndex tableIndex = new CacheTableIndex();
 
     @BeforeEach
     void setUp() {
         springCacheManager = mock(CacheManager.class);
         cache = mock(Cache.class);
         when(springCacheManager.getCache("queryResults")).thenReturn(cache);
-        cacheManager = new QueryCacheManagerImpl(springCacheManager);
+        cacheManager = new QueryCacheManagerImpl(springCacheManager, new CacheTableIndex(), new QueryFingerprinterImpl(), Duration.ofMinutes(10));
     }
 
     @Test
@@ -52,7 +65,7 @@ class QueryCacheManagerTest {
         QueryResult expected = new QueryResult();
         Cache.ValueWrapper wrapper = mock(Cache.ValueWrapper.class);
 
-        when(wrapper.get()).thenReturn(expected);
+        when(wrapper.get()).thenReturn(new CachedQueryResult("SELECT * FROM USERS", expected, 64, Duration.ofMinutes(1)));
         when(cache.get(anyString())).thenReturn(wrapper);
 
         Optional<QueryResult> result = cacheManager.getCachedResult("SELECT * FROM users");
@@ -65,7 +78,8 @@ class QueryCacheManagerTest {
     void shouldPutResultInCache() {
         QueryResult result = new QueryResult();
         cacheManager.putResultInCache("SELECT * FROM data", result);
-        verify(cache, times(1)).put(anyString(), eq(result));
+        verify(cache, times(1)).put(anyString(),
+                argThat(value -> value instanceof CachedQueryResult cached && cached.getResult() == result));
     }
 
     @Test
@@ -76,4 +90,155 @@ class QueryCacheManagerTest {
         cacheManager.putResultInCache("SELECT * FROM data", result);
         verify(cache, never()).put(anyString(), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should weigh entries by estimated result size")
+    void shouldWeighEntriesByEstimatedSize() {
+        QueryResult small = resultWithRows(1);
+        QueryResult large = resultWithRows(100);
+
+        cacheManager.putResultInCache("SELECT * FROM data", large);
+
+        verify(cache).put(anyString(), argThat(value -> value instanceof CachedQueryResult cached
+                && cached.getWeightBytes() == large.estimateSizeBytes()));
+        assertTrue(large.estimateSizeBytes() > small.estimateSizeBytes());
+    }
+
+    @Test
+    @DisplayName("Should evict entries once the byte budget is exceeded")
+    void shouldEvictWhenBudgetExceeded() {
+        CacheManager caffeineManager = new CacheConfig().cacheManager(20_000, tableIndex);
+        QueryCacheManager bounded = realCacheManager(caffeineManager);
+
+        for (int i = 0; i < 50; i++) {
+            bounded.putResultInCache("SELECT * FROM data WHERE id = " + i, resultWithRows(10));
+        }
+        ((CaffeineCache) caffeineManager.getCache("queryResults")).getNativeCache().cleanUp();
+
+        CacheStatistics statistics = bounded.getStatistics();
+        assertTrue(statistics.getSizeBytes() <= 20_000, "Cache should stay within its byte budget");
+        assertTrue(statistics.getEvictionCount() > 0);
+        assertTrue(statistics.getEvictedBytes() > 0);
+        assertEquals(20_000, statistics.getMaxBytes());
+    }
+
+    @Test
+    @DisplayName("Should drop evicted and expired keys from the table index")
+    void shouldPruneTableIndexOnRemoval() throws InterruptedException {
+        CacheManager caffeineManager = new CacheConfig().cacheManager(20_000, tableIndex);
+        QueryCacheManager bounded = realCacheManager(caffeineManager);
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache =
+                ((CaffeineCache) caffeineManager.getCache("queryResults")).getNativeCache();
+
+        for (int i = 0; i < 50; i++) {
+            bounded.putResultInCache("SELECT * FROM data WHERE id = " + i, resultWithRows(10));
+        }
+        bounded.putResultInCache("SELECT * FROM crew", resultWithRows(1), Duration.ofMillis(20));
+        nativeCache.cleanUp();
+        long withCrew = nativeCache.estimatedSize();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        do {
+            Thread.sleep(20);
+            nativeCache.cleanUp();
+        } while (nativeCache.estimatedSize() == withCrew && System.nanoTime() < deadline);
+
+        assertTrue(nativeCache.estimatedSize() < 50);
+        assertEquals(nativeCache.estimatedSize(), tableIndex.getKeyCount());
+        assertTrue(tableIndex.removeTable("CREW").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should expire entries after their own TTL")
+    void shouldExpireEntriesAfterTtl() throws InterruptedException {
+        QueryCacheManager bounded = realCacheManager(new CacheConfig().cacheManager(1_000_000, tableIndex));
+
+        bounded.putResultInCache("SELECT 1", resultWithRows(1), Duration.ofMillis(50));
+        bounded.putResultInCache("SELECT 2", resultWithRows(1), Duration.ofMinutes(5));
+        Thread.sleep(150);
+
+        assertTrue(bounded.getCachedResult("SELECT 1").isEmpty());
+        assertTrue(bounded.getCachedResult("SELECT 2").isPresent());
+    }
+
+    @Test
+    @DisplayName("Should count hits and misses")
+    void shouldCountHitsAndMisses() {
+        QueryCacheManager bounded = realCacheManager(new CacheConfig().cacheManager(1_000_000, tableIndex));
+
+        bounded.putResultInCache("SELECT 1", resultWithRows(1));
+        bounded.getCachedResult("SELECT 1");
+        bounded.getCachedResult("SELECT 1");
+        bounded.getCachedResult("SELECT 2");
+
+        CacheStatistics statistics = bounded.getStatistics();
+        assertEquals(2, statistics.getHitCount());
+        assertEquals(1, statistics.getMissCount());
+        assertEquals(1, statistics.getEntryCount());
+    }
+
+    @Test
+    @DisplayName("Should treat a hash hit with different SQL text as a miss")
+    void shouldRejectCollidingEntry() {
+        Cache.ValueWrapper wrapper = mock(Cache.ValueWrapper.class);
+        when(wrapper.get()).thenReturn(new CachedQueryResult("SELECT * FROM OTHER", new QueryResult(), 64, Duration.ofMinutes(1)));
+        when(cache.get(anyString())).thenReturn(wrapper);
+
+        assertTrue(cacheManager.getCachedResult("SELECT * FROM users").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should share entries across formatting, keyword case and comments but not literal case")
+    void shouldShareEntriesForEquivalentQueries() {
+        QueryCacheManager bounded = realCacheManager(new CacheConfig().cacheManager(1_000_000, tableIndex));
+        QueryResult result = resultWithRows(1);
+
+        bounded.putResultInCache("select *\n  from titanic -- all rows\n where Sex = 'male'", result);
+
+        assertSame(result, bounded.getCachedResult("SELECT * /* same */ FROM TITANIC WHERE sex = 'male'").orElseThrow());
+        assertTrue(bounded.getCachedResult("SELECT * FROM titanic WHERE Sex = 'MALE'").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should evict only entries that read a changed table")
+    void shouldInvalidateDependentEntriesOnly() {
+        QueryCacheManager bounded = realCacheManager(new CacheConfig().cacheManager(1_000_000, tableIndex));
+        bounded.putResultInCache("SELECT * FROM titanic", resultWithRows(1));
+        bounded.putResultInCache("SELECT * FROM titanic t JOIN crew c ON t.id = c.id", resultWithRows(1));
+        bounded.putResultInCache("SELECT * FROM crew", resultWithRows(1));
+
+        TableInvalidation invalidation = bounded.invalidateTable("titanic");
+
+        assertEquals("TITANIC", invalidation.getTable());
+        assertEquals(1, invalidation.getVersion());
+        assertEquals(2, invalidation.getEvictedEntries());
+        assertTrue(bounded.getCachedResult("SELECT * FROM titanic").isEmpty());
+        assertTrue(bounded.getCachedResult("SELECT * FROM titanic t JOIN crew c ON t.id = c.id").isEmpty());
+        assertTrue(bounded.getCachedResult("SELECT * FROM crew").isPresent());
+    }
+
+    @Test
+    @DisplayName("Should not cache a result read before its table changed")
+    void shouldSkipResultsReadBeforeChange() {
+        QueryCacheManager bounded = realCacheManager(new CacheConfig().cacheManager(1_000_000, tableIndex));
+        QueryFingerprint fingerprint = new QueryFingerprinterImpl().fingerprint("SELECT * FROM titanic");
+
+        Map<String, Long> versions = bounded.snapshotTableVersions(fingerprint.getTables());
+        bounded.invalidateTable("TITANIC");
+        bounded.putResultInCache(fingerprint, resultWithRows(1), versions);
+
+        assertTrue(bounded.getCachedResult(fingerprint).isEmpty());
+    }
+
+    private QueryCacheManager realCacheManager(CacheManager caffeineManager) {
+        return new QueryCacheManagerImpl(caffeineManager, tableIndex, new QueryFingerprinterImpl(), Duration.ofMinutes(10));
+    }
+
+    private QueryResult resultWithRows(int rows) {
+        List<List<Object>> data = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            data.add(List.of(i, "row " + i));
+        }
+        return new QueryResult(null, List.of("ID", "NAME"), data);
+    }
+}
@@ -0,0 +1,108 @@
+package org.task.jetbrainstask.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.task.jetbrainstask.models.QueryCostEstimate;
+import org.task.jetbrainstask.service.implementations.QueryCostEstimatorImpl;
+import org.task.jetbrainstask.service.implementations.QueryFingerprinterImpl;
+import org.task.jetbrainstask.service.interfaces.QueryCostEstimator;
+import org.task.jetbrainstask.service.interfaces.QueryFingerprinter;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+@JdbcTest
+@DisplayName("QueryCostEstimator Tests")
+class QueryCostEstimatorTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private QueryCostEstimator estimator;
+    private final QueryFingerprinter fingerprinter = new QueryFingerprinterImpl();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS passengers (Id INT PRIMARY KEY, Age INT)");
+        jdbcTemplate.execute("DELETE FROM passengers");
+        jdbcTemplate.execute("INSERT INTO passengers SELECT X, MOD(X, 80) FROM SYSTEM_RANGE(1, 1000)");
+        estimator = new QueryCostEstimatorImpl(jdbcTemplate, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Should estimate a full scan by the table row count")
+    void shouldEstimateFullScan() {
+        QueryCostEstimate estimate = estimate("SELECT * FROM passengers WHERE Age > 30");
+
+        assertEquals(1, estimate.getFullScans());
+        assertEquals(0, estimate.getIndexLookups());
+        assertEquals(1000, estimate.getEstimatedRows());
+    }
+
+    @Test
+    @DisplayName("Should estimate a primary key lookup as a single row")
+    void shouldEstimatePrimaryKeyLookup() {
+        QueryCostEstimate estimate = estimate("SELECT * FROM passengers WHERE Id = 5");
+
+        assertEquals(0, estimate.getFullScans());
+        assertEquals(1, estimate.getIndexLookups());
+        assertEquals(1, estimate.getEstimatedRows());
+    }
+
+    @Test
+    @DisplayName("Should multiply row counts of joined scans")
+    void shouldMultiplyJoinedScans() {
+        QueryCostEstimate unindexed = estimate("SELECT * FROM passengers a JOIN passengers b ON a.Age = b.Age");
+        QueryCostEstimate indexed = estimate("SELECT * FROM passengers a JOIN passengers b ON a.Id = b.Id");
+
+        assertEquals(1_000_000, unindexed.getEstimatedRows());
+        assertTrue(indexed.getEstimatedRows() < unindexed.getEstimatedRows());
+    }
+
+    @Test
+    @DisplayName("Should add up subquery scans instead of multiplying them")
+    void shouldAddSubqueryScans() {
+        QueryCostEstimate estimate = estimate("SELECT * FROM passengers WHERE Age > (SELECT AVG(Age) FROM passengers)");
+
+        assertEquals(2, estimate.getFullScans());
+        assertEquals(2000, estimate.getEstimatedRows());
+    }
+
+    @Test
+    @DisplayName("Should cache the plan per fingerprint")
+    void shouldCachePlanPerFingerprint() {
+        Optional<QueryCostEstimate> first = estimator.estimate(fingerprinter.fingerprint("SELECT * FROM passengers"));
+        Optional<QueryCostEstimate> second = estimator.estimate(fingerprinter.fingerprint("select *  from PASSENGERS"));
+
+        assertSame(first.orElseThrow(), second.orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should explain the submitted text rather than the canonical text")
+    void shouldExplainSubmittedText() {
+        JdbcTemplate template = spy(jdbcTemplate);
+        QueryCostEstimator explaining = new QueryCostEstimatorImpl(template, 100, Duration.ofMinutes(10));
+
+        explaining.estimate(fingerprinter.fingerprint("select * from passengers where Age <> 30"));
+
+        verify(template).queryForList("EXPLAIN select * from passengers where Age <> 30", String.class);
+    }
+
+    @Test
+    @DisplayName("Should return no estimate for invalid SQL")
+    void shouldReturnEmptyForInvalidSql() {
+        assertTrue(estimator.estimate(fingerprinter.fingerprint("SELECT * FROM missing_table")).isEmpty());
+    }
+
+    private QueryCostEstimate estimate(String sql) {
+        return estimator.estimate(fingerprinter.fingerprint(sql)).orElseThrow();
+    }
+}
@@ -7,12 +7,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.task.jetbrainstask.models.QueryControl;
 import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.QueryStatus;
 import org.task.jetbrainstask.service.implementations.QueryExecutorImpl;
 import org.task.jetbrainstask.service.interfaces.QueryExecutor;
+import org.task.jetbrainstask.service.interfaces.QueryRowHandler;
 
-
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,6 +29,9 @@ import static org.junit.jupiter.api.Assertions.*;
 @DisplayName("QueryExecutorImpl Tests")
 class QueryExecutorTest {
 
+    private static final String SLOW_QUERY =
+            "SELECT COUNT(*) FROM SYSTEM_RANGE(1, 1000000) a, SYSTEM_RANGE(1, 1000000) b WHERE a.X + b.X = 7";
+
     @Autowired
     private QueryExecutor queryExecutor;
 
@@ -436,4 +447,104 @@ class QueryExecutorTest {
         assertTrue(result.getHeaders().isEmpty());
         assertTrue(result.getData().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should stream every row to the handler")
+    void shouldStreamEveryRow() {
+        List<String> headers = new ArrayList<>();
+        List<List<Object>> rows = new ArrayList<>();
+
+        QueryResult summary = queryExecutor.streamQuery("SELECT PassengerId, Name FROM passengers ORDER BY PassengerId",
+                collectingHandler(headers, rows));
+
+        assertEquals(QueryStatus.COMPLETED, summary.getStatus());
+        assertNotNull(summary.getExecutionTimeMs());
+        assertEquals(List.of("PASSENGERID", "NAME"), headers);
+        assertEquals(5, rows.size());
+        assertEquals(1, rows.get(0).get(0));
+        assertEquals("Allen, Mr. William Henry", rows.get(4).get(1));
+    }
+
+    @Test
+    @DisplayName("Should stream headers even when no rows match")
+    void shouldStreamHeadersForEmptyResult() {
+        List<String> headers = new ArrayList<>();
+        List<List<Object>> rows = new ArrayList<>();
+
+        QueryResult summary = queryExecutor.streamQuery("SELECT Name FROM passengers WHERE 1 = 0",
+                collectingHandler(headers, rows));
+
+        assertEquals(QueryStatus.COMPLETED, summary.getStatus());
+        assertEquals(List.of("NAME"), headers);
+        assertTrue(rows.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should report failure when streaming invalid SQL")
+    void shouldReportFailureWhenStreamingInvalidSql() {
+        List<String> headers = new ArrayList<>();
+        List<List<Object>> rows = new ArrayList<>();
+
+        QueryResult summary = queryExecutor.streamQuery("SELECT * FROM non_existent_table",
+                collectingHandler(headers, rows));
+
+        assertEquals(QueryStatus.FAILED, summary.getStatus());
+        assertEquals("TABLE_NOT_FOUND", summary.getErrorMessage());
+        assertTrue(headers.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should stop a query that exceeds its deadline")
+    void shouldTimeOutSlowQuery() {
+        QueryControl control = new QueryControl(Duration.ofSeconds(1));
+
+        QueryResult result = queryExecutor.executeQuery(SLOW_QUERY, control);
+
+        assertEquals(QueryStatus.TIMED_OUT, result.getStatus());
+        assertTrue(result.getExecutionTimeMs() < 10_000);
+        assertTrue(result.getErrorMessage().startsWith("TIMED_OUT"));
+    }
+
+    @Test
+    @DisplayName("Should cancel a running query through its statement")
+    void shouldCancelRunningQuery() {
+        QueryControl control = new QueryControl(Duration.ofMinutes(1));
+        CompletableFuture.runAsync(() -> {
+            try {
+                control.cancel();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }, CompletableFuture.delayedExecutor(300, TimeUnit.MILLISECONDS));
+
+        QueryResult result = queryExecutor.executeQuery(SLOW_QUERY, control);
+
+        assertEquals(QueryStatus.CANCELLED, result.getStatus());
+        assertTrue(result.getExecutionTimeMs() < 10_000);
+    }
+
+    @Test
+    @DisplayName("Should not start a query that was cancelled beforehand")
+    void shouldNotStartCancelledQuery() throws Exception {
+        QueryControl control = new QueryControl(null);
+        control.cancel();
+
+        QueryResult result = queryExecutor.executeQuery("SELECT * FROM passengers", control);
+
+        assertEquals(QueryStatus.CANCELLED, result.getStatus());
+    }
+
+    private QueryRowHandler collectingHandler(List<String> headers, List<List<Object>> rows) {
+        return new QueryRowHandler() {
+            @Override
+            public void onHeaders(List<String> columnNames) {
+                headers.addAll(columnNames);
+            }
+
+            @Override
+            public void onRow(Object[] values) {
+                rows.add(Arrays.asList(values.clone()));
+            }
+        };
+    }
+}
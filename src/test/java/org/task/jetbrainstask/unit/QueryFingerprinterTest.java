@@ -0,0 +1,108 @@
+package org.task.jetbrainstask.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.task.jetbrainstask.service.implementations.QueryFingerprinterImpl;
+import org.task.jetbrainstask.service.interfaces.QueryFingerprinter;
+import org.task.jetbrainstask.sql.QueryFingerprint;
+import org.task.jetbrainstask.sql.SqlTokenType;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("QueryFingerprinter Tests")
+class QueryFingerprinterTest {
+
+    private QueryFingerprinter fingerprinter;
+
+    @BeforeEach
+    void setUp() {
+        fingerprinter = new QueryFingerprinterImpl();
+    }
+
+    @Test
+    @DisplayName("Should normalize whitespace, keyword case and comments")
+    void shouldNormalizeFormatting() {
+        QueryFingerprint a = fingerprinter.fingerprint("select name\n\tfrom   titanic -- trailing\nwhere age>30");
+        QueryFingerprint b = fingerprinter.fingerprint("SELECT /* cols */ NAME FROM TITANIC WHERE AGE > 30");
+
+        assertEquals("SELECT NAME FROM TITANIC WHERE AGE > 30", a.getCanonicalSql());
+        assertEquals(a.getCanonicalSql(), b.getCanonicalSql());
+        assertEquals(a.getHash(), b.getHash());
+    }
+
+    @Test
+    @DisplayName("Should keep string literals and quoted identifiers verbatim")
+    void shouldKeepLiteralCase() {
+        QueryFingerprint lower = fingerprinter.fingerprint("SELECT * FROM titanic WHERE Sex = 'male'");
+        QueryFingerprint upper = fingerprinter.fingerprint("SELECT * FROM titanic WHERE Sex = 'MALE'");
+
+        assertNotEquals(lower.getHash(), upper.getHash());
+        assertEquals(lower.getShape(), upper.getShape());
+        assertTrue(fingerprinter.fingerprint("SELECT \"Name\" FROM t").getCanonicalSql().contains("\"Name\""));
+    }
+
+    @Test
+    @DisplayName("Should not treat comment markers inside literals as comments")
+    void shouldIgnoreCommentMarkersInLiterals() {
+        QueryFingerprint fingerprint = fingerprinter.fingerprint("SELECT '--x' , 'it''s' FROM t");
+
+        assertEquals("SELECT '--x' , 'it''s' FROM T", fingerprint.getCanonicalSql());
+        assertEquals(2, fingerprint.getTokens().stream().filter(t -> t.getType() == SqlTokenType.STRING).count());
+    }
+
+    @Test
+    @DisplayName("Should produce distinct 128-bit hashes for distinct queries")
+    void shouldProduceDistinctHashes() {
+        Set<String> hashes = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            String hash = fingerprinter.fingerprint("SELECT * FROM titanic WHERE PassengerId = " + i).getHash();
+            assertEquals(32, hash.length());
+            hashes.add(hash);
+        }
+        assertEquals(10_000, hashes.size());
+    }
+
+    @Test
+    @DisplayName("Should count keywords by token, not substring")
+    void shouldCountKeywordsByToken() {
+        QueryFingerprint fingerprint = fingerprinter.fingerprint("SELECT joined_at FROM t JOIN u ON t.id = u.id WHERE x = 'JOIN'");
+
+        assertEquals(1, fingerprint.countWords("JOIN"));
+    }
+
+    @Test
+    @DisplayName("Should extract the tables a query reads")
+    void shouldExtractTables() {
+        QueryFingerprint fingerprint = fingerprinter.fingerprint(
+                "SELECT t.Name FROM public.titanic t JOIN \"Crew\" c ON t.id = c.id, cabins AS cb WHERE t.Name = 'FROM x'");
+
+        assertEquals(Set.of("TITANIC", "Crew", "CABINS"), fingerprint.getTables());
+    }
+
+    @Test
+    @DisplayName("Should parse the query once and take its tables from the parsed statement")
+    void shouldParseStatement() {
+        QueryFingerprint fingerprint = fingerprinter.fingerprint(
+                "WITH recent AS (SELECT * FROM voyages) SELECT r.id FROM recent r WHERE r.ship IN (SELECT id FROM ships)");
+
+        assertNotNull(fingerprint.getStatement());
+        assertEquals(Set.of("VOYAGES", "SHIPS"), fingerprint.getTables());
+        assertEquals(3, fingerprint.getStatement().countSelects());
+        assertEquals(0, fingerprint.getStatement().countJoins());
+    }
+
+    @Test
+    @DisplayName("Should keep lexing results and the parse error for statements it cannot parse")
+    void shouldRecordParseError() {
+        QueryFingerprint fingerprint = fingerprinter.fingerprint("UPDATE titanic SET Age = 1 /* fix */ -- note");
+
+        assertNull(fingerprint.getStatement());
+        assertEquals("Expected SELECT but found 'UPDATE'", fingerprint.getParseError());
+        assertEquals(Set.of("TITANIC"), fingerprint.getTables());
+        assertEquals(2, fingerprint.getComments().size());
+    }
+}
@@ -0,0 +1,128 @@
+package org.task.jetbrainstask.unit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.task.jetbrainstask.models.JournalReplay;
+import org.task.jetbrainstask.models.QueryEntry;
+import org.task.jetbrainstask.models.QueryStatus;
+import org.task.jetbrainstask.service.implementations.QueryJournalImpl;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("QueryJournal Tests")
+class QueryJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should restore READY and RUNNING queries and resume the id sequence")
+    void shouldReplayLiveQueries() {
+        QueryJournalImpl journal = open();
+        journal.recordAdded(entry(0, "SELECT 1"));
+        journal.recordAdded(entry(1, "SELECT 2"));
+        journal.recordAdded(entry(2, "SELECT 3"));
+        journal.recordStatus(1, QueryStatus.RUNNING);
+        journal.recordStatus(2, QueryStatus.RUNNING);
+        journal.recordStatus(2, QueryStatus.COMPLETED).join();
+        journal.close();
+
+        JournalReplay replay = open().replay();
+
+        assertEquals(List.of(0L, 1L), replay.getEntries().stream().map(QueryEntry::getId).toList());
+        assertEquals(List.of("SELECT 1", "SELECT 2"), replay.getEntries().stream().map(QueryEntry::getQuery).toList());
+        assertTrue(replay.getEntries().stream().allMatch(e -> e.getStatus() == QueryStatus.READY));
+        assertEquals(3, replay.getNextId());
+    }
+
+    @Test
+    @DisplayName("Should ignore a torn record at the end of the log")
+    void shouldIgnoreTornTail() throws Exception {
+        QueryJournalImpl journal = open();
+        journal.recordAdded(entry(0, "SELECT 1")).join();
+        journal.close();
+        Files.write(directory.resolve("queries.wal"), new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        QueryJournalImpl reopened = open();
+        reopened.recordAdded(entry(1, "SELECT 2")).join();
+        reopened.close();
+
+        assertEquals(List.of(0L, 1L), open().replay().getEntries().stream().map(QueryEntry::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Should compact the log to the live queries")
+    void shouldCompact() throws Exception {
+        QueryJournalImpl journal = open();
+        for (int i = 0; i < 100; i++) {
+            journal.recordAdded(entry(i, "SELECT " + i));
+            journal.recordStatus(i, i == 99 ? QueryStatus.RUNNING : QueryStatus.COMPLETED);
+        }
+        journal.compact().join();
+        long compacted = Files.size(directory.resolve("queries.wal"));
+        journal.recordAdded(entry(100, "SELECT 100")).join();
+        journal.close();
+
+        assertEquals(1, journal.getStatistics().getCompactions());
+        assertTrue(compacted < 200, "compacted log should only hold the live query");
+        JournalReplay replay = open().replay();
+        assertEquals(List.of(99L, 100L), replay.getEntries().stream().map(QueryEntry::getId).toList());
+        assertEquals(101, replay.getNextId());
+    }
+
+    @Test
+    @DisplayName("Should sync many concurrent appends together")
+    void shouldGroupCommit() {
+        QueryJournalImpl journal = open();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Void>> appends = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long id = i;
+            appends.add(CompletableFuture.supplyAsync(() -> journal.recordAdded(entry(id, "SELECT " + id)), pool)
+                    .thenCompose(durable -> durable));
+        }
+        CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).join();
+        pool.shutdown();
+        journal.close();
+
+        assertEquals(2000, journal.getStatistics().getRecords());
+        assertTrue(journal.getStatistics().getSyncs() < 2000);
+        assertEquals(2000, open().replay().getEntries().size());
+    }
+
+    @Test
+    @DisplayName("Disabled journal should accept records and restore nothing")
+    void disabledJournalShouldBeNoop() {
+        QueryJournalImpl journal = new QueryJournalImpl(false, directory, Duration.ofMinutes(5));
+        journal.open();
+
+        assertTrue(journal.recordAdded(entry(0, "SELECT 1")).isDone());
+        assertTrue(journal.replay().getEntries().isEmpty());
+        assertEquals(0, journal.replay().getNextId());
+        assertFalse(Files.exists(directory.resolve("queries.wal")));
+    }
+
+    private QueryJournalImpl open() {
+        QueryJournalImpl journal = new QueryJournalImpl(true, directory, Duration.ofHours(1));
+        journal.open();
+        return journal;
+    }
+
+    private static QueryEntry entry(long id, String sql) {
+        QueryEntry entry = new QueryEntry();
+        entry.setId(id);
+        entry.setQuery(sql);
+        return entry;
+    }
+}
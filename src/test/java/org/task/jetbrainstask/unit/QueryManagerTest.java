@@ -2,18 +2,47 @@ package org.task.jetbrainstask.unit;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.task.jetbrainstask.models.AdmissionPolicy;
+import org.task.jetbrainstask.models.QueryControl;
 import org.task.jetbrainstask.models.QueryEntry;
+import org.task.jetbrainstask.models.QueryPriority;
 import org.task.jetbrainstask.models.QueryResult;
 import org.task.jetbrainstask.models.QueryStatus;
+import org.task.jetbrainstask.models.QueryStatusEvent;
+import org.task.jetbrainstask.models.RoutingDecision;
+import org.task.jetbrainstask.service.exceptions.QueryRejectedException;
+import org.task.jetbrainstask.service.implementations.QueryFingerprinterImpl;
+import org.task.jetbrainstask.service.implementations.QueryJournalImpl;
 import org.task.jetbrainstask.service.implementations.QueryManagerImpl;
+import org.task.jetbrainstask.service.implementations.QueryRetentionImpl;
+import org.task.jetbrainstask.service.implementations.ResultSpoolImpl;
+import org.task.jetbrainstask.service.implementations.SharedScanExecutorImpl;
 import org.task.jetbrainstask.service.interfaces.AsyncQueryManager;
 import org.task.jetbrainstask.service.interfaces.QueryAnalyzer;
 import org.task.jetbrainstask.service.interfaces.QueryCacheManager;
 import org.task.jetbrainstask.service.interfaces.QueryExecutor;
+import org.task.jetbrainstask.service.interfaces.QueryRowHandler;
+import org.task.jetbrainstask.service.interfaces.ResultSpool;
+import org.task.jetbrainstask.service.interfaces.SharedScanExecutor;
+import org.task.jetbrainstask.sql.QueryFingerprint;
 
+import java.nio.file.Path;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -24,6 +53,11 @@ class QueryManagerTest {
     private QueryExecutor executor;
     private QueryCacheManager cacheManager;
     private AsyncQueryManager asyncManager;
+    private ApplicationEventPublisher eventPublisher;
+    private QueryRetentionImpl retention;
+    private ResultSpool spool;
+    private QueryJournalImpl journal;
+    private SharedScanExecutorImpl sharedScans;
     private QueryManagerImpl queryManager;
 
     @BeforeEach
@@ -32,8 +66,16 @@ class QueryManagerTest {
         executor = mock(QueryExecutor.class);
         cacheManager = mock(QueryCacheManager.class);
         asyncManager = mock(AsyncQueryManager.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        spool = mock(ResultSpool.class);
+        journal = new QueryJournalImpl(false, Path.of("unused"), Duration.ofMinutes(5));
+        sharedScans = new SharedScanExecutorImpl(true, 3);
+        retention = new QueryRetentionImpl(Duration.ofMinutes(5), Duration.ofMinutes(30), Duration.ofMinutes(10),
+                Duration.ofMinutes(10), 1 << 20);
 
-        queryManager = new QueryManagerImpl(analyzer, executor, cacheManager, asyncManager);
+        queryManager = new QueryManagerImpl(analyzer, executor, executor, cacheManager, asyncManager, new QueryFingerprinterImpl(), retention, spool, journal, sharedScans, Runnable::run,
+                eventPublisher, AdmissionPolicy.REJECT, Duration.ofSeconds(30),
+                Duration.ofMillis(200));
     }
 
     @Test
@@ -54,22 +96,22 @@ class QueryManagerTest {
         query.setQuery("SELECT 1");
         List<Long> ids = queryManager.addQueries(List.of(query));
 
-        when(cacheManager.getCachedResult("SELECT 1")).thenReturn(Optional.empty());
-        when(analyzer.shouldRunAsync("SELECT 1")).thenReturn(false);
+        when(cacheManager.getCachedResult(sql("SELECT 1"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 1"))).thenReturn(new RoutingDecision(false, null, "test"));
 
         QueryResult expectedResult = new QueryResult();
         expectedResult.setId(ids.get(0));
         expectedResult.setExecutionTimeMs(5L);
         expectedResult.setStatus(QueryStatus.COMPLETED);
-        when(executor.executeQuery("SELECT 1")).thenReturn(expectedResult);
+        when(executor.executeQuery(eq("SELECT 1"), any())).thenReturn(expectedResult);
 
         CompletableFuture<QueryResult> future = queryManager.executeQueryById(ids.get(0));
         QueryResult result = future.get();
 
         assertEquals(QueryStatus.COMPLETED, query.getStatus(), "Query should be marked as COMPLETED");
         assertEquals(ids.get(0), result.getId());
-        verify(cacheManager).putResultInCache(eq("SELECT 1"), any(QueryResult.class));
-        verify(analyzer).recordExecution("SELECT 1", 5L);
+        verify(cacheManager).putResultInCache(sql("SELECT 1"), any(QueryResult.class), anyMap());
+        verify(analyzer).recordExecution(sql("SELECT 1"), eq(5L));
     }
 
     @Test
@@ -78,14 +120,14 @@ class QueryManagerTest {
         query.setQuery("SELECT 2");
         List<Long> ids = queryManager.addQueries(List.of(query));
 
-        when(cacheManager.getCachedResult("SELECT 2")).thenReturn(Optional.empty());
-        when(analyzer.shouldRunAsync("SELECT 2")).thenReturn(true);
+        when(cacheManager.getCachedResult(sql("SELECT 2"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 2"))).thenReturn(new RoutingDecision(true, null, "test"));
 
         QueryResult asyncResult = new QueryResult();
         asyncResult.setId(ids.get(0));
         asyncResult.setStatus(QueryStatus.COMPLETED);
         CompletableFuture<QueryResult> asyncFuture = CompletableFuture.completedFuture(asyncResult);
-        when(asyncManager.executeAsync(query)).thenReturn(asyncFuture);
+        when(asyncManager.executeAsync(eq(query), any())).thenReturn(asyncFuture);
 
         CompletableFuture<QueryResult> future = queryManager.executeQueryById(ids.get(0));
         QueryResult placeholder = future.get();
@@ -106,7 +148,7 @@ class QueryManagerTest {
         cachedResult.setId(999L);
         cachedResult.setStatus(QueryStatus.COMPLETED);
 
-        when(cacheManager.getCachedResult("SELECT 3")).thenReturn(Optional.of(cachedResult));
+        when(cacheManager.getCachedResult(sql("SELECT 3"))).thenReturn(Optional.of(cachedResult));
 
         CompletableFuture<QueryResult> future = queryManager.executeQueryById(ids.get(0));
         QueryResult result = future.get();
@@ -125,15 +167,834 @@ class QueryManagerTest {
     }
 
     @Test
-    void testCleanupMethods() {
+    void testExpireRetainedQueries_UsesPerStatusTtl() {
+        QueryRetentionImpl shortLived = new QueryRetentionImpl(Duration.ZERO, Duration.ofMinutes(30), Duration.ZERO,
+                Duration.ZERO, 1 << 20);
+        QueryManagerImpl expiring = new QueryManagerImpl(analyzer, executor, executor, cacheManager, asyncManager,
+                new QueryFingerprinterImpl(), shortLived, spool, journal, sharedScans, Runnable::run, eventPublisher, AdmissionPolicy.REJECT,
+                Duration.ofSeconds(30), Duration.ZERO);
+        QueryEntry completed = new QueryEntry();
+        completed.setQuery("SELECT 4");
+        QueryEntry unseen = new QueryEntry();
+        unseen.setQuery("SELECT 21");
+        QueryEntry ready = new QueryEntry();
+        ready.setQuery("SELECT 22");
+        List<Long> ids = expiring.addQueries(List.of(completed, unseen, ready));
+
+        when(cacheManager.getCachedResult(any(QueryFingerprint.class))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 4"))).thenReturn(new RoutingDecision(false, null, "test"));
+        when(analyzer.analyze(sql("SELECT 21"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(executor.executeQuery(eq("SELECT 4"), any())).thenReturn(new QueryResult(null, List.of("4"), List.of(List.of(4))));
+        when(asyncManager.executeAsync(eq(unseen), any()))
+                .thenReturn(CompletableFuture.completedFuture(new QueryResult(null, List.of("21"), List.of(List.of(21)))));
+
+        expiring.executeQueryById(ids.get(0)).join();
+        expiring.executeQueryById(ids.get(1)).join();
+        expiring.expireRetainedQueries();
+
+        assertEquals(List.of(ids.get(1), ids.get(2)), expiring.getQueries().stream().map(QueryEntry::getId).sorted().toList());
+        assertEquals(QueryStatus.TO_BE_SEEN, unseen.getStatus());
+        assertEquals(1, shortLived.getStatistics().getExpired());
+
+        expiring.getQueryExecution(ids.get(1));
+        expiring.expireRetainedQueries();
+
+        assertEquals(List.of(ids.get(2)), expiring.getQueries().stream().map(QueryEntry::getId).toList());
+        assertEquals(QueryStatus.FAILED, expiring.getQueryExecution(ids.get(1)).getStatus());
+    }
+
+    @Test
+    void testRetainedResultsStayWithinMemoryBudget() {
+        QueryRetentionImpl small = new QueryRetentionImpl(Duration.ofMinutes(5), Duration.ofMinutes(30),
+                Duration.ofMinutes(10), Duration.ofMinutes(10), 300);
+        QueryManagerImpl bounded = new QueryManagerImpl(analyzer, executor, executor, cacheManager, asyncManager,
+                new QueryFingerprinterImpl(), small, spool, journal, sharedScans, Runnable::run, eventPublisher, AdmissionPolicy.REJECT,
+                Duration.ofSeconds(30), Duration.ZERO);
+        QueryEntry first = new QueryEntry();
+        first.setQuery("SELECT 23");
+        QueryEntry second = new QueryEntry();
+        second.setQuery("SELECT 24");
+        List<Long> ids = bounded.addQueries(List.of(first, second));
+
+        QueryResult firstResult = new QueryResult(null, List.of("23"), List.of(List.of(23)));
+        QueryResult secondResult = new QueryResult(null, List.of("24"), List.of(List.of(24)));
+        assertTrue(firstResult.estimateSizeBytes() + secondResult.estimateSizeBytes() > 300);
+        when(cacheManager.getCachedResult(any(QueryFingerprint.class))).thenReturn(Optional.empty());
+        when(analyzer.analyze(any(QueryFingerprint.class))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(asyncManager.executeAsync(eq(first), any())).thenReturn(CompletableFuture.completedFuture(firstResult));
+        when(asyncManager.executeAsync(eq(second), any())).thenReturn(CompletableFuture.completedFuture(secondResult));
+
+        bounded.executeQueryById(ids.get(0)).join();
+        bounded.executeQueryById(ids.get(1)).join();
+
+        assertEquals(QueryStatus.FAILED, bounded.getQueryExecution(ids.get(0)).getStatus());
+        assertEquals(List.of(List.of(24)), bounded.getQueryExecution(ids.get(1)).getData());
+        assertEquals(1, small.getStatistics().getEvicted());
+        assertTrue(small.getStatistics().getRetainedBytes() <= 300);
+    }
+
+    @Test
+    void testStreamQueryById_FromCache() {
         QueryEntry query = new QueryEntry();
-        query.setQuery("SELECT 4");
+        query.setQuery("SELECT 5");
         List<Long> ids = queryManager.addQueries(List.of(query));
 
-        query.setStatus(QueryStatus.COMPLETED);
+        QueryResult cachedResult = new QueryResult(999L, List.of("A"), List.of(List.of(1), List.of(2)));
+        when(cacheManager.getCachedResult(sql("SELECT 5"))).thenReturn(Optional.of(cachedResult));
+        QueryRowHandler handler = mock(QueryRowHandler.class);
+
+        QueryResult summary = queryManager.streamQueryById(ids.get(0), handler);
+
+        assertEquals(QueryStatus.COMPLETED, summary.getStatus());
+        assertEquals(ids.get(0), summary.getId());
+        verify(handler).onHeaders(List.of("A"));
+        verify(handler, times(2)).onRow(any());
+        verifyNoInteractions(executor);
+    }
+
+    @Test
+    void testStreamQueryById_MarksEntryFailed() {
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 6");
+        List<Long> ids = queryManager.addQueries(List.of(query));
+
+        QueryResult failed = new QueryResult();
+        failed.setStatus(QueryStatus.FAILED);
+        failed.setErrorMessage("TABLE_NOT_FOUND");
+        when(cacheManager.getCachedResult(sql("SELECT 6"))).thenReturn(Optional.empty());
+        when(executor.streamQuery(eq("SELECT 6"), any())).thenReturn(failed);
+
+        QueryResult summary = queryManager.streamQueryById(ids.get(0), mock(QueryRowHandler.class));
+
+        assertEquals(QueryStatus.FAILED, summary.getStatus());
+        assertEquals(QueryStatus.FAILED, query.getStatus());
+        verify(analyzer, never()).recordExecution(any(QueryFingerprint.class), anyLong());
+    }
+
+    @Test
+    void testExecuteQueryById_CoalescesConcurrentSyncQueries() throws Exception {
+        QueryEntry first = new QueryEntry();
+        first.setQuery("SELECT 7");
+        QueryEntry second = new QueryEntry();
+        second.setQuery("select   7");
+        List<Long> ids = queryManager.addQueries(List.of(first, second));
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        QueryResult shared = new QueryResult(null, List.of("7"), List.of(List.of(7)));
+        shared.setExecutionTimeMs(5L);
+        when(cacheManager.getCachedResult(sql("SELECT 7"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 7"))).thenReturn(new RoutingDecision(false, null, "test"));
+        when(executor.executeQuery(eq("SELECT 7"), any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return shared;
+        });
+
+        CompletableFuture<QueryResult> leader = CompletableFuture.supplyAsync(() -> queryManager.executeQueryById(ids.get(0)).join());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<QueryResult> follower = CompletableFuture.supplyAsync(() -> queryManager.executeQueryById(ids.get(1)).join());
+        while (queryManager.getExecutionStatistics().getExecutionsSaved() == 0) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        QueryResult leaderResult = leader.get(5, TimeUnit.SECONDS);
+        QueryResult followerResult = follower.get(5, TimeUnit.SECONDS);
+
+        verify(executor, times(1)).executeQuery(anyString(), any());
+        assertEquals(ids.get(0), leaderResult.getId());
+        assertEquals(ids.get(1), followerResult.getId());
+        assertNotSame(leaderResult, followerResult);
+        assertEquals(leaderResult.getData(), followerResult.getData());
+        assertEquals(QueryStatus.COMPLETED, second.getStatus());
+        assertEquals(1, queryManager.getExecutionStatistics().getExecutionsStarted());
+        assertEquals(0, queryManager.getExecutionStatistics().getInFlight());
+    }
+
+    @Test
+    void testExecuteQueryById_CoalescesConcurrentAsyncQueries() {
+        QueryEntry first = new QueryEntry();
+        first.setQuery("SELECT 8");
+        QueryEntry second = new QueryEntry();
+        second.setQuery("SELECT 8");
+        List<Long> ids = queryManager.addQueries(List.of(first, second));
+
+        CompletableFuture<QueryResult> running = new CompletableFuture<>();
+        when(cacheManager.getCachedResult(sql("SELECT 8"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 8"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(asyncManager.executeAsync(any(QueryEntry.class), any())).thenReturn(running);
+
+        assertEquals(QueryStatus.RUNNING, queryManager.executeQueryById(ids.get(0)).join().getStatus());
+        assertEquals(QueryStatus.RUNNING, queryManager.executeQueryById(ids.get(1)).join().getStatus());
+        verify(asyncManager, times(1)).executeAsync(any(QueryEntry.class), any());
+
+        QueryResult result = new QueryResult(ids.get(0), List.of("8"), List.of(List.of(8)));
+        running.complete(result);
+
+        assertEquals(ids.get(1), queryManager.getQueryExecution(ids.get(1)).getId());
+        assertEquals(ids.get(0), queryManager.getQueryExecution(ids.get(0)).getId());
+        assertEquals(1, queryManager.getExecutionStatistics().getExecutionsSaved());
+        assertEquals(0, queryManager.getExecutionStatistics().getInFlight());
+    }
+
+    @Test
+    void testExecuteQueryById_RunsSyncQueriesOnDedicatedExecutor() {
+        List<Runnable> submitted = new ArrayList<>();
+        QueryManagerImpl deferred = new QueryManagerImpl(analyzer, executor, executor, cacheManager, asyncManager,
+                new QueryFingerprinterImpl(), retention, spool, journal, sharedScans, submitted::add, eventPublisher, AdmissionPolicy.REJECT, Duration.ofSeconds(30),
+                Duration.ZERO);
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 9");
+        List<Long> ids = deferred.addQueries(List.of(query));
+
+        QueryResult expected = new QueryResult(null, List.of("9"), List.of(List.of(9)));
+        expected.setExecutionTimeMs(1L);
+        when(cacheManager.getCachedResult(sql("SELECT 9"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 9"))).thenReturn(new RoutingDecision(false, null, "test"));
+        when(executor.executeQuery(eq("SELECT 9"), any())).thenReturn(expected);
+
+        CompletableFuture<QueryResult> future = deferred.executeQueryById(ids.get(0));
+
+        assertFalse(future.isDone(), "Caller thread should not run the query");
+        verifyNoInteractions(executor);
+        assertEquals(1, submitted.size());
+
+        submitted.get(0).run();
+
+        assertTrue(future.isDone());
+        assertEquals(ids.get(0), future.join().getId());
+    }
+
+    @Test
+    void testExecuteQueryById_PublishesAsyncCompletion() {
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 10");
+        List<Long> ids = queryManager.addQueries(List.of(query));
+
+        CompletableFuture<QueryResult> running = new CompletableFuture<>();
+        when(cacheManager.getCachedResult(sql("SELECT 10"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 10"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(asyncManager.executeAsync(eq(query), any())).thenReturn(running);
+
+        queryManager.executeQueryById(ids.get(0)).join();
+
+        ArgumentCaptor<QueryStatusEvent> events = ArgumentCaptor.forClass(QueryStatusEvent.class);
+        verify(eventPublisher).publishEvent(events.capture());
+        assertEquals(QueryStatus.RUNNING, events.getValue().getStatus());
+
+        QueryResult result = new QueryResult(ids.get(0), List.of("10"), List.of(List.of(10)));
+        result.setStatus(QueryStatus.COMPLETED);
+        running.complete(result);
+
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        QueryStatusEvent last = events.getValue();
+        assertEquals(QueryStatus.TO_BE_SEEN, last.getStatus());
+        assertTrue(last.isTerminal());
+        assertSame(result, last.getResult());
+        assertEquals(QueryStatus.TO_BE_SEEN, queryManager.getStatusEvent(ids.get(0)).getStatus());
+    }
+
+    @Test
+    void testAwaitExecution_ReturnsPlaceholderOnTimeoutAndResultOnCompletion() {
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 11");
+        List<Long> ids = queryManager.addQueries(List.of(query));
+
+        CompletableFuture<QueryResult> running = new CompletableFuture<>();
+        when(cacheManager.getCachedResult(sql("SELECT 11"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 11"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(asyncManager.executeAsync(eq(query), any())).thenReturn(running);
+        queryManager.executeQueryById(ids.get(0)).join();
+
+        QueryResult timedOut = queryManager.awaitExecution(ids.get(0), Duration.ofMillis(20)).join();
+        assertEquals(QueryStatus.RUNNING, timedOut.getStatus());
+
+        CompletableFuture<QueryResult> waiting = queryManager.awaitExecution(ids.get(0), Duration.ofSeconds(30));
+        assertFalse(waiting.isDone());
+
+        QueryResult result = new QueryResult(ids.get(0), List.of("11"), List.of(List.of(11)));
+        result.setStatus(QueryStatus.COMPLETED);
+        running.complete(result);
+
+        assertEquals(QueryStatus.COMPLETED, waiting.join().getStatus());
+    }
+
+    @Test
+    void testExecuteQueryById_RejectedAsyncQueryEndsRejected() {
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 12");
+        List<Long> ids = queryManager.addQueries(List.of(query));
+
+        when(cacheManager.getCachedResult(sql("SELECT 12"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 12"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(asyncManager.executeAsync(eq(query), any())).thenThrow(new QueryRejectedException("queue full"));
+
+        QueryResult result = queryManager.executeQueryById(ids.get(0)).join();
+
+        assertEquals(QueryStatus.REJECTED, result.getStatus());
+        assertEquals(QueryStatus.REJECTED, query.getStatus());
+        assertEquals("queue full", query.getErrorMessage());
+        assertEquals(0, queryManager.getExecutionStatistics().getInFlight());
+        verify(executor, never()).executeQuery(anyString(), any());
+    }
+
+    @Test
+    void testExecuteQueryById_DegradesRejectedAsyncQueryToSync() {
+        QueryManagerImpl degrading = new QueryManagerImpl(analyzer, executor, executor, cacheManager, asyncManager,
+                new QueryFingerprinterImpl(), retention, spool, journal, sharedScans, Runnable::run, eventPublisher, AdmissionPolicy.DEGRADE, Duration.ofSeconds(2),
+                Duration.ofMillis(200));
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 13");
+        List<Long> ids = degrading.addQueries(List.of(query));
+
+        QueryResult expected = new QueryResult(null, List.of("13"), List.of(List.of(13)));
+        expected.setExecutionTimeMs(1L);
+        when(cacheManager.getCachedResult(sql("SELECT 13"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 13"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(asyncManager.executeAsync(eq(query), any())).thenThrow(new QueryRejectedException("queue full"));
+        when(executor.executeQuery(eq("SELECT 13"), argThat(control -> Duration.ofSeconds(2).equals(control.getTimeout())))).thenReturn(expected);
+
+        QueryResult result = degrading.executeQueryById(ids.get(0)).join();
+
+        assertEquals(QueryStatus.COMPLETED, result.getStatus());
+        assertEquals(QueryStatus.COMPLETED, query.getStatus());
+        assertEquals(1, degrading.getExecutionStatistics().getExecutionsDegraded());
+    }
+
+    @Test
+    void testCancelQuery_CancelsRunningAsyncQuery() {
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 14");
+        List<Long> ids = queryManager.addQueries(List.of(query));
+
+        CompletableFuture<QueryResult> running = new CompletableFuture<>();
+        ArgumentCaptor<QueryControl> control = ArgumentCaptor.forClass(QueryControl.class);
+        when(cacheManager.getCachedResult(sql("SELECT 14"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 14"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(asyncManager.executeAsync(eq(query), control.capture())).thenReturn(running);
+        queryManager.executeQueryById(ids.get(0), Duration.ofSeconds(3)).join();
+
+        assertEquals(Duration.ofSeconds(3), control.getValue().getTimeout());
+        assertEquals(QueryStatus.CANCELLED, queryManager.cancelQuery(ids.get(0)).getStatus());
+        assertTrue(control.getValue().isCancelled());
+
+        QueryResult cancelled = QueryResult.error("CANCELLED: query was cancelled");
+        cancelled.setStatus(QueryStatus.CANCELLED);
+        running.complete(cancelled);
+
+        assertEquals(QueryStatus.CANCELLED, query.getStatus());
+        assertEquals(QueryStatus.FAILED, queryManager.cancelQuery(ids.get(0)).getStatus(),
+                "A finished query cannot be cancelled again");
+        assertEquals(QueryStatus.CANCELLED, queryManager.getQueryExecution(ids.get(0)).getStatus());
+    }
+
+    @Test
+    void testCancelQuery_DetachesOneCoalescedCaller() {
+        QueryEntry first = new QueryEntry();
+        first.setQuery("SELECT 18");
+        QueryEntry second = new QueryEntry();
+        second.setQuery("SELECT 18");
+        List<Long> ids = queryManager.addQueries(List.of(first, second));
+
+        CompletableFuture<QueryResult> running = new CompletableFuture<>();
+        ArgumentCaptor<QueryControl> control = ArgumentCaptor.forClass(QueryControl.class);
+        when(cacheManager.getCachedResult(sql("SELECT 18"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 18"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(asyncManager.executeAsync(any(QueryEntry.class), control.capture())).thenReturn(running);
+        queryManager.executeQueryById(ids.get(0)).join();
+        queryManager.executeQueryById(ids.get(1)).join();
+
+        assertEquals(QueryStatus.CANCELLED, queryManager.cancelQuery(ids.get(0)).getStatus());
+        assertFalse(control.getValue().isCancelled(), "The statement still has a caller waiting for it");
+        assertEquals(QueryStatus.CANCELLED, queryManager.getQueryExecution(ids.get(0)).getStatus());
+        assertEquals(QueryStatus.CANCELLED, first.getStatus());
+
+        running.complete(new QueryResult(ids.get(0), List.of("18"), List.of(List.of(18))));
+
+        QueryResult result = queryManager.getQueryExecution(ids.get(1));
+        assertEquals(ids.get(1), result.getId());
+        assertEquals(List.of(List.of(18)), result.getData());
+        assertEquals(QueryStatus.CANCELLED, queryManager.getQueryExecution(ids.get(0)).getStatus());
+    }
+
+    @Test
+    void testCancelQuery_CancelsSharedStatementWhenLastCallerLeaves() {
+        QueryEntry first = new QueryEntry();
+        first.setQuery("SELECT 19");
+        QueryEntry second = new QueryEntry();
+        second.setQuery("SELECT 19");
+        List<Long> ids = queryManager.addQueries(List.of(first, second));
+
+        ArgumentCaptor<QueryControl> control = ArgumentCaptor.forClass(QueryControl.class);
+        when(cacheManager.getCachedResult(sql("SELECT 19"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 19"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(asyncManager.executeAsync(any(QueryEntry.class), control.capture())).thenReturn(new CompletableFuture<>());
+        queryManager.executeQueryById(ids.get(0)).join();
+        queryManager.executeQueryById(ids.get(1)).join();
+
+        queryManager.cancelQuery(ids.get(1));
+        assertFalse(control.getValue().isCancelled());
+        queryManager.cancelQuery(ids.get(0));
+
+        assertTrue(control.getValue().isCancelled());
+        assertEquals(0, queryManager.getExecutionStatistics().getInFlight());
+    }
 
-        queryManager.cleanCompletedQueries();
+    @Test
+    void testCancelQuery_ReportsQueriesThatAreNotRunning() {
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 15");
+        List<Long> ids = queryManager.addQueries(List.of(query));
+
+        QueryResult result = queryManager.cancelQuery(ids.get(0));
+
+        assertEquals(QueryStatus.FAILED, result.getStatus());
+        assertEquals(ids.get(0), result.getId());
+        assertTrue(result.getErrorMessage().contains("READY"));
+        assertEquals(QueryStatus.READY, query.getStatus());
+        assertNull(queryManager.cancelQuery(999L).getId());
+    }
+
+    @Test
+    void testExecuteQueryById_TimedOutSyncQueryIsNotCached() {
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 16");
+        List<Long> ids = queryManager.addQueries(List.of(query));
+
+        QueryResult timedOut = QueryResult.error("TIMED_OUT: query exceeded its 1 s deadline");
+        timedOut.setStatus(QueryStatus.TIMED_OUT);
+        timedOut.setExecutionTimeMs(1000L);
+        when(cacheManager.getCachedResult(sql("SELECT 16"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 16"))).thenReturn(new RoutingDecision(false, null, "test"));
+        when(executor.executeQuery(eq("SELECT 16"), any())).thenReturn(timedOut);
+
+        QueryResult result = queryManager.executeQueryById(ids.get(0)).join();
+
+        assertEquals(QueryStatus.TIMED_OUT, result.getStatus());
+        assertEquals(QueryStatus.TIMED_OUT, query.getStatus());
+        verify(cacheManager, never()).putResultInCache(any(QueryFingerprint.class), any(QueryResult.class), anyMap());
+        assertEquals(0, queryManager.getExecutionStatistics().getInFlight());
+    }
+
+    @Test
+    void testExecuteQueryById_AsyncResultIsCachedAndRecorded() {
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 18");
+        List<Long> ids = queryManager.addQueries(List.of(query));
+
+        QueryResult asyncResult = new QueryResult(ids.get(0), List.of("18"), List.of(List.of(18)));
+        asyncResult.setExecutionTimeMs(1200L);
+        CompletableFuture<QueryResult> running = new CompletableFuture<>();
+        when(cacheManager.getCachedResult(sql("SELECT 18"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 18"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(asyncManager.executeAsync(eq(query), any())).thenReturn(running);
+
+        queryManager.executeQueryById(ids.get(0)).join();
+        running.complete(asyncResult);
+
+        verify(cacheManager).putResultInCache(sql("SELECT 18"), eq(asyncResult), anyMap());
+        verify(analyzer).recordExecution(sql("SELECT 18"), eq(1200L));
+        assertEquals(QueryStatus.TO_BE_SEEN, query.getStatus());
+    }
+
+    @Test
+    void testExecuteQueryById_FailedResultsAreNotCached() {
+        QueryEntry sync = new QueryEntry();
+        sync.setQuery("SELECT 19");
+        QueryEntry async = new QueryEntry();
+        async.setQuery("SELECT 20");
+        List<Long> ids = queryManager.addQueries(List.of(sync, async));
+
+        when(cacheManager.getCachedResult(any(QueryFingerprint.class))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 19"))).thenReturn(new RoutingDecision(false, null, "test"));
+        when(analyzer.analyze(sql("SELECT 20"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(executor.executeQuery(eq("SELECT 19"), any())).thenReturn(QueryResult.error("TABLE_NOT_FOUND"));
+        when(asyncManager.executeAsync(eq(async), any()))
+                .thenReturn(CompletableFuture.completedFuture(QueryResult.error("SQL_ERROR: syntax")));
+
+        QueryResult syncResult = queryManager.executeQueryById(ids.get(0)).join();
+        queryManager.executeQueryById(ids.get(1)).join();
+
+        assertEquals(QueryStatus.FAILED, syncResult.getStatus());
+        assertEquals(QueryStatus.FAILED, sync.getStatus());
+        assertEquals(QueryStatus.FAILED, async.getStatus());
+        assertEquals("SQL_ERROR: syntax", async.getErrorMessage());
+        verify(cacheManager, never()).putResultInCache(any(QueryFingerprint.class), any(QueryResult.class), anyMap());
+        verify(analyzer, never()).recordExecution(any(QueryFingerprint.class), anyLong());
+    }
+
+    @Test
+    void testGetQueryExecution_ReadsLargeAsyncResultsFromSpool(@TempDir Path directory) {
+        ResultSpoolImpl diskSpool = new ResultSpoolImpl(true, directory, 0, 1 << 20);
+        QueryManagerImpl spooling = new QueryManagerImpl(analyzer, executor, executor, cacheManager, asyncManager,
+                new QueryFingerprinterImpl(), retention, diskSpool, journal, sharedScans, Runnable::run, eventPublisher, AdmissionPolicy.REJECT,
+                Duration.ofSeconds(30), Duration.ZERO);
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 25");
+        List<Long> ids = spooling.addQueries(List.of(query));
+
+        QueryResult asyncResult = new QueryResult(ids.get(0), List.of("25"), List.of(List.of(25), List.of(26)));
+        asyncResult.setExecutionTimeMs(40L);
+        when(cacheManager.getCachedResult(sql("SELECT 25"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 25"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(asyncManager.executeAsync(eq(query), any())).thenReturn(CompletableFuture.completedFuture(asyncResult));
+
+        spooling.executeQueryById(ids.get(0)).join();
+
+        assertTrue(spooling.isExecutionSpooled(ids.get(0)));
+        QueryStatusEvent event = spooling.getStatusEvent(ids.get(0));
+        assertNull(event.getResult());
+        assertEquals("/execute/" + ids.get(0), event.getResultUrl());
+        QueryResult awaited = spooling.awaitExecution(ids.get(0), Duration.ofSeconds(1)).join();
+        assertNull(awaited.getData(), "A waiting caller gets a reference, not the spooled rows");
+        assertEquals("/execute/" + ids.get(0), awaited.getResultUrl());
+        assertEquals(List.of("25"), awaited.getHeaders());
+        List<Object> streamed = new ArrayList<>();
+        QueryResult summary = spooling.streamQueryExecution(ids.get(0), new QueryRowHandler() {
+            @Override
+            public void onHeaders(List<String> headers) {
+            }
+
+            @Override
+            public void onRow(Object[] values) {
+                streamed.add(values[0]);
+            }
+        });
+
+        assertEquals(List.of(25, 26), streamed);
+        assertEquals(QueryStatus.COMPLETED, summary.getStatus());
+        assertEquals(40L, summary.getExecutionTimeMs());
+        QueryResult result = spooling.getQueryExecution(ids.get(0));
+        assertEquals(List.of(List.of(25), List.of(26)), result.getData());
+        assertEquals(1, diskSpool.getStatistics().getSpooledResults());
+        diskSpool.close();
+    }
+
+    @Test
+    void testExecuteQueryById_PromotedSyncQueryMovesToAsyncPool() throws Exception {
+        QueryManagerImpl hybrid = new QueryManagerImpl(analyzer, executor, executor, cacheManager, asyncManager,
+                new QueryFingerprinterImpl(), retention, spool, journal, sharedScans,
+                task -> new Thread(task).start(), eventPublisher, AdmissionPolicy.REJECT, Duration.ofSeconds(30),
+                Duration.ofMillis(50));
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 17");
+        List<Long> ids = hybrid.addQueries(List.of(query));
+
+        CountDownLatch interrupted = new CountDownLatch(1);
+        Statement statement = mock(Statement.class);
+        doAnswer(invocation -> {
+            interrupted.countDown();
+            return null;
+        }).when(statement).cancel();
+        QueryResult stopped = QueryResult.error("INTERRUPTED");
+        stopped.setStatus(QueryStatus.CANCELLED);
+        QueryResult expected = new QueryResult(ids.get(0), List.of("17"), List.of(List.of(17)));
+        expected.setExecutionTimeMs(900L);
+        CompletableFuture<QueryResult> asyncRun = new CompletableFuture<>();
+        when(cacheManager.getCachedResult(sql("SELECT 17"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 17"))).thenReturn(new RoutingDecision(false, null, "test"));
+        when(executor.executeQuery(eq("SELECT 17"), any())).thenAnswer(invocation -> {
+            QueryControl control = invocation.getArgument(1);
+            control.attach(statement);
+            assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+            control.detach();
+            return stopped;
+        });
+        when(asyncManager.executeAsync(eq(query), any())).thenReturn(asyncRun);
+
+        QueryResult placeholder = hybrid.executeQueryById(ids.get(0)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(QueryStatus.RUNNING, placeholder.getStatus());
+        assertEquals(1, hybrid.getExecutionStatistics().getExecutionsPromoted());
+        verify(asyncManager, timeout(5000)).executeAsync(eq(query), any());
+
+        asyncRun.complete(expected);
+
+        QueryResult result = hybrid.awaitExecution(ids.get(0), Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(List.of(17)), result.getData());
+        assertEquals(QueryStatus.COMPLETED, query.getStatus());
+        verify(executor, times(1)).executeQuery(eq("SELECT 17"), any());
+        verify(analyzer).recordExecution(any(QueryFingerprint.class), eq(900L));
+        verify(spool).shouldSpool(any());
+    }
+
+    @Test
+    void testExecuteQueryById_QueuedSyncQueryIsNotPromoted() throws Exception {
+        List<Runnable> submitted = new ArrayList<>();
+        QueryManagerImpl hybrid = new QueryManagerImpl(analyzer, executor, executor, cacheManager, asyncManager,
+                new QueryFingerprinterImpl(), retention, spool, journal, sharedScans, submitted::add, eventPublisher, AdmissionPolicy.REJECT, Duration.ofSeconds(30),
+                Duration.ofMillis(50));
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 21");
+        List<Long> ids = hybrid.addQueries(List.of(query));
+
+        when(cacheManager.getCachedResult(sql("SELECT 21"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 21"))).thenReturn(new RoutingDecision(false, null, "test"));
+        when(executor.executeQuery(eq("SELECT 21"), any())).thenReturn(new QueryResult(null, List.of("21"), List.of(List.of(21))));
+
+        CompletableFuture<QueryResult> response = hybrid.executeQueryById(ids.get(0));
+        Thread.sleep(150);
+
+        assertFalse(response.isDone());
+        assertEquals(0, hybrid.getExecutionStatistics().getExecutionsPromoted());
+
+        submitted.get(0).run();
+
+        assertEquals(List.of(List.of(21)), response.get(5, TimeUnit.SECONDS).getData());
+        verifyNoInteractions(asyncManager);
+    }
+
+    @Test
+    void testExecuteQueryById_SaturatedSyncExecutorRejectsQuery() throws Exception {
+        QueryManagerImpl saturated = new QueryManagerImpl(analyzer, executor, executor, cacheManager, asyncManager,
+                new QueryFingerprinterImpl(), retention, spool, journal, sharedScans,
+                task -> { throw new RejectedExecutionException("queue full"); }, eventPublisher, AdmissionPolicy.REJECT,
+                Duration.ofSeconds(30), Duration.ofSeconds(5));
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 22");
+        List<Long> ids = saturated.addQueries(List.of(query));
+        when(cacheManager.getCachedResult(sql("SELECT 22"))).thenReturn(Optional.empty());
+
+        QueryResult result = saturated.executeQueryById(ids.get(0)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(QueryStatus.REJECTED, result.getStatus());
+        assertEquals(QueryStatus.REJECTED, query.getStatus());
+        verifyNoInteractions(executor);
+    }
+
+    @Test
+    void testExecuteQueryById_BudgetTimerDoesNotReplaceStoredAsyncExecution() throws Exception {
+        QueryManagerImpl hybrid = new QueryManagerImpl(analyzer, executor, executor, cacheManager, asyncManager,
+                new QueryFingerprinterImpl(), retention, spool, journal, sharedScans,
+                task -> new Thread(task).start(), eventPublisher, AdmissionPolicy.REJECT, Duration.ofSeconds(30),
+                Duration.ofMillis(50));
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 20");
+        List<Long> ids = hybrid.addQueries(List.of(query));
+
+        QueryResult expected = new QueryResult(ids.get(0), List.of("20"), List.of(List.of(20)));
+        when(cacheManager.getCachedResult(sql("SELECT 20"))).thenReturn(Optional.empty());
+        when(analyzer.analyze(sql("SELECT 20"))).thenReturn(new RoutingDecision(true, null, "test"));
+        when(asyncManager.executeAsync(eq(query), any())).thenReturn(CompletableFuture.completedFuture(expected));
+        // Holds the async route between storing its execution and answering, past the 50 ms budget.
+        doAnswer(invocation -> {
+            QueryStatusEvent event = invocation.getArgument(0);
+            if (event.getResult() != null && event.getResult().getData() != null && !event.getResult().getData().isEmpty()) {
+                Thread.sleep(200);
+            }
+            return null;
+        }).when(eventPublisher).publishEvent(any(Object.class));
+
+        QueryResult placeholder = hybrid.executeQueryById(ids.get(0)).get(5, TimeUnit.SECONDS);
+        Thread.sleep(100);
+
+        assertEquals(QueryStatus.RUNNING, placeholder.getStatus());
+        assertEquals(0, hybrid.getExecutionStatistics().getExecutionsPromoted());
+        assertEquals(List.of(List.of(20)), hybrid.getQueryExecution(ids.get(0)).getData());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExecuteBatch_RunsDistinctSqlOnceAndReportsEveryId() {
+        List<QueryEntry> queries = new ArrayList<>();
+        for (String sql : List.of("SELECT 31", "SELECT 31", "SELECT 32", "SELECT 33")) {
+            QueryEntry query = new QueryEntry();
+            query.setQuery(sql);
+            queries.add(query);
+        }
+        List<Long> ids = new ArrayList<>(queryManager.addQueries(queries));
+        ids.add(999L);
+
+        List<List<String>> lanes = runLanesOnMockConnections();
+
+        List<QueryResult> results = Collections.synchronizedList(new ArrayList<>());
+        queryManager.executeBatch(ids, 2, QueryPriority.LOW, "nightly", results::add).join();
+
+        assertEquals(2, lanes.size(), "Three distinct statements should be spread over two connections");
+        assertEquals(3, lanes.stream().mapToInt(List::size).sum());
+        assertEquals(5, results.size());
+        assertEquals(QueryStatus.FAILED, results.stream().filter(r -> r.getId() == 999L).findFirst().orElseThrow().getStatus());
+        for (int i = 0; i < queries.size(); i++) {
+            assertEquals(QueryStatus.COMPLETED, queries.get(i).getStatus());
+            long id = ids.get(i);
+            assertTrue(results.stream().anyMatch(r -> r.getId() == id && r.getStatus() == QueryStatus.COMPLETED));
+        }
+        assertEquals(3, queryManager.getExecutionStatistics().getExecutionsStarted());
+        assertEquals(1, queryManager.getExecutionStatistics().getExecutionsSaved());
+        verify(cacheManager, times(3)).putResultInCache(any(QueryFingerprint.class), any(QueryResult.class), anyMap());
+    }
+
+    @Test
+    void testExecuteBatch_RejectedLaneEndsRejected() {
+        QueryEntry query = new QueryEntry();
+        query.setQuery("SELECT 34");
+        List<Long> ids = queryManager.addQueries(List.of(query));
+        when(asyncManager.executeOnConnection(any(), any(), any())).thenThrow(new QueryRejectedException("full"));
+
+        List<QueryResult> results = new ArrayList<>();
+        queryManager.executeBatch(ids, 4, QueryPriority.NORMAL, null, results::add).join();
+
+        assertEquals(1, results.size());
+        assertEquals(QueryStatus.REJECTED, results.get(0).getStatus());
+        assertEquals(QueryStatus.REJECTED, query.getStatus());
+    }
+
+    @Test
+    void testExecuteBatch_FusesSharedScanAndRunsTheRestIndividually() {
+        SharedScanExecutor fusing = mock(SharedScanExecutor.class);
+        QueryManagerImpl batching = new QueryManagerImpl(analyzer, executor, executor, cacheManager, asyncManager,
+                new QueryFingerprinterImpl(), retention, spool, journal, fusing, Runnable::run, eventPublisher,
+                AdmissionPolicy.REJECT, Duration.ofSeconds(30), Duration.ofMillis(200));
+        List<QueryEntry> queries = new ArrayList<>();
+        for (String sql : List.of("SELECT COUNT(*) FROM titanic", "SELECT MAX(Age) FROM titanic", "SELECT 35")) {
+            QueryEntry query = new QueryEntry();
+            query.setQuery(sql);
+            queries.add(query);
+        }
+        List<Long> ids = batching.addQueries(queries);
+        when(fusing.plan(anyList())).thenReturn(List.of(List.of(queries.get(0), queries.get(1))));
+        when(fusing.execute(anyList(), any(), any())).thenAnswer(invocation -> {
+            QueryResult fused = new QueryResult(ids.get(0), List.of("COUNT(*)"), List.of(List.of(891L)));
+            fused.setExecutionTimeMs(4L);
+            return Map.of(ids.get(0), fused);
+        });
+        List<List<String>> lanes = runLanesOnMockConnections();
+
+        List<QueryResult> results = Collections.synchronizedList(new ArrayList<>());
+        batching.executeBatch(ids, 4, QueryPriority.NORMAL, null, results::add).join();
+
+        assertEquals(2, lanes.size(), "The fused pair and the remaining query are separate units");
+        assertEquals(List.of("SELECT MAX(Age) FROM titanic", "SELECT 35"),
+                lanes.stream().flatMap(List::stream).sorted(Comparator.reverseOrder()).toList(),
+                "Only queries the shared scan did not answer run on their own");
+        assertEquals(3, results.size());
+        assertEquals(List.of(List.of(891L)), results.stream().filter(r -> r.getId().equals(ids.get(0))).findFirst()
+                .orElseThrow().getData());
+        queries.forEach(query -> assertEquals(QueryStatus.COMPLETED, query.getStatus()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExecuteBatch_CancellingOneMemberDetachesOnlyThatMember() {
+        List<QueryEntry> queries = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            QueryEntry query = new QueryEntry();
+            query.setQuery("SELECT 36");
+            queries.add(query);
+        }
+        List<Long> ids = queryManager.addQueries(queries);
+        List<QueryControl> statements = new ArrayList<>();
+        when(asyncManager.executeOnConnection(any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<QueryExecutor> work = invocation.getArgument(2);
+            QueryExecutor connection = mock(QueryExecutor.class);
+            when(connection.executeQuery(anyString(), any())).thenAnswer(call -> {
+                QueryControl control = call.getArgument(1);
+                statements.add(control);
+                assertEquals(QueryStatus.CANCELLED, queryManager.cancelQuery(ids.get(0)).getStatus());
+                assertFalse(control.isCancelled(), "The other member still waits for the statement");
+                assertEquals(QueryStatus.CANCELLED, queryManager.cancelQuery(ids.get(1)).getStatus());
+                assertTrue(control.isCancelled(), "The last member to leave cancels the statement");
+                return new QueryResult(null, List.of("v"), List.of(List.of(36)));
+            });
+            work.accept(connection);
+            return CompletableFuture.completedFuture(null);
+        });
+
+        List<QueryResult> results = Collections.synchronizedList(new ArrayList<>());
+        queryManager.executeBatch(ids, 1, QueryPriority.NORMAL, null, results::add).join();
+
+        assertEquals(1, statements.size());
+        assertEquals(2, results.size());
+        results.forEach(result -> assertEquals(QueryStatus.CANCELLED, result.getStatus()));
+        queries.forEach(query -> assertEquals(QueryStatus.CANCELLED, query.getStatus()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExecuteBatch_CancelledMemberLeavesSharedResultToTheOthers() {
+        List<QueryEntry> queries = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            QueryEntry query = new QueryEntry();
+            query.setQuery("SELECT 37");
+            queries.add(query);
+        }
+        List<Long> ids = queryManager.addQueries(queries);
+        when(asyncManager.executeOnConnection(any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<QueryExecutor> work = invocation.getArgument(2);
+            QueryExecutor connection = mock(QueryExecutor.class);
+            when(connection.executeQuery(anyString(), any())).thenAnswer(call -> {
+                queryManager.cancelQuery(ids.get(1));
+                return new QueryResult(null, List.of("v"), List.of(List.of(37)));
+            });
+            work.accept(connection);
+            return CompletableFuture.completedFuture(null);
+        });
+
+        List<QueryResult> results = Collections.synchronizedList(new ArrayList<>());
+        queryManager.executeBatch(ids, 1, QueryPriority.NORMAL, null, results::add).join();
+
+        QueryResult kept = results.stream().filter(r -> r.getId().equals(ids.get(0))).findFirst().orElseThrow();
+        QueryResult dropped = results.stream().filter(r -> r.getId().equals(ids.get(1))).findFirst().orElseThrow();
+        assertEquals(List.of(List.of(37)), kept.getData());
+        assertEquals(QueryStatus.COMPLETED, queries.get(0).getStatus());
+        assertEquals(QueryStatus.CANCELLED, dropped.getStatus());
+        assertEquals(QueryStatus.CANCELLED, queries.get(1).getStatus());
+    }
+
+    @Test
+    void testExecuteBatch_CancellingOneFusedQueryKeepsTheSharedScan() {
+        SharedScanExecutor fusing = mock(SharedScanExecutor.class);
+        QueryManagerImpl batching = new QueryManagerImpl(analyzer, executor, executor, cacheManager, asyncManager,
+                new QueryFingerprinterImpl(), retention, spool, journal, fusing, Runnable::run, eventPublisher,
+                AdmissionPolicy.REJECT, Duration.ofSeconds(30), Duration.ofMillis(200));
+        List<QueryEntry> queries = new ArrayList<>();
+        for (String sql : List.of("SELECT COUNT(*) FROM titanic", "SELECT MAX(Age) FROM titanic")) {
+            QueryEntry query = new QueryEntry();
+            query.setQuery(sql);
+            queries.add(query);
+        }
+        List<Long> ids = batching.addQueries(queries);
+        when(fusing.plan(anyList())).thenReturn(List.of(List.copyOf(queries)));
+        when(fusing.execute(anyList(), any(), any())).thenAnswer(invocation -> {
+            QueryControl scan = invocation.getArgument(1);
+            batching.cancelQuery(ids.get(0));
+            assertFalse(scan.isCancelled(), "The other fused query still needs the scan");
+            batching.cancelQuery(ids.get(1));
+            assertTrue(scan.isCancelled(), "The scan is cancelled once no fused query waits for it");
+            return Map.of();
+        });
+        runLanesOnMockConnections();
+
+        List<QueryResult> results = Collections.synchronizedList(new ArrayList<>());
+        batching.executeBatch(ids, 4, QueryPriority.NORMAL, null, results::add).join();
+
+        assertEquals(2, results.size());
+        results.forEach(result -> assertEquals(QueryStatus.CANCELLED, result.getStatus()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<String>> runLanesOnMockConnections() {
+        List<List<String>> lanes = Collections.synchronizedList(new ArrayList<>());
+        when(asyncManager.executeOnConnection(any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<QueryExecutor> work = invocation.getArgument(2);
+            List<String> lane = new ArrayList<>();
+            QueryExecutor connection = mock(QueryExecutor.class);
+            when(connection.executeQuery(anyString(), any())).thenAnswer(call -> {
+                String sql = call.getArgument(0);
+                lane.add(sql);
+                QueryResult result = new QueryResult(null, List.of("v"), List.of(List.of(sql)));
+                result.setExecutionTimeMs(3L);
+                return result;
+            });
+            work.accept(connection);
+            lanes.add(lane);
+            return CompletableFuture.completedFuture(null);
+        });
+        return lanes;
+    }
 
-        assertTrue(queryManager.getQueries().isEmpty(), "Completed queries should be cleaned up");
+    private static QueryFingerprint sql(String canonicalSql) {
+        return argThat(fingerprint -> fingerprint != null && canonicalSql.equals(fingerprint.getCanonicalSql()));
     }
 }
@@ -0,0 +1,197 @@
+package org.task.jetbrainstask.unit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.task.jetbrainstask.models.ExecutionMode;
+import org.task.jetbrainstask.models.QueryPriority;
+import org.task.jetbrainstask.models.ScheduledQuery;
+import org.task.jetbrainstask.models.SchedulerStatistics;
+import org.task.jetbrainstask.service.implementations.QueryFingerprinterImpl;
+import org.task.jetbrainstask.service.implementations.QuerySchedulerImpl;
+import org.task.jetbrainstask.service.interfaces.QueryAnalyzer;
+import org.task.jetbrainstask.sql.QueryFingerprint;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("QueryScheduler Tests")
+class QuerySchedulerTest {
+
+    private final QueryFingerprinterImpl fingerprinter = new QueryFingerprinterImpl();
+    private final List<Long> order = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ThreadPoolTaskExecutor pool;
+    private QueryAnalyzer analyzer;
+
+    @BeforeEach
+    void setUp() {
+        analyzer = mock(QueryAnalyzer.class);
+        when(analyzer.expectedDurationMs(any())).thenReturn(OptionalLong.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should run higher priority classes first")
+    void shouldOrderByPriority() throws Exception {
+        QuerySchedulerImpl scheduler = scheduler(1, Duration.ofSeconds(5), 1.0);
+        CountDownLatch done = new CountDownLatch(3);
+        occupy(scheduler, 1, "a");
+
+        scheduler.execute(recorded(1, null, QueryPriority.LOW, "a", done));
+        scheduler.execute(recorded(2, null, QueryPriority.NORMAL, "a", done));
+        scheduler.execute(recorded(3, null, QueryPriority.HIGH, "a", done));
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(3L, 2L, 1L), order);
+    }
+
+    @Test
+    @DisplayName("Should run the query with the shorter expected duration first")
+    void shouldPreferShortQueries() throws Exception {
+        QueryFingerprint slow = fingerprinter.fingerprint("SELECT * FROM titanic t1 JOIN titanic t2 ON 1 = 1");
+        QueryFingerprint fast = fingerprinter.fingerprint("SELECT 1");
+        when(analyzer.expectedDurationMs(slow)).thenReturn(OptionalLong.of(5000));
+        when(analyzer.expectedDurationMs(fast)).thenReturn(OptionalLong.of(5));
+        QuerySchedulerImpl scheduler = scheduler(1, Duration.ofSeconds(5), 1.0);
+        CountDownLatch done = new CountDownLatch(2);
+        occupy(scheduler, 1, "a");
+
+        scheduler.execute(recorded(1, slow, QueryPriority.NORMAL, "a", done));
+        scheduler.execute(recorded(2, fast, QueryPriority.NORMAL, "a", done));
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(2L, 1L), order);
+    }
+
+    @Test
+    @DisplayName("Should let a long-waiting low priority query overtake newer high priority ones")
+    void shouldAgeWaitingQueries() throws Exception {
+        QuerySchedulerImpl scheduler = scheduler(1, Duration.ofMillis(50), 1.0);
+        CountDownLatch done = new CountDownLatch(2);
+        occupy(scheduler, 1, "a");
+
+        scheduler.execute(recorded(1, null, QueryPriority.LOW, "a", done));
+        Thread.sleep(200);
+        scheduler.execute(recorded(2, null, QueryPriority.HIGH, "a", done));
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1L, 2L), order);
+    }
+
+    @Test
+    @DisplayName("Should hold a client at its fair share while others wait, but not leave the pool idle")
+    void shouldEnforceFairShare() throws Exception {
+        QuerySchedulerImpl scheduler = scheduler(2, Duration.ofSeconds(5), 0.5);
+        CountDownLatch done = new CountDownLatch(2);
+        occupy(scheduler, 2, "greedy");
+        assertEquals(2, scheduler.getStatistics().getRunning(), "A lone client may use the whole pool");
+
+        scheduler.execute(recorded(1, null, QueryPriority.NORMAL, "greedy", done));
+        scheduler.execute(recorded(2, null, QueryPriority.NORMAL, "polite", done));
+        release.countDown();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2L, order.get(0));
+        SchedulerStatistics statistics = scheduler.getStatistics();
+        assertEquals(1, statistics.getClientLimit());
+        assertTrue(statistics.getFairShareDeferrals() >= 1);
+        assertEquals(0, statistics.getQueued());
+    }
+
+    @Test
+    @DisplayName("Should queue beyond the pool size and report waiting queries by priority")
+    void shouldReportQueuedQueries() throws Exception {
+        QuerySchedulerImpl scheduler = scheduler(1, Duration.ofSeconds(5), 1.0);
+        occupy(scheduler, 1, "a");
+
+        scheduler.execute(recorded(1, null, QueryPriority.HIGH, "a", new CountDownLatch(1)));
+        scheduler.execute(recorded(2, null, QueryPriority.LOW, "b", new CountDownLatch(1)));
+
+        SchedulerStatistics statistics = scheduler.getStatistics();
+        assertEquals(1, statistics.getSlots());
+        assertEquals(1, statistics.getRunning());
+        assertEquals(2, statistics.getQueued());
+        assertEquals(1, statistics.getQueuedByPriority().get(QueryPriority.HIGH));
+        assertEquals(1, statistics.getQueuedByPriority().get(QueryPriority.LOW));
+        assertEquals(0, pool.getQueueSize(), "Waiting queries stay in the scheduler, not the executor queue");
+    }
+
+    @Test
+    @DisplayName("Should dispatch beyond the core threads up to the max pool size and the connection count")
+    void shouldDispatchUpToMaxPoolSize() throws Exception {
+        pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(1);
+        pool.setMaxPoolSize(4);
+        pool.initialize();
+        QuerySchedulerImpl scheduler = new QuerySchedulerImpl(pool, analyzer, Duration.ofSeconds(5), Duration.ofSeconds(30),
+                Duration.ZERO, 1.0, ExecutionMode.PLATFORM, 2);
+        occupy(scheduler, 1, "a");
+
+        scheduler.execute(recorded(1, null, QueryPriority.NORMAL, "a", new CountDownLatch(1)));
+        scheduler.execute(recorded(2, null, QueryPriority.NORMAL, "a", new CountDownLatch(1)));
+
+        SchedulerStatistics statistics = scheduler.getStatistics();
+        assertEquals(2, statistics.getSlots());
+        assertEquals(2, statistics.getRunning());
+        assertEquals(1, scheduler.getQueuedCount());
+        assertEquals(1, pool.getQueueSize(), "Work beyond the core threads shows up as executor backlog");
+    }
+
+    private QuerySchedulerImpl scheduler(int threads, Duration priorityStep, double clientShare) {
+        pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(threads);
+        pool.setMaxPoolSize(threads);
+        pool.initialize();
+        return new QuerySchedulerImpl(pool, analyzer, priorityStep, Duration.ofSeconds(30), Duration.ZERO, clientShare,
+                ExecutionMode.PLATFORM, 8);
+    }
+
+    private void occupy(QuerySchedulerImpl scheduler, int queries, String client) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(queries);
+        for (int i = 0; i < queries; i++) {
+            scheduler.execute(new ScheduledQuery(-1, null, QueryPriority.NORMAL, client, () -> {
+                started.countDown();
+                await(release);
+            }));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    private ScheduledQuery recorded(long id, QueryFingerprint fingerprint, QueryPriority priority, String client,
+                                    CountDownLatch done) {
+        return new ScheduledQuery(id, fingerprint, priority, client, () -> {
+            order.add(id);
+            done.countDown();
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
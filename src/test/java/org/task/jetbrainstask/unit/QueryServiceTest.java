@@ -3,16 +3,22 @@ package org.task.jetbrainstask.unit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.task.jetbrainstask.models.QueryEntry;
+import org.task.jetbrainstask.models.QueryPriority;
 import org.task.jetbrainstask.models.QueryResult;
 import org.task.jetbrainstask.service.implementations.QueryServiceImpl;
 import org.task.jetbrainstask.service.interfaces.QueryManager;
 import org.task.jetbrainstask.service.interfaces.QueryService;
 import org.task.jetbrainstask.service.interfaces.QueryValidator;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -53,6 +59,41 @@ class QueryServiceTest {
         assertEquals(-1L, result.get(0).get("error"));
     }
 
+    @Test
+    @DisplayName("Should hand streamed queries to the manager in chunks")
+    @SuppressWarnings("unchecked")
+    void shouldAddStreamedQueriesInChunks() {
+        doAnswer(invocation -> {
+            Consumer<QueryEntry> onAccepted = invocation.getArgument(1);
+            for (int i = 0; i < 600; i++) {
+                onAccepted.accept(new QueryEntry());
+            }
+            return null;
+        }).when(queryValidator).parseAndValidate(any(Reader.class), any());
+        AtomicLong nextId = new AtomicLong();
+        when(queryManager.addQueries(anyList())).thenAnswer(invocation -> {
+            List<QueryEntry> chunk = invocation.getArgument(0);
+            return chunk.stream().map(entry -> nextId.getAndIncrement()).toList();
+        });
+
+        List<Map<String, Long>> result = service.addQueries(new StringReader("SELECT 1"));
+
+        assertEquals(600, result.size());
+        assertEquals(599L, result.get(599).get("id"));
+        ArgumentCaptor<List<QueryEntry>> chunks = ArgumentCaptor.forClass(List.class);
+        verify(queryManager, times(3)).addQueries(chunks.capture());
+        assertEquals(List.of(256, 256, 88), chunks.getAllValues().stream().map(List::size).toList());
+    }
+
+    @Test
+    @DisplayName("Should return error when a streamed body has no valid queries")
+    void shouldReturnErrorWhenStreamedBodyHasNoValidQueries() {
+        List<Map<String, Long>> result = service.addQueries(new StringReader("DROP TABLE passengers"));
+
+        assertEquals(List.of(Map.of("error", -1L)), result);
+        verify(queryManager, never()).addQueries(anyList());
+    }
+
     @Test
     @DisplayName("Should return list of queries")
     void shouldReturnListOfQueries() {
@@ -66,7 +107,7 @@ class QueryServiceTest {
     @DisplayName("Should execute query and return result")
     void shouldExecuteQueryAndReturnResult() {
         QueryResult qr = new QueryResult();
-        when(queryManager.executeQueryById(1L)).thenReturn(CompletableFuture.completedFuture(qr));
+        when(queryManager.executeQueryById(1L, null, QueryPriority.NORMAL, null)).thenReturn(CompletableFuture.completedFuture(qr));
         QueryResult result = service.executeQueryById(1L);
         assertEquals(qr, result);
     }
@@ -74,7 +115,7 @@ class QueryServiceTest {
     @Test
     @DisplayName("Should handle CompletionException and return error result")
     void shouldHandleCompletionException() {
-        when(queryManager.executeQueryById(2L))
+        when(queryManager.executeQueryById(2L, null, QueryPriority.NORMAL, null))
                 .thenThrow(new CompletionException("failed", new RuntimeException()));
         QueryResult result = service.executeQueryById(2L);
         assertEquals("error", result.getHeaders().get(0));
@@ -83,11 +124,24 @@ class QueryServiceTest {
     @Test
     @DisplayName("Should handle generic exception and return error result")
     void shouldHandleGenericException() {
-        when(queryManager.executeQueryById(3L)).thenThrow(new RuntimeException("boom"));
+        when(queryManager.executeQueryById(3L, null, QueryPriority.NORMAL, null)).thenThrow(new RuntimeException("boom"));
         QueryResult result = service.executeQueryById(3L);
         assertEquals("error", result.getHeaders().get(0));
     }
 
+    @Test
+    @DisplayName("Should return a non-blocking future that maps failures to an error result")
+    void shouldExecuteQueryAsynchronously() {
+        CompletableFuture<QueryResult> pending = new CompletableFuture<>();
+        when(queryManager.executeQueryById(4L, null, QueryPriority.NORMAL, null)).thenReturn(pending);
+
+        CompletableFuture<QueryResult> result = service.executeQueryByIdAsync(4L);
+        assertFalse(result.isDone());
+
+        pending.completeExceptionally(new IllegalStateException("db down"));
+        assertEquals("error", result.join().getHeaders().get(0));
+    }
+
     @Test
     @DisplayName("Should get query execution by id")
     void shouldGetQueryExecution() {
@@ -0,0 +1,121 @@
+package org.task.jetbrainstask.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.QueryStatus;
+import org.task.jetbrainstask.models.QueryStatusEvent;
+import org.task.jetbrainstask.service.implementations.QueryStatusBroadcasterImpl;
+import org.task.jetbrainstask.service.interfaces.QueryManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("QueryStatusBroadcaster Tests")
+class QueryStatusBroadcasterTest {
+
+    private QueryManager queryManager;
+    private QueryStatusBroadcasterImpl broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        queryManager = mock(QueryManager.class);
+        broadcaster = new QueryStatusBroadcasterImpl(queryManager, Runnable::run, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    @DisplayName("One subscription should stay open until every id reaches a final status")
+    void shouldCoverManyIds() throws Exception {
+        when(queryManager.getStatusEvent(1L)).thenReturn(event(1L, QueryStatus.RUNNING));
+        when(queryManager.getStatusEvent(2L)).thenReturn(event(2L, QueryStatus.RUNNING));
+
+        SseEmitter emitter = broadcaster.subscribe(List.of(1L, 2L));
+        assertEquals(1, broadcaster.getSubscriberCount());
+
+        broadcaster.onStatusEvent(event(1L, QueryStatus.TO_BE_SEEN));
+        assertEquals(1, broadcaster.getSubscriberCount());
+        emitter.send("still open");
+
+        broadcaster.onStatusEvent(event(2L, QueryStatus.FAILED));
+        assertEquals(0, broadcaster.getSubscriberCount());
+        assertThrows(IllegalStateException.class, () -> emitter.send("closed"));
+    }
+
+    @Test
+    @DisplayName("Should complete immediately when every id has already finished")
+    void shouldCompleteForFinishedQueries() {
+        when(queryManager.getStatusEvent(3L)).thenReturn(event(3L, QueryStatus.COMPLETED));
+
+        SseEmitter emitter = broadcaster.subscribe(List.of(3L));
+
+        assertEquals(0, broadcaster.getSubscriberCount());
+        assertThrows(IllegalStateException.class, () -> emitter.send("closed"));
+    }
+
+    @Test
+    @DisplayName("Should ignore events for ids nobody subscribed to")
+    void shouldIgnoreUnsubscribedIds() throws Exception {
+        when(queryManager.getStatusEvent(4L)).thenReturn(event(4L, QueryStatus.READY));
+
+        SseEmitter emitter = broadcaster.subscribe(List.of(4L));
+        broadcaster.onStatusEvent(event(5L, QueryStatus.COMPLETED));
+
+        assertEquals(1, broadcaster.getSubscriberCount());
+        emitter.send("still open");
+    }
+
+    @Test
+    @DisplayName("Should send events on the delivery executor, not on the publishing thread")
+    void shouldDeliverOnExecutor() {
+        List<Runnable> deliveries = new ArrayList<>();
+        QueryStatusBroadcasterImpl deferred = new QueryStatusBroadcasterImpl(queryManager, deliveries::add, Duration.ofMinutes(1), 100);
+        when(queryManager.getStatusEvent(7L)).thenReturn(event(7L, QueryStatus.RUNNING));
+
+        deferred.subscribe(List.of(7L));
+        deferred.onStatusEvent(event(7L, QueryStatus.COMPLETED));
+
+        assertEquals(1, deliveries.size());
+        assertEquals(1, deferred.getSubscriberCount());
+
+        deliveries.get(0).run();
+
+        assertEquals(0, deferred.getSubscriberCount());
+    }
+
+    @Test
+    @DisplayName("Should drop a subscriber that falls too far behind")
+    void shouldDropSlowSubscriber() {
+        QueryStatusBroadcasterImpl stalled = new QueryStatusBroadcasterImpl(queryManager, task -> { }, Duration.ofMinutes(1), 2);
+        when(queryManager.getStatusEvent(8L)).thenReturn(event(8L, QueryStatus.READY));
+
+        SseEmitter emitter = stalled.subscribe(List.of(8L));
+        stalled.onStatusEvent(event(8L, QueryStatus.RUNNING));
+        assertEquals(1, stalled.getSubscriberCount());
+
+        stalled.onStatusEvent(event(8L, QueryStatus.COMPLETED));
+
+        assertEquals(0, stalled.getSubscriberCount());
+        assertThrows(IllegalStateException.class, () -> emitter.send("closed"));
+    }
+
+    @Test
+    @DisplayName("Final event should carry the result")
+    void finalEventShouldCarryResult() {
+        QueryResult result = new QueryResult(6L, List.of("X"), List.of(List.of(1)));
+        QueryStatusEvent event = new QueryStatusEvent(6L, QueryStatus.TO_BE_SEEN, null, result);
+
+        assertTrue(event.isTerminal());
+        assertSame(result, event.getResult());
+        assertFalse(event(6L, QueryStatus.RUNNING).isTerminal());
+    }
+
+    private static QueryStatusEvent event(long id, QueryStatus status) {
+        return new QueryStatusEvent(id, status, null, null);
+    }
+}
@@ -8,7 +8,11 @@ import org.task.jetbrainstask.models.QueryStatus;
 import org.task.jetbrainstask.service.implementations.QueryValidatorImpl;
 import org.task.jetbrainstask.service.interfaces.QueryValidator;
 
+import java.io.Reader;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -328,25 +332,77 @@ class QueryValidatorTest {
     }
 
     @Test
-    @DisplayName("Should reject query with DELETE in string literal (protection)")
-    void shouldRejectDeleteInQuery() {
+    @DisplayName("Should accept DELETE inside a string literal")
+    void shouldAcceptDeleteInStringLiteral() {
         String input = "SELECT * FROM passengers WHERE Name = 'DELETE'";
 
         List<QueryEntry> result = validator.parseAndValidate(input);
 
-        assertEquals(0, result.size());
+        assertEquals(1, result.size());
     }
 
     @Test
-    @DisplayName("Should reject query with UPDATE keyword anywhere")
-    void shouldRejectUpdateKeywordAnywhere() {
-        String input = "SELECT updated_at FROM passengers";
+    @DisplayName("Should accept column names that merely contain a forbidden keyword")
+    void shouldAcceptKeywordInsideColumnName() {
+        String input = "SELECT updated_at, dropped, \"DELETE\" FROM passengers";
+
+        List<QueryEntry> result = validator.parseAndValidate(input);
+
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    @DisplayName("Should reject forbidden keywords hidden behind block comments")
+    void shouldRejectKeywordBehindBlockComment() {
+        String input = "SELECT 1 FROM passengers/**/UNION/**/SELECT 1 FROM (SELECT 1) t WHERE 1 = (/**/DELETE/**/FROM passengers)";
 
         List<QueryEntry> result = validator.parseAndValidate(input);
 
         assertEquals(0, result.size());
     }
 
+    @Test
+    @DisplayName("Should accept WITH queries, set operations and subqueries")
+    void shouldAcceptParsedSelectForms() {
+        String input = """
+                WITH adults AS (SELECT * FROM passengers WHERE Age >= 18)
+                SELECT a.Name, t.Fare FROM adults a LEFT JOIN tickets t ON a.PassengerId = t.PassengerId
+                WHERE EXISTS (SELECT 1 FROM cabins c WHERE c.PassengerId = a.PassengerId)
+                UNION ALL
+                (SELECT Name, 0 FROM crew ORDER BY Name LIMIT 5)
+                ORDER BY 2 DESC
+                FETCH FIRST 10 ROWS ONLY""";
+
+        List<QueryEntry> result = validator.parseAndValidate(input);
+
+        assertEquals(1, result.size());
+        assertEquals(Set.of("PASSENGERS", "TICKETS", "CABINS", "CREW"), result.get(0).getFingerprint().getTables());
+    }
+
+    @Test
+    @DisplayName("Should reject queries the parser does not accept")
+    void shouldRejectUnparseableQueries() {
+        for (String input : List.of(
+                "SELECT * INTO backup FROM passengers",
+                "SELECT * FROM passengers FOR UPDATE",
+                "SELECT * FROM passengers WHERE (Age > 30",
+                "SELECT * FROM passengers) WHERE Age > 30",
+                "SELECT FROM passengers",
+                "SELECT * FROM passengers SELECT * FROM crew",
+                "VALUES (1)")) {
+            assertTrue(validator.parseAndValidate(input).isEmpty(), input);
+        }
+    }
+
+    @Test
+    @DisplayName("Should attach the parsed statement to accepted queries")
+    void shouldAttachParsedStatement() {
+        List<QueryEntry> result = validator.parseAndValidate("SELECT Name FROM passengers p JOIN tickets t ON p.id = t.id");
+
+        assertNotNull(result.get(0).getFingerprint());
+        assertEquals(1, result.get(0).getFingerprint().getStatement().countJoins());
+    }
+
     @Test
     @DisplayName("Should handle large number of queries efficiently")
     void shouldHandleLargeNumberOfQueries() {
@@ -402,4 +458,81 @@ class QueryValidatorTest {
         assertNotNull(result.get(0).getQuery());
         assertNotNull(result.get(0).getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should not split on semicolons inside string literals, quoted identifiers or block comments")
+    void shouldKeepQuotedSemicolons() {
+        String input = "SELECT * FROM passengers WHERE Name = 'Smith; Mr. John';" +
+                "SELECT \"a;b\" FROM passengers /* note; still one query */;" +
+                "SELECT 'it''s; fine' FROM passengers";
+
+        List<QueryEntry> result = validator.parseAndValidate(input);
+
+        assertEquals(3, result.size());
+        assertEquals("SELECT * FROM passengers WHERE Name = 'Smith; Mr. John'", result.get(0).getQuery());
+        assertEquals("SELECT \"a;b\" FROM passengers /* note; still one query */", result.get(1).getQuery());
+        assertEquals("SELECT 'it''s; fine' FROM passengers", result.get(2).getQuery());
+    }
+
+    @Test
+    @DisplayName("Should keep a line comment with a semicolon inside the query it belongs to")
+    void shouldKeepLineCommentWithSemicolon() {
+        String input = "SELECT * FROM passengers -- DROP; SELECT 1\nWHERE Age > 30; SELECT Name FROM passengers";
+
+        List<QueryEntry> result = validator.parseAndValidate(input);
+
+        assertEquals(1, result.size());
+        assertEquals("SELECT Name FROM passengers", result.get(0).getQuery());
+    }
+
+    @Test
+    @DisplayName("Should emit queries while the body is still being read")
+    void shouldStreamQueriesFromReader() {
+        int statements = 20_000;
+        AtomicInteger produced = new AtomicInteger();
+        Reader body = new Reader() {
+            private String pending = "";
+
+            @Override
+            public int read(char[] buffer, int offset, int length) {
+                if (pending.isEmpty()) {
+                    if (produced.get() == statements) {
+                        return -1;
+                    }
+                    pending = "SELECT * FROM passengers WHERE PassengerId = " + produced.getAndIncrement() + ";\n";
+                }
+                int count = Math.min(length, pending.length());
+                pending.getChars(0, count, buffer, offset);
+                pending = pending.substring(count);
+                return count;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        List<Integer> producedWhenEmitted = new ArrayList<>();
+        AtomicInteger accepted = new AtomicInteger();
+
+        validator.parseAndValidate(body, entry -> {
+            if (accepted.getAndIncrement() == 0) {
+                producedWhenEmitted.add(produced.get());
+            }
+        });
+
+        assertEquals(statements, accepted.get());
+        assertTrue(producedWhenEmitted.get(0) < statements, "The first query should be emitted before the body ends");
+    }
+
+    @Test
+    @DisplayName("Should skip queries longer than the limit and keep reading")
+    void shouldSkipOversizedQueries() {
+        QueryValidator bounded = new QueryValidatorImpl(40);
+        String input = "SELECT * FROM passengers WHERE Name = 'far too long for the limit'; SELECT Age FROM passengers";
+
+        List<QueryEntry> result = bounded.parseAndValidate(input);
+
+        assertEquals(1, result.size());
+        assertEquals("SELECT Age FROM passengers", result.get(0).getQuery());
+    }
+}
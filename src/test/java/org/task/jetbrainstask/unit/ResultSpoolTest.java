@@ -0,0 +1,171 @@
+package org.task.jetbrainstask.unit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.SpooledResult;
+import org.task.jetbrainstask.service.implementations.ResultSpoolImpl;
+import org.task.jetbrainstask.service.interfaces.QueryRowHandler;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ResultSpool Tests")
+class ResultSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    private ResultSpoolImpl spool;
+
+    @BeforeEach
+    void setUp() {
+        spool = new ResultSpoolImpl(true, directory, 0, 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        spool.close();
+    }
+
+    @Test
+    @DisplayName("Should read back every supported value type")
+    void shouldRoundTripValues() {
+        Timestamp timestamp = Timestamp.valueOf("2024-05-01 10:15:30.123456789");
+        List<Object> first = Arrays.asList(1, 2L, 3.5, true, "ż", new BigDecimal("22.50"), timestamp,
+                Date.valueOf("2024-05-01"), LocalDate.of(2024, 5, 2));
+        List<Object> second = Arrays.asList(null, null, null, false, "", null, null, null, null);
+        QueryResult result = new QueryResult(1L, List.of("A", "B", "C", "D", "E", "F", "G", "H", "I"),
+                new ArrayList<>(List.of(first, second)));
+
+        SpooledResult handle = spool.spool(result);
+        QueryResult read = spool.read(handle);
+
+        assertEquals(2, handle.getRowCount());
+        assertEquals(result.getHeaders(), read.getHeaders());
+        List<Object> expectedFirst = new ArrayList<>(first);
+        expectedFirst.set(8, "2024-05-02");
+        assertEquals(List.of(expectedFirst, second), read.getData());
+    }
+
+    @Test
+    @DisplayName("Should spool other value types as their string form instead of serializing them")
+    void shouldSpoolOtherTypesAsStrings() {
+        UUID uuid = UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+        List<Object> row = Arrays.asList((short) 7, 1.5f, new BigInteger("12345678901234567890"), uuid);
+        QueryResult result = new QueryResult(1L, List.of("A", "B", "C", "D"), new ArrayList<>(List.of(row)));
+
+        QueryResult read = spool.read(spool.spool(result));
+
+        assertEquals(List.of(Arrays.asList(7, 1.5f, new BigDecimal("12345678901234567890"), uuid.toString())), read.getData());
+    }
+
+    @Test
+    @DisplayName("Should stream rows without materializing them")
+    void shouldStreamRows() {
+        SpooledResult handle = spool.spool(rows(3));
+        List<String> headers = new ArrayList<>();
+        List<Object> ids = new ArrayList<>();
+
+        spool.stream(handle, new QueryRowHandler() {
+            @Override
+            public void onHeaders(List<String> values) {
+                headers.addAll(values);
+            }
+
+            @Override
+            public void onRow(Object[] values) {
+                ids.add(values[0]);
+            }
+        });
+
+        assertEquals(List.of("ID", "NAME"), headers);
+        assertEquals(List.of(0, 1, 2), ids);
+    }
+
+    @Test
+    @DisplayName("Should roll segments and delete them once every result is released")
+    void shouldDeleteReleasedSegments() throws IOException {
+        SpooledResult first = spool.spool(rows(100));
+        SpooledResult second = spool.spool(rows(100));
+
+        assertNotEquals(first.getSegment(), second.getSegment());
+        assertEquals(2, spool.getStatistics().getSegments());
+
+        spool.release(first);
+
+        assertEquals(1, spool.getStatistics().getSegments());
+        assertEquals(1, spool.getStatistics().getSpooledResults());
+        assertEquals(rows(100).getData(), spool.read(second).getData());
+        assertThrows(IllegalStateException.class, () -> spool.read(first));
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(1, files.filter(path -> path.toString().endsWith(".spool")).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should defer deleting a released segment until its reader finishes")
+    void shouldKeepSegmentWhileStreaming() throws IOException {
+        SpooledResult first = spool.spool(rows(100));
+        spool.spool(rows(100));
+        List<Object> ids = new ArrayList<>();
+        List<Long> segmentsDuringRead = new ArrayList<>();
+
+        spool.stream(first, new QueryRowHandler() {
+            @Override
+            public void onHeaders(List<String> values) {
+                spool.release(first);
+                segmentsDuringRead.add(spool.getStatistics().getSegments());
+            }
+
+            @Override
+            public void onRow(Object[] values) {
+                ids.add(values[0]);
+            }
+        });
+
+        assertEquals(List.of(2L), segmentsDuringRead);
+        assertEquals(100, ids.size());
+        assertEquals(1, spool.getStatistics().getSegments());
+        assertThrows(IllegalStateException.class, () -> spool.read(first));
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(1, files.filter(path -> path.toString().endsWith(".spool")).count());
+        }
+    }
+
+    @Test
+    @DisplayName("Should only spool results above the threshold")
+    void shouldRespectThreshold() {
+        ResultSpoolImpl large = new ResultSpoolImpl(true, directory, 1_000_000, 1024);
+        ResultSpoolImpl disabled = new ResultSpoolImpl(false, directory, 0, 1024);
+
+        assertFalse(large.shouldSpool(rows(10)));
+        assertTrue(spool.shouldSpool(rows(10)));
+        assertFalse(spool.shouldSpool(new QueryResult(1L, List.of("A"), List.of())));
+        assertFalse(disabled.shouldSpool(rows(10)));
+    }
+
+    private static QueryResult rows(int count) {
+        List<List<Object>> data = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            data.add(List.of(i, "name-" + i));
+        }
+        return new QueryResult(1L, List.of("ID", "NAME"), data);
+    }
+}
@@ -0,0 +1,213 @@
+package org.task.jetbrainstask.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.task.jetbrainstask.models.QueryControl;
+import org.task.jetbrainstask.models.QueryEntry;
+import org.task.jetbrainstask.models.QueryResult;
+import org.task.jetbrainstask.models.SharedScanStatistics;
+import org.task.jetbrainstask.service.implementations.QueryExecutorImpl;
+import org.task.jetbrainstask.service.implementations.SharedScanExecutorImpl;
+import org.task.jetbrainstask.service.interfaces.QueryExecutor;
+import org.task.jetbrainstask.sql.AggregateQuery;
+import org.task.jetbrainstask.sql.SqlLexer;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@JdbcTest
+@Import(QueryExecutorImpl.class)
+@DisplayName("SharedScanExecutor Tests")
+class SharedScanExecutorTest {
+
+    @Autowired
+    private QueryExecutor queryExecutor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final SharedScanExecutorImpl sharedScans = new SharedScanExecutorImpl(true, 3);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS voyagers (
+                PassengerId INT PRIMARY KEY,
+                Survived BOOLEAN,
+                Pclass INT,
+                Sex VARCHAR(10),
+                Age DECIMAL(3,1),
+                Fare DECIMAL(8,4),
+                Embarked VARCHAR(1)
+            )
+        """);
+        jdbcTemplate.execute("""
+            INSERT INTO voyagers (PassengerId, Survived, Pclass, Sex, Age, Fare, Embarked) VALUES
+            (1, FALSE, 3, 'male', 22, 7.2500, 'S'),
+            (2, TRUE, 1, 'female', 38, 71.2833, 'C'),
+            (3, TRUE, 3, 'female', 26, 7.9250, 'S'),
+            (4, TRUE, 1, 'female', 35, 53.1000, 'S'),
+            (5, FALSE, 3, 'male', 35, 8.0500, 'S'),
+            (6, FALSE, 3, 'male', null, 8.4583, 'Q'),
+            (7, FALSE, 1, 'male', 54, 51.8625, 'S'),
+            (8, FALSE, 3, 'male', 2, 21.0750, 'S'),
+            (9, TRUE, 3, 'female', 27, 11.1333, 'S'),
+            (10, TRUE, 2, 'female', 14, 30.0708, 'C'),
+            (11, TRUE, 3, 'female', 4, 16.7000, null),
+            (12, TRUE, 1, 'female', 58.5, 26.5500, 'S')
+        """);
+    }
+
+    @Test
+    @DisplayName("Should answer every fused query exactly as its own execution would")
+    void shouldMatchIndividualExecution() {
+        List<QueryEntry> entries = entries(
+                "SELECT COUNT(*) FROM voyagers",
+                "SELECT COUNT(*) AS survivors, AVG(Age) FROM voyagers WHERE Survived",
+                "SELECT Pclass, AVG(Fare) avg_fare, MIN(Age), MAX(Fare) FROM voyagers WHERE Sex = 'female' GROUP BY Pclass",
+                "SELECT Sex, Pclass, COUNT(Age), SUM(Fare) FROM voyagers GROUP BY Sex, Pclass",
+                "SELECT Embarked, COUNT(*) FROM voyagers WHERE Age > 30 AND Fare < 60 GROUP BY Embarked",
+                "SELECT SUM(Pclass), AVG(Pclass), MIN(PassengerId) FROM voyagers WHERE Age IS NULL OR Age < 5",
+                "SELECT COUNT(*), SUM(Fare) FROM voyagers WHERE Fare > 1000");
+
+        assertEquals(1, sharedScans.plan(entries).size());
+        Map<Long, QueryResult> fused = sharedScans.execute(entries, new QueryControl(null), queryExecutor);
+
+        assertEquals(entries.size(), fused.size());
+        for (QueryEntry entry : entries) {
+            QueryResult expected = queryExecutor.executeQuery(entry.getQuery());
+            QueryResult actual = fused.get(entry.getId());
+            assertEquals(expected.getHeaders(), actual.getHeaders(), entry.getQuery());
+            assertEquals(sorted(expected.getData()), sorted(actual.getData()), entry.getQuery());
+        }
+
+        SharedScanStatistics statistics = sharedScans.getStatistics();
+        assertEquals(1, statistics.getSharedScans());
+        assertEquals(7, statistics.getFusedQueries());
+        assertEquals(6, statistics.getScansSaved());
+        assertEquals(0, statistics.getFallbacks());
+    }
+
+    @Test
+    @DisplayName("Should return grouped queries without matching rows as empty results")
+    void shouldDropGroupsWithoutMatches() {
+        List<QueryEntry> entries = entries(
+                "SELECT Pclass, COUNT(*) FROM voyagers WHERE Fare > 1000 GROUP BY Pclass",
+                "SELECT COUNT(*) FROM voyagers");
+
+        Map<Long, QueryResult> fused = sharedScans.execute(entries, new QueryControl(null), queryExecutor);
+
+        assertEquals(List.of(), fused.get(0L).getData());
+        assertEquals(queryExecutor.executeQuery(entries.get(0).getQuery()).getHeaders(), fused.get(0L).getHeaders());
+        assertEquals(List.of(List.of(12L)), fused.get(1L).getData());
+    }
+
+    @Test
+    @DisplayName("Should leave queries it cannot describe to individual execution")
+    void shouldFallBackForInvalidQueries() {
+        List<QueryEntry> entries = entries(
+                "SELECT COUNT(*) FROM voyagers",
+                "SELECT SUM(NoSuchColumn) FROM voyagers",
+                "SELECT MAX(Fare) FROM voyagers");
+
+        Map<Long, QueryResult> fused = sharedScans.execute(entries, new QueryControl(null), queryExecutor);
+
+        assertEquals(2, fused.size());
+        assertFalse(fused.containsKey(1L));
+        assertEquals(1, sharedScans.getStatistics().getFallbacks());
+    }
+
+    @Test
+    @DisplayName("Should only plan shared scans for two or more fusable queries on the same table")
+    void shouldPlanFusableQueriesByTable() {
+        List<QueryEntry> entries = entries(
+                "SELECT COUNT(*) FROM voyagers",
+                "SELECT * FROM voyagers",
+                "SELECT Pclass, COUNT(*) FROM voyagers GROUP BY Pclass ORDER BY Pclass",
+                "SELECT AVG(Fare) FROM voyagers WHERE Pclass = 1",
+                "SELECT COUNT(*) FROM crew",
+                "SELECT COUNT(*) FROM voyagers v JOIN crew c ON v.PassengerId = c.Id");
+
+        List<List<QueryEntry>> scans = sharedScans.plan(entries);
+
+        assertEquals(1, scans.size());
+        assertEquals(List.of(0L, 3L), scans.get(0).stream().map(QueryEntry::getId).toList());
+        assertTrue(new SharedScanExecutorImpl(false, 3).plan(entries).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should split a table's queries once their grouping columns exceed the limit")
+    void shouldLimitGroupingColumns() {
+        List<QueryEntry> entries = entries(
+                "SELECT Pclass, COUNT(*) FROM voyagers GROUP BY Pclass",
+                "SELECT Sex, COUNT(*) FROM voyagers GROUP BY Sex",
+                "SELECT Embarked, COUNT(*) FROM voyagers GROUP BY Embarked",
+                "SELECT Survived, COUNT(*) FROM voyagers GROUP BY Survived",
+                "SELECT MAX(Age) FROM voyagers");
+
+        List<List<QueryEntry>> scans = new SharedScanExecutorImpl(true, 2).plan(entries);
+
+        assertEquals(List.of(List.of(0L, 1L), List.of(2L, 3L, 4L)),
+                scans.stream().map(scan -> scan.stream().map(QueryEntry::getId).toList()).toList());
+    }
+
+    @Test
+    @DisplayName("Should parse only single-table aggregates it can rebuild")
+    void shouldParseAggregateSubset() {
+        AggregateQuery query = AggregateQuery.parse(SqlLexer.tokenize(
+                "select Sex, count(*) as n, avg(\"Age\") from Voyagers where Name like 'A; GROUP BY' group by Sex;")).orElseThrow();
+
+        assertEquals("VOYAGERS", query.getTable());
+        assertEquals("Name like 'A; GROUP BY'", query.getPredicate());
+        assertEquals(List.of("Sex"), query.getGroupBy());
+        assertEquals(3, query.getItems().size());
+        assertNull(query.getItems().get(0).getFunction());
+        assertNull(query.getItems().get(1).getColumn());
+        assertEquals(AggregateQuery.Function.AVG, query.getItems().get(2).getFunction());
+        assertEquals("\"Age\"", query.getItems().get(2).getColumn());
+
+        for (String sql : List.of(
+                "SELECT Sex, COUNT(*) FROM voyagers",
+                "SELECT DISTINCT Sex FROM voyagers GROUP BY Sex",
+                "SELECT COUNT(DISTINCT Sex) FROM voyagers",
+                "SELECT COUNT(*) FROM voyagers v",
+                "SELECT COUNT(*) FROM voyagers, crew",
+                "SELECT COUNT(*) FROM voyagers WHERE Age > ?",
+                "SELECT COUNT(*) FROM voyagers WHERE Age > (SELECT AVG(Age) FROM voyagers)",
+                "SELECT Sex, COUNT(*) FROM voyagers GROUP BY Sex HAVING COUNT(*) > 1",
+                "SELECT COUNT(*) FROM voyagers LIMIT 1",
+                "SELECT SUM(Fare * 2) FROM voyagers",
+                "SELECT COUNT(*) FROM voyagers UNION SELECT COUNT(*) FROM crew",
+                "SELECT Name FROM voyagers")) {
+            assertTrue(AggregateQuery.parse(SqlLexer.tokenize(sql)).isEmpty(), sql);
+        }
+    }
+
+    private static List<QueryEntry> entries(String... sql) {
+        List<QueryEntry> entries = new ArrayList<>();
+        for (int i = 0; i < sql.length; i++) {
+            QueryEntry entry = new QueryEntry();
+            entry.setId((long) i);
+            entry.setQuery(sql[i]);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static List<String> sorted(List<List<Object>> rows) {
+        return rows.stream()
+                .map(row -> row.stream().map(value -> value + ":" + (value == null ? null : value.getClass().getSimpleName())).toList())
+                .map(String::valueOf)
+                .sorted(Comparator.naturalOrder())
+                .toList();
+    }
+}